@@ -122,7 +122,7 @@ public class Application extends SpringBootServletInitializer {
         registration.setFilter(cacheFilter());
         registration
             .addUrlPatterns("/fonts/*", "/icons/*", "/script/*", "/scss/*", "/style/*", "/dwr/*",
-                    "/" + ViewName.COVER_ART.value());
+                    "/" + ViewName.COVER_ART.value(), "/" + ViewName.STORYBOARD.value());
         registration.addInitParameter("Cache-Control", "max-age=36000");
         registration.setName("CacheFilter");
         registration.setOrder(5);
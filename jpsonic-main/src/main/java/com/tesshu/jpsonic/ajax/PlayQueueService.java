@@ -46,7 +46,6 @@ import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastEpisode;
 import com.tesshu.jpsonic.persistence.api.repository.InternetRadioDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
-import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
 import com.tesshu.jpsonic.persistence.result.SavedPlayQueue;
 import com.tesshu.jpsonic.service.InternetRadioService;
 import com.tesshu.jpsonic.service.InternetRadioService.InternetRadioSource;
@@ -55,6 +54,7 @@ import com.tesshu.jpsonic.service.LastFmService;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.MusicFolderService;
 import com.tesshu.jpsonic.service.NetworkUtils;
+import com.tesshu.jpsonic.service.PlayQueueStore;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
@@ -90,7 +90,7 @@ public class PlayQueueService {
     private final PodcastService podcastService;
     private final PlaylistService playlistService;
     private final MediaFileDao mediaFileDao;
-    private final PlayQueueDao playQueueDao;
+    private final PlayQueueStore playQueueStore;
     private final InternetRadioDao internetRadioDao;
     private final JWTSecurityService jwtSecurityService;
     private final InternetRadioService internetRadioService;
@@ -100,9 +100,10 @@ public class PlayQueueService {
             PlayerService playerService, JpsonicComparators comparators,
             MediaFileService mediaFileService, LastFmService lastFmService,
             SearchService searchService, RatingService ratingService, PodcastService podcastService,
-            PlaylistService playlistService, MediaFileDao mediaFileDao, PlayQueueDao playQueueDao,
-            InternetRadioDao internetRadioDao, JWTSecurityService jwtSecurityService,
-            InternetRadioService internetRadioService, AjaxHelper ajaxHelper) {
+            PlaylistService playlistService, MediaFileDao mediaFileDao,
+            PlayQueueStore playQueueStore, InternetRadioDao internetRadioDao,
+            JWTSecurityService jwtSecurityService, InternetRadioService internetRadioService,
+            AjaxHelper ajaxHelper) {
         super();
         this.musicFolderService = musicFolderService;
         this.userService = userService;
@@ -115,7 +116,7 @@ public class PlayQueueService {
         this.podcastService = podcastService;
         this.playlistService = playlistService;
         this.mediaFileDao = mediaFileDao;
-        this.playQueueDao = playQueueDao;
+        this.playQueueStore = playQueueStore;
         this.internetRadioDao = internetRadioDao;
         this.jwtSecurityService = jwtSecurityService;
         this.internetRadioService = internetRadioService;
@@ -184,12 +185,12 @@ public class PlayQueueService {
                 : playQueue.getFile(currentSongIndex).getId();
         SavedPlayQueue savedPlayQueue = new SavedPlayQueue(null, resolveUsername(), ids, currentId,
                 positionMillis, now(), "Jpsonic");
-        playQueueDao.savePlayQueue(savedPlayQueue);
+        playQueueStore.savePlayQueue(savedPlayQueue);
     }
 
     public PlayQueueInfo loadPlayQueue() throws ServletRequestBindingException {
         Player player = resolvePlayer();
-        SavedPlayQueue savedPlayQueue = playQueueDao.getPlayQueue(resolveUsername());
+        SavedPlayQueue savedPlayQueue = playQueueStore.getPlayQueue(resolveUsername());
         if (savedPlayQueue == null) {
             return createPlayQueueInfo(player);
         }
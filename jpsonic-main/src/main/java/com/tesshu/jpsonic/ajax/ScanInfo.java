@@ -34,9 +34,10 @@ public class ScanInfo {
     private int phaseMax;
     private String phaseName;
     private int thread;
+    private String pace;
 
     public ScanInfo(boolean scanning, int scanningCount, int phase, int phaseMax, String phaseName,
-            int thread) {
+            int thread, String pace) {
         super();
         this.scanning = scanning;
         this.scanningCount = scanningCount;
@@ -44,10 +45,11 @@ public class ScanInfo {
         this.phaseMax = phaseMax;
         this.phaseName = phaseName;
         this.thread = thread;
+        this.pace = pace;
     }
 
     public ScanInfo(boolean scanning, int scanningCount) {
-        this(scanning, scanningCount, -1, -1, null, -1);
+        this(scanning, scanningCount, -1, -1, null, -1, null);
     }
 
     public boolean isScanning() {
@@ -89,4 +91,12 @@ public class ScanInfo {
     public void setThread(int thread) {
         this.thread = thread;
     }
+
+    public String getPace() {
+        return pace;
+    }
+
+    public void setPace(String pace) {
+        this.pace = pace;
+    }
 }
@@ -54,7 +54,8 @@ public class ScanInfoService {
         return mediaScannerService
             .getScanPhaseInfo()
             .map(phaseInfo -> new ScanInfo(scanning, scanCount, phaseInfo.phase(),
-                    phaseInfo.phaseMax(), phaseInfo.phaseName(), phaseInfo.thread()))
+                    phaseInfo.phaseMax(), phaseInfo.phaseName(), phaseInfo.thread(),
+                    phaseInfo.pace()))
             .orElse(new ScanInfo(scanning, scanCount));
     }
 }
@@ -27,23 +27,25 @@ import java.awt.GradientPaint;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import javax.imageio.ImageIO;
 
@@ -61,23 +63,30 @@ import com.tesshu.jpsonic.persistence.api.entity.Playlist;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastChannel;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
+import com.tesshu.jpsonic.service.ArtworkStore;
+import com.tesshu.jpsonic.service.ArtworkStore.Original;
 import com.tesshu.jpsonic.service.CoverArtPresentation;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
 import com.tesshu.jpsonic.service.metadata.FFmpeg;
 import com.tesshu.jpsonic.service.metadata.ParserUtils;
+import com.tesshu.jpsonic.util.ImageDownscaler;
 import com.tesshu.jpsonic.util.concurrent.ConcurrentUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.jaudiotagger.tag.images.Artwork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.ServletRequestUtils;
@@ -102,6 +111,10 @@ public class CoverArtController implements CoverArtPresentation {
     private final ArtistDao artistDao;
     private final AlbumDao albumDao;
     private final FontLoader fontLoader;
+    private final CoverArtIndexDao coverArtIndexDao;
+    private final ArtworkStore artworkStore;
+    private final ImageCacheService imageCacheService;
+    private final Ehcache playlistCoverCache;
 
     private static final int COVER_ART_CONCURRENCY = 4;
     private final Semaphore semaphore = new Semaphore(COVER_ART_CONCURRENCY);
@@ -110,7 +123,9 @@ public class CoverArtController implements CoverArtPresentation {
 
     public CoverArtController(MediaFileService mediaFileService, FFmpeg ffmpeg,
             PlaylistService playlistService, PodcastService podcastService, ArtistDao artistDao,
-            AlbumDao albumDao, FontLoader fontLoader) {
+            AlbumDao albumDao, FontLoader fontLoader, CoverArtIndexDao coverArtIndexDao,
+            ArtworkStore artworkStore, ImageCacheService imageCacheService,
+            @Qualifier("playlistCoverCache") Ehcache playlistCoverCache) {
         super();
         this.mediaFileService = mediaFileService;
         this.ffmpeg = ffmpeg;
@@ -119,6 +134,10 @@ public class CoverArtController implements CoverArtPresentation {
         this.artistDao = artistDao;
         this.albumDao = albumDao;
         this.fontLoader = fontLoader;
+        this.coverArtIndexDao = coverArtIndexDao;
+        this.artworkStore = artworkStore;
+        this.imageCacheService = imageCacheService;
+        this.playlistCoverCache = playlistCoverCache;
     }
 
     private static void warnLog(String msg, Throwable t) {
@@ -183,11 +202,60 @@ public class CoverArtController implements CoverArtPresentation {
         }
     }
 
+    /*
+     * Uses the modification time indexed at scan time, so that conditional requests
+     * can be answered without accessing the library. The scan keeps it up to date
+     * with the cover art itself, including overwrites that leave the directory
+     * untouched.
+     */
+    long getCoverArtLastModified(Path coverArt) {
+        Instant indexed = coverArtIndexDao.getCoverArtChanged(coverArt.toString());
+        if (indexed != null) {
+            return indexed.toEpochMilli();
+        }
+        try {
+            return Files.getLastModifiedTime(coverArt).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders the cached image of the given cover art in advance, so that the
+     * first request for it is answered from the cache.
+     *
+     * @param id   the cover art id as requested from this controller
+     * @param size the size of the cached image
+     *
+     * @return true if the cached image was rendered, false if it was already up to
+     *         date or the cover art does not exist
+     */
+    public boolean prewarm(@NonNull String id, int size) throws ExecutionException {
+        CoverArtRequest request = createCoverArtRequest(id, 0);
+        if (request == null) {
+            return false;
+        }
+        Path cachePath = getCachePath(request, size);
+        if (isCacheExist(cachePath, request)) {
+            // Counted as an access, so that the images of live albums are retained.
+            imageCacheService.touch(cachePath);
+            return false;
+        }
+        getCachedImage(request, size);
+        return true;
+    }
+
     private CoverArtRequest createCoverArtRequest(HttpServletRequest request) {
         String id = request.getParameter(Attributes.Request.ID.value());
         if (id == null) {
             return null;
         }
+        int offset = ServletRequestUtils
+            .getIntParameter(request, Attributes.Request.OFFSET.value(), 0);
+        return createCoverArtRequest(id, offset);
+    }
+
+    private CoverArtRequest createCoverArtRequest(String id, int offset) {
         if (isAlbumCoverArt(id)) {
             return createAlbumCoverArtRequest(toAlbumId(id));
         }
@@ -198,9 +266,9 @@ public class CoverArtController implements CoverArtPresentation {
             return createPlaylistCoverArtRequest(toPlaylistId(id));
         }
         if (isPodcastCoverArt(id)) {
-            return createPodcastCoverArtRequest(toPodcastId(id), request);
+            return createPodcastCoverArtRequest(toPodcastId(id), offset);
         }
-        return createMediaFileCoverArtRequest(Integer.parseInt(id), request);
+        return createMediaFileCoverArtRequest(Integer.parseInt(id), offset);
     }
 
     private CoverArtRequest createAlbumCoverArtRequest(int id) {
@@ -220,22 +288,20 @@ public class CoverArtController implements CoverArtPresentation {
                         playlist);
     }
 
-    private CoverArtRequest createPodcastCoverArtRequest(int id, HttpServletRequest request) {
+    private CoverArtRequest createPodcastCoverArtRequest(int id, int offset) {
         PodcastChannel channel = podcastService.getChannel(id);
         if (channel == null || channel.getMediaFileId() == null) {
             return new PodcastCoverArtRequest(this, fontLoader, channel);
         }
-        return createMediaFileCoverArtRequest(channel.getMediaFileId(), request);
+        return createMediaFileCoverArtRequest(channel.getMediaFileId(), offset);
     }
 
-    private CoverArtRequest createMediaFileCoverArtRequest(int id, HttpServletRequest request) {
+    private CoverArtRequest createMediaFileCoverArtRequest(int id, int offset) {
         MediaFile mediaFile = mediaFileService.getMediaFile(id);
         if (mediaFile == null) {
             return null;
         }
         if (mediaFile.isVideo()) {
-            int offset = ServletRequestUtils
-                .getIntParameter(request, Attributes.Request.OFFSET.value(), 0);
             return new VideoCoverArtRequest(this, fontLoader, mediaFile, offset);
         }
         return new MediaFileCoverArtRequest(this, fontLoader, mediaFileService, mediaFile);
@@ -300,6 +366,10 @@ public class CoverArtController implements CoverArtPresentation {
     }
 
     private boolean isCacheExist(Path cache, CoverArtRequest request) throws ExecutionException {
+        if (request.getDigest() != null) {
+            // Named after the content, so it is never stale.
+            return Files.exists(cache);
+        }
         try {
             if (Files.exists(cache)
                     && request.lastModified() <= Files.getLastModifiedTime(cache).toMillis()) {
@@ -334,14 +404,27 @@ public class CoverArtController implements CoverArtPresentation {
     }
 
     @SuppressFBWarnings(value = "WEAK_MESSAGE_DIGEST_MD5", justification = "It has nothing to do with security. The chances of a collision are also low enough")
-    private Path getCachedImage(CoverArtRequest request, int size) throws ExecutionException {
-        String encoding = request.getCoverArt() == null ? "png" : "jpeg";
-        Path cachePath = Path
+    private Path getCachePath(CoverArtRequest request, int size) {
+        String digest = request.getDigest();
+        if (digest != null) {
+            return getImageCacheDirectory(size).resolve(digest + "." + getEncoding(request));
+        }
+        return Path
             .of(getImageCacheDirectory(size).toString(),
-                    DigestUtils.md5Hex(request.getKey()) + "." + encoding);
+                    DigestUtils.md5Hex(request.getKey()) + "." + getEncoding(request));
+    }
+
+    private static String getEncoding(CoverArtRequest request) {
+        return request.getCoverArt() == null ? "png" : "jpeg";
+    }
+
+    private Path getCachedImage(CoverArtRequest request, int size) throws ExecutionException {
+        String encoding = getEncoding(request);
+        Path cachePath = getCachePath(request, size);
 
         // Use cache if enabled (It's already created)
         if (isCacheExist(cachePath, request)) {
+            imageCacheService.touch(cachePath);
             return cachePath;
         }
 
@@ -356,6 +439,8 @@ public class CoverArtController implements CoverArtPresentation {
 
         // Create cache if it does not exist
         try {
+            // Composites use other cached images, which are created outside of the limit.
+            request.prepareImage(size);
             // However, the number of simultaneous writes will be limited.
             semaphore.acquire();
             try (OutputStream out = Files.newOutputStream(cachePath)) {
@@ -365,6 +450,7 @@ public class CoverArtController implements CoverArtPresentation {
                 semaphore.release();
                 releaseCacheWriting(cachePath);
             }
+            imageCacheService.written(cachePath);
         } catch (InterruptedException e) {
             FileOperations.deleteIfExists(cachePath);
         } catch (IOException e) {
@@ -374,6 +460,47 @@ public class CoverArtController implements CoverArtPresentation {
         return cachePath;
     }
 
+    /*
+     * Returns the scaled image from its cache, so that composites do not decode the
+     * originals of their tiles.
+     */
+    BufferedImage getCachedTile(CoverArtRequest request, int size) {
+        try {
+            BufferedImage image = ImageIO.read(getCachedImage(request, size).toFile());
+            if (image != null) {
+                return image;
+            }
+        } catch (ExecutionException | IOException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("The cached tile cannot be read: {}", e.getMessage());
+            }
+        }
+        return request.createImage(size);
+    }
+
+    /*
+     * The albums of the tiles are looked up once for each change of the playlist,
+     * as it reads all the files of the playlist.
+     */
+    List<MediaFile> getPlaylistTileAlbums(Playlist playlist,
+            Supplier<List<MediaFile>> lookup) {
+        String key = playlist.getId() + ":" + playlist.getChanged().toEpochMilli();
+        Element element = playlistCoverCache.get(key);
+        if (element != null && element.getObjectValue() instanceof List<?> ids) {
+            List<MediaFile> albums = ids
+                .stream()
+                .map(id -> mediaFileService.getMediaFile((Integer) id))
+                .filter(Objects::nonNull)
+                .toList();
+            if (albums.size() == ids.size()) {
+                return albums;
+            }
+        }
+        List<MediaFile> albums = lookup.get();
+        playlistCoverCache.put(new Element(key, albums.stream().map(MediaFile::getId).toList()));
+        return albums;
+    }
+
     /**
      * Returns an input stream to the image in the given file. If the file is an
      * audio file, the embedded album art is returned.
@@ -413,13 +540,47 @@ public class CoverArtController implements CoverArtPresentation {
             return Pair.of(is, mimeType);
         }
 
-        Optional<Artwork> op = ParserUtils.getEmbeddedArtwork(path);
-        if (op.isEmpty()) {
-            throw new ExecutionException(new IOException("Embeded image cannot be read: " + path));
+        Original original = getOriginal(path);
+        try {
+            return Pair.of(Files.newInputStream(original.path()), original.mimeType());
+        } catch (IOException e) {
+            throw new ExecutionException("Image cannot be read: " + original.path(), e);
         }
+    }
+
+    /**
+     * Returns the original of the cover art from the artwork store. Embedded
+     * artwork is extracted only once for the same content.
+     */
+    @NonNull
+    Original getOriginal(Path coverArt) throws ExecutionException {
+        Optional<Original> original;
+        try {
+            original = artworkStore.getOriginal(coverArt, getCoverArtLastModified(coverArt));
+        } catch (IOException e) {
+            throw new ExecutionException("Image cannot be read: " + coverArt, e);
+        } catch (UncheckedIOException e) {
+            throw new ExecutionException("Image cannot be read: " + coverArt, e.getCause());
+        }
+        return original
+            .orElseThrow(() -> new ExecutionException(
+                    new IOException("Embeded image cannot be read: " + coverArt)));
+    }
 
-        Artwork artwork = op.get();
-        return Pair.of(new ByteArrayInputStream(artwork.getBinaryData()), artwork.getMimeType());
+    /*
+     * Returns null if the cover art cannot be read. In that case the cached image
+     * falls back to the key of the request, and is created from the auto cover.
+     */
+    @Nullable
+    String resolveDigest(Path coverArt) {
+        try {
+            return getOriginal(coverArt).digest();
+        } catch (ExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("The digest of {} cannot be resolved: {}", coverArt, e.getMessage());
+            }
+            return null;
+        }
     }
 
     @Nullable
@@ -435,37 +596,8 @@ public class CoverArtController implements CoverArtPresentation {
         return dir;
     }
 
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops") // (BufferedImage) Not reusable
     public static BufferedImage scale(BufferedImage image, int width, int height) {
-
-        int w = image.getWidth();
-        int h = image.getHeight();
-        BufferedImage thumb = image;
-
-        // For optimal results, use step by step bilinear resampling - halfing the size
-        // at each step.
-        do {
-            w /= 2;
-            h /= 2;
-            if (w < width) {
-                w = width;
-            }
-            if (h < height) {
-                h = height;
-            }
-
-            BufferedImage temp = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2 = temp.createGraphics();
-            g2
-                .setRenderingHint(RenderingHints.KEY_INTERPOLATION,
-                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g2.drawImage(thumb, 0, 0, temp.getWidth(), temp.getHeight(), null);
-            g2.dispose();
-
-            thumb = temp;
-        } while (w != width);
-
-        return thumb;
+        return ImageDownscaler.scale(image, width, height);
     }
 
     private abstract static class CoverArtRequest implements CoverArtPresentation {
@@ -473,6 +605,8 @@ public class CoverArtController implements CoverArtPresentation {
         protected final CoverArtController controller;
         protected final FontLoader fontLoader;
         protected Path coverArt;
+        private String digest;
+        private boolean digestResolved;
 
         private CoverArtRequest(CoverArtController controller, FontLoader fontLoader,
                 String coverArtPath) {
@@ -489,12 +623,42 @@ public class CoverArtController implements CoverArtPresentation {
 
         abstract String getKey();
 
-        long getLastModified(Path path) {
-            try {
-                return Files.getLastModifiedTime(path).toMillis();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+        /*
+         * Whether the image is created only from the content of the cover art, so
+         * that it can be shared by all requests for the same content.
+         */
+        boolean isContentAddressed() {
+            return coverArt != null;
+        }
+
+        @Nullable
+        String getDigest() {
+            if (!digestResolved) {
+                digest = resolveDigest();
+                digestResolved = true;
             }
+            return digest;
+        }
+
+        /*
+         * Returns the digest that names the cached image, or null to name it after the
+         * key.
+         */
+        @Nullable
+        String resolveDigest() {
+            return isContentAddressed() ? controller.resolveDigest(coverArt) : null;
+        }
+
+        /*
+         * Called before the image is created, outside of the limit of concurrent
+         * creations.
+         */
+        void prepareImage(int size) {
+            // Nothing to prepare by default
+        }
+
+        long getLastModified(Path path) {
+            return controller.getCoverArtLastModified(path);
         }
 
         abstract long lastModified();
@@ -503,7 +667,7 @@ public class CoverArtController implements CoverArtPresentation {
             if (coverArt != null) {
                 try (InputStream in = controller.getImageInputStream(coverArt)) {
 
-                    BufferedImage image = ImageIO.read(in);
+                    BufferedImage image = ImageDownscaler.read(in, size, size);
                     if (image == null) {
                         warnLog("Empty Image? :{}", coverArt.toString());
                     } else {
@@ -605,12 +769,24 @@ public class CoverArtController implements CoverArtPresentation {
         }
     }
 
+    /**
+     * The cover art of a playlist is a mosaic of the cover art of its first four
+     * albums, or the cover art of its first album if it has fewer.
+     *
+     * <p>
+     * The cached image is named after the digest of its tiles, so that it is
+     * created again only when the tiles change, not on every change of the
+     * playlist. The tiles are drawn from the cached images of the albums.
+     */
     static class PlaylistCoverArtRequest extends CoverArtRequest {
 
         private static final int IMAGE_COMPOSITES_THRESHOLD = 4;
+        private static final String VERSION_PREFIX = "playlist";
         private final MediaFileService mediaFileService;
         private final PlaylistService playlistService;
         private final Playlist playlist;
+        private List<MediaFile> tileAlbums;
+        private List<BufferedImage> tiles;
 
         PlaylistCoverArtRequest(CoverArtController controller, FontLoader fontLoader,
                 MediaFileService mediaFileService, PlaylistService playlistService,
@@ -642,47 +818,81 @@ public class CoverArtController implements CoverArtPresentation {
         }
 
         @Override
-        public BufferedImage createImage(int size) {
-            List<MediaFile> albums = getRepresentativeAlbums();
+        String resolveDigest() {
+            List<MediaFile> albums = getTileAlbums();
             if (albums.isEmpty()) {
+                return null;
+            }
+            StringBuilder version = new StringBuilder(VERSION_PREFIX);
+            for (MediaFile album : albums) {
+                CoverArtRequest tile = createTileRequest(album);
+                String digest = tile.getDigest();
+                version
+                    .append('|')
+                    .append(digest == null ? tile.getKey() + ":" + tile.lastModified() : digest);
+            }
+            return DigestUtils.sha256Hex(version.toString());
+        }
+
+        @Override
+        void prepareImage(int size) {
+            List<MediaFile> albums = getTileAlbums();
+            int tileSize = albums.size() < IMAGE_COMPOSITES_THRESHOLD ? size : size / 2;
+            tiles = albums
+                .stream()
+                .map(album -> controller.getCachedTile(createTileRequest(album), tileSize))
+                .toList();
+        }
+
+        @Override
+        public BufferedImage createImage(int size) {
+            if (tiles == null) {
+                prepareImage(size);
+            }
+            if (tiles.isEmpty()) {
                 return createAutoCover(size, size);
             }
-            if (albums.size() < IMAGE_COMPOSITES_THRESHOLD) {
-                return new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService,
-                        albums.get(0))
-                    .createImage(size);
+            if (tiles.size() < IMAGE_COMPOSITES_THRESHOLD) {
+                return tiles.get(0);
             }
 
             BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
             Graphics2D graphics = image.createGraphics();
 
             int half = size / 2;
-            graphics
-                .drawImage(new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService,
-                        albums.get(0))
-                    .createImage(half), null, 0, 0);
-            graphics
-                .drawImage(new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService,
-                        albums.get(1))
-                    .createImage(half), null, half, 0);
-            graphics
-                .drawImage(new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService,
-                        albums.get(2))
-                    .createImage(half), null, 0, half);
-            graphics
-                .drawImage(new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService,
-                        albums.get(3))
-                    .createImage(half), null, half, half);
+            graphics.drawImage(tiles.get(0), null, 0, 0);
+            graphics.drawImage(tiles.get(1), null, half, 0);
+            graphics.drawImage(tiles.get(2), null, 0, half);
+            graphics.drawImage(tiles.get(3), null, half, half);
             graphics.dispose();
             return image;
         }
 
+        private CoverArtRequest createTileRequest(MediaFile album) {
+            return new MediaFileCoverArtRequest(controller, fontLoader, mediaFileService, album);
+        }
+
+        private List<MediaFile> getTileAlbums() {
+            if (tileAlbums == null) {
+                List<MediaFile> albums = controller
+                    .getPlaylistTileAlbums(playlist, this::getRepresentativeAlbums);
+                tileAlbums = albums.size() < IMAGE_COMPOSITES_THRESHOLD
+                        ? albums.subList(0, Math.min(1, albums.size()))
+                        : albums.subList(0, IMAGE_COMPOSITES_THRESHOLD);
+            }
+            return tileAlbums;
+        }
+
         private List<MediaFile> getRepresentativeAlbums() {
             Set<MediaFile> albums = new LinkedHashSet<>();
             for (MediaFile song : playlistService.getFilesInPlaylist(playlist.getId())) {
                 MediaFile album = mediaFileService.getParentOf(song);
                 if (album != null && !mediaFileService.isRoot(album)) {
                     albums.add(album);
+                    if (albums.size() == IMAGE_COMPOSITES_THRESHOLD) {
+                        // No more tiles are drawn
+                        break;
+                    }
                 }
             }
             return new ArrayList<>(albums);
@@ -779,6 +989,12 @@ public class CoverArtController implements CoverArtPresentation {
             return createAutoCover(width, height);
         }
 
+        @Override
+        boolean isContentAddressed() {
+            // The image is a frame of the video at the offset.
+            return false;
+        }
+
         @Override
         public String getKey() {
             return mediaFile.getPathString() + "/" + offset;
@@ -26,9 +26,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.io.IOException;
 import java.time.Instant;
-import java.util.Collections;
 import java.util.Date;
-import java.util.List;
 
 import com.tesshu.jpsonic.feature.theme.ChartColor;
 import com.tesshu.jpsonic.service.StatusService;
@@ -81,31 +79,15 @@ public class StatusChartController {
         this.fontLoader = fontLoader;
     }
 
-    private List<TransferStatus> getStatuses(String type) {
-        List<TransferStatus> statuses = Collections.emptyList();
-        if ("stream".equals(type)) {
-            statuses = statusService.getAllStreamStatuses();
-        } else if ("download".equals(type)) {
-            statuses = statusService.getAllDownloadStatuses();
-        } else if ("upload".equals(type)) {
-            statuses = statusService.getAllUploadStatuses();
-        }
-        return statuses;
-    }
-
     @SuppressWarnings({ "PMD.AvoidInstantiatingObjectsInLoops", "PMD.UselessParentheses" })
     @GetMapping
     public ModelAndView handleRequest(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
-        String type = request.getParameter(Attributes.Request.TYPE.value());
-        List<TransferStatus> statuses = getStatuses(type);
-
-        int index = ServletRequestUtils
-            .getIntParameter(request, Attributes.Request.INDEX.value(), 0);
-        if (index < 0 || index >= statuses.size()) {
+        long id = ServletRequestUtils.getLongParameter(request, Attributes.Request.ID.value(), -1);
+        TransferStatus status = statusService.getTransferStatus(id);
+        if (status == null) {
             return null;
         }
-        TransferStatus status = statuses.get(index);
 
         TimeSeries series = new TimeSeries("Kbps");
         TransferStatus.SampleHistory history = status.getHistory();
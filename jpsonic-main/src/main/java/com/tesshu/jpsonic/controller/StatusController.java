@@ -26,11 +26,17 @@ import java.util.List;
 import java.util.Locale;
 
 import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import com.tesshu.jpsonic.infrastructure.db.ConnectionPoolMetrics;
 import com.tesshu.jpsonic.infrastructure.filesystem.PathInspector;
 import com.tesshu.jpsonic.persistence.api.entity.Player;
+import com.tesshu.jpsonic.persistence.base.SqlMetrics;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
+import com.tesshu.jpsonic.service.TranscodeScheduler.Job;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.service.scanner.CoverArtPrewarmService;
 import com.tesshu.jpsonic.util.LegacyMap;
 import com.tesshu.jpsonic.util.StringUtil;
 import jakarta.servlet.http.HttpServletRequest;
@@ -50,14 +56,28 @@ import org.springframework.web.servlet.support.RequestContextUtils;
 public class StatusController {
 
     private static final long LIMIT_OF_HISTORY_TO_BE_PRESENTED = 60L;
+    private static final int LIMIT_OF_STATEMENTS_TO_BE_PRESENTED = 20;
 
     private final UserService userService;
     private final StatusService statusService;
-
-    public StatusController(UserService userService, StatusService statusService) {
+    private final TranscodeScheduler transcodeScheduler;
+    private final CoverArtPrewarmService coverArtPrewarmService;
+    private final ImageCacheService imageCacheService;
+    private final SqlMetrics sqlMetrics;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    public StatusController(UserService userService, StatusService statusService,
+            TranscodeScheduler transcodeScheduler, CoverArtPrewarmService coverArtPrewarmService,
+            ImageCacheService imageCacheService, SqlMetrics sqlMetrics,
+            ConnectionPoolMetrics connectionPoolMetrics) {
         super();
         this.userService = userService;
         this.statusService = statusService;
+        this.transcodeScheduler = transcodeScheduler;
+        this.coverArtPrewarmService = coverArtPrewarmService;
+        this.imageCacheService = imageCacheService;
+        this.sqlMetrics = sqlMetrics;
+        this.connectionPoolMetrics = connectionPoolMetrics;
     }
 
     @GetMapping
@@ -70,24 +90,27 @@ public class StatusController {
         Locale locale = RequestContextUtils.getLocale(request);
         List<TransferStatusHolder> transferStatuses = new ArrayList<>();
 
-        for (int i = 0; i < streamStatuses.size(); i++) {
-            long minutesAgo = streamStatuses.get(i).getMillisSinceLastUpdate() / 1000L / 60L;
+        for (TransferStatus streamStatus : streamStatuses) {
+            long minutesAgo = streamStatus.getMillisSinceLastUpdate() / 1000L / 60L;
             if (minutesAgo < LIMIT_OF_HISTORY_TO_BE_PRESENTED) {
                 transferStatuses
-                    .add(new TransferStatusHolder(streamStatuses.get(i), true, false, false, i,
-                            locale));
+                    .add(new TransferStatusHolder(streamStatus, true, false, false, locale));
             }
         }
-        for (int i = 0; i < downloadStatuses.size(); i++) {
+        for (TransferStatus downloadStatus : downloadStatuses) {
             transferStatuses
-                .add(new TransferStatusHolder(downloadStatuses.get(i), false, true, false, i,
-                        locale));
+                .add(new TransferStatusHolder(downloadStatus, false, true, false, locale));
         }
-        for (int i = 0; i < uploadStatuses.size(); i++) {
+        for (TransferStatus uploadStatus : uploadStatuses) {
             transferStatuses
-                .add(new TransferStatusHolder(uploadStatuses.get(i), false, false, true, i,
-                        locale));
+                .add(new TransferStatusHolder(uploadStatus, false, false, true, locale));
         }
+        List<TranscodeJobHolder> transcodeJobs = transcodeScheduler
+            .getJobs()
+            .stream()
+            .map(TranscodeJobHolder::new)
+            .toList();
+
         return new ModelAndView("status", "model",
                 LegacyMap
                     .of("brand", EnvironmentProvider.getInstance().getBrand(), "admin",
@@ -95,7 +118,14 @@ public class StatusController {
                                 .isAdmin(userService.getCurrentUserStrict(request).getUsername()),
                             "transferStatuses", transferStatuses, "chartWidth",
                             StatusChartController.IMAGE_WIDTH, "chartHeight",
-                            StatusChartController.IMAGE_HEIGHT));
+                            StatusChartController.IMAGE_HEIGHT, "transcodeJobs", transcodeJobs,
+                            "transcodeMaxConcurrency", transcodeScheduler.getMaxConcurrency(),
+                            "bandwidthRates", statusService.getBandwidthRates(),
+                            "coverArtPrewarm", coverArtPrewarmService.getProgress().orElse(null),
+                            "imageCache", imageCacheService.getUsage().orElse(null),
+                            "sqlStatements",
+                            sqlMetrics.getStatements(LIMIT_OF_STATEMENTS_TO_BE_PRESENTED),
+                            "connectionPools", connectionPoolMetrics.getPools()));
     }
 
     public static class TransferStatusHolder {
@@ -103,16 +133,14 @@ public class StatusController {
         private final boolean stream;
         private final boolean download;
         private final boolean upload;
-        private final int index;
         private final Locale locale;
 
         TransferStatusHolder(TransferStatus transferStatus, boolean isStream, boolean isDownload,
-                boolean isUpload, int index, Locale locale) {
+                boolean isUpload, Locale locale) {
             this.transferStatus = transferStatus;
             this.stream = isStream;
             this.download = isDownload;
             this.upload = isUpload;
-            this.index = index;
             this.locale = locale;
         }
 
@@ -128,8 +156,8 @@ public class StatusController {
             return upload;
         }
 
-        public int getIndex() {
-            return index;
+        public long getId() {
+            return transferStatus.getId();
         }
 
         public Player getPlayer() {
@@ -155,4 +183,34 @@ public class StatusController {
         }
     }
 
+    public static class TranscodeJobHolder {
+        private final String priority;
+        private final boolean running;
+        private final long waitMillis;
+        private final String path;
+
+        TranscodeJobHolder(Job job) {
+            this.priority = job.getPriority().name();
+            this.running = job.isRunning();
+            this.waitMillis = job.getWaitMillis();
+            this.path = job.getPath() == null ? null : PathInspector.toIdentityName(job.getPath());
+        }
+
+        public String getPriority() {
+            return priority;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
 }
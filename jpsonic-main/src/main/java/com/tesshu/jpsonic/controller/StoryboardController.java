@@ -0,0 +1,109 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.service.MediaFileService;
+import com.tesshu.jpsonic.service.StoryboardService;
+import com.tesshu.jpsonic.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.ServletRequestBindingException;
+import org.springframework.web.bind.ServletRequestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Controller which sends the storyboard of a video: the WebVTT track if the
+ * format is vtt, otherwise the sprite sheet the track refers to.
+ *
+ * @see StoryboardService
+ */
+@Controller
+@RequestMapping("/storyboard.view")
+public class StoryboardController {
+
+    static final String FORMAT_VTT = "vtt";
+
+    private final MediaFileService mediaFileService;
+    private final LibraryAccessPolicy libraryAccessPolicy;
+    private final UserService userService;
+    private final StoryboardService storyboardService;
+
+    public StoryboardController(MediaFileService mediaFileService,
+            LibraryAccessPolicy libraryAccessPolicy, UserService userService,
+            StoryboardService storyboardService) {
+        super();
+        this.mediaFileService = mediaFileService;
+        this.libraryAccessPolicy = libraryAccessPolicy;
+        this.userService = userService;
+        this.storyboardService = storyboardService;
+    }
+
+    @GetMapping
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response)
+            throws ServletRequestBindingException, IOException {
+
+        int id = ServletRequestUtils
+            .getRequiredIntParameter(request, Attributes.Request.ID.value());
+        MediaFile video = mediaFileService.getMediaFile(id);
+        if (video == null || !video.isVideo()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String username = userService.getCurrentUsernameStrict(request);
+        if (!libraryAccessPolicy.isFolderAccessAllowed(video, username)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        boolean vtt = FORMAT_VTT
+            .equals(request.getParameter(Attributes.Request.FORMAT.value()));
+        Path path = vtt ? storyboardService.getTrack(video) : storyboardService.getSprite(video);
+        if (path == null) {
+            // Not created yet. Previews will be available on the next play.
+            storyboardService.prepare(video);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        if (new ServletWebRequest(request, response).checkNotModified(lastModified)) {
+            return;
+        }
+        response.setContentType(vtt ? "text/vtt" : "image/jpeg");
+        if (vtt) {
+            response.setCharacterEncoding("UTF-8");
+        }
+        response.setContentLengthLong(Files.size(path));
+        try (InputStream in = Files.newInputStream(path)) {
+            IOUtils.copy(in, response.getOutputStream());
+        }
+    }
+}
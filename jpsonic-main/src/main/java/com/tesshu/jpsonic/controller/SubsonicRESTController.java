@@ -67,7 +67,6 @@ import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
-import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
 import com.tesshu.jpsonic.persistence.core.entity.User;
 import com.tesshu.jpsonic.persistence.core.entity.UserSettings;
 import com.tesshu.jpsonic.persistence.param.ShuffleSelectionParam;
@@ -81,6 +80,7 @@ import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.MediaScannerService;
 import com.tesshu.jpsonic.service.MusicFolderService;
 import com.tesshu.jpsonic.service.MusicIndexService;
+import com.tesshu.jpsonic.service.PlayQueueStore;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
@@ -221,7 +221,7 @@ public class SubsonicRESTController implements CoverArtPresentation {
     private final ArtistDao artistDao;
     private final AlbumDao albumDao;
     private final BookmarkService bookmarkService;
-    private final PlayQueueDao playQueueDao;
+    private final PlayQueueStore playQueueStore;
     private final MediaScannerService mediaScannerService;
     private final AirsonicLocaleResolver airsonicLocaleResolver;
     private final HttpSearchCriteriaDirector director;
@@ -243,7 +243,7 @@ public class SubsonicRESTController implements CoverArtPresentation {
             RatingService ratingService, SearchService searchService,
             InternetRadioService internetRadioService, MediaFileDao mediaFileDao,
             ArtistDao artistDao, AlbumDao albumDao, BookmarkService bookmarkService,
-            PlayQueueDao playQueueDao, MediaScannerService mediaScannerService,
+            PlayQueueStore playQueueStore, MediaScannerService mediaScannerService,
             AirsonicLocaleResolver airsonicLocaleResolver, HttpSearchCriteriaDirector director) {
         super();
         this.settingsFacade = settingsFacade;
@@ -277,7 +277,7 @@ public class SubsonicRESTController implements CoverArtPresentation {
         this.artistDao = artistDao;
         this.albumDao = albumDao;
         this.bookmarkService = bookmarkService;
-        this.playQueueDao = playQueueDao;
+        this.playQueueStore = playQueueStore;
         this.mediaScannerService = mediaScannerService;
         this.airsonicLocaleResolver = airsonicLocaleResolver;
         this.director = director;
@@ -2102,7 +2102,7 @@ public class SubsonicRESTController implements CoverArtPresentation {
             throws ServletRequestBindingException {
         HttpServletRequest request = wrapRequest(req);
         String username = userService.getCurrentUsername(request);
-        SavedPlayQueue playQueue = playQueueDao.getPlayQueue(username);
+        SavedPlayQueue playQueue = playQueueStore.getPlayQueue(username);
         if (playQueue == null) {
             writeEmptyResponse(request, response);
             return;
@@ -2152,7 +2152,7 @@ public class SubsonicRESTController implements CoverArtPresentation {
 
         SavedPlayQueue playQueue = new SavedPlayQueue(null, username, mediaFileIds, current,
                 position, changed, changedBy);
-        playQueueDao.savePlayQueue(playQueue);
+        playQueueStore.savePlayQueue(playQueue);
         writeEmptyResponse(request, response);
     }
 
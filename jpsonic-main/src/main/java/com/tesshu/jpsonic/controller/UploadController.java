@@ -29,7 +29,6 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.GeneralSecurityException;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -42,14 +41,15 @@ import java.util.zip.ZipFile;
 import com.tesshu.jpsonic.SuppressLint;
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
 import com.tesshu.jpsonic.infrastructure.filesystem.FileOperations;
-import com.tesshu.jpsonic.infrastructure.settings.SKeys;
-import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.persistence.core.entity.User;
+import com.tesshu.jpsonic.service.BandwidthShaper;
+import com.tesshu.jpsonic.service.BandwidthShaper.TransferType;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.ScannerStateService;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.util.BufferPool;
 import com.tesshu.jpsonic.util.LegacyMap;
 import com.tesshu.jpsonic.util.StringUtil;
 import com.tesshu.jpsonic.util.concurrent.ConcurrentUtils;
@@ -89,18 +89,18 @@ public class UploadController {
     private final UserService userService;
     private final PlayerService playerService;
     private final StatusService statusService;
-    private final SettingsFacade settingsFacade;
+    private final BandwidthShaper bandwidthShaper;
     private final ScannerStateService scannerStateService;
 
     public UploadController(LibraryAccessPolicy libraryAccessPolicy, UserService userService,
-            PlayerService playerService, StatusService statusService, SettingsFacade settingsFacade,
-            ScannerStateService scannerStateService) {
+            PlayerService playerService, StatusService statusService,
+            BandwidthShaper bandwidthShaper, ScannerStateService scannerStateService) {
         super();
         this.libraryAccessPolicy = libraryAccessPolicy;
         this.userService = userService;
         this.playerService = playerService;
         this.statusService = statusService;
-        this.settingsFacade = settingsFacade;
+        this.bandwidthShaper = bandwidthShaper;
         this.scannerStateService = scannerStateService;
     }
 
@@ -180,7 +180,8 @@ public class UploadController {
             throws FileUploadException {
         DiskFileItemFactory factory = DiskFileItemFactory.builder().get();
         JakartaServletDiskFileUpload upload = new JakartaServletDiskFileUpload(factory);
-        upload.setProgressListener(new UploadListenerImpl(status, statusService, settingsFacade));
+        BandwidthShaper.Transfer transfer = bandwidthShaper.open(TransferType.UPLOAD, null);
+        upload.setProgressListener(new UploadListenerImpl(status, transfer));
         return upload.parseRequest(request);
     }
 
@@ -312,14 +313,7 @@ public class UploadController {
         List<Path> unzippedFiles = new ArrayList<>();
         try (OutputStream outputStream = Files.newOutputStream(entryFile);
                 InputStream inputStream = zipFile.getInputStream(entry)) {
-            byte[] buf = new byte[8192];
-            while (true) {
-                int n = inputStream.read(buf);
-                if (n == -1) {
-                    break;
-                }
-                outputStream.write(buf, 0, n);
-            }
+            BufferPool.copy(inputStream, outputStream, BufferPool.Type.LOCAL_DISK);
             if (LOG.isInfoEnabled()) {
                 LOG.info("Unzipped " + entryFile);
             }
@@ -336,52 +330,23 @@ public class UploadController {
     private static class UploadListenerImpl implements ProgressListener {
 
         private final TransferStatus status;
-        private final StatusService statusService;
-        private final SettingsFacade settingsFacade;
-        private final long startTime;
-
-        private static final Logger LOG = LoggerFactory.getLogger(UploadListenerImpl.class);
+        private final BandwidthShaper.Transfer transfer;
+        private long bytesRead;
 
-        UploadListenerImpl(TransferStatus status, StatusService statusService,
-                SettingsFacade settingsFacade) {
+        UploadListenerImpl(TransferStatus status, BandwidthShaper.Transfer transfer) {
             this.status = status;
-            this.statusService = statusService;
-            this.settingsFacade = settingsFacade;
-            this.startTime = Instant.now().toEpochMilli();
+            this.transfer = transfer;
         }
 
         @Override
         public void update(long pBytesRead, long pContentLength, int pItems) {
-            long bitCount = pBytesRead * 8L;
-            float elapsedMillis = Math.max(1, Instant.now().toEpochMilli() - startTime);
-            float elapsedSeconds = elapsedMillis / 1000.0F;
-            long maxBitsPerSecond = getBitrateLimit();
-
             status.setBytesTransfered(pBytesRead);
-
-            try {
-                doSleep(maxBitsPerSecond, bitCount, elapsedSeconds);
-            } catch (InterruptedException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn("Failed to sleep.", e);
-                }
+            // Reading is paused while sleeping, which also slows down the client.
+            long delta = pBytesRead - bytesRead;
+            bytesRead = pBytesRead;
+            if (delta > 0) {
+                transfer.acquire(delta);
             }
         }
-
-        private void doSleep(long maxBitsPerSecond, long bitCount, float elapsedSeconds)
-                throws InterruptedException {
-            if (maxBitsPerSecond > 0) {
-                float sleepMillis = bitCount * 1000.0F / (maxBitsPerSecond - elapsedSeconds)
-                        * 1000.0F;
-                if (sleepMillis > 0) {
-                    Thread.sleep((long) sleepMillis);
-                }
-            }
-        }
-
-        private long getBitrateLimit() {
-            return 1024L * this.settingsFacade.get(SKeys.advanced.bandwidth.uploadBitrateLimit)
-                    / Math.max(1, this.statusService.getAllUploadStatuses().size());
-        }
     }
 }
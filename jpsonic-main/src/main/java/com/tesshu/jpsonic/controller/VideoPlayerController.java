@@ -34,6 +34,7 @@ import com.tesshu.jpsonic.persistence.core.entity.UserSettings;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.NetworkUtils;
 import com.tesshu.jpsonic.service.PlayerService;
+import com.tesshu.jpsonic.service.StoryboardService;
 import com.tesshu.jpsonic.service.UserService;
 import com.tesshu.jpsonic.util.LegacyMap;
 import com.tesshu.jpsonic.util.StringUtil;
@@ -65,16 +66,19 @@ public class VideoPlayerController {
     private final UserService userService;
     private final MediaFileService mediaFileService;
     private final PlayerService playerService;
+    private final StoryboardService storyboardService;
 
     public VideoPlayerController(SettingsFacade settingsFacade,
             LibraryAccessPolicy libraryAccessPolicy, UserService userService,
-            MediaFileService mediaFileService, PlayerService playerService) {
+            MediaFileService mediaFileService, PlayerService playerService,
+            StoryboardService storyboardService) {
         super();
         this.settingsFacade = settingsFacade;
         this.libraryAccessPolicy = libraryAccessPolicy;
         this.userService = userService;
         this.mediaFileService = mediaFileService;
         this.playerService = playerService;
+        this.storyboardService = storyboardService;
     }
 
     @GetMapping
@@ -102,6 +106,11 @@ public class VideoPlayerController {
         String coverArtUrl = url + ViewName.COVER_ART.value() + "?id=" + file.getId();
         UserSettings userSettings = userService.getUserSettings(user.getUsername());
 
+        // Seek previews are available from the next play if created now.
+        storyboardService.prepare(file);
+        String storyboardUrl = ViewName.STORYBOARD.value() + "?id=" + file.getId() + "&format="
+                + StoryboardController.FORMAT_VTT;
+
         Map<String, Object> map = LegacyMap.of();
         map.put("dir", parentDir);
         map.put("breadcrumbIndex", userSettings.isBreadcrumbIndex());
@@ -111,6 +120,7 @@ public class VideoPlayerController {
         map.put("remoteStreamUrl", streamUrl);
         map.put("remoteCoverArtUrl", coverArtUrl);
         map.put("duration", duration);
+        map.put("storyboardUrl", storyboardUrl);
         map.put("bitRates", BIT_RATES);
         map.put("defaultBitRate", DEFAULT_BIT_RATE);
         map.put("user", user);
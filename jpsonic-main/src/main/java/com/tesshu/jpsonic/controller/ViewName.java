@@ -49,7 +49,8 @@ public enum ViewName {
     PODCAST_SETTINGS(ViewNameConstants.PODCAST_SETTINGS),
     RANDOM_PLAYQUEUE(ViewNameConstants.RANDOM_PLAYQUEUE),
     SHARE_SETTINGS(ViewNameConstants.SHARE_SETTINGS), STATUS_CHART(ViewNameConstants.STATUS_CHART),
-    TOP(ViewNameConstants.TOP), TRANSCODING_SETTINGS(ViewNameConstants.TRANSCODING_SETTINGS),
+    STORYBOARD(ViewNameConstants.STORYBOARD), TOP(ViewNameConstants.TOP),
+    TRANSCODING_SETTINGS(ViewNameConstants.TRANSCODING_SETTINGS),
     USER_CHART(ViewNameConstants.USER_CHART), USER_SETTINGS(ViewNameConstants.USER_SETTINGS);
 
     private final String v;
@@ -93,6 +94,7 @@ public enum ViewName {
                                                                               // annotation
         public static final String SHARE_SETTINGS = "shareSettings.view";
         public static final String STATUS_CHART = "statusChart.view";
+        public static final String STORYBOARD = "storyboard.view";
         public static final String TOP = "top.view";
         public static final String TRANSCODING_SETTINGS = "transcodingSettings.view";
         public static final String USER_CHART = "userChart.view";
@@ -0,0 +1,268 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+import com.tesshu.jpsonic.util.BufferPool;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an input stream to the response with Servlet async I/O.
+ *
+ * <p>
+ * The blocking copy loops hold a request thread for the whole transfer, which
+ * is hours for a slow client on a long podcast. This writer is registered as
+ * the {@link WriteListener} of the response instead, and the container calls
+ * it back whenever the socket can accept more data. Between callbacks no thread
+ * is held, so a large number of slow clients can be served by the few threads
+ * of the container.
+ *
+ * <p>
+ * Reading is still blocking. It is meant for inputs that return promptly, such
+ * as files and transcoders, which are throttled by the client only through the
+ * pipe.
+ *
+ * <pre>
+ * new AsyncStreamWriter(in, out, response.getOutputStream())
+ *     .setProgress(status::addBytesTransfered)
+ *     .setOnDone(() -&gt; statusService.removeDownloadStatus(status))
+ *     .start(request.startAsync());
+ * </pre>
+ */
+final class AsyncStreamWriter implements WriteListener, AsyncListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncStreamWriter.class);
+
+    /**
+     * Number of bytes written between evaluations of the alive check.
+     */
+    static final long CHECK_INTERVAL = 4096 * 200;
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final ServletOutputStream socket;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private @Nullable Long expectedLength;
+    private long limit = -1;
+    private BooleanSupplier alive = () -> true;
+    private LongConsumer progress = bytes -> {
+    };
+    private Runnable onDone = () -> {
+    };
+
+    private AsyncContext context;
+    private BufferPool.Lease lease;
+    private long written;
+    private long nextCheck = CHECK_INTERVAL;
+    private boolean eof;
+    private long padding;
+
+    /**
+     * @param in     The input to write. Closed when the transfer ends.
+     * @param out    The stream to write to. Either the response stream itself or
+     *               a stream wrapping it, such as {@link RangeOutputStream}. Each
+     *               write to it must result in at most one write to the
+     *               response stream.
+     * @param socket The output stream of the response.
+     */
+    AsyncStreamWriter(@NonNull InputStream in, @NonNull OutputStream out,
+            @NonNull ServletOutputStream socket) {
+        super();
+        this.in = in;
+        this.out = out;
+        this.socket = socket;
+    }
+
+    /**
+     * Sets the length promised in the headers. If the input ends earlier, the
+     * rest is padded so that the client does not see a truncated response.
+     */
+    AsyncStreamWriter setExpectedLength(@Nullable Long expectedLength) {
+        this.expectedLength = expectedLength;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes to write, or -1 for no limit.
+     */
+    AsyncStreamWriter setLimit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the check to end the transfer early, evaluated every
+     * {@link #CHECK_INTERVAL} bytes.
+     */
+    AsyncStreamWriter setAlive(@NonNull BooleanSupplier alive) {
+        this.alive = alive;
+        return this;
+    }
+
+    /**
+     * Sets the callback receiving the number of bytes written on each write.
+     */
+    AsyncStreamWriter setProgress(@NonNull LongConsumer progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Sets the callback run once when the transfer ends, successfully or not.
+     */
+    AsyncStreamWriter setOnDone(@NonNull Runnable onDone) {
+        this.onDone = onDone;
+        return this;
+    }
+
+    /**
+     * Starts the transfer. The request thread may return right after this call.
+     *
+     * @param context As returned by {@code request.startAsync()}.
+     */
+    void start(@NonNull AsyncContext context) {
+        this.context = context;
+        lease = BufferPool.lease(BufferPool.Type.NETWORK);
+        // The transfer ends by itself. Abandoned clients are detected by onError.
+        context.setTimeout(0);
+        context.addListener(this);
+        socket.setWriteListener(this);
+    }
+
+    @Override
+    public void onWritePossible() {
+        try {
+            byte[] buf = lease.get();
+            // Each iteration starts when the socket is ready, and so does finishing
+            while (!done.get() && socket.isReady()) {
+                if (eof) {
+                    if (padding == 0) {
+                        finish(true);
+                        return;
+                    }
+                    int n = (int) Math.min(buf.length, padding);
+                    Arrays.fill(buf, 0, n, (byte) 0xFF);
+                    out.write(buf, 0, n);
+                    padding -= n;
+                    continue;
+                }
+                if (written >= nextCheck) {
+                    nextCheck = written + CHECK_INTERVAL;
+                    if (!alive.getAsBoolean()) {
+                        finish(true);
+                        return;
+                    }
+                }
+                int len = limit < 0 ? buf.length : (int) Math.min(buf.length, limit - written);
+                int n = len == 0 ? -1 : in.read(buf, 0, len);
+                if (n == -1) {
+                    eof = true;
+                    if (expectedLength != null && written < expectedLength) {
+                        padding = expectedLength - written;
+                    }
+                    continue;
+                }
+                out.write(buf, 0, n);
+                written += n;
+                progress.accept(n);
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    private void fail(Throwable t) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Async transfer ended by error. Will happen if the client goes away.", t);
+        }
+        finish(true);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // Completed by the container, such as on shutdown
+        finish(false);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        finish(true);
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        fail(event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // Nothing to do
+    }
+
+    /**
+     * Returns whether the transfer has ended.
+     */
+    boolean isDone() {
+        return done.get();
+    }
+
+    private void finish(boolean complete) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Unable to close the input of the async transfer.", e);
+            }
+        } finally {
+            lease.close();
+            try {
+                onDone.run();
+            } finally {
+                if (complete) {
+                    context.complete();
+                }
+            }
+        }
+    }
+}
@@ -21,47 +21,49 @@
 
 package com.tesshu.jpsonic.feature.stream;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.CRC32;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.function.IntConsumer;
 
 import com.tesshu.jpsonic.SuppressLint;
 import com.tesshu.jpsonic.controller.Attributes;
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
 import com.tesshu.jpsonic.infrastructure.filesystem.PathInspector;
-import com.tesshu.jpsonic.infrastructure.settings.SKeys;
-import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.PlayQueue;
 import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.entity.Playlist;
 import com.tesshu.jpsonic.persistence.core.entity.User;
+import com.tesshu.jpsonic.service.BandwidthShaper;
+import com.tesshu.jpsonic.service.BandwidthShaper.TransferType;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.util.BufferPool;
 import com.tesshu.jpsonic.util.HttpRange;
 import com.tesshu.jpsonic.util.PlayerUtils;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import net.sf.ehcache.Ehcache;
 import org.apache.commons.text.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.ServletRequestUtils;
@@ -81,28 +83,32 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class DownloadController {
 
     private static final Logger LOG = LoggerFactory.getLogger(DownloadController.class);
-    private static final int BITRATE_LIMIT_UPDATE_INTERVAL = 5000;
 
     private final PlayerService playerService;
     private final StatusService statusService;
     private final LibraryAccessPolicy libraryAccessPolicy;
     private final UserService userService;
     private final PlaylistService playlistService;
-    private final SettingsFacade settingsFacade;
+    private final BandwidthShaper bandwidthShaper;
     private final MediaFileService mediaFileService;
+    private final Ehcache zipCrcCache;
+    private final boolean asyncStreaming;
 
     public DownloadController(PlayerService playerService, StatusService statusService,
             LibraryAccessPolicy libraryAccessPolicy, UserService userService,
-            PlaylistService playlistService, SettingsFacade settingsFacade,
-            MediaFileService mediaFileService) {
+            PlaylistService playlistService, BandwidthShaper bandwidthShaper,
+            MediaFileService mediaFileService, @Qualifier("zipCrcCache") Ehcache zipCrcCache,
+            @Value("${AsyncStreaming:false}") boolean asyncStreaming) {
         super();
         this.playerService = playerService;
         this.statusService = statusService;
         this.libraryAccessPolicy = libraryAccessPolicy;
         this.userService = userService;
         this.playlistService = playlistService;
-        this.settingsFacade = settingsFacade;
+        this.bandwidthShaper = bandwidthShaper;
         this.mediaFileService = mediaFileService;
+        this.zipCrcCache = zipCrcCache;
+        this.asyncStreaming = asyncStreaming;
     }
 
     /*
@@ -126,6 +132,7 @@ public class DownloadController {
 
         User user = userService.getCurrentUserStrict(request);
         TransferStatus status = null;
+        boolean async = false;
         try {
 
             status = statusService
@@ -162,12 +169,18 @@ public class DownloadController {
                     return;
                 }
 
-                doDownload(response, status, mediaFile, range, indexes);
+                if (mediaFile.isFile() && isAsync(request, user)) {
+                    startAsyncDownload(request, response, user, status, mediaFile.toPath(),
+                            range);
+                    async = true;
+                    return;
+                }
+                doDownload(request, response, status, mediaFile, range, indexes);
 
             } else if (playlistId != null) {
                 List<MediaFile> songs = playlistService.getFilesInPlaylist(playlistId);
                 Playlist playlist = playlistService.getPlaylistStrict(playlistId);
-                downloadFiles(response, status, songs, null, null, range,
+                downloadFiles(request, response, status, songs, null, null, range,
                         playlist.getName() + ".zip");
 
             } else if (playerId != null) {
@@ -177,20 +190,34 @@ public class DownloadController {
                 }
                 PlayQueue playQueue = player.getPlayQueue();
                 playQueue.setName("Playlist");
-                downloadFiles(response, status, playQueue.getFiles(), indexes, null, range,
-                        "download.zip");
+                downloadFiles(request, response, status, playQueue.getFiles(), indexes, null,
+                        range, "download.zip");
             }
 
         } finally {
-            if (status != null) {
-                statusService.removeDownloadStatus(status);
-                userService.updateUserByteCounts(user, 0L, status.getBytesTransfered(), 0L);
+            if (status != null && !async) {
+                removeDownloadStatus(user, status);
             }
         }
     }
 
-    private void doDownload(HttpServletResponse response, TransferStatus status,
-            MediaFile mediaFile, HttpRange range, int... indexes) throws IOException {
+    private void removeDownloadStatus(User user, TransferStatus status) {
+        statusService.removeDownloadStatus(status);
+        userService.updateUserByteCounts(user, 0L, status.getBytesTransfered(), 0L);
+    }
+
+    /*
+     * Async I/O is used for single files. Downloads with bandwidth limits are
+     * written by the blocking loop, which paces them by sleeping.
+     */
+    private boolean isAsync(HttpServletRequest request, User user) {
+        return asyncStreaming && request.isAsyncSupported()
+                && !bandwidthShaper.open(TransferType.DOWNLOAD, user.getUsername()).isLimited();
+    }
+
+    private void doDownload(HttpServletRequest request, HttpServletResponse response,
+            TransferStatus status, MediaFile mediaFile, HttpRange range, int... indexes)
+            throws IOException {
         if (mediaFile.isFile()) {
             downloadFile(response, status, mediaFile.toPath(), range);
         } else {
@@ -199,7 +226,8 @@ public class DownloadController {
             Path coverArtPath = indexes == null && mediaFile.getCoverArtPathString() != null
                     ? Path.of(mediaFile.getCoverArtPathString())
                     : null;
-            downloadFiles(response, status, children, indexes, coverArtPath, range, zipFileName);
+            downloadFiles(request, response, status, children, indexes, coverArtPath, range,
+                    zipFileName);
         }
     }
 
@@ -228,6 +256,14 @@ public class DownloadController {
     @SuppressLint(value = "PULSE_RESOURCE_LEAK", justification = "Close of response#outputStream is transferred to the container (Servlet API)")
     private void downloadFile(HttpServletResponse response, TransferStatus status, Path path,
             HttpRange range) throws IOException {
+        prepareFileResponse(response, status, path, range);
+        copyFileToStream(path, RangeOutputStream.wrap(response.getOutputStream(), range), status,
+                range);
+        writeLog("Downloaded", PathInspector.toIdentityName(path), status.getPlayer());
+    }
+
+    private void prepareFileResponse(HttpServletResponse response, TransferStatus status,
+            Path path, HttpRange range) throws IOException {
         writeLog("Starting to download", PathInspector.toIdentityName(path), status.getPlayer());
         status.setPathString(path.toString());
 
@@ -242,10 +278,38 @@ public class DownloadController {
         if (range == null) {
             PlayerUtils.setContentLength(response, Files.size(path));
         }
+    }
 
-        copyFileToStream(path, RangeOutputStream.wrap(response.getOutputStream(), range), status,
-                range);
-        writeLog("Downloaded", PathInspector.toIdentityName(path), status.getPlayer());
+    /**
+     * Downloads a single file with Servlet async I/O. The request thread returns
+     * right away, and the rest is written whenever the client can accept it.
+     * Instead of discarding the bytes before the range, the file is read from the
+     * start of the range.
+     */
+    @SuppressWarnings("PMD.CloseResource") // Closed by AsyncStreamWriter
+    private void startAsyncDownload(HttpServletRequest request, HttpServletResponse response,
+            User user, TransferStatus status, Path path, HttpRange range) throws IOException {
+        prepareFileResponse(response, status, path, range);
+        SeekableByteChannel channel = Files.newByteChannel(path);
+        try {
+            if (range != null) {
+                channel.position(range.getFirstBytePos());
+                status.addBytesSkipped(range.getFirstBytePos());
+            }
+            ServletOutputStream socket = response.getOutputStream();
+            Throttle throttle = new Throttle(status);
+            new AsyncStreamWriter(Channels.newInputStream(channel), socket, socket)
+                .setLimit(range == null ? -1 : range.size())
+                .setProgress(bytes -> throttle.accept((int) bytes))
+                .setOnDone(() -> {
+                    writeLog("Downloaded", PathInspector.toIdentityName(path), status.getPlayer());
+                    removeDownloadStatus(user, status);
+                })
+                .start(request.startAsync());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
     }
 
     private String encodeAsRFC5987(String string) {
@@ -270,8 +334,10 @@ public class DownloadController {
 
     /**
      * Downloads the given files. The files are packed together in an uncompressed
-     * zip-file.
+     * zip-file. Each file is read once, and a range of the zip-file can be
+     * requested to resume an interrupted download.
      *
+     * @param request      The HTTP request.
      * @param response     The HTTP response.
      * @param status       The download status.
      * @param files        The files to download.
@@ -283,45 +349,75 @@ public class DownloadController {
      *                     If an I/O error occurs.
      */
     @SuppressLint(value = "PULSE_RESOURCE_LEAK", justification = "Close of response#outputStream is transferred to the container (Servlet API)")
-    private void downloadFiles(HttpServletResponse response, TransferStatus status,
-            List<MediaFile> files, int[] indexes, Path coverArtPath, HttpRange range,
-            String zipFileName) throws IOException {
+    private void downloadFiles(HttpServletRequest request, HttpServletResponse response,
+            TransferStatus status, List<MediaFile> files, int[] indexes, Path coverArtPath,
+            HttpRange range, String zipFileName) throws IOException {
         if (indexes != null && indexes.length == 1) {
             downloadFile(response, status, files.get(indexes[0]).toPath(), range);
             return;
         }
 
         writeLog("Starting to download", zipFileName, status.getPlayer());
+        ZipArchive archive = createArchive(files, indexes, coverArtPath);
+        long length = archive.getLength();
+        String eTag = archive.getETag();
         response.setContentType("application/x-download");
         response
             .setHeader("Content-Disposition",
                     "attachment; filename*=UTF-8''" + encodeAsRFC5987(zipFileName));
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", eTag);
+
+        HttpRange archiveRange = null;
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && ifRange != null && !ifRange.equals(eTag)) {
+            // The files have changed since the download was started. Start over.
+            response.setStatus(HttpServletResponse.SC_OK);
+        } else if (range != null) {
+            if (range.getFirstBytePos() >= length) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            long lastBytePos = range.isClosed() ? Math.min(range.getLastBytePos(), length - 1)
+                    : length - 1;
+            archiveRange = new HttpRange(range.getFirstBytePos(), lastBytePos);
+            response
+                .setHeader("Content-Range", String
+                    .format("bytes %d-%d/%d", archiveRange.getFirstBytePos(), lastBytePos,
+                            length));
+            status.addBytesSkipped(archiveRange.getFirstBytePos());
+        }
+        PlayerUtils.setContentLength(response, archiveRange == null ? length : archiveRange.size());
 
-        try (ZipOutputStream out = new ZipOutputStream(
-                RangeOutputStream.wrap(response.getOutputStream(), range))) {
-
-            out.setMethod(ZipOutputStream.STORED); // No compression.
+        archive
+            .write(response.getOutputStream(), archiveRange,
+                    path -> status.setPathString(path.toString()), new Throttle(status));
+        writeLog("Downloaded", zipFileName, status.getPlayer());
+    }
 
-            boolean coverEmbedded = false;
-            Set<MediaFile> filesToDownload = createFilesToDownload(indexes, files);
-            for (MediaFile mediaFile : filesToDownload) {
-                zip(out, Path.of(mediaFile.getParentPathString()), mediaFile.toPath(), status,
-                        range);
-                if (coverArtPath != null && Files.exists(coverArtPath)
-                        && mediaFile.toPath().toRealPath().equals(coverArtPath.toRealPath())) {
-                    coverEmbedded = true;
-                }
+    private ZipArchive createArchive(List<MediaFile> files, int[] indexes, Path coverArtPath)
+            throws IOException {
+        ZipArchive archive = new ZipArchive(zipCrcCache);
+        boolean coverEmbedded = false;
+        for (MediaFile mediaFile : createFilesToDownload(indexes, files)) {
+            archive.add(Path.of(mediaFile.getParentPathString()), mediaFile.toPath());
+            if (coverArtPath != null && Files.exists(coverArtPath)
+                    && mediaFile.toPath().toRealPath().equals(coverArtPath.toRealPath())) {
+                coverEmbedded = true;
             }
-            if (coverArtPath != null && Files.exists(coverArtPath) && !coverEmbedded) {
-                zip(out, coverArtPath.getParent(), coverArtPath, status, range);
-            }
-
         }
-        writeLog("Downloaded", zipFileName, status.getPlayer());
+        if (coverArtPath != null && Files.exists(coverArtPath) && !coverEmbedded) {
+            archive.add(coverArtPath.getParent(), coverArtPath);
+        }
+        return archive;
     }
 
+    /*
+     * In the order given, so that the same zip-file is created when resumed.
+     */
     private Set<MediaFile> createFilesToDownload(int[] indexes, List<MediaFile> files) {
-        Set<MediaFile> filesToDownload = new HashSet<>();
+        Set<MediaFile> filesToDownload = new LinkedHashSet<>();
         if (indexes == null) {
             filesToDownload.addAll(files);
         } else {
@@ -353,15 +449,12 @@ public class DownloadController {
             HttpRange range) throws IOException {
         writeLog("Downloading", PathInspector.toIdentityName(path), status.getPlayer());
 
-        final int bufferSize = 16 * 1024; // 16 Kbit
-
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), bufferSize)) {
-            byte[] buf = new byte[bufferSize];
-            long bitrateLimit = 0;
-            long lastLimitCheck = 0;
+        try (InputStream in = Files.newInputStream(path);
+                BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.LOCAL_DISK)) {
+            byte[] buf = lease.get();
+            Throttle throttle = new Throttle(status);
 
             while (true) {
-                final long before = Instant.now().toEpochMilli();
                 int n = in.read(buf);
                 if (n == -1) {
                     break;
@@ -374,119 +467,34 @@ public class DownloadController {
                     status.addBytesSkipped(n);
                     continue;
                 }
-
-                status.addBytesTransfered(n);
-                long after = Instant.now().toEpochMilli();
-
-                // Calculate bitrate limit every 5 seconds.
-                if (after - lastLimitCheck > BITRATE_LIMIT_UPDATE_INTERVAL) {
-                    bitrateLimit = 1024L
-                            * settingsFacade.get(SKeys.advanced.bandwidth.downloadBitrateLimit)
-                            / Math.max(1, statusService.getAllDownloadStatuses().size());
-                    lastLimitCheck = after;
-                }
-
-                // Sleep for a while to throttle bitrate.
-                try {
-                    doSleepIfNecessary(bitrateLimit, bufferSize, after, before);
-                } catch (InterruptedException e) {
-                    LOG.warn("Failed to sleep.", e);
-                }
+                throttle.accept(n);
             }
         } finally {
             out.flush();
         }
     }
 
-    private void doSleepIfNecessary(long bitrateLimit, int bufferSize, long after, long before)
-            throws InterruptedException {
-        if (bitrateLimit != 0) {
-            long sleepTime = 8L * 1000 * bufferSize / bitrateLimit - (after - before);
-            if (sleepTime > 0L) {
-                Thread.sleep(sleepTime);
-            }
-        }
-    }
-
-    /**
-     * Writes a file or a directory structure to a zip output stream. File entries
-     * in the zip file are relative to the given root.
-     *
-     * @param out    The zip output stream.
-     * @param root   The root of the directory structure. Used to create path
-     *               information in the zip file.
-     * @param path   The file or directory to zip.
-     * @param status The download status.
-     * @param range  The byte range, may be <code>null</code>.
-     *
-     * @throws IOException If an I/O error occurs.
+    /*
+     * Counts the bytes written to the client, and sleeps if necessary to keep the
+     * bandwidth limits.
      */
-    private void zip(ZipOutputStream out, Path root, Path path, TransferStatus status,
-            HttpRange range) throws IOException {
-
-        // Exclude all hidden files starting with a "."
-        Path fileName = path.getFileName();
-        if (fileName == null || fileName.toString().charAt(0) == '.') {
-            return;
-        }
-
-        String zipName = path
-            .toRealPath()
-            .toString()
-            .substring(root.toRealPath().toString().length() + 1);
-
-        if (Files.isRegularFile(path)) {
-            status.setPathString(path.toString());
-
-            ZipEntry zipEntry = new ZipEntry(zipName);
-            zipEntry.setSize(Files.size(path));
-            zipEntry.setCompressedSize(Files.size(path));
-            zipEntry.setCrc(computeCrc(path));
-
-            out.putNextEntry(zipEntry);
-            copyFileToStream(path, out, status, range);
-            out.closeEntry();
+    private class Throttle implements IntConsumer {
 
-        } else {
-            ZipEntry zipEntry = new ZipEntry(zipName + '/');
-            zipEntry.setSize(0);
-            zipEntry.setCompressedSize(0);
-            zipEntry.setCrc(0);
-
-            out.putNextEntry(zipEntry);
-            out.closeEntry();
+        private final TransferStatus status;
+        private final BandwidthShaper.Transfer transfer;
 
-            try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
-                for (Path childPath : children) {
-                    zip(out, root, childPath, status, range);
-                }
-            }
+        Throttle(TransferStatus status) {
+            this.status = status;
+            Player player = status.getPlayer();
+            transfer = bandwidthShaper
+                .open(TransferType.DOWNLOAD, player == null ? null : player.getUsername());
         }
-    }
-
-    /**
-     * Computes the CRC checksum for the given file.
-     *
-     * @param path The file to compute checksum for.
-     *
-     * @return A CRC32 checksum.
-     *
-     * @throws IOException If an I/O error occurs.
-     */
-    private long computeCrc(Path path) throws IOException {
-        CRC32 crc = new CRC32();
-        try (InputStream in = Files.newInputStream(path)) {
-
-            byte[] buf = new byte[8192];
-            int n = in.read(buf);
-            while (n != -1) {
-                crc.update(buf, 0, n);
-                n = in.read(buf);
-            }
 
+        @Override
+        public void accept(int bytes) {
+            status.addBytesTransfered(bytes);
+            transfer.acquire(bytes);
         }
-
-        return crc.getValue();
     }
 
 }
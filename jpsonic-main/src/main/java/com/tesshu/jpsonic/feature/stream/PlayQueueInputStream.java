@@ -48,23 +48,41 @@ import org.springframework.core.task.AsyncTaskExecutor;
 /**
  * Implementation of {@link InputStream} which reads from a {@link PlayQueue}.
  *
+ * <p>
+ * Shortly before the current song ends, the next song of the queue is opened
+ * by a {@link Prefetch} so that the handoff at the song boundary does not wait
+ * for a transcoder to start.
+ *
  * @author Sindre Mehus
  */
 public class PlayQueueInputStream extends InputStream {
 
     private static final Logger LOG = LoggerFactory.getLogger(PlayQueueInputStream.class);
 
+    /**
+     * Position in the current song, in percent of its expected length, at which
+     * the next song is prefetched.
+     */
+    private static final int PREFETCH_POSITION = 90;
+
     private final Player player;
     private final TransferStatus status;
-    private final TranscodingService.Parameters transParam;
+    private final Integer maxBitRate;
+    private final String preferredTargetFormat;
+    private final VideoTranscodingSettings videoTranscodingSettings;
     private final TranscodingService transcodingService;
     private final AudioScrobblerService audioScrobblerService;
     private final WritableMediaFileService writableMediaFileService;
     private final SearchService searchService;
     private final AsyncTaskExecutor executor;
+    private final byte[] single = new byte[1];
 
     private AtomicReference<MediaFile> currentFile;
     private AtomicReference<InputStream> delegate;
+    private TranscodingService.Parameters parameters;
+    private long delegateBytes;
+    private long prefetchThreshold;
+    private Prefetch prefetch;
 
     public PlayQueueInputStream(Player player, TransferStatus status, Integer maxBitRate,
             String preferredTargetFormat, VideoTranscodingSettings videoTranscodingSettings,
@@ -74,21 +92,26 @@ public class PlayQueueInputStream extends InputStream {
         super();
         this.player = player;
         this.status = status;
+        this.maxBitRate = maxBitRate;
+        this.preferredTargetFormat = preferredTargetFormat;
+        this.videoTranscodingSettings = videoTranscodingSettings;
         this.transcodingService = transcodingService;
         this.audioScrobblerService = audioScrobblerService;
         this.writableMediaFileService = writableMediaFileService;
         this.searchService = searchService;
         this.executor = executor;
-        transParam = transcodingService
-            .getParameters(player.getPlayQueue().getCurrentFile(), player, maxBitRate,
-                    preferredTargetFormat, videoTranscodingSettings);
+    }
+
+    private TranscodingService.Parameters createParameters(MediaFile file) {
+        return transcodingService
+            .getParameters(file, player, maxBitRate, preferredTargetFormat,
+                    videoTranscodingSettings);
     }
 
     @Override
     public int read() throws IOException {
-        byte[] b = new byte[1];
-        int n = read(b);
-        return n == -1 ? -1 : b[0];
+        int n = read(single);
+        return n == -1 ? -1 : single[0] & 0xFF;
     }
 
     @Override
@@ -125,10 +148,64 @@ public class PlayQueueInputStream extends InputStream {
             return read(b, off, len);
         } else {
             status.addBytesTransfered(n);
+            delegateBytes += n;
+            if (delegateBytes >= prefetchThreshold && isEmpty(prefetch)) {
+                prefetchNext();
+            }
         }
         return n;
     }
 
+    private void prefetchNext() {
+        MediaFile next = player.getPlayQueue().getNextFile();
+        if (isEmpty(next) || !next.exists()) {
+            // Not to check again on every read
+            prefetchThreshold = Long.MAX_VALUE;
+            return;
+        }
+        prefetch = new Prefetch(next, createParameters(next), transcodingService, executor);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Prefetching '{}' after {} bytes.", next.getTitle(), delegateBytes);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the next song read ahead so far, or -1 if it
+     * is not being prefetched.
+     */
+    int getPrefetchedBytes() {
+        return isEmpty(prefetch) ? -1 : prefetch.getBufferedBytes();
+    }
+
+    /*
+     * Takes over the prefetched stream if it is for the given file. Otherwise the
+     * prefetch is discarded, as the queue has been changed in the meantime.
+     */
+    @SuppressWarnings("PMD.NullAssignment")
+    private InputStream takePrefetched(MediaFile file) {
+        Prefetch prefetched = prefetch;
+        prefetch = null;
+        if (isEmpty(prefetched)) {
+            return null;
+        } else if (!file.equals(prefetched.getFile())) {
+            prefetched.close();
+            return null;
+        }
+        try {
+            InputStream in = prefetched.take();
+            parameters = prefetched.getParameters();
+            if (LOG.isDebugEnabled()) {
+                LOG
+                    .debug("Handed off to '{}' with {} bytes prefetched.", file.getTitle(),
+                            prefetched.getBufferedBytes());
+            }
+            return in;
+        } catch (IOException e) {
+            LOG.warn("Unable to take over the prefetched stream. Reopening.", e);
+            return null;
+        }
+    }
+
     private static class Prepare implements Callable<Boolean> {
 
         private final PlayQueueInputStream pqis;
@@ -161,8 +238,17 @@ public class PlayQueueInputStream extends InputStream {
                 pqis.writeLog(file);
 
                 try {
-                    pqis.delegate = new AtomicReference<>(
-                            pqis.transcodingService.getTranscodedInputStream(pqis.transParam));
+                    InputStream in = pqis.takePrefetched(file);
+                    if (isEmpty(in)) {
+                        pqis.parameters = pqis.createParameters(file);
+                        in = pqis.transcodingService.getTranscodedInputStream(pqis.parameters);
+                    }
+                    pqis.delegate = new AtomicReference<>(in);
+                    pqis.delegateBytes = 0;
+                    // If the length is unknown, prefetch as soon as the song starts
+                    Long expectedLength = pqis.parameters.getExpectedLength();
+                    pqis.prefetchThreshold = isEmpty(expectedLength) ? 0
+                            : expectedLength * PREFETCH_POSITION / 100;
                     if (!isEmpty(pqis.delegate)
                             || pqis.player.getPlayQueue().getStatus() != PlayQueue.Status.STOPPED) {
                         pqis.currentFile = new AtomicReference<>(file);
@@ -202,6 +288,9 @@ public class PlayQueueInputStream extends InputStream {
                 delegate.get().close();
             }
         } finally {
+            if (!isEmpty(prefetch)) {
+                prefetch.close();
+            }
             closeAfter();
         }
     }
@@ -0,0 +1,232 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
+import com.tesshu.jpsonic.service.TranscodingService;
+import com.tesshu.jpsonic.util.BufferPool;
+import com.tesshu.jpsonic.util.concurrent.ConcurrentUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Opens the next song of a play queue ahead of time.
+ *
+ * <p>
+ * The stream is opened in a subthread with
+ * {@link TranscodeScheduler.Priority#PREFETCH}, and up to
+ * {@link #BUFFER_SIZE} bytes are read ahead into memory. Reading ahead is what
+ * actually starts a transcoder. Once the buffer is full, the transcoder is
+ * blocked by the pipe until the song is handed off, so holding it costs no
+ * CPU.
+ *
+ * <p>
+ * {@link #take()} hands off the buffered bytes followed by the rest of the
+ * stream. A prefetch that is not taken must be closed.
+ */
+final class Prefetch implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Prefetch.class);
+
+    /**
+     * Maximum number of bytes read ahead. About 13 seconds at 320 kbps.
+     */
+    static final int BUFFER_SIZE = 512 * 1024;
+
+    private static final int CHUNK_SIZE = BufferPool.Type.TRANSCODER_PIPE.getSize();
+
+    private final MediaFile file;
+    private final TranscodingService.Parameters parameters;
+    private final TranscodingService transcodingService;
+    private final byte[] buffer;
+    private final Future<?> task;
+
+    private volatile boolean taken;
+    private volatile int count;
+
+    // Guarded by this
+    private @Nullable InputStream in;
+    private boolean done;
+    private boolean closed;
+    private boolean eof;
+    private @Nullable IOException failure;
+
+    Prefetch(@NonNull MediaFile file, TranscodingService.@NonNull Parameters parameters,
+            TranscodingService transcodingService, AsyncTaskExecutor executor) {
+        super();
+        this.file = file;
+        this.parameters = parameters;
+        this.transcodingService = transcodingService;
+        this.buffer = new byte[BUFFER_SIZE];
+        parameters.setPriority(TranscodeScheduler.Priority.PREFETCH);
+        this.task = executor.submit(this::fill);
+    }
+
+    MediaFile getFile() {
+        return file;
+    }
+
+    TranscodingService.Parameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the number of bytes read ahead so far.
+     */
+    int getBufferedBytes() {
+        return count;
+    }
+
+    private void fill() {
+        InputStream opened;
+        try {
+            opened = transcodingService.getTranscodedInputStream(parameters);
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                done = true;
+            }
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                closeQuietly(opened);
+                done = true;
+                return;
+            }
+            in = opened;
+        }
+        try {
+            int filled = 0;
+            while (!taken && !isClosed() && filled < BUFFER_SIZE) {
+                int n = opened.read(buffer, filled, Math.min(CHUNK_SIZE, BUFFER_SIZE - filled));
+                if (n == -1) {
+                    synchronized (this) {
+                        eof = true;
+                    }
+                    break;
+                }
+                filled += n;
+                count = filled;
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+        } finally {
+            synchronized (this) {
+                done = true;
+                if (closed || failure != null) {
+                    closeQuietly(opened);
+                }
+            }
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Hands off the prefetched stream. Waits for the subthread to finish its
+     * current read, which is at most one chunk once the stream is open. If the
+     * stream is not open yet because the transcoder has not been admitted, the
+     * prefetch is abandoned so that the caller can reopen the song with the
+     * priority of playback.
+     *
+     * @return the buffered bytes followed by the rest of the stream
+     *
+     * @throws IOException if the stream is not open yet, or could not be opened or
+     *                     read
+     */
+    @SuppressWarnings("PMD.NullAssignment") // The caller owns the stream from now on
+    @NonNull
+    InputStream take() throws IOException {
+        synchronized (this) {
+            if (in == null && !done) {
+                closed = true;
+                throw new IOException("Prefetch has not started yet: " + file.getPathString());
+            }
+        }
+        taken = true;
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while taking over " + file.getPathString(), e);
+        } catch (ExecutionException e) {
+            close();
+            ConcurrentUtils.handleCauseUnchecked(e);
+            throw new IOException("Prefetch failed: " + file.getPathString(), e);
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            InputStream prefetched = new ByteArrayInputStream(buffer, 0, count);
+            InputStream rest = in;
+            if (rest == null) {
+                throw new IOException("Prefetch was closed: " + file.getPathString());
+            }
+            in = null;
+            if (eof) {
+                closeQuietly(rest);
+                return prefetched;
+            }
+            return new SequenceInputStream(prefetched, rest);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (done && in != null) {
+                closeQuietly(in);
+            }
+        }
+    }
+
+    private static void closeQuietly(@Nullable InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Unable to close prefetched stream.", e);
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import static org.springframework.web.bind.ServletRequestUtils.getIntParameter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeoutException;
 
 import com.tesshu.jpsonic.SuppressFBWarnings;
@@ -34,6 +35,7 @@ import com.tesshu.jpsonic.controller.Attributes;
 import com.tesshu.jpsonic.controller.Attributes.Request;
 import com.tesshu.jpsonic.feature.auth.jwt.JWTAuthenticationToken;
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
+import com.tesshu.jpsonic.feature.stream.seek.SeekIndexService;
 import com.tesshu.jpsonic.infrastructure.bootstrap.LoggingExceptionResolver;
 import com.tesshu.jpsonic.infrastructure.filesystem.MediaTypeDetector;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
@@ -43,20 +45,25 @@ import com.tesshu.jpsonic.persistence.api.entity.PlayQueue;
 import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.entity.Transcoding;
 import com.tesshu.jpsonic.persistence.core.entity.User;
+import com.tesshu.jpsonic.service.BandwidthShaper;
+import com.tesshu.jpsonic.service.BandwidthShaper.TransferType;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
 import com.tesshu.jpsonic.service.TranscodingService;
 import com.tesshu.jpsonic.service.TranscodingService.VideoTranscodingSettings;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.util.BufferPool;
 import com.tesshu.jpsonic.util.HttpRange;
 import com.tesshu.jpsonic.util.PlayerUtils;
 import jakarta.annotation.Nullable;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.text.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.core.Authentication;
@@ -86,11 +93,16 @@ public class StreamController {
     private final TranscodingService transcodingService;
     private final StatusService statusService;
     private final StreamService streamService;
+    private final SeekIndexService seekIndexService;
+    private final BandwidthShaper bandwidthShaper;
+    private final boolean asyncStreaming;
 
     public StreamController(SettingsFacade settingsFacade, LibraryAccessPolicy libraryAccessPolicy,
             UserService userService, PlayerService playerService,
             TranscodingService transcodingService, StatusService statusService,
-            StreamService streamService) {
+            StreamService streamService, SeekIndexService seekIndexService,
+            BandwidthShaper bandwidthShaper,
+            @Value("${AsyncStreaming:false}") boolean asyncStreaming) {
         super();
         this.settingsFacade = settingsFacade;
         this.libraryAccessPolicy = libraryAccessPolicy;
@@ -99,6 +111,9 @@ public class StreamController {
         this.transcodingService = transcodingService;
         this.statusService = statusService;
         this.streamService = streamService;
+        this.seekIndexService = seekIndexService;
+        this.bandwidthShaper = bandwidthShaper;
+        this.asyncStreaming = asyncStreaming;
     }
 
     private static void sendForbidden(HttpServletResponse res, String m) {
@@ -199,7 +214,7 @@ public class StreamController {
     }
 
     @Nullable
-    private static HttpRange applyRange(final HttpServletRequest request,
+    private HttpRange applyRange(final HttpServletRequest request,
             final HttpServletResponse response, final MediaFile file,
             final TranscodingService.Parameters parameters) {
         HttpRange range = null;
@@ -219,7 +234,7 @@ public class StreamController {
             // final size
             long contentLength;
             // If range was requested, respond in kind
-            range = createRange(request, file.getDurationSeconds(), fileLengthExpected);
+            range = createRange(request, file, parameters);
             if (range == null) {
                 // No range was requested, give back the whole file
                 response.setStatus(HttpServletResponse.SC_OK);
@@ -244,8 +259,8 @@ public class StreamController {
     }
 
     @Nullable
-    private static HttpRange createRange(final HttpServletRequest request,
-            final Integer fileDuration, final Long fileSize) {
+    private HttpRange createRange(final HttpServletRequest request, final MediaFile file,
+            final TranscodingService.Parameters parameters) {
 
         // First, look for "Range" HTTP header.
         HttpRange range = HttpRange.valueOf(request.getHeader("Range"));
@@ -259,6 +274,8 @@ public class StreamController {
             return null;
         }
 
+        final Integer fileDuration = file.getDurationSeconds();
+        final Long fileSize = parameters.getExpectedLength();
         if (fileDuration == null || fileSize == null) {
             return null;
         }
@@ -271,7 +288,15 @@ public class StreamController {
             }
             return null;
         }
-        // Convert from time offset to byte offset.
+        // Jump to the frame at the time offset if the original file is streamed.
+        if (!parameters.isTranscode()) {
+            OptionalLong frameOffset = seekIndexService.getByteOffset(file, (long) (offset * 1000));
+            if (frameOffset.isPresent() && frameOffset.getAsLong() < fileSize) {
+                return new HttpRange(frameOffset.getAsLong(), null);
+            }
+        }
+
+        // Otherwise, convert from time offset to byte offset linearly.
         long byteOffset = (long) (fileSize * (offset / fileDuration));
         return new HttpRange(byteOffset, null);
     }
@@ -308,12 +333,29 @@ public class StreamController {
         }
     }
 
-    @SuppressWarnings("PMD.CognitiveComplexity") // #1020
-    @SuppressFBWarnings(value = "UC_USELESS_CONDITION", justification = "False positive. #1078")
     void writeStream(Player player, InputStream in, OutputStream out, Long fileLengthExpected,
             boolean isPodcast, boolean isSingleFile) throws IOException {
+        try (BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.NETWORK)) {
+            writeStream(player, in, out, fileLengthExpected, isPodcast, isSingleFile,
+                    lease.get(), openTransfer(player));
+        }
+    }
+
+    private BandwidthShaper.Transfer openTransfer(Player player) {
+        if (player == null) {
+            return bandwidthShaper.open(TransferType.STREAM, null);
+        }
+        return bandwidthShaper
+            .open(playerService.isUPnPPlayer(player) ? TransferType.UPNP : TransferType.STREAM,
+                    player.getUsername());
+    }
+
+    @SuppressWarnings("PMD.CognitiveComplexity") // #1020
+    @SuppressFBWarnings(value = "UC_USELESS_CONDITION", justification = "False positive. #1078")
+    private void writeStream(Player player, InputStream in, OutputStream out,
+            Long fileLengthExpected, boolean isPodcast, boolean isSingleFile, byte[] buf,
+            BandwidthShaper.Transfer transfer) throws IOException {
 
-        byte[] buf = new byte[4096];
         long bytesWritten = 0;
         boolean alive = isAliveStream(player);
 
@@ -330,7 +372,7 @@ public class StreamController {
             }
 
             // Check playback status periodically to reduce overhead
-            boolean checkRequired = bytesWritten % (4096 * 200) == 0; // ~0.8192 MB
+            boolean checkRequired = bytesWritten % (4096 * 200) == 0; // ~0.8192 MB, 25 reads
 
             // Guard: stop playback if PlayQueue is stopped
             if (checkRequired && player.getPlayQueue().getStatus() == PlayQueue.Status.STOPPED) {
@@ -386,6 +428,7 @@ public class StreamController {
 
             out.write(buf, 0, n);
             bytesWritten += n;
+            transfer.acquire(n);
 
             if (checkRequired) {
                 alive = isAliveStream(player);
@@ -394,11 +437,7 @@ public class StreamController {
     }
 
     boolean isAliveStream(Player player) {
-        return statusService
-            .getStreamStatusesForPlayer(player)
-            .stream()
-            .filter(TransferStatus::isActive)
-            .allMatch(ts -> !ts.isTerminated());
+        return statusService.isAliveStream(player);
     }
 
     private static void writeErrorLog(IOException e, HttpServletRequest req) {
@@ -466,6 +505,13 @@ public class StreamController {
         streamService.closeAllStreamFor(player, isPodcast, isSingleFile);
 
         TransferStatus status = statusService.createStreamStatus(player);
+        BandwidthShaper.Transfer transfer = openTransfer(player);
+        if (asyncStreaming && isSingleFile && !isPodcast && req.isAsyncSupported()
+                && !transfer.isLimited()) {
+            startAsyncStream(req, res, user, player, status, result, format, maxBitRate,
+                    transfer);
+            return;
+        }
         try (InputStream in = streamService
             .createInputStream(player, status, maxBitRate, format,
                     result.getVideoTranscodingSettings());
@@ -479,4 +525,38 @@ public class StreamController {
             streamService.removeStreamStatus(user, status);
         }
     }
+
+    /*
+     * Streams a single file with Servlet async I/O. The request thread returns
+     * right away, and the rest is written whenever the client can accept it. Only
+     * used for transfers without bandwidth limits, which never have to wait.
+     */
+    @SuppressWarnings("PMD.CloseResource") // Closed by AsyncStreamWriter
+    private void startAsyncStream(HttpServletRequest req, HttpServletResponse res, User user,
+            Player player, TransferStatus status, PrepareResponseResult result, String format,
+            Integer maxBitRate, BandwidthShaper.Transfer transfer) {
+        InputStream in = streamService
+            .createInputStream(player, status, maxBitRate, format,
+                    result.getVideoTranscodingSettings());
+        try {
+            res.setBufferSize(settingsFacade.get(SKeys.advanced.bandwidth.bufferSize));
+            ServletOutputStream socket = res.getOutputStream();
+            new AsyncStreamWriter(in, RangeOutputStream.wrap(socket, result.getRange()), socket)
+                .setExpectedLength(result.getFileLengthExpected())
+                .setProgress(transfer::acquire)
+                .setAlive(() -> isAliveStream(player)
+                        && player.getPlayQueue().getStatus() != PlayQueue.Status.STOPPED)
+                .setOnDone(() -> streamService.removeStreamStatus(user, status))
+                .start(req.startAsync());
+        } catch (IOException e) {
+            writeErrorLog(e, req);
+            try {
+                in.close();
+            } catch (IOException e1) {
+                writeErrorLog(e1, req);
+            } finally {
+                streamService.removeStreamStatus(user, status);
+            }
+        }
+    }
 }
@@ -68,6 +68,11 @@ public class StreamService {
 
     private static final Logger LOG = LoggerFactory.getLogger(StreamService.class);
 
+    /*
+     * Size of the dummy data fed while waiting. Kept at the size of the copy buffer
+     * before buffers were pooled, whatever the size of the buffer passed in.
+     */
+    private static final int DUMMY_LENGTH = 4096;
     private static final int MAXBITRATE_THRESHOLD_FOR_VIDEO_SIZE_LEVEL1 = 400;
     private static final int MAXBITRATE_THRESHOLD_FOR_VIDEO_SIZE_LEVEL2 = 600;
     private static final int MAXBITRATE_THRESHOLD_FOR_VIDEO_SIZE_LEVEL3 = 1800;
@@ -263,7 +268,7 @@ public class StreamService {
         } catch (InterruptedException e) {
             LOG.info("Interrupted in sleep.", e);
         }
-        sendDummy(buf, out, buf.length);
+        sendDummy(buf, out, Math.min(buf.length, DUMMY_LENGTH));
         out.flush();
     }
 
@@ -34,7 +34,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.tesshu.jpsonic.infrastructure.filesystem.FileOperations;
-import org.apache.commons.io.IOUtils;
+import com.tesshu.jpsonic.util.BufferPool;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
@@ -141,7 +141,7 @@ public final class TranscodeInputStream extends InputStream {
         @Override
         public void run() {
             try (in; out) {
-                IOUtils.copy(in, out);
+                BufferPool.copy(in, out, BufferPool.Type.TRANSCODER_PIPE);
             } catch (IOException e) {
                 trace("Ignored. Will happen if the remote player closes the stream.", e);
             }
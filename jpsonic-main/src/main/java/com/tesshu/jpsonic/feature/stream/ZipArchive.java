@@ -0,0 +1,497 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+import com.tesshu.jpsonic.util.BufferPool;
+import com.tesshu.jpsonic.util.HttpRange;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Uncompressed zip archive written in a single pass over its files.
+ *
+ * <p>
+ * The entries are planned before anything is written, so the length of the
+ * archive is known up front and any byte range of it can be generated again by
+ * a later request. This is what allows an interrupted download of an album to
+ * be resumed.
+ *
+ * <p>
+ * The CRC of a file is not known until it has been read. Each file entry
+ * therefore has the data descriptor flag set, and its CRC is written after the
+ * data. The sizes are known, so they are written in the local header as well,
+ * which keeps the archive readable by tools that do not use the central
+ * directory. The CRCs are kept in a cache, so that a resumed request can start
+ * in the middle of the archive without reading the files it skips.
+ *
+ * <p>
+ * Zip64 records are written only where the values do not fit, so archives up to
+ * 4GB are plain zip files.
+ */
+final class ZipArchive {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+    private static final short ZIP64_EXTRA = 0x0001;
+    private static final short VERSION = 20;
+    private static final short VERSION_ZIP64 = 45;
+    private static final short FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+    private final Ehcache crcCache;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private final CRC32 signature = new CRC32();
+
+    /*
+     * Length of the local headers, data and data descriptors
+     */
+    private long entriesLength;
+
+    /*
+     * Position in the archive while writing
+     */
+    private long pos;
+
+    /**
+     * @param crcCache Cache of CRCs, keyed by path, size and last modified time.
+     */
+    ZipArchive(@NonNull Ehcache crcCache) {
+        this.crcCache = crcCache;
+    }
+
+    /**
+     * Adds a file or a directory structure. Entries are named relative to the
+     * given root. Hidden files starting with a "." are excluded, and so are entries
+     * whose name has already been added.
+     *
+     * @return whether the path was added
+     */
+    boolean add(@NonNull Path root, @NonNull Path path) throws IOException {
+        Path fileName = path.getFileName();
+        if (fileName == null || fileName.toString().charAt(0) == '.') {
+            return false;
+        }
+        String name = path
+            .toRealPath()
+            .toString()
+            .substring(root.toRealPath().toString().length() + 1)
+            .replace(File.separatorChar, '/');
+
+        if (Files.isRegularFile(path)) {
+            return addEntry(name, path, false);
+        }
+        boolean added = addEntry(name + '/', path, true);
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            stream.forEach(children::add);
+        }
+        // Always in the same order, so that the archive is the same on resume
+        children.sort(null);
+        for (Path child : children) {
+            added |= add(root, child);
+        }
+        return added;
+    }
+
+    private boolean addEntry(String name, Path path, boolean directory) throws IOException {
+        if (!names.add(name)) {
+            return false;
+        }
+        Instant lastModified = Files.getLastModifiedTime(path).toInstant();
+        Entry entry = new Entry(name, path, directory, directory ? 0 : Files.size(path),
+                lastModified, entriesLength);
+        if (!directory) {
+            Element element = crcCache.get(entry.cacheKey);
+            entry.crc = element == null ? -1 : (Long) element.getObjectValue();
+        }
+        entries.add(entry);
+        entriesLength += entry.getLocalHeaderLength() + entry.size
+                + entry.getDataDescriptorLength();
+
+        signature.update(entry.name);
+        signature
+            .update(ByteBuffer
+                .allocate(Long.BYTES * 2)
+                .putLong(entry.size)
+                .putLong(lastModified.toEpochMilli())
+                .flip());
+        return true;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    private long getCentralDirectoryLength() {
+        return entries.stream().mapToLong(Entry::getCentralHeaderLength).sum();
+    }
+
+    private boolean isZip64End(long centralDirectoryLength) {
+        return entries.size() >= MAX_16 || entriesLength >= MAX_32
+                || centralDirectoryLength >= MAX_32;
+    }
+
+    /**
+     * Returns the length of the whole archive.
+     */
+    long getLength() {
+        long centralDirectoryLength = getCentralDirectoryLength();
+        return entriesLength + centralDirectoryLength
+                + (isZip64End(centralDirectoryLength) ? 56 + 20 : 0) + 22;
+    }
+
+    /**
+     * Returns an entity tag that changes if a file is added, removed or modified,
+     * in which case a range of a previous download must not be resumed.
+     */
+    @NonNull
+    String getETag() {
+        return "\"" + Long.toHexString(getLength()) + "-" + Long.toHexString(signature.getValue())
+                + "\"";
+    }
+
+    /**
+     * Writes the archive, or a range of it.
+     *
+     * @param out         The stream to write to.
+     * @param range       The range to write, may be {@code null}. The last byte
+     *                    position, if any, must be within the archive.
+     * @param onEntry     Called with each file whose data is about to be written.
+     * @param transferred Called with the number of bytes written, on each write.
+     */
+    void write(@NonNull OutputStream out, @Nullable HttpRange range,
+            @NonNull Consumer<Path> onEntry, @NonNull IntConsumer transferred) throws IOException {
+        long start = range == null ? 0 : range.getFirstBytePos();
+        long end = range == null || range.getLastBytePos() == null ? Long.MAX_VALUE - 1
+                : range.getLastBytePos();
+        Writer writer = new Writer(out, start, end, transferred);
+        pos = 0;
+
+        for (Entry entry : entries) {
+            writer.write(entry.createLocalHeader());
+            if (!entry.isDirectory()) {
+                if (pos <= end && pos + entry.size > start) {
+                    onEntry.accept(entry.path);
+                }
+                writer.writeData(entry);
+                writer.write(entry.createDataDescriptor());
+            }
+            if (pos > end) {
+                return;
+            }
+        }
+
+        long centralDirectoryLength = getCentralDirectoryLength();
+        for (Entry entry : entries) {
+            writer.write(entry.createCentralHeader());
+        }
+        if (isZip64End(centralDirectoryLength)) {
+            writer.write(createZip64End(centralDirectoryLength));
+        }
+        writer.write(createEnd(centralDirectoryLength));
+        out.flush();
+    }
+
+    private byte[] createZip64End(long centralDirectoryLength) {
+        return allocate(56 + 20)
+            .putInt(ZIP64_END)
+            .putLong(56 - 12)
+            .putShort(VERSION_ZIP64)
+            .putShort(VERSION_ZIP64)
+            .putInt(0)
+            .putInt(0)
+            .putLong(entries.size())
+            .putLong(entries.size())
+            .putLong(centralDirectoryLength)
+            .putLong(entriesLength)
+            .putInt(ZIP64_LOCATOR)
+            .putInt(0)
+            .putLong(entriesLength + centralDirectoryLength)
+            .putInt(1)
+            .array();
+    }
+
+    private byte[] createEnd(long centralDirectoryLength) {
+        short count = (short) Math.min(entries.size(), MAX_16);
+        return allocate(22)
+            .putInt(END)
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putShort(count)
+            .putShort(count)
+            .putInt((int) Math.min(centralDirectoryLength, MAX_32))
+            .putInt((int) Math.min(entriesLength, MAX_32))
+            .putShort((short) 0)
+            .array();
+    }
+
+    private static ByteBuffer allocate(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /*
+     * Writes the part of the archive within the range, and keeps track of the
+     * position.
+     */
+    private class Writer {
+
+        private final OutputStream out;
+        private final long start;
+        private final long end;
+        private final IntConsumer transferred;
+
+        Writer(OutputStream out, long start, long end, IntConsumer transferred) {
+            this.out = out;
+            this.start = start;
+            this.end = end;
+            this.transferred = transferred;
+        }
+
+        void write(byte[] b) throws IOException {
+            long from = Math.max(start - pos, 0);
+            long to = Math.min(end - pos + 1, b.length);
+            if (from < to) {
+                out.write(b, (int) from, (int) (to - from));
+                transferred.accept((int) (to - from));
+            }
+            pos += b.length;
+        }
+
+        /*
+         * Writes the data of the file within the range. If the CRC is not known yet,
+         * the whole file is read to compute it, unless nothing is written after the
+         * data. If the file has changed since the archive was planned, the data is
+         * truncated or padded to the planned size.
+         */
+        void writeData(Entry entry) throws IOException {
+            long from = Math.max(start - pos, 0);
+            long to = Math.min(end - pos + 1, entry.size);
+            boolean computeCrc = entry.crc < 0 && end >= pos + entry.size;
+            if (from >= to && !computeCrc) {
+                pos += entry.size;
+                return;
+            }
+
+            CRC32 crc = computeCrc ? new CRC32() : null;
+            long read = computeCrc ? 0 : from;
+            long limit = computeCrc ? entry.size : to;
+            try (SeekableByteChannel channel = Files.newByteChannel(entry.path);
+                    InputStream in = Channels.newInputStream(channel.position(read));
+                    BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.LOCAL_DISK)) {
+                byte[] buf = lease.get();
+                boolean eof = false;
+                while (read < limit) {
+                    int len = (int) Math.min(buf.length, limit - read);
+                    int n = eof ? -1 : in.read(buf, 0, len);
+                    if (n == -1) {
+                        eof = true;
+                        n = len;
+                        Arrays.fill(buf, 0, n, (byte) 0);
+                    }
+                    if (crc != null) {
+                        crc.update(buf, 0, n);
+                    }
+                    long outFrom = Math.max(read, from);
+                    long outTo = Math.min(read + n, to);
+                    if (outFrom < outTo) {
+                        out.write(buf, (int) (outFrom - read), (int) (outTo - outFrom));
+                        transferred.accept((int) (outTo - outFrom));
+                    }
+                    read += n;
+                }
+            }
+            if (crc != null) {
+                entry.crc = crc.getValue();
+                crcCache.put(new Element(entry.cacheKey, entry.crc));
+            }
+            pos += entry.size;
+        }
+    }
+
+    private static class Entry {
+
+        private final byte[] name;
+        private final Path path;
+        private final boolean directory;
+        private final long size;
+        private final int dosTime;
+        private final long offset;
+        private final String cacheKey;
+        private long crc;
+
+        Entry(String name, Path path, boolean directory, long size, Instant lastModified,
+                long offset) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.path = path;
+            this.directory = directory;
+            this.size = size;
+            this.dosTime = toDosTime(lastModified);
+            this.offset = offset;
+            this.cacheKey = path + ":" + size + ":" + lastModified.toEpochMilli();
+        }
+
+        private static int toDosTime(Instant instant) {
+            LocalDateTime time = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+            if (time.getYear() < 1980) {
+                return 1 << 21 | 1 << 16;
+            }
+            return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21
+                    | time.getDayOfMonth() << 16 | time.getHour() << 11
+                    | time.getMinute() << 5 | time.getSecond() >> 1;
+        }
+
+        private boolean isDirectory() {
+            return directory;
+        }
+
+        private boolean isZip64() {
+            return size >= MAX_32;
+        }
+
+        private short getVersion() {
+            return isZip64() || offset >= MAX_32 ? VERSION_ZIP64 : VERSION;
+        }
+
+        private short getFlags() {
+            return (short) (isDirectory() ? FLAG_UTF8 : FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        }
+
+        private int getLocalExtraLength() {
+            return isZip64() ? 4 + 16 : 0;
+        }
+
+        private int getCentralExtraLength() {
+            int fields = (isZip64() ? 2 : 0) + (offset >= MAX_32 ? 1 : 0);
+            return fields == 0 ? 0 : 4 + 8 * fields;
+        }
+
+        long getLocalHeaderLength() {
+            return 30L + name.length + getLocalExtraLength();
+        }
+
+        long getDataDescriptorLength() {
+            if (isDirectory()) {
+                return 0;
+            }
+            return isZip64() ? 24 : 16;
+        }
+
+        long getCentralHeaderLength() {
+            return 46L + name.length + getCentralExtraLength();
+        }
+
+        byte[] createLocalHeader() {
+            ByteBuffer buf = allocate((int) getLocalHeaderLength())
+                .putInt(LOCAL_HEADER)
+                .putShort(getVersion())
+                .putShort(getFlags())
+                .putShort((short) 0)
+                .putInt(dosTime)
+                .putInt(0)
+                .putInt((int) Math.min(size, MAX_32))
+                .putInt((int) Math.min(size, MAX_32))
+                .putShort((short) name.length)
+                .putShort((short) getLocalExtraLength())
+                .put(name);
+            if (isZip64()) {
+                buf.putShort(ZIP64_EXTRA).putShort((short) 16).putLong(size).putLong(size);
+            }
+            return buf.array();
+        }
+
+        byte[] createDataDescriptor() {
+            ByteBuffer buf = allocate((int) getDataDescriptorLength())
+                .putInt(DATA_DESCRIPTOR)
+                .putInt((int) crc);
+            if (isZip64()) {
+                buf.putLong(size).putLong(size);
+            } else {
+                buf.putInt((int) size).putInt((int) size);
+            }
+            return buf.array();
+        }
+
+        byte[] createCentralHeader() {
+            ByteBuffer buf = allocate((int) getCentralHeaderLength())
+                .putInt(CENTRAL_HEADER)
+                .putShort(getVersion())
+                .putShort(getVersion())
+                .putShort(getFlags())
+                .putShort((short) 0)
+                .putInt(dosTime)
+                .putInt(isDirectory() ? 0 : (int) crc)
+                .putInt((int) Math.min(size, MAX_32))
+                .putInt((int) Math.min(size, MAX_32))
+                .putShort((short) name.length)
+                .putShort((short) getCentralExtraLength())
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(isDirectory() ? DIRECTORY_ATTRIBUTE : 0)
+                .putInt((int) Math.min(offset, MAX_32))
+                .put(name);
+            if (getCentralExtraLength() > 0) {
+                buf.putShort(ZIP64_EXTRA).putShort((short) (getCentralExtraLength() - 4));
+                if (isZip64()) {
+                    buf.putLong(size).putLong(size);
+                }
+                if (offset >= MAX_32) {
+                    buf.putLong(offset);
+                }
+            }
+            return buf.array();
+        }
+    }
+}
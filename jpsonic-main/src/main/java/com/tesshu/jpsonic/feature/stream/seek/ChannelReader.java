@@ -0,0 +1,85 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Positional reads on an audio file, shared by the seek table parsers.
+ */
+final class ChannelReader implements Closeable {
+
+    private static final int ID3V2_HEADER_LENGTH = 10;
+
+    private final FileChannel channel;
+    private final long size;
+
+    ChannelReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Reads up to the given number of bytes at the given position. The returned
+     * buffer is shorter than requested only at the end of the file.
+     */
+    ByteBuffer read(long position, int length) throws IOException {
+        int available = (int) Math.max(0, Math.min(length, size - position));
+        ByteBuffer buffer = ByteBuffer.allocate(available);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Returns the position just after the ID3v2 tags at the given position, or the
+     * position itself if there are none.
+     */
+    long skipId3v2(long position) throws IOException {
+        long current = position;
+        ByteBuffer header = read(current, ID3V2_HEADER_LENGTH);
+        while (header.remaining() == ID3V2_HEADER_LENGTH && header.get(0) == 'I'
+                && header.get(1) == 'D' && header.get(2) == '3') {
+            int tagSize = (header.get(6) & 0x7F) << 21 | (header.get(7) & 0x7F) << 14
+                    | (header.get(8) & 0x7F) << 7 | header.get(9) & 0x7F;
+            boolean footer = (header.get(5) & 0x10) != 0;
+            current += ID3V2_HEADER_LENGTH + tagSize + (footer ? ID3V2_HEADER_LENGTH : 0);
+            header = read(current, ID3V2_HEADER_LENGTH);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Builds the seek table of a FLAC file.
+ * <p>
+ * The points of the SEEKTABLE block are used as they are. Since encoders write
+ * them only every few seconds by default, the file is also probed at regular
+ * intervals: from each probe position, the next frame header is searched for
+ * (validated by its CRC-8), and its sample number gives the exact start time of
+ * the frame.
+ */
+final class FlacSeekTableParser {
+
+    private static final int BLOCK_STREAMINFO = 0;
+    private static final int BLOCK_SEEKTABLE = 3;
+    private static final int STREAMINFO_LENGTH = 34;
+    private static final int SEEK_POINT_LENGTH = 18;
+    private static final long PLACEHOLDER_POINT = -1L;
+    private static final int MIN_HEADER_LENGTH = 6;
+    private static final int MAX_HEADER_LENGTH = 16;
+    private static final int DEFAULT_PROBE_LENGTH = 64 * 1024;
+
+    private FlacSeekTableParser() {
+    }
+
+    static @Nullable SeekTable parse(ChannelReader reader) throws IOException {
+        long position = reader.skipId3v2(0);
+        ByteBuffer magic = reader.read(position, 4);
+        if (magic.remaining() < 4 || magic.getInt(0) != 0x664C_6143) {
+            // Not "fLaC"
+            return null;
+        }
+        position += 4;
+
+        ByteBuffer streamInfo = null;
+        ByteBuffer seekTable = null;
+        boolean last = false;
+        while (!last) {
+            ByteBuffer header = reader.read(position, 4);
+            if (header.remaining() < 4) {
+                return null;
+            }
+            int value = header.getInt(0);
+            last = value >>> 31 != 0;
+            int type = value >>> 24 & 0x7F;
+            int length = value & 0xFF_FFFF;
+            position += 4;
+            if (type == BLOCK_STREAMINFO) {
+                streamInfo = reader.read(position, length);
+            } else if (type == BLOCK_SEEKTABLE) {
+                seekTable = reader.read(position, length);
+            }
+            position += length;
+        }
+        if (streamInfo == null || streamInfo.remaining() < STREAMINFO_LENGTH) {
+            return null;
+        }
+        int maxBlockSize = Short.toUnsignedInt(streamInfo.getShort(2));
+        int maxFrameSize = streamInfo.getInt(6) & 0xFF_FFFF;
+        int sampleRate = streamInfo.getInt(10) >>> 12;
+        if (sampleRate == 0) {
+            return null;
+        }
+
+        long audioStart = position;
+        SeekTable.Builder builder = new SeekTable.Builder();
+        if (seekTable != null) {
+            for (int i = 0; i + SEEK_POINT_LENGTH <= seekTable.limit(); i += SEEK_POINT_LENGTH) {
+                long sample = seekTable.getLong(i);
+                if (sample != PLACEHOLDER_POINT) {
+                    builder.add(sample * 1000L / sampleRate, audioStart + seekTable.getLong(i + 8));
+                }
+            }
+        }
+
+        int probeLength = maxFrameSize > 0 ? maxFrameSize + MAX_HEADER_LENGTH
+                : DEFAULT_PROBE_LENGTH;
+        long audioLength = reader.size() - audioStart;
+        for (int probe = 0; probe < SeekTable.MAX_POINTS; probe++) {
+            long target = audioStart + audioLength * probe / SeekTable.MAX_POINTS;
+            ByteBuffer window = reader.read(target, probeLength);
+            for (int i = 0; i + MIN_HEADER_LENGTH <= window.limit(); i++) {
+                long sample = getSampleNumber(window, i, maxBlockSize);
+                if (sample >= 0) {
+                    builder.add(sample * 1000L / sampleRate, target + i);
+                    break;
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of the first sample of the frame whose header starts at
+     * the given index, or -1 if there is no valid frame header there.
+     */
+    static long getSampleNumber(ByteBuffer buffer, int index, int fixedBlockSize) {
+        int limit = buffer.limit();
+        if (index + MIN_HEADER_LENGTH > limit || (buffer.get(index) & 0xFF) != 0xFF
+                || (buffer.get(index + 1) & 0xFE) != 0xF8) {
+            return -1;
+        }
+        boolean variableBlockSize = (buffer.get(index + 1) & 0x1) != 0;
+        int blockSizeCode = buffer.get(index + 2) >>> 4 & 0xF;
+        int sampleRateCode = buffer.get(index + 2) & 0xF;
+        int channelCode = buffer.get(index + 3) >>> 4 & 0xF;
+        if (blockSizeCode == 0 || sampleRateCode == 0xF || channelCode > 10
+                || (buffer.get(index + 3) & 0x1) != 0) {
+            return -1;
+        }
+
+        // The frame or sample number, coded like UTF-8
+        int position = index + 4;
+        int first = buffer.get(position++) & 0xFF;
+        int leadingOnes = Integer.numberOfLeadingZeros(~first << 24);
+        int extra;
+        long number;
+        if (leadingOnes == 0) {
+            extra = 0;
+            number = first;
+        } else if (leadingOnes < 2 || leadingOnes > 7) {
+            return -1;
+        } else {
+            extra = leadingOnes - 1;
+            number = first & (0xFF >>> (leadingOnes + 1));
+        }
+        if (position + extra > limit) {
+            return -1;
+        }
+        for (int i = 0; i < extra; i++) {
+            int next = buffer.get(position++) & 0xFF;
+            if ((next & 0xC0) != 0x80) {
+                return -1;
+            }
+            number = number << 6 | next & 0x3F;
+        }
+
+        if (blockSizeCode == 6) {
+            position += 1;
+        } else if (blockSizeCode == 7) {
+            position += 2;
+        }
+        if (sampleRateCode == 12) {
+            position += 1;
+        } else if (sampleRateCode == 13 || sampleRateCode == 14) {
+            position += 2;
+        }
+        if (position >= limit || crc8(buffer, index, position) != (buffer.get(position) & 0xFF)) {
+            return -1;
+        }
+        if (variableBlockSize) {
+            return number;
+        }
+        return fixedBlockSize == 0 ? -1 : number * fixedBlockSize;
+    }
+
+    private static int crc8(ByteBuffer buffer, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc ^= buffer.get(i) & 0xFF;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) == 0 ? crc << 1 : crc << 1 ^ 0x07;
+            }
+            crc &= 0xFF;
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Builds the seek table of an MPEG audio file.
+ * <p>
+ * The table of contents of a Xing (or Info) header or a VBRI header is used if
+ * the first frame has one. Otherwise, the frame headers are walked from the
+ * beginning to the end, which gives the exact position of every frame.
+ * <p>
+ * The points of a Xing table of contents are positions quantised to 1/256 of
+ * the audio size rather than frame starts, so each of them is moved forward to
+ * the next frame header.
+ */
+final class Mp3SeekTableParser {
+
+    private static final int SYNC_SEARCH_LENGTH = 64 * 1024;
+    private static final int WINDOW_LENGTH = 64 * 1024;
+    // Two of the longest frames (MPEG2.5 layer II at 160 kbps and 8 kHz) and more
+    private static final int RESYNC_LENGTH = 8 * 1024;
+    private static final int HEADER_LENGTH = 4;
+
+    private static final int XING_FLAG_FRAMES = 0x1;
+    private static final int XING_FLAG_BYTES = 0x2;
+    private static final int XING_FLAG_TOC = 0x4;
+    private static final int XING_TOC_LENGTH = 100;
+    private static final int VBRI_OFFSET = HEADER_LENGTH + 32;
+
+    // [MPEG1 L1, L2, L3, MPEG2/2.5 L1, L2 and L3][index]
+    private static final int[][] BITRATES = {
+            { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 },
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 },
+            { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 },
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 },
+            { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 } };
+
+    // [version bits][index], where 0 is MPEG2.5, 2 is MPEG2 and 3 is MPEG1
+    private static final int[][] SAMPLE_RATES = { { 11_025, 12_000, 8000 }, {},
+            { 22_050, 24_000, 16_000 }, { 44_100, 48_000, 32_000 } };
+
+    private Mp3SeekTableParser() {
+    }
+
+    static @Nullable SeekTable parse(ChannelReader reader) throws IOException {
+        long audioStart = reader.skipId3v2(0);
+        ByteBuffer head = reader.read(audioStart, SYNC_SEARCH_LENGTH);
+        int first = findFirstFrame(head);
+        if (first < 0) {
+            return null;
+        }
+        long frameStart = audioStart + first;
+        Frame frame = Frame.of(head.getInt(first));
+        ByteBuffer firstFrame = reader.read(frameStart, frame.length());
+
+        SeekTable table = parseXing(reader, firstFrame, frame, frameStart);
+        if (table == null) {
+            table = parseVbri(firstFrame, frame, frameStart);
+        }
+        return table == null ? walk(reader, frameStart) : table;
+    }
+
+    /**
+     * Returns the index of the first header that is followed by another header, or
+     * -1 if there is none.
+     */
+    private static int findFirstFrame(ByteBuffer buffer) {
+        for (int i = 0; i + HEADER_LENGTH <= buffer.limit(); i++) {
+            Frame frame = Frame.of(buffer.getInt(i));
+            if (frame == null) {
+                continue;
+            }
+            int next = i + frame.length();
+            if (next + HEADER_LENGTH > buffer.limit() || Frame.of(buffer.getInt(next)) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static @Nullable SeekTable parseXing(ChannelReader reader, ByteBuffer buffer,
+            Frame frame, long frameStart) throws IOException {
+        int offset = HEADER_LENGTH + frame.sideInfoLength();
+        if (buffer.limit() < offset + 8
+                || !isTag(buffer, offset, "Xing") && !isTag(buffer, offset, "Info")) {
+            return null;
+        }
+        int flags = buffer.getInt(offset + 4);
+        if ((flags & XING_FLAG_FRAMES) == 0 || (flags & XING_FLAG_TOC) == 0) {
+            return null;
+        }
+        int position = offset + 8;
+        long frames = Integer.toUnsignedLong(buffer.getInt(position));
+        position += 4;
+        long bytes = reader.size() - frameStart;
+        if ((flags & XING_FLAG_BYTES) != 0) {
+            bytes = Math.min(bytes, Integer.toUnsignedLong(buffer.getInt(position)));
+            position += 4;
+        }
+        if (buffer.limit() < position + XING_TOC_LENGTH) {
+            return null;
+        }
+        long durationMillis = frames * frame.samples() * 1000L / frame.sampleRate();
+        SeekTable.Builder builder = new SeekTable.Builder();
+        for (int i = 0; i < XING_TOC_LENGTH; i++) {
+            int toc = buffer.get(position + i) & 0xFF;
+            long point = resync(reader, frameStart + bytes * toc / 256);
+            builder.add(durationMillis * i / XING_TOC_LENGTH, point);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the position of the first frame header at or after the given
+     * position, or -1 if there is none.
+     */
+    private static long resync(ChannelReader reader, long position) throws IOException {
+        int found = findFirstFrame(reader.read(position, RESYNC_LENGTH));
+        return found < 0 ? -1 : position + found;
+    }
+
+    private static @Nullable SeekTable parseVbri(ByteBuffer buffer, Frame frame,
+            long frameStart) {
+        if (buffer.limit() < VBRI_OFFSET + 26 || !isTag(buffer, VBRI_OFFSET, "VBRI")) {
+            return null;
+        }
+        int entries = Short.toUnsignedInt(buffer.getShort(VBRI_OFFSET + 18));
+        int scale = Short.toUnsignedInt(buffer.getShort(VBRI_OFFSET + 20));
+        int entrySize = Short.toUnsignedInt(buffer.getShort(VBRI_OFFSET + 22));
+        int framesPerEntry = Short.toUnsignedInt(buffer.getShort(VBRI_OFFSET + 24));
+        int position = VBRI_OFFSET + 26;
+        if (entrySize < 1 || entrySize > 4 || buffer.limit() < position + entries * entrySize) {
+            return null;
+        }
+        SeekTable.Builder builder = new SeekTable.Builder();
+        builder.add(0, frameStart);
+        long offset = frameStart;
+        for (int i = 0; i < entries; i++) {
+            long size = 0;
+            for (int j = 0; j < entrySize; j++) {
+                size = size << 8 | buffer.get(position++) & 0xFF;
+            }
+            offset += size * scale;
+            long samples = (long) (i + 1) * framesPerEntry * frame.samples();
+            builder.add(samples * 1000L / frame.sampleRate(), offset);
+        }
+        return builder.build();
+    }
+
+    private static boolean isTag(ByteBuffer buffer, int offset, String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            if (buffer.get(offset + i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static @Nullable SeekTable walk(ChannelReader reader, long frameStart)
+            throws IOException {
+        SeekTable.Builder builder = new SeekTable.Builder();
+        long position = frameStart;
+        long samples = 0;
+        ByteBuffer window = reader.read(position, WINDOW_LENGTH);
+        long windowStart = position;
+        while (true) {
+            if (position + HEADER_LENGTH > windowStart + window.limit()) {
+                window = reader.read(position, WINDOW_LENGTH);
+                windowStart = position;
+                if (window.limit() < HEADER_LENGTH) {
+                    break;
+                }
+            }
+            Frame frame = Frame.of(window.getInt((int) (position - windowStart)));
+            if (frame == null) {
+                // ID3v1, APE tag or garbage at the end
+                break;
+            }
+            builder.add(samples * 1000L / frame.sampleRate(), position);
+            samples += frame.samples();
+            position += frame.length();
+        }
+        return builder.build();
+    }
+
+    /**
+     * An MPEG audio frame header.
+     */
+    record Frame(int version, int layer, int bitrate, int sampleRate, boolean padding,
+            boolean mono) {
+
+        private static final int VERSION_1 = 3;
+
+        static @Nullable Frame of(int header) {
+            if ((header & 0xFFE0_0000) != 0xFFE0_0000) {
+                return null;
+            }
+            int version = header >>> 19 & 0x3;
+            int layer = 4 - (header >>> 17 & 0x3);
+            int bitrateIndex = header >>> 12 & 0xF;
+            int sampleRateIndex = header >>> 10 & 0x3;
+            if (version == 1 || layer == 4 || bitrateIndex == 0 || bitrateIndex == 0xF
+                    || sampleRateIndex == 3) {
+                // Reserved, or free format which cannot be walked
+                return null;
+            }
+            int table = version == VERSION_1 ? layer - 1 : Math.min(layer, 2) + 2;
+            return new Frame(version, layer, BITRATES[table][bitrateIndex] * 1000,
+                    SAMPLE_RATES[version][sampleRateIndex], (header >>> 9 & 0x1) != 0,
+                    (header >>> 6 & 0x3) == 3);
+        }
+
+        int samples() {
+            if (layer == 1) {
+                return 384;
+            }
+            return layer == 3 && version != VERSION_1 ? 576 : 1152;
+        }
+
+        int length() {
+            int pad = padding ? 1 : 0;
+            if (layer == 1) {
+                return (12 * bitrate / sampleRate + pad) * 4;
+            }
+            return samples() / 8 * bitrate / sampleRate + pad;
+        }
+
+        int sideInfoLength() {
+            if (version == VERSION_1) {
+                return mono ? 17 : 32;
+            }
+            return mono ? 9 : 17;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Builds the seek table of an MP4 (M4A) file from the sample tables of its
+ * first sound track. Each point is the start of a chunk: its time is taken from
+ * the time-to-sample table (stts) and its offset from the chunk offset table
+ * (stco or co64).
+ * <p>
+ * Note that the media data of MP4 cannot be decoded without the movie box, so
+ * the byte offsets are only useful to clients that have already read it.
+ */
+final class Mp4SeekTableParser {
+
+    private static final int MOOV = fourcc("moov");
+    private static final int TRAK = fourcc("trak");
+    private static final int MDIA = fourcc("mdia");
+    private static final int HDLR = fourcc("hdlr");
+    private static final int MDHD = fourcc("mdhd");
+    private static final int MINF = fourcc("minf");
+    private static final int STBL = fourcc("stbl");
+    private static final int STTS = fourcc("stts");
+    private static final int STSC = fourcc("stsc");
+    private static final int STCO = fourcc("stco");
+    private static final int CO64 = fourcc("co64");
+    private static final int SOUN = fourcc("soun");
+
+    private static final int BOX_HEADER_LENGTH = 8;
+    private static final int LARGE_BOX_HEADER_LENGTH = 16;
+    private static final int MAX_MOOV_LENGTH = 32 * 1024 * 1024;
+
+    private Mp4SeekTableParser() {
+    }
+
+    private static int fourcc(String type) {
+        return ByteBuffer.wrap(type.getBytes(StandardCharsets.US_ASCII)).getInt();
+    }
+
+    static @Nullable SeekTable parse(ChannelReader reader) throws IOException {
+        ByteBuffer moov = readMoov(reader);
+        if (moov == null) {
+            return null;
+        }
+        for (ByteBuffer trak : findBoxes(moov, TRAK)) {
+            SeekTable table = parseTrack(trak);
+            if (table != null) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private static @Nullable ByteBuffer readMoov(ChannelReader reader) throws IOException {
+        long position = 0;
+        while (position + BOX_HEADER_LENGTH <= reader.size()) {
+            ByteBuffer header = reader.read(position, LARGE_BOX_HEADER_LENGTH);
+            long size = Integer.toUnsignedLong(header.getInt(0));
+            int headerLength = BOX_HEADER_LENGTH;
+            if (size == 1) {
+                if (header.limit() < LARGE_BOX_HEADER_LENGTH) {
+                    return null;
+                }
+                size = header.getLong(8);
+                headerLength = LARGE_BOX_HEADER_LENGTH;
+            } else if (size == 0) {
+                size = reader.size() - position;
+            }
+            if (size < headerLength) {
+                return null;
+            }
+            if (header.getInt(4) == MOOV) {
+                if (size > MAX_MOOV_LENGTH) {
+                    return null;
+                }
+                return reader.read(position + headerLength, (int) (size - headerLength));
+            }
+            position += size;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the payloads of the child boxes of the given type.
+     */
+    private static List<ByteBuffer> findBoxes(ByteBuffer parent, int type) {
+        List<ByteBuffer> boxes = new ArrayList<>();
+        int position = 0;
+        while (position + BOX_HEADER_LENGTH <= parent.limit()) {
+            long size = Integer.toUnsignedLong(parent.getInt(position));
+            if (size < BOX_HEADER_LENGTH || position + size > parent.limit()) {
+                break;
+            }
+            if (parent.getInt(position + 4) == type) {
+                boxes
+                    .add(parent
+                        .slice(position + BOX_HEADER_LENGTH, (int) size - BOX_HEADER_LENGTH));
+            }
+            position += (int) size;
+        }
+        return boxes;
+    }
+
+    private static @Nullable ByteBuffer findBox(@Nullable ByteBuffer parent, int type) {
+        if (parent == null) {
+            return null;
+        }
+        List<ByteBuffer> boxes = findBoxes(parent, type);
+        return boxes.isEmpty() ? null : boxes.get(0);
+    }
+
+    private static @Nullable SeekTable parseTrack(ByteBuffer trak) {
+        ByteBuffer mdia = findBox(trak, MDIA);
+        ByteBuffer hdlr = findBox(mdia, HDLR);
+        ByteBuffer mdhd = findBox(mdia, MDHD);
+        ByteBuffer stbl = findBox(findBox(mdia, MINF), STBL);
+        if (hdlr == null || hdlr.limit() < 12 || hdlr.getInt(8) != SOUN || mdhd == null
+                || stbl == null) {
+            return null;
+        }
+        int timescaleOffset = mdhd.get(0) == 1 ? 20 : 12;
+        if (mdhd.limit() < timescaleOffset + 4) {
+            return null;
+        }
+        long timescale = Integer.toUnsignedLong(mdhd.getInt(timescaleOffset));
+
+        ByteBuffer stts = findBox(stbl, STTS);
+        ByteBuffer stsc = findBox(stbl, STSC);
+        ByteBuffer stco = findBox(stbl, STCO);
+        ByteBuffer co64 = findBox(stbl, CO64);
+        if (timescale == 0 || stts == null || stsc == null || stco == null && co64 == null) {
+            return null;
+        }
+        boolean large = stco == null;
+        ByteBuffer offsets = large ? co64 : stco;
+        int chunkCount = Math.min(offsets.getInt(4), (offsets.limit() - 8) / (large ? 8 : 4));
+        int sttsCount = Math.min(stts.getInt(4), (stts.limit() - 8) / 8);
+        int stscCount = Math.min(stsc.getInt(4), (stsc.limit() - 8) / 12);
+
+        SeekTable.Builder builder = new SeekTable.Builder();
+        TimeCursor time = new TimeCursor(stts, sttsCount);
+        long sample = 0;
+        int stscIndex = 0;
+        for (int chunk = 1; chunk <= chunkCount && stscCount > 0; chunk++) {
+            while (stscIndex + 1 < stscCount
+                    && Integer.toUnsignedLong(stsc.getInt(8 + (stscIndex + 1) * 12)) <= chunk) {
+                stscIndex++;
+            }
+            long offset = large ? offsets.getLong(8 + (chunk - 1) * 8)
+                    : Integer.toUnsignedLong(offsets.getInt(8 + (chunk - 1) * 4));
+            builder.add(time.advanceTo(sample) * 1000L / timescale, offset);
+            sample += Integer.toUnsignedLong(stsc.getInt(8 + stscIndex * 12 + 4));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Walks the time-to-sample table forward, converting sample numbers to
+     * decoding time.
+     */
+    private static class TimeCursor {
+
+        private final ByteBuffer stts;
+        private final int count;
+        private int index;
+        private long remaining;
+        private long sample;
+        private long time;
+
+        TimeCursor(ByteBuffer stts, int count) {
+            this.stts = stts;
+            this.count = count;
+            this.remaining = count > 0 ? Integer.toUnsignedLong(stts.getInt(8)) : 0;
+        }
+
+        long advanceTo(long target) {
+            while (sample < target && index < count) {
+                long delta = Integer.toUnsignedLong(stts.getInt(8 + index * 8 + 4));
+                long samples = Math.min(remaining, target - sample);
+                time += samples * delta;
+                sample += samples;
+                remaining -= samples;
+                if (remaining == 0 && ++index < count) {
+                    remaining = Integer.toUnsignedLong(stts.getInt(8 + index * 8));
+                }
+            }
+            return time;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.OptionalLong;
+
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.SeekIndex;
+import com.tesshu.jpsonic.persistence.api.repository.SeekIndexDao;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Converts time offsets into byte offsets using the seek table of each file.
+ * <p>
+ * The table is built the first time a file is sought and stored in the
+ * database, together with the modification time of the file. It is built again
+ * only after the file changes. Files that have nothing to build a table from are
+ * also recorded, so that they are not parsed on every request.
+ */
+@Service
+public class SeekIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SeekIndexService.class);
+
+    private final SeekIndexDao seekIndexDao;
+
+    public SeekIndexService(SeekIndexDao seekIndexDao) {
+        super();
+        this.seekIndexDao = seekIndexDao;
+    }
+
+    /**
+     * Returns whether seek tables can be built for the format.
+     */
+    public static boolean isSupported(@Nullable String format) {
+        if (format == null) {
+            return false;
+        }
+        return switch (format.toLowerCase(Locale.ROOT)) {
+        case "mp3", "flac", "m4a", "m4b" -> true;
+        default -> false;
+        };
+    }
+
+    /**
+     * Returns the byte offset of the frame at or just before the given time, or
+     * empty if the file has no seek table.
+     *
+     * @param mediaFile  the original file, not transcoded
+     * @param timeMillis time offset in milliseconds
+     */
+    public @NonNull OptionalLong getByteOffset(@NonNull MediaFile mediaFile, long timeMillis) {
+        SeekTable table = getSeekTable(mediaFile);
+        return table == null ? OptionalLong.empty() : OptionalLong.of(table.getOffset(timeMillis));
+    }
+
+    @Nullable
+    SeekTable getSeekTable(@NonNull MediaFile mediaFile) {
+        if (!isSupported(mediaFile.getFormat())) {
+            return null;
+        }
+        SeekIndex stored = seekIndexDao.getSeekIndex(mediaFile.getPathString());
+        if (stored != null && mediaFile.getChanged().equals(stored.getChanged())) {
+            return SeekTable.fromBytes(stored.getPoints());
+        }
+        SeekTable table = build(mediaFile.toPath(), mediaFile.getFormat());
+        seekIndexDao
+            .updateSeekIndex(new SeekIndex(mediaFile.getPathString(), mediaFile.getChanged(),
+                    table == null ? null : table.toBytes()));
+        return table;
+    }
+
+    static @Nullable SeekTable build(@NonNull Path path, @NonNull String format) {
+        try (ChannelReader reader = new ChannelReader(path)) {
+            return switch (format.toLowerCase(Locale.ROOT)) {
+            case "mp3" -> Mp3SeekTableParser.parse(reader);
+            case "flac" -> FlacSeekTableParser.parse(reader);
+            case "m4a", "m4b" -> Mp4SeekTableParser.parse(reader);
+            default -> null;
+            };
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Unable to build the seek table of {}: {}", path, e.getMessage());
+            }
+            return null;
+        }
+    }
+}
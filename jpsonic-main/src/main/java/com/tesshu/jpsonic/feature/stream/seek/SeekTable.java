@@ -0,0 +1,162 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Time to byte offset table of an audio file.
+ * <p>
+ * Each point is the start time and the byte offset of a frame (or of a chunk in
+ * the case of MP4). A time offset is resolved to the last point at or before
+ * it, so that the stream always starts on a frame boundary instead of in the
+ * middle of a frame.
+ */
+public final class SeekTable {
+
+    /**
+     * Maximum number of points kept per file. About 0.5 seconds apart for a song
+     * of 4 minutes. The points column of seek_index is sized for this.
+     */
+    static final int MAX_POINTS = 500;
+
+    private static final int POINT_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final int[] millis;
+    private final long[] offsets;
+
+    private SeekTable(int[] millis, long[] offsets) {
+        this.millis = millis;
+        this.offsets = offsets;
+    }
+
+    public int size() {
+        return millis.length;
+    }
+
+    /**
+     * Returns the byte offset of the last point at or before the given time.
+     */
+    public long getOffset(long timeMillis) {
+        int i = Arrays.binarySearch(millis, (int) Math.min(Integer.MAX_VALUE, timeMillis));
+        if (i < 0) {
+            i = Math.max(0, -i - 2);
+        }
+        return offsets[i];
+    }
+
+    public byte @NonNull [] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(millis.length * POINT_BYTES);
+        for (int i = 0; i < millis.length; i++) {
+            buffer.putInt(millis[i]).putLong(offsets[i]);
+        }
+        return buffer.array();
+    }
+
+    public static @Nullable SeekTable fromBytes(byte @Nullable [] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes.length % POINT_BYTES != 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int size = bytes.length / POINT_BYTES;
+        int[] millis = new int[size];
+        long[] offsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            millis[i] = buffer.getInt();
+            offsets[i] = buffer.getLong();
+        }
+        return new SeekTable(millis, offsets);
+    }
+
+    /**
+     * Collects points and thins them out to {@link #MAX_POINTS}. Points may be added
+     * in any order. Points that would not be ascending in both time and offset are
+     * dropped.
+     */
+    static class Builder {
+
+        private long[] millis = new long[64];
+        private long[] offsets = new long[64];
+        private int size;
+
+        Builder add(long timeMillis, long offset) {
+            if (timeMillis < 0 || timeMillis > Integer.MAX_VALUE || offset < 0) {
+                return this;
+            }
+            if (size == millis.length) {
+                millis = Arrays.copyOf(millis, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            millis[size] = timeMillis;
+            offsets[size] = offset;
+            size++;
+            return this;
+        }
+
+        /**
+         * Returns the table, or null if fewer than two points were collected.
+         */
+        @Nullable
+        SeekTable build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays
+                .sort(order, Comparator
+                    .<Integer> comparingLong(i -> millis[i])
+                    .thenComparingLong(i -> offsets[i]));
+
+            int[] sortedMillis = new int[size];
+            long[] sortedOffsets = new long[size];
+            int count = 0;
+            for (int i : order) {
+                if (count == 0 || millis[i] > sortedMillis[count - 1]
+                        && offsets[i] > sortedOffsets[count - 1]) {
+                    sortedMillis[count] = (int) millis[i];
+                    sortedOffsets[count] = offsets[i];
+                    count++;
+                }
+            }
+            if (count < 2) {
+                return null;
+            }
+
+            int[] thinnedMillis = new int[Math.min(count, MAX_POINTS)];
+            long[] thinnedOffsets = new long[thinnedMillis.length];
+            double interval = (double) sortedMillis[count - 1] / thinnedMillis.length;
+            int thinned = 0;
+            for (int i = 0; i < count && thinned < thinnedMillis.length; i++) {
+                if (count <= MAX_POINTS || sortedMillis[i] >= thinned * interval) {
+                    thinnedMillis[thinned] = sortedMillis[i];
+                    thinnedOffsets[thinned] = sortedOffsets[i];
+                    thinned++;
+                }
+            }
+            return new SeekTable(Arrays.copyOf(thinnedMillis, thinned),
+                    Arrays.copyOf(thinnedOffsets, thinned));
+        }
+    }
+}
@@ -123,6 +123,30 @@ public class EhcacheConfiguration {
         return cacheFactory.getCache("fontCache");
     }
 
+    @Bean
+    @Qualifier("zipCrcCache")
+    public Ehcache zipCrcCache(CacheFactory cacheFactory) {
+        return cacheFactory.getCache("zipCrcCache");
+    }
+
+    @Bean
+    @Qualifier("audioCodecCache")
+    public Ehcache audioCodecCache(CacheFactory cacheFactory) {
+        return cacheFactory.getCache("audioCodecCache");
+    }
+
+    @Bean
+    @Qualifier("artworkDigestCache")
+    public Ehcache artworkDigestCache(CacheFactory cacheFactory) {
+        return cacheFactory.getCache("artworkDigestCache");
+    }
+
+    @Bean
+    @Qualifier("playlistCoverCache")
+    public Ehcache playlistCoverCache(CacheFactory cacheFactory) {
+        return cacheFactory.getCache("playlistCoverCache");
+    }
+
     @Bean
     public CacheFactory cacheFactory() {
         return new CacheFactory();
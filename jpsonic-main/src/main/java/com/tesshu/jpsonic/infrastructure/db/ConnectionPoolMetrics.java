@@ -0,0 +1,143 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.infrastructure.db;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+/**
+ * Statistics of the connection pools, shown on the status page to size them.
+ *
+ * <p>
+ * For each pool, the time threads waited for a connection, the acquisitions
+ * that timed out, and the time connections were held are kept along with the
+ * current number of connections and waiting threads.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final List<Pool> pools = new CopyOnWriteArrayList<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Pool pool = new Pool(poolName, poolStats);
+        pools.add(pool);
+        return pool;
+    }
+
+    public List<Pool> getPools() {
+        return List.copyOf(pools);
+    }
+
+    public final class Pool implements IMetricsTracker {
+
+        private final String name;
+        private final PoolStats stats;
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder usages = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+
+        Pool(String name, PoolStats stats) {
+            this.name = name;
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usages.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void close() {
+            pools.remove(this);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getActive() {
+            return stats.getActiveConnections();
+        }
+
+        public int getIdle() {
+            return stats.getIdleConnections();
+        }
+
+        public int getMax() {
+            return stats.getMaxConnections();
+        }
+
+        public int getWaiting() {
+            return stats.getPendingThreads();
+        }
+
+        public long getAcquisitions() {
+            return acquisitions.sum();
+        }
+
+        public double getMeanWaitMillis() {
+            long count = acquisitions.sum();
+            return count == 0 ? 0 : toMillis(waitNanos.sum()) / count;
+        }
+
+        public double getMaxWaitMillis() {
+            return toMillis(maxWaitNanos.get());
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public double getMeanUsageMillis() {
+            long count = usages.sum();
+            return count == 0 ? 0 : (double) usageMillis.sum() / count;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
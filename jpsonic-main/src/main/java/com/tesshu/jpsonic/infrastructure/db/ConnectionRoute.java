@@ -0,0 +1,57 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.infrastructure.db;
+
+/**
+ * The connection pool the database work of the current thread is routed to.
+ *
+ * <p>
+ * Threads serving requests (the web UI, the REST API and UPnP) use the
+ * request pool. Threads of the scanner and of the other background jobs are
+ * marked when they are created, and use the background pool, so that a scan
+ * cannot occupy the connections requests are waiting for.
+ */
+public enum ConnectionRoute {
+
+    REQUEST, BACKGROUND;
+
+    private static final ThreadLocal<ConnectionRoute> CURRENT = ThreadLocal
+        .withInitial(() -> REQUEST);
+
+    public static ConnectionRoute current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the runnable that runs the given one routed to the background
+     * pool. Used as the body of the threads of background executors.
+     */
+    public static Runnable background(Runnable runnable) {
+        return () -> {
+            CURRENT.set(BACKGROUND);
+            try {
+                runnable.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+}
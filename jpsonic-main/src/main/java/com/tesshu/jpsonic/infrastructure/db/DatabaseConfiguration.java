@@ -22,6 +22,7 @@
 package com.tesshu.jpsonic.infrastructure.db;
 
 import java.nio.file.Path;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -63,6 +64,14 @@ public class DatabaseConfiguration {
     public static final long DS_IDLE_TIMEOUT = 300_000;
     public static final long DS_KEEP_ALIVE_TIME = 0;
 
+    /*
+     * The scanner and the other background jobs get a pool of their own. They
+     * are few threads that can wait, so the pool is smaller and its timeout
+     * longer than the pool serving requests.
+     */
+    public static final long DS_BACKGROUND_CONNECTION_TIMEOUT = 300_000;
+    public static final int DS_BACKGROUND_MAXIMUM_POOLSIZE = 4;
+
     private final Environment environment;
 
     public static class ProfileNameConstants {
@@ -100,28 +109,52 @@ public class DatabaseConfiguration {
         return new GenericDaoHelper(dataSource);
     }
 
-    private HikariConfig createConfig(String driver, String url, String user, String pass) {
+    private int getPoolSize(String key, int defaultValue) {
+        Integer value = environment.getProperty(key, Integer.class);
+        return value == null ? defaultValue : value;
+    }
+
+    private HikariConfig createConfig(ConnectionRoute route, String driver, String url,
+            String user, String pass, ConnectionPoolMetrics metrics) {
         HikariConfig config = new HikariConfig();
+        config.setPoolName("jpsonic-" + route.name().toLowerCase(Locale.ROOT));
         config.setDriverClassName(driver);
         config.setJdbcUrl(url);
         config.setUsername(user);
         config.setPassword(pass);
-        config.setConnectionTimeout(DS_CONNECTION_TIMEOUT);
+        if (route == ConnectionRoute.BACKGROUND) {
+            config.setConnectionTimeout(DS_BACKGROUND_CONNECTION_TIMEOUT);
+            config
+                .setMaximumPoolSize(getPoolSize("DatabaseBackgroundPoolSize",
+                        DS_BACKGROUND_MAXIMUM_POOLSIZE));
+        } else {
+            config.setConnectionTimeout(DS_CONNECTION_TIMEOUT);
+            config.setMaximumPoolSize(getPoolSize("DatabasePoolSize", DS_MAXIMUM_POOLSIZE));
+        }
         config.setMinimumIdle(DS_MINIMUM_IDLE);
-        config.setMaximumPoolSize(DS_MAXIMUM_POOLSIZE);
         config.setMaxLifetime(DS_MAX_LIFE_TIME);
         config.setIdleTimeout(DS_IDLE_TIMEOUT);
         config.setKeepaliveTime(DS_KEEP_ALIVE_TIME);
+        config.setMetricsTrackerFactory(metrics);
         return config;
     }
 
+    private RoutingDataSource createDataSource(String driver, String url, String user,
+            String pass, ConnectionPoolMetrics metrics) {
+        return new RoutingDataSource(
+                new HikariDataSource(
+                        createConfig(ConnectionRoute.REQUEST, driver, url, user, pass, metrics)),
+                new HikariDataSource(createConfig(ConnectionRoute.BACKGROUND, driver, url, user,
+                        pass, metrics)));
+    }
+
     @Bean
     @Profile(ProfileNameConstants.HOST)
-    public DataSource legacyDataSource() {
-        return new HikariDataSource(createConfig("org.hsqldb.jdbc.JDBCDriver",
+    public DataSource legacyDataSource(ConnectionPoolMetrics metrics) {
+        return createDataSource("org.hsqldb.jdbc.JDBCDriver",
                 EnvironmentProvider.getInstance().buildDefaultJDBCUrl(),
                 EnvironmentProvider.getInstance().getDefaultJDBCUsername(),
-                EnvironmentProvider.getInstance().getDefaultJDBCPassword()));
+                EnvironmentProvider.getInstance().getDefaultJDBCPassword(), metrics);
     }
 
     @SuppressWarnings("PMD.UseObjectForClearerAPI") // Because it's spring API
@@ -130,8 +163,9 @@ public class DatabaseConfiguration {
     public DataSource embedDataSource(@Value("${DatabaseConfigEmbedDriver}") String driver,
             @Value("${DatabaseConfigEmbedUrl}") String url,
             @Value("${DatabaseConfigEmbedUsername}") String username,
-            @Value("${DatabaseConfigEmbedPassword}") String password) {
-        return new HikariDataSource(createConfig(driver, url, username, password));
+            @Value("${DatabaseConfigEmbedPassword}") String password,
+            ConnectionPoolMetrics metrics) {
+        return createDataSource(driver, url, username, password, metrics);
     }
 
     @Bean
@@ -0,0 +1,67 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.infrastructure.db;
+
+import java.util.Map;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource that hands out connections of the request pool or of the
+ * background pool, depending on the {@link ConnectionRoute} of the current
+ * thread. A transaction keeps the connection it started with.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final HikariDataSource requestPool;
+    private final HikariDataSource backgroundPool;
+
+    public RoutingDataSource(HikariDataSource requestPool, HikariDataSource backgroundPool) {
+        super();
+        this.requestPool = requestPool;
+        this.backgroundPool = backgroundPool;
+        setTargetDataSources(Map
+            .<Object, Object>of(ConnectionRoute.REQUEST, requestPool, ConnectionRoute.BACKGROUND,
+                    backgroundPool));
+        setDefaultTargetDataSource(requestPool);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ConnectionRoute.current();
+    }
+
+    public HikariDataSource getRequestPool() {
+        return requestPool;
+    }
+
+    public HikariDataSource getBackgroundPool() {
+        return backgroundPool;
+    }
+
+    @Override
+    public void close() {
+        backgroundPool.close();
+        requestPool.close();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.entity;
+
+import java.time.Instant;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The cover art resolved for a directory at scan time.
+ * <p>
+ * Holds the modification time of the directory when it was resolved, so that
+ * the directory is only searched again after it changes, and the modification
+ * time of the cover art itself, so that it can be served without touching the
+ * file system.
+ */
+public class CoverArtIndex {
+
+    private String path;
+    private String coverArtPath;
+    private Instant dirChanged;
+    private Instant coverArtChanged;
+
+    public CoverArtIndex(@NonNull String path, @Nullable String coverArtPath,
+            @NonNull Instant dirChanged, @Nullable Instant coverArtChanged) {
+        super();
+        this.path = path;
+        this.coverArtPath = coverArtPath;
+        this.dirChanged = dirChanged;
+        this.coverArtChanged = coverArtChanged;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public @Nullable String getCoverArtPath() {
+        return coverArtPath;
+    }
+
+    public void setCoverArtPath(String coverArtPath) {
+        this.coverArtPath = coverArtPath;
+    }
+
+    public Instant getDirChanged() {
+        return dirChanged;
+    }
+
+    public void setDirChanged(Instant dirChanged) {
+        this.dirChanged = dirChanged;
+    }
+
+    public @Nullable Instant getCoverArtChanged() {
+        return coverArtChanged;
+    }
+
+    public void setCoverArtChanged(Instant coverArtChanged) {
+        this.coverArtChanged = coverArtChanged;
+    }
+}
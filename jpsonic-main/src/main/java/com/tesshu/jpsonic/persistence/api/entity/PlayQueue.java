@@ -164,6 +164,32 @@ public class PlayQueue implements ReadWriteLockSupport {
         }
     }
 
+    /**
+     * Returns the song that {@link #next()} would skip to, without moving the
+     * index.
+     *
+     * @return The next song in the playlist, or <code>null</code> if playback
+     *         stops after the current song.
+     */
+    public MediaFile getNextFile() {
+        readLock(sequenceLock);
+        try {
+            if (index == -1) {
+                return null;
+            }
+            int next = index + 1;
+            if (next >= files.size()) {
+                if (!isRepeatEnabled() || files.isEmpty()) {
+                    return null;
+                }
+                next = 0;
+            }
+            return files.get(next);
+        } finally {
+            readUnlock(sequenceLock);
+        }
+    }
+
     /**
      * Skip to the next song in the playlist.
      */
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.persistence.api.entity;
+
+import java.time.Instant;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The seek points of an audio file, used to convert a time offset into a byte
+ * offset.
+ * <p>
+ * Holds the modification time of the file when the points were built, so that
+ * they are only built again after the file changes. The points are null if the
+ * file has nothing to build them from, in which case the linear estimate is
+ * used.
+ */
+public class SeekIndex {
+
+    private String path;
+    private Instant changed;
+    private byte[] points;
+
+    public SeekIndex(@NonNull String path, @NonNull Instant changed, byte @Nullable [] points) {
+        super();
+        this.path = path;
+        this.changed = changed;
+        this.points = points;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Instant getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Instant changed) {
+        this.changed = changed;
+    }
+
+    public byte @Nullable [] getPoints() {
+        return points;
+    }
+
+    public void setPoints(byte[] points) {
+        this.points = points;
+    }
+}
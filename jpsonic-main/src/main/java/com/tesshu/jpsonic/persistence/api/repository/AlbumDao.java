@@ -34,6 +34,8 @@ import com.tesshu.jpsonic.persistence.api.entity.Album;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.base.DaoUtils;
+import com.tesshu.jpsonic.persistence.base.Keyset;
+import com.tesshu.jpsonic.persistence.base.KeysetPager;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.dialect.DialectAlbumDao;
 import com.tesshu.jpsonic.util.LegacyMap;
@@ -54,14 +56,25 @@ public class AlbumDao {
     private static final String INSERT_COLUMNS = DaoUtils.getInsertColumns(Album.class);
     private static final String QUERY_COLUMNS = DaoUtils.getQueryColumns(Album.class);
 
+    private static final Keyset BY_ORDER = Keyset.ascending("album_order", "id");
+    private static final Keyset BY_CREATED = Keyset.descending("created", "id");
+    private static final Keyset BY_PLAY_COUNT = Keyset.descending("play_count", "id");
+    private static final Keyset BY_LAST_PLAYED = Keyset.descending("last_played", "id");
+    private static final Keyset BY_STARRED = Keyset
+        .descending("starred_album.created", "album.id");
+    private static final String STARRED_COLUMNS = prefix(QUERY_COLUMNS, "album")
+            + BY_STARRED.getColumns();
+
     private final RowMapper<Album> rowMapper = DaoUtils.createRowMapper(Album.class);
     private final TemplateWrapper template;
+    private final KeysetPager pager;
 
     private final DialectAlbumDao dialect;
 
     public AlbumDao(TemplateWrapper templateWrapper, DialectAlbumDao dialect) {
         template = templateWrapper;
         this.dialect = dialect;
+        pager = new KeysetPager(templateWrapper);
     }
 
     public @Nullable Album getAlbum(int id) {
@@ -187,6 +200,15 @@ public class AlbumDao {
         Map<String, Object> args = LegacyMap
             .of("folders", MusicFolder.toIdList(musicFolders), "count", count, "offset", offset);
 
+        if (!byArtist && ignoreCase) {
+            return pager.namedQuery("select " + QUERY_COLUMNS + BY_ORDER.getColumns() + """
+                    from album
+                    where present and folder_id in (:folders) %s
+                    order by album_order, id
+                    limit :count offset :offset
+                    """, BY_ORDER, rowMapper, args);
+        }
+
         String join = "";
         String order;
         if (byArtist && ignoreCase) {
@@ -195,8 +217,6 @@ public class AlbumDao {
         } else if (byArtist && !ignoreCase) {
             join = "left join artist on artist.present and artist.name = album.artist";
             order = "artist.reading, album.name_reading";
-        } else if (!byArtist && ignoreCase) {
-            order = "album_order";
         } else {
             order = "album.name_reading";
         }
@@ -237,12 +257,12 @@ public class AlbumDao {
         }
         Map<String, Object> args = LegacyMap
             .of("folders", MusicFolder.toIdList(musicFolders), "count", count, "offset", offset);
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_PLAY_COUNT.getColumns() + """
                 from album
-                where play_count > 0 and present and folder_id in (:folders)
-                order by play_count desc
+                where play_count > 0 and present and folder_id in (:folders) %s
+                order by play_count desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_PLAY_COUNT, rowMapper, args);
     }
 
     public List<Album> getMostRecentlyPlayedAlbums(final int offset, final int count,
@@ -252,12 +272,12 @@ public class AlbumDao {
         }
         Map<String, Object> args = LegacyMap
             .of("folders", MusicFolder.toIdList(musicFolders), "count", count, "offset", offset);
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_LAST_PLAYED.getColumns() + """
                 from album
-                where last_played is not null and present and folder_id in (:folders)
-                order by last_played desc
+                where last_played is not null and present and folder_id in (:folders) %s
+                order by last_played desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_LAST_PLAYED, rowMapper, args);
     }
 
     public List<Album> getNewestAlbums(final int offset, final int count,
@@ -267,12 +287,12 @@ public class AlbumDao {
         }
         Map<String, Object> args = LegacyMap
             .of("folders", MusicFolder.toIdList(musicFolders), "count", count, "offset", offset);
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_CREATED.getColumns() + """
                 from album
-                where present and folder_id in (:folders)
-                order by created desc
+                where present and folder_id in (:folders) %s
+                order by created desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_CREATED, rowMapper, args);
     }
 
     public List<Album> getStarredAlbums(final int offset, final int count, final String username,
@@ -283,13 +303,13 @@ public class AlbumDao {
         Map<String, Object> args = LegacyMap
             .of("folders", MusicFolder.toIdList(musicFolders), "count", count, "offset", offset,
                     "username", username);
-        return template.namedQuery("select " + prefix(QUERY_COLUMNS, "album") + """
+        return pager.namedQuery("select " + STARRED_COLUMNS + """
                 from starred_album, album
                 where album.id = starred_album.album_id and album.present
-                        and album.folder_id in (:folders) and starred_album.username = :username
-                order by starred_album.created desc
+                        and album.folder_id in (:folders) and starred_album.username = :username %s
+                order by starred_album.created desc, album.id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_STARRED, rowMapper, args);
     }
 
     public List<Album> getAlbumsByYear(final int offset, final int count, final int fromYear,
@@ -321,6 +341,18 @@ public class AlbumDao {
         return dialect.getAlbumsByGenre(offset, count, genres, folders);
     }
 
+    /**
+     * Returns the distinct genres of present albums, as they are stored (before
+     * the multi-genre analysis).
+     */
+    public List<String> getGenreNames() {
+        return template.queryForStrings("""
+                select distinct genre
+                from album
+                where present and genre is not null
+                """);
+    }
+
     public void iterateLastScanned(@NonNull Instant scanDate, boolean withPodcast) {
         String podcastQuery = withPodcast ? "or child.type=?" : "";
         String query = """
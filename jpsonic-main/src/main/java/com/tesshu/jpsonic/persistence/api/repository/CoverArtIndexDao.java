@@ -0,0 +1,150 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static com.tesshu.jpsonic.persistence.base.DaoUtils.escapeLike;
+import static com.tesshu.jpsonic.persistence.base.DaoUtils.nullableInstantOf;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
+import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Provides database services for the cover art resolved at scan time.
+ */
+@Repository
+public class CoverArtIndexDao {
+
+    private static final String QUERY_COLUMNS = """
+            path, cover_art_path, dir_changed, cover_art_changed\s
+            """;
+
+    private final TemplateWrapper template;
+    private final RowMapper<CoverArtIndex> rowMapper;
+
+    public CoverArtIndexDao(TemplateWrapper templateWrapper) {
+        template = templateWrapper;
+        rowMapper = new CoverArtIndexRowMapper();
+    }
+
+    public @Nullable CoverArtIndex getCoverArtIndex(@NonNull String path) {
+        String sql = "select " + QUERY_COLUMNS + """
+                from cover_art_index
+                where path=?
+                """;
+        return template.queryOne(sql, rowMapper, path);
+    }
+
+    /**
+     * Returns the entries of the directory and everything under it.
+     */
+    public List<CoverArtIndex> getCoverArtIndexesUnder(@NonNull Path path) {
+        String root = path.toString();
+        String separator = path.getFileSystem().getSeparator();
+        String prefix = root.endsWith(separator) ? root : root + separator;
+        Map<String, Object> args = Map.of("root", root, "pattern", escapeLike(prefix) + "%");
+        return template.namedQuery("select " + QUERY_COLUMNS + """
+                from cover_art_index
+                where path = :root or path like :pattern escape '!'
+                """, rowMapper, args);
+    }
+
+    /**
+     * Returns the modification time of the cover art recorded at scan time, or null
+     * if it has not been indexed.
+     */
+    public @Nullable Instant getCoverArtChanged(@NonNull String coverArtPath) {
+        return template.queryForInstant("""
+                select max(cover_art_changed)
+                from cover_art_index
+                where cover_art_path=?
+                """, null, coverArtPath);
+    }
+
+    public void updateCoverArtIndex(@NonNull CoverArtIndex index) {
+        int updated = template.update("""
+                update cover_art_index
+                set cover_art_path=?, dir_changed=?, cover_art_changed=?
+                where path=?
+                """, index.getCoverArtPath(), index.getDirChanged(), index.getCoverArtChanged(),
+                index.getPath());
+        if (updated == 0) {
+            template.update("insert into cover_art_index (" + QUERY_COLUMNS + """
+                    ) values (?, ?, ?, ?)
+                    """, index.getPath(), index.getCoverArtPath(), index.getDirChanged(),
+                    index.getCoverArtChanged());
+        }
+    }
+
+    /**
+     * Records a new modification time of the cover art in the entries that refer
+     * to it.
+     *
+     * @return the number of updated entries
+     */
+    public int updateCoverArtChanged(@NonNull String coverArtPath, @NonNull Instant changed) {
+        return template.update("""
+                update cover_art_index
+                set cover_art_changed=?
+                where cover_art_path=? and (cover_art_changed is null or cover_art_changed<>?)
+                """, changed, coverArtPath, changed);
+    }
+
+    public void deleteCoverArtIndex(@NonNull String path) {
+        template.update("""
+                delete from cover_art_index
+                where path=?
+                """, path);
+    }
+
+    /**
+     * Deletes the entries of directories that are no longer present.
+     *
+     * @return the number of deleted entries
+     */
+    public int expunge() {
+        return template.update("""
+                delete from cover_art_index
+                where not exists (
+                        select 1
+                        from media_file m
+                        where m.path = cover_art_index.path and m.present)
+                """);
+    }
+
+    private static class CoverArtIndexRowMapper implements RowMapper<CoverArtIndex> {
+        @Override
+        public CoverArtIndex mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new CoverArtIndex(rs.getString(1), rs.getString(2),
+                    nullableInstantOf(rs.getTimestamp(3)), nullableInstantOf(rs.getTimestamp(4)));
+        }
+    }
+}
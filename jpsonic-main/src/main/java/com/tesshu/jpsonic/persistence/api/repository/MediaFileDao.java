@@ -21,6 +21,7 @@
 
 package com.tesshu.jpsonic.persistence.api.repository;
 
+import static com.tesshu.jpsonic.persistence.base.DaoUtils.escapeLike;
 import static com.tesshu.jpsonic.persistence.base.DaoUtils.prefix;
 import static com.tesshu.jpsonic.persistence.base.DaoUtils.questionMarks;
 import static com.tesshu.jpsonic.util.PlayerUtils.FAR_FUTURE;
@@ -40,12 +41,13 @@ import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
 import com.tesshu.jpsonic.persistence.api.entity.Album;
-import com.tesshu.jpsonic.persistence.api.entity.Genre;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.entity.MusicIndex;
 import com.tesshu.jpsonic.persistence.base.DaoUtils;
+import com.tesshu.jpsonic.persistence.base.Keyset;
+import com.tesshu.jpsonic.persistence.base.KeysetPager;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.dialect.DialectMediaFileDao;
 import com.tesshu.jpsonic.persistence.param.ShuffleSelectionParam;
@@ -72,13 +74,36 @@ public class MediaFileDao {
 
     public static final int VERSION = 15;
 
+    private static final int LAST_SCANNED_BATCH_SIZE = 1_000;
+
     private static final String INSERT_COLUMNS = DaoUtils.getInsertColumns(MediaFile.class);
     private static final String QUERY_COLUMNS = DaoUtils.getQueryColumns(MediaFile.class);
 
+    private static final String TYPE_ORDER = """
+            case type
+                when :directory then 1
+                when :album then 2
+                when :music then 3
+                when :audiobook then 4
+                when :video then 5
+                else 6
+            end
+            """;
+
+    private static final Keyset BY_TYPE_AND_ORDER = Keyset
+        .ascending(TYPE_ORDER, "media_file_order", "id");
+    private static final Keyset BY_ORDER = Keyset.ascending("media_file_order", "id");
+    private static final Keyset BY_CREATED = Keyset.descending("created", "id");
+    private static final Keyset BY_PLAY_COUNT = Keyset.descending("play_count", "id");
+    private static final Keyset BY_LAST_PLAYED = Keyset.descending("last_played", "id");
+    private static final Keyset BY_STARRED = Keyset
+        .descending("starred_media_file.created", "m.id");
+    private static final String STARRED_COLUMNS = prefix(QUERY_COLUMNS, "m")
+            + BY_STARRED.getColumns();
+
     private final TemplateWrapper template;
+    private final KeysetPager pager;
     private final RowMapper<MediaFile> rowMapper = DaoUtils.createRowMapper(MediaFile.class);
-    private final RowMapper<Genre> genreRowMapper = (rs, rowNum) -> new Genre(rs.getString(1),
-            rs.getInt(2), rs.getInt(3));
     private final RowMapper<IndexWithCount> indexWithCountMapper = (ResultSet rs,
             int num) -> new IndexWithCount(rs.getString(1), rs.getInt(2));
 
@@ -91,6 +116,7 @@ public class MediaFileDao {
     public MediaFileDao(TemplateWrapper templateWrapper, DialectMediaFileDao dialect) {
         template = templateWrapper;
         this.dialect = dialect;
+        pager = new KeysetPager(templateWrapper);
     }
 
     public @Nullable MediaFile getMediaFile(String path) {
@@ -235,32 +261,16 @@ public class MediaFileDao {
                 """, 0, playlistId);
     }
 
-    public List<Genre> getGenreCounts() {
-        Map<String, Object> args = Map
-            .of("album", MediaType.ALBUM.name(), "music", MediaType.MUSIC.name());
-        return template.namedQuery("""
-                select song_genre.name, song_count, album_count
-                from
-                    (select genres.name, count(*) as song_count
-                        from
-                            (select distinct genre name
-                                from media_file
-                                where present and type = :album or type = :music) as genres
-                        left join media_file as songs
-                        on songs.present and genres.name = songs.genre and songs.type = :music
-                        group by genres.name) as song_genre
-                join
-                    (select genres.name, count(*) as album_count
-                        from
-                            (select distinct genre name
-                                from media_file
-                                where present and type = :album or type = :music) as genres
-                        left join media_file as albums
-                        on albums.present and genres.name = albums.genre and albums.type = :album
-                        group by genres.name) as album_genre
-                on song_genre.name = album_genre.name
-                order by name
-                """, genreRowMapper, args);
+    /**
+     * Returns the distinct genres of present media files other than podcasts, as
+     * they are stored (before the multi-genre analysis).
+     */
+    public List<String> getGenreNames() {
+        return template.queryForStrings("""
+                select distinct genre
+                from media_file
+                where present and genre is not null and type <> ?
+                """, MediaType.PODCAST.name());
     }
 
     public List<MediaFile> getChildrenOf(String path) {
@@ -270,6 +280,23 @@ public class MediaFileDao {
                 """, rowMapper, path);
     }
 
+    /**
+     * Returns all present rows below the given directory, at any depth, in one
+     * query. Used by the scan to compare a whole subtree in memory.
+     */
+    public List<MediaFile> getDescendantsOf(@NonNull Path path) {
+        String parentPath = path.toString();
+        String separator = path.getFileSystem().getSeparator();
+        String prefix = parentPath.endsWith(separator) ? parentPath : parentPath + separator;
+        Map<String, Object> args = Map
+            .of("parentPath", parentPath, "pattern", escapeLike(prefix) + "%");
+        return template.namedQuery("select " + QUERY_COLUMNS + """
+                from media_file
+                where present and (parent_path = :parentPath
+                        or parent_path like :pattern escape '!')
+                """, rowMapper, args);
+    }
+
     public List<MediaFile> getChildrenOf(String path, long offset, long count,
             ChildOrder childOrder, MediaType... excludes) {
         Map<String, Object> args = Map
@@ -279,21 +306,24 @@ public class MediaFileDao {
                     MediaFile.MediaType.VIDEO.name(), "path", path, "offset", offset, "count",
                     count, "excludes", Stream.of(excludes).map(MediaType::name).toList());
         String typeFilter = excludes.length == 0 ? "" : "and type not in(:excludes)";
+        if (childOrder == ChildOrder.BY_ALPHA) {
+            return pager.namedQuery("select " + QUERY_COLUMNS + ", " + TYPE_ORDER + " as type_order"
+                    + BY_TYPE_AND_ORDER.getColumns() + """
+                    from media_file
+                    where parent_path=:path and present
+                    %s %%s
+                    order by type_order, media_file_order, id
+                    offset :offset limit :count
+                    """.formatted(typeFilter), BY_TYPE_AND_ORDER, rowMapper, args);
+        }
         String order = switch (childOrder) {
         case BY_ALPHA -> "media_file_order";
         case BY_YEAR -> "year is null, year, media_file_order";
         case BY_TRACK ->
             "disc_number is null, disc_number, track_number is null, track_number, media_file_order";
         };
-        return template.namedQuery("select " + QUERY_COLUMNS + """
-                        ,
-                        case type
-                            when :directory then 1
-                            when :album then 2
-                            when :music then 3
-                            when :audiobook then 4
-                            when :video then 5
-                        end as type_order
+        return template.namedQuery("select " + QUERY_COLUMNS + ", " + TYPE_ORDER + """
+                        as type_order
                 from media_file
                 where parent_path=:path and present
                 %s
@@ -312,21 +342,14 @@ public class MediaFileDao {
                     "count", count, "offset", offset, "excludes",
                     Stream.of(excludes).map(MediaType::name).toList());
         String typeFilter = excludes.length == 0 ? "" : "and type not in(:excludes)";
-        return template.namedQuery("select " + QUERY_COLUMNS + """
-                        ,
-                        case type
-                            when :directory then 1
-                            when :album then 2
-                            when :music then 3
-                            when :audiobook then 4
-                            when :video then 5
-                        end as type_order
+        return pager.namedQuery("select " + QUERY_COLUMNS + ", " + TYPE_ORDER + " as type_order"
+                + BY_TYPE_AND_ORDER.getColumns() + """
                 from media_file
                 where present and parent_path in (:folders)
-                %s
-                order by type_order, media_file_order
+                %s %%s
+                order by type_order, media_file_order, id
                 offset :offset limit :count
-                """.formatted(typeFilter), rowMapper, args);
+                """.formatted(typeFilter), BY_TYPE_AND_ORDER, rowMapper, args);
     }
 
     public List<MediaFile> getChildrenOf(List<MusicFolder> folders, MusicIndex musicIndex,
@@ -339,21 +362,14 @@ public class MediaFileDao {
                     "musicIndex", musicIndex.getIndex(), "count", count, "offset", offset,
                     "excludes", Stream.of(excludes).map(MediaType::name).toList());
         String typeFilter = excludes.length == 0 ? "" : "and type not in(:excludes)";
-        return template.namedQuery("select " + QUERY_COLUMNS + """
-                        ,
-                        case type
-                            when :directory then 1
-                            when :album then 2
-                            when :music then 3
-                            when :audiobook then 4
-                            when :video then 5
-                        end as type_order
+        return pager.namedQuery("select " + QUERY_COLUMNS + ", " + TYPE_ORDER + " as type_order"
+                + BY_TYPE_AND_ORDER.getColumns() + """
                 from media_file
                 where music_index=:musicIndex and present and parent_path in (:folders)
-                %s
-                order by type_order, media_file_order
+                %s %%s
+                order by type_order, media_file_order, id
                 offset :offset limit :count
-                """.formatted(typeFilter), rowMapper, args);
+                """.formatted(typeFilter), BY_TYPE_AND_ORDER, rowMapper, args);
     }
 
     public List<MediaFile> getChildrenOf(List<MusicFolder> folders, List<String> genres,
@@ -456,7 +472,7 @@ public class MediaFileDao {
                 from playlist_file, media_file
                 where media_file.id = playlist_file.media_file_id
                         and playlist_file.playlist_id = ? and present
-                order by playlist_file.id
+                order by playlist_file.file_order, playlist_file.id
                 limit ? offset ?
                 """, rowMapper, playlistId, count, offset);
     }
@@ -612,16 +628,6 @@ public class MediaFileDao {
                 """, FAR_PAST, id);
     }
 
-    public void updateGenres(List<Genre> genres) {
-        template.update("delete from genre");
-        for (Genre genre : genres) {
-            template.update("""
-                    insert into genre(name, song_count, album_count)
-                    values(?, ?, ?)
-                    """, genre.getName(), genre.getSongCount(), genre.getAlbumCount());
-        }
-    }
-
     public List<MediaFile> getArtistAll(final List<MusicFolder> musicFolders) {
         if (musicFolders.isEmpty()) {
             return Collections.emptyList();
@@ -659,12 +665,12 @@ public class MediaFileDao {
             .of("type", MediaFile.MediaType.ALBUM.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "count", count, "offset", offset);
 
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_PLAY_COUNT.getColumns() + """
                 from media_file
-                where type = :type and play_count > 0 and present and folder in (:folders)
-                order by play_count desc
+                where type = :type and play_count > 0 and present and folder in (:folders) %s
+                order by play_count desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_PLAY_COUNT, rowMapper, args);
     }
 
     public List<MediaFile> getMostRecentlyPlayedAlbums(final int offset, final int count,
@@ -675,13 +681,13 @@ public class MediaFileDao {
         Map<String, Object> args = LegacyMap
             .of("type", MediaFile.MediaType.ALBUM.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "count", count, "offset", offset);
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_LAST_PLAYED.getColumns() + """
                 from media_file
                 where type = :type and last_played is not null
-                        and present and folder in (:folders)
-                order by last_played desc
+                        and present and folder in (:folders) %s
+                order by last_played desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_LAST_PLAYED, rowMapper, args);
     }
 
     public List<MediaFile> getNewestAlbums(final int offset, final int count,
@@ -693,12 +699,12 @@ public class MediaFileDao {
             .of("type", MediaFile.MediaType.ALBUM.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "count", count, "offset", offset);
 
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_CREATED.getColumns() + """
                 from media_file
-                where type = :type and folder in (:folders) and present
-                order by created desc
+                where type = :type and folder in (:folders) and present %s
+                order by created desc, id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_CREATED, rowMapper, args);
     }
 
     public List<MediaFile> getAlphabeticalAlbums(final int offset, final int count,
@@ -709,14 +715,8 @@ public class MediaFileDao {
         Map<String, Object> args = LegacyMap
             .of("type", MediaFile.MediaType.ALBUM.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "count", count, "offset", offset);
-        String namedQuery = "select " + QUERY_COLUMNS + """
-                from media_file
-                where type = :type and folder in (:folders) and present
-                order by media_file_order
-                limit :count offset :offset
-                """;
         if (byArtist) {
-            namedQuery = "select distinct " + prefix(QUERY_COLUMNS, "al") + """
+            return template.namedQuery("select distinct " + prefix(QUERY_COLUMNS, "al") + """
                             , ar.media_file_order as ar_order, al.media_file_order as al_order
                     from media_file al
                     join media_file ar
@@ -724,10 +724,14 @@ public class MediaFileDao {
                     where al.type = :type and al.folder in (:folders) and al.present
                     order by ar_order, al_order
                     limit :count offset :offset
-                    """;
+                    """, rowMapper, args);
         }
-
-        return template.namedQuery(namedQuery, rowMapper, args);
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_ORDER.getColumns() + """
+                from media_file
+                where type = :type and folder in (:folders) and present %s
+                order by media_file_order, id
+                limit :count offset :offset
+                """, BY_ORDER, rowMapper, args);
     }
 
     public List<MediaFile> getAlbumsByYear(final int offset, final int count, final int fromYear,
@@ -768,12 +772,12 @@ public class MediaFileDao {
         Map<String, Object> args = LegacyMap
             .of("type", MediaType.ALBUM.name(), "genres", genres, "folders",
                     MusicFolder.toPathList(musicFolders), "count", count, "offset", offset);
-        return template.namedQuery("select " + QUERY_COLUMNS + """
+        return pager.namedQuery("select " + QUERY_COLUMNS + BY_ORDER.getColumns() + """
                 from media_file
-                where type = :type and folder in (:folders) and present and genre in (:genres)
-                order by media_file_order
+                where type = :type and folder in (:folders) and present and genre in (:genres) %s
+                order by media_file_order, id
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_ORDER, rowMapper, args);
     }
 
     public List<MediaFile> getUnparsedVideos(final int count,
@@ -877,14 +881,14 @@ public class MediaFileDao {
             .of("type", MediaFile.MediaType.ALBUM.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "username", username, "count", count,
                     "offset", offset);
-        return template.namedQuery("select " + prefix(QUERY_COLUMNS, "m") + """
+        return pager.namedQuery("select " + STARRED_COLUMNS + """
                 from starred_media_file, media_file m
                 where m.id = starred_media_file.media_file_id and m.present
                         and m.type = :type and m.folder in (:folders)
-                        and starred_media_file.username = :username
-                order by starred_media_file.created desc
+                        and starred_media_file.username = :username %s
+                order by starred_media_file.created desc, m.id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_STARRED, rowMapper, args);
     }
 
     public List<MediaFile> getStarredDirectories(final int offset, final int count,
@@ -896,14 +900,14 @@ public class MediaFileDao {
             .of("type", MediaFile.MediaType.DIRECTORY.name(), "folders",
                     MusicFolder.toPathList(musicFolders), "username", username, "count", count,
                     "offset", offset);
-        return template.namedQuery("select " + prefix(QUERY_COLUMNS, "m") + """
+        return pager.namedQuery("select " + STARRED_COLUMNS + """
                 from starred_media_file, media_file m
                 where m.id = starred_media_file.media_file_id and m.present
                         and m.type = :type and starred_media_file.username = :username
-                        and m.folder in (:folders)
-                order by starred_media_file.created desc
+                        and m.folder in (:folders) %s
+                order by starred_media_file.created desc, m.id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_STARRED, rowMapper, args);
     }
 
     public List<MediaFile> getStarredFiles(final int offset, final int count, final String username,
@@ -917,13 +921,14 @@ public class MediaFileDao {
                         MediaFile.MediaType.AUDIOBOOK.name(), MediaFile.MediaType.VIDEO.name()),
                     "folders", MusicFolder.toPathList(musicFolders), "username", username, "count",
                     count, "offset", offset);
-        return template.namedQuery("select " + prefix(QUERY_COLUMNS, "m") + """
+        return pager.namedQuery("select " + STARRED_COLUMNS + """
                 from starred_media_file, media_file m
-                where m.id = starred_media_file.media_file_id and m.present and m.type in (:types)
-                        and starred_media_file.username = :username and m.folder in (:folders)
-                order by starred_media_file.created desc
+                where m.id = starred_media_file.media_file_id and m.present
+                        and m.type in (:types) and starred_media_file.username = :username
+                        and m.folder in (:folders) %s
+                order by starred_media_file.created desc, m.id desc
                 limit :count offset :offset
-                """, rowMapper, args);
+                """, BY_STARRED, rowMapper, args);
     }
 
     public List<MediaFile> getRandomSongs(ShuffleSelectionParam criteria, final String username) {
@@ -1024,6 +1029,22 @@ public class MediaFileDao {
                 """, lastScanned, id);
     }
 
+    /**
+     * Same as {@link #updateLastScanned(int, Instant)}, for several rows at once.
+     */
+    public void updateLastScanned(List<Integer> ids, Instant lastScanned) {
+        for (int i = 0; i < ids.size(); i += LAST_SCANNED_BATCH_SIZE) {
+            Map<String, Object> args = Map
+                .of("ids", ids.subList(i, Math.min(ids.size(), i + LAST_SCANNED_BATCH_SIZE)),
+                        "lastScanned", lastScanned);
+            template.namedUpdate("""
+                    update media_file
+                    set last_scanned = :lastScanned
+                    where present and id in (:ids)
+                    """, args);
+        }
+    }
+
     public void markNonPresent(Instant lastScanned) {
         int minId = template.queryForInt("""
                 select min(id)
@@ -26,7 +26,13 @@ import static com.tesshu.jpsonic.persistence.base.DaoUtils.questionMarks;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.result.SavedPlayQueue;
@@ -68,6 +74,7 @@ public class PlayQueueDao {
                 select media_file_id
                 from play_queue_file
                 where play_queue_id = ?
+                order by id
                 """, playQueue.getId());
         playQueue.setMediaFileIds(mediaFileIds);
         return playQueue;
@@ -75,24 +82,71 @@ public class PlayQueueDao {
 
     @Transactional
     public void savePlayQueue(SavedPlayQueue playQueue) {
-        template.update("""
+        savePlayQueues(List.of(playQueue));
+    }
+
+    /**
+     * Replaces the play queues of the users in a single transaction, with one
+     * batch per statement. Files that no longer exist are left out.
+     */
+    @Transactional
+    public void savePlayQueues(List<SavedPlayQueue> playQueues) {
+        if (playQueues.isEmpty()) {
+            return;
+        }
+        template.batchUpdate("""
                 delete from play_queue
                 where username=?
-                """, playQueue.getUsername());
+                """, playQueues.stream().map(q -> new Object[] { q.getUsername() }).toList());
         template
-            .update("insert into play_queue(" + INSERT_COLUMNS + ") values ("
-                    + questionMarks(INSERT_COLUMNS) + ")", playQueue.getUsername(),
-                    playQueue.getCurrentMediaFileId(), playQueue.getPositionMillis(),
-                    playQueue.getChanged(), playQueue.getChangedBy());
-        int id = template.queryForInt("select max(id) from play_queue", 0);
-        playQueue.setId(id);
+            .batchUpdate("insert into play_queue(" + INSERT_COLUMNS + ") values ("
+                    + questionMarks(INSERT_COLUMNS) + ")", playQueues
+                        .stream()
+                        .map(q -> new Object[] { q.getUsername(), q.getCurrentMediaFileId(),
+                                q.getPositionMillis(), q.getChanged(), q.getChangedBy() })
+                        .toList());
+
+        Map<String, Integer> ids = new ConcurrentHashMap<>();
+        template.namedQuery("""
+                select id, username
+                from play_queue
+                where username in (:usernames)
+                """, (rs, rowNum) -> Map.entry(rs.getString(2), rs.getInt(1)),
+                Map.of("usernames", playQueues.stream().map(SavedPlayQueue::getUsername).toList()))
+            .forEach(entry -> ids.put(entry.getKey(), entry.getValue()));
+
+        Set<Integer> existing = getExistingMediaFileIds(playQueues
+            .stream()
+            .flatMap(playQueue -> playQueue.getMediaFileIds().stream())
+            .collect(Collectors.toSet()));
+        List<Object[]> files = new ArrayList<>();
+        for (SavedPlayQueue playQueue : playQueues) {
+            Integer id = ids.get(playQueue.getUsername());
+            playQueue.setId(id);
+            playQueue
+                .getMediaFileIds()
+                .stream()
+                .filter(existing::contains)
+                .forEach(fileId -> files.add(new Object[] { id, fileId }));
+        }
+        template.batchUpdate("""
+                insert into play_queue_file(play_queue_id, media_file_id)
+                values (?, ?)
+                """, files);
+    }
 
-        for (Integer mediaFileId : playQueue.getMediaFileIds()) {
-            template.update("""
-                    insert into play_queue_file(play_queue_id, media_file_id)
-                    values (?, ?)
-                    """, id, mediaFileId);
+    /*
+     * Files may have been removed by a scan since the queue was saved in memory.
+     */
+    private Set<Integer> getExistingMediaFileIds(Set<Integer> mediaFileIds) {
+        if (mediaFileIds.isEmpty()) {
+            return mediaFileIds;
         }
+        return new HashSet<>(template.namedQuery("""
+                select id
+                from media_file
+                where id in (:ids)
+                """, (rs, rowNum) -> rs.getInt(1), Map.of("ids", mediaFileIds)));
     }
 
     private static class PlayQueueMapper implements RowMapper<SavedPlayQueue> {
@@ -35,6 +35,7 @@ import java.util.TreeMap;
 
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.Playlist;
+import com.tesshu.jpsonic.persistence.api.repository.PlaylistFileDiff.Row;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.jdbc.core.RowMapper;
@@ -124,18 +125,44 @@ public class PlaylistDao {
         playlist.setId(id);
     }
 
+    /**
+     * Replaces the files in the playlist. Only the rows that differ from the
+     * stored ones are deleted, moved or inserted, each kind in a single batch.
+     */
     @Transactional
     public void setFilesInPlaylist(int id, List<MediaFile> files) {
-        template.update("""
-                delete from playlist_file
+        List<Row> rows = template.query("""
+                select id, media_file_id, file_order
+                from playlist_file
                 where playlist_id=?
-                """, id);
+                order by file_order, id
+                """, (rs, rowNum) -> new Row(rs.getInt(1), rs.getInt(2), rs.getLong(3)), id);
+        PlaylistFileDiff diff = PlaylistFileDiff
+            .of(rows, files.stream().map(MediaFile::getId).toList());
+        template.batchUpdate("""
+                delete from playlist_file
+                where id=?
+                """, diff.getDeletes().stream().map(rowId -> new Object[] { rowId }).toList());
+        template.batchUpdate("""
+                update playlist_file
+                set file_order=?
+                where id=?
+                """, diff
+            .getMoves()
+            .stream()
+            .map(move -> new Object[] { move.order(), move.id() })
+            .toList());
+        template.batchUpdate("""
+                insert into playlist_file (playlist_id, media_file_id, file_order)
+                values (?, ?, ?)
+                """, diff
+            .getInserts()
+            .stream()
+            .map(insert -> new Object[] { id, insert.mediaFileId(), insert.order() })
+            .toList());
+
         int duration = 0;
         for (MediaFile file : files) {
-            template.update("""
-                    insert into playlist_file (playlist_id, media_file_id)
-                    values (?, ?)
-                    """, id, file.getId());
             Integer ds = file.getDurationSeconds();
             if (ds != null) {
                 duration += ds;
@@ -0,0 +1,217 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The difference between the stored rows of a playlist and its new contents.
+ *
+ * Rows are ordered by file_order. The longest run of rows whose relative order
+ * is unchanged stays as it is, and only the rest is deleted, moved or inserted
+ * with an order between its neighbours. Orders are renumbered only when there
+ * is no room left between them.
+ */
+final class PlaylistFileDiff {
+
+    static final long GAP = 1024L;
+
+    private final List<Integer> deletes = new ArrayList<>();
+    private final List<Move> moves = new ArrayList<>();
+    private final List<Insert> inserts = new ArrayList<>();
+    private boolean renumbered;
+
+    private PlaylistFileDiff() {
+    }
+
+    /**
+     * @param rows         stored rows, in the order of file_order
+     * @param mediaFileIds new contents of the playlist
+     */
+    static PlaylistFileDiff of(List<Row> rows, List<Integer> mediaFileIds) {
+        PlaylistFileDiff diff = new PlaylistFileDiff();
+        int size = mediaFileIds.size();
+
+        int[] matched = new int[size];
+        boolean[] reused = new boolean[rows.size()];
+
+        // The unchanged head and tail are matched as they are
+        int head = 0;
+        int max = Math.min(size, rows.size());
+        while (head < max && rows.get(head).mediaFileId() == mediaFileIds.get(head)) {
+            matched[head] = head;
+            head++;
+        }
+        int tail = 0;
+        while (tail < max - head && rows.get(rows.size() - 1 - tail).mediaFileId() == mediaFileIds
+            .get(size - 1 - tail)) {
+            matched[size - 1 - tail] = rows.size() - 1 - tail;
+            tail++;
+        }
+
+        // Reuse the stored rows of the same file from the top, so duplicates keep order
+        Map<Integer, Deque<Integer>> unused = new ConcurrentHashMap<>();
+        for (int i = head; i < rows.size() - tail; i++) {
+            unused.computeIfAbsent(rows.get(i).mediaFileId(), k -> new ArrayDeque<>()).add(i);
+        }
+        for (int i = head; i < size - tail; i++) {
+            Deque<Integer> candidates = unused.get(mediaFileIds.get(i));
+            matched[i] = candidates == null || candidates.isEmpty() ? -1 : candidates.poll();
+        }
+        for (int index : matched) {
+            if (index >= 0) {
+                reused[index] = true;
+            }
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (!reused[i]) {
+                diff.deletes.add(rows.get(i).id());
+            }
+        }
+
+        boolean[] anchors = anchors(matched);
+        long[] orders = diff.placeBetweenAnchors(rows, matched, anchors);
+        if (orders == null) {
+            diff.renumbered = true;
+            orders = new long[size];
+            for (int i = 0; i < size; i++) {
+                orders[i] = (i + 1) * GAP;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (matched[i] < 0) {
+                diff.inserts.add(new Insert(mediaFileIds.get(i), orders[i]));
+            } else if (rows.get(matched[i]).order() != orders[i]) {
+                diff.moves.add(new Move(rows.get(matched[i]).id(), orders[i]));
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Returns the positions of the longest increasing subsequence of the reused
+     * rows. These rows are already in the right order relative to each other.
+     */
+    private static boolean[] anchors(int[] matched) {
+        int size = matched.length;
+        int[] tails = new int[size];
+        int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            if (matched[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (matched[tails[mid]] < matched[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] anchors = new boolean[size];
+        for (int i = length == 0 ? -1 : tails[length - 1]; i >= 0; i = previous[i]) {
+            anchors[i] = true;
+        }
+        return anchors;
+    }
+
+    /**
+     * Returns the orders of all positions, leaving the anchors as they are, or
+     * null if some positions do not fit between their anchors.
+     */
+    private long[] placeBetweenAnchors(List<Row> rows, int[] matched, boolean[] anchors) {
+        int size = matched.length;
+        long[] orders = new long[size];
+        int start = 0;
+        while (start < size) {
+            if (anchors[start]) {
+                orders[start] = rows.get(matched[start]).order();
+                start++;
+                continue;
+            }
+            int end = start;
+            while (end < size && !anchors[end]) {
+                end++;
+            }
+            int count = end - start;
+            boolean hasLower = start > 0;
+            boolean hasUpper = end < size;
+            long upper = hasUpper ? rows.get(matched[end]).order() : 0L;
+            long lower = hasLower ? orders[start - 1]
+                    : hasUpper ? upper - (count + 1) * GAP : 0L;
+            if (!hasUpper) {
+                upper = lower + (count + 1) * GAP;
+            }
+            long step = (upper - lower) / (count + 1);
+            if (step < 1) {
+                return null;
+            }
+            for (int i = 0; i < count; i++) {
+                orders[start + i] = lower + step * (i + 1);
+            }
+            start = end;
+        }
+        return orders;
+    }
+
+    List<Integer> getDeletes() {
+        return deletes;
+    }
+
+    List<Move> getMoves() {
+        return moves;
+    }
+
+    List<Insert> getInserts() {
+        return inserts;
+    }
+
+    boolean isRenumbered() {
+        return renumbered;
+    }
+
+    /** A stored row. */
+    record Row(int id, int mediaFileId, long order) {
+    }
+
+    /** A stored row to be given a new order. */
+    record Move(int id, long order) {
+    }
+
+    /** A row to be added. */
+    record Insert(int mediaFileId, long order) {
+    }
+}
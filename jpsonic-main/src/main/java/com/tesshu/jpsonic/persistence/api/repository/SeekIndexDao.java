@@ -0,0 +1,109 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static com.tesshu.jpsonic.persistence.base.DaoUtils.nullableInstantOf;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.tesshu.jpsonic.persistence.api.entity.SeekIndex;
+import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Provides database services for the seek points of audio files.
+ */
+@Repository
+public class SeekIndexDao {
+
+    private static final String QUERY_COLUMNS = """
+            path, changed, points\s
+            """;
+
+    private final TemplateWrapper template;
+    private final RowMapper<SeekIndex> rowMapper;
+
+    public SeekIndexDao(TemplateWrapper templateWrapper) {
+        template = templateWrapper;
+        rowMapper = new SeekIndexRowMapper();
+    }
+
+    public @Nullable SeekIndex getSeekIndex(@NonNull String path) {
+        String sql = "select " + QUERY_COLUMNS + """
+                from seek_index
+                where path=?
+                """;
+        return template.queryOne(sql, rowMapper, path);
+    }
+
+    /**
+     * Inserts or updates the entry of the path. The first seeks of a file by
+     * several players may build the same entry at once. The one that loses the
+     * race for the insert overwrites the entry of the winner instead.
+     */
+    public void updateSeekIndex(@NonNull SeekIndex index) {
+        if (update(index) > 0) {
+            return;
+        }
+        try {
+            template.update("insert into seek_index (" + QUERY_COLUMNS + """
+                    ) values (?, ?, ?)
+                    """, index.getPath(), index.getChanged(), index.getPoints());
+        } catch (DuplicateKeyException e) {
+            update(index);
+        }
+    }
+
+    private int update(SeekIndex index) {
+        return template.update("""
+                update seek_index
+                set changed=?, points=?
+                where path=?
+                """, index.getChanged(), index.getPoints(), index.getPath());
+    }
+
+    /**
+     * Deletes the entries of files that are no longer present.
+     *
+     * @return the number of deleted entries
+     */
+    public int expunge() {
+        return template.update("""
+                delete from seek_index
+                where not exists (
+                        select 1
+                        from media_file m
+                        where m.path = seek_index.path and m.present)
+                """);
+    }
+
+    private static class SeekIndexRowMapper implements RowMapper<SeekIndex> {
+        @Override
+        public SeekIndex mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return new SeekIndex(rs.getString(1), nullableInstantOf(rs.getTimestamp(2)),
+                    rs.getBytes(3));
+        }
+    }
+}
@@ -64,6 +64,13 @@ public final class DaoUtils {
         return StringUtils.repeat("?", ", ", numberOfColumns);
     }
 
+    /**
+     * Escapes the wildcards of a LIKE pattern. Use with {@code escape '!'}.
+     */
+    public static String escapeLike(String s) {
+        return s.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     public static String prefix(String columns, String prefix) {
         List<String> l = Arrays.asList(columns.replaceAll("\n", " ").split(", "));
         l.replaceAll(s -> prefix + "." + s);
@@ -0,0 +1,120 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The columns a listing is ordered by, used by {@link KeysetPager} to seek
+ * past the last row of a page.
+ *
+ * <p>
+ * The columns must not be nullable and, together, must be unique. In practice
+ * the last column is the id. All columns are ordered in the same direction.
+ */
+public final class Keyset {
+
+    private static final String ALIAS = "seek_key_";
+
+    private final List<String> columns;
+    private final boolean descending;
+
+    private Keyset(boolean descending, String... columns) {
+        this.columns = List.of(columns);
+        this.descending = descending;
+    }
+
+    public static Keyset ascending(String... columns) {
+        return new Keyset(false, columns);
+    }
+
+    public static Keyset descending(String... columns) {
+        return new Keyset(true, columns);
+    }
+
+    /**
+     * Returns the select list items reading the keys of each row, to be
+     * appended to the columns of the query.
+     */
+    public String getColumns() {
+        return IntStream
+            .range(0, columns.size())
+            .mapToObj(i -> ", " + columns.get(i) + " as " + ALIAS + i)
+            .collect(Collectors.joining())
+            .concat(" ");
+    }
+
+    /**
+     * Returns the condition selecting the rows after the given keys. The leading
+     * column is also bounded on its own so that the database can use a range
+     * scan.
+     */
+    String getCondition() {
+        String op = descending ? "<" : ">";
+        StringBuilder condition = new StringBuilder("and ")
+            .append(columns.get(0))
+            .append(' ')
+            .append(op)
+            .append("= :")
+            .append(ALIAS)
+            .append("0 and (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                condition.append(" or ");
+            }
+            condition.append('(');
+            for (int j = 0; j < i; j++) {
+                condition.append(columns.get(j)).append(" = :").append(ALIAS).append(j);
+                condition.append(" and ");
+            }
+            condition.append(columns.get(i)).append(' ').append(op).append(" :");
+            condition.append(ALIAS).append(i).append(')');
+        }
+        return condition.append(')').toString();
+    }
+
+    /**
+     * Reads the keys of the current row, or returns null if any of them is null.
+     */
+    Object @Nullable [] read(ResultSet rs) throws SQLException {
+        Object[] keys = new Object[columns.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rs.getObject(ALIAS + i);
+            if (keys[i] == null) {
+                return null;
+            }
+        }
+        return keys;
+    }
+
+    void bind(Map<String, Object> args, Object... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            args.put(ALIAS + i, keys[i]);
+        }
+    }
+}
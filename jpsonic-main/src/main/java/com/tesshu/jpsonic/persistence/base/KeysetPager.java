@@ -0,0 +1,124 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.tesshu.jpsonic.util.LegacyMap;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Runs listings paged by offset as keyset (seek) queries where it can.
+ *
+ * <p>
+ * Clients page through long listings with an offset and a count, and an
+ * offset query reads and discards every row before the page, so each page is
+ * slower than the previous one. Instead, the keys of the last row of each page
+ * are kept as the continuation of the listing at the offset that follows it.
+ * When a page is requested from that offset, its rows are selected after the
+ * keys, so the cost of a page no longer depends on its depth. Any other offset
+ * falls back to an offset query, which leaves a continuation as well.
+ *
+ * <p>
+ * The SQL passed has a {@code %s} placeholder in its where clause for the seek
+ * condition, is ordered by the {@link Keyset}, selects its
+ * {@link Keyset#getColumns() columns} and takes the {@code offset} and
+ * {@code count} named parameters. Continuations expire after a few minutes.
+ * Until then, a client paging while the listing changes continues from the
+ * last row it has seen, rather than from the row now at the offset.
+ */
+public class KeysetPager {
+
+    static final int MAX_CONTINUATIONS = 1_000;
+    static final long TTL = TimeUnit.MINUTES.toNanos(5);
+
+    private static final String OFFSET = "offset";
+    private static final String COUNT = "count";
+
+    private final TemplateWrapper template;
+    private final LongSupplier clock;
+    private final Map<Position, Continuation> continuations = new ConcurrentHashMap<>();
+
+    public KeysetPager(TemplateWrapper template) {
+        this(template, System::nanoTime);
+    }
+
+    KeysetPager(TemplateWrapper template, LongSupplier clock) {
+        super();
+        this.template = template;
+        this.clock = clock;
+    }
+
+    public <T> List<T> namedQuery(String sql, Keyset keyset, RowMapper<T> rowMapper,
+            Map<String, Object> args) {
+        TreeMap<String, Object> listing = new TreeMap<>(args);
+        long offset = ((Number) listing.remove(OFFSET)).longValue();
+        listing.remove(COUNT);
+        String name = sql + listing;
+        long now = clock.getAsLong();
+
+        Map<String, Object> queryArgs = LegacyMap.of();
+        queryArgs.putAll(args);
+        String condition = "";
+        Continuation continuation = offset == 0 ? null
+                : continuations.get(new Position(name, offset));
+        if (continuation != null && continuation.expires() - now > 0) {
+            condition = keyset.getCondition();
+            keyset.bind(queryArgs, continuation.keys());
+            queryArgs.put(OFFSET, 0);
+        }
+
+        Object[][] last = new Object[1][];
+        List<T> result = template.namedQuery(sql.formatted(condition), (rs, rowNum) -> {
+            T row = rowMapper.mapRow(rs, rowNum);
+            last[0] = keyset.read(rs);
+            return row;
+        }, queryArgs);
+
+        if (last[0] != null) {
+            if (continuations.size() >= MAX_CONTINUATIONS) {
+                continuations.values().removeIf(c -> c.expires() - now <= 0);
+                if (continuations.size() >= MAX_CONTINUATIONS) {
+                    continuations.clear();
+                }
+            }
+            continuations
+                .put(new Position(name, offset + result.size()),
+                        new Continuation(last[0], now + TTL));
+        }
+        return result;
+    }
+
+    int getContinuationCount() {
+        return continuations.size();
+    }
+
+    private record Position(String listing, long offset) {
+    }
+
+    private record Continuation(Object[] keys, long expires) {
+    }
+}
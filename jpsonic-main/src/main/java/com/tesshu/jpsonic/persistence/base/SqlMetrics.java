@@ -0,0 +1,314 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Statistics of the statements executed through {@link TemplateWrapper}.
+ *
+ * <p>
+ * Statements are grouped by their shape, which is the SQL with whitespace
+ * collapsed and literals and lists of parameters replaced by a single
+ * {@code ?}. For each shape the number of executions, the total, maximum and
+ * percentile latencies, and the rows returned or updated are kept. Many
+ * executions of the same shape from a single request are the sign of an N+1
+ * pattern.
+ *
+ * <p>
+ * Statements slower than {@code SqlSlowQueryMillis} are logged at info level.
+ * The statistics are shown on the status page, and are registered as an MXBean
+ * if {@code SqlMetricsJmx} is enabled.
+ */
+@Component
+public class SqlMetrics implements SqlMetricsMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SqlMetrics.class);
+
+    static final String OBJECT_NAME = "com.tesshu.jpsonic:type=SqlMetrics";
+
+    /** Shapes beyond this number are counted together as {@link #OTHERS}. */
+    static final int MAX_SHAPES = 500;
+    static final String OTHERS = "(others)";
+    private static final int MAX_CACHED_SQL = 2_000;
+
+    /*
+     * Upper bounds of the latency buckets in microseconds, growing by a quarter
+     * up to an hour. Percentiles are accurate to a bucket.
+     */
+    private static final long[] BOUNDS = createBounds();
+
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERALS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERALS = Pattern
+        .compile("(?<![\\w.\"])-?\\d+(?:\\.\\d+)?(?![\\w.\"])");
+    private static final Pattern PARAMETER_LISTS = Pattern
+        .compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private final long slowQueryMillis;
+    private final boolean jmx;
+    private final ConcurrentHashMap<String, String> shapes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+    private @Nullable ObjectName objectName;
+
+    public SqlMetrics(@Value("${SqlSlowQueryMillis:2000}") long slowQueryMillis,
+            @Value("${SqlMetricsJmx:false}") boolean jmx) {
+        super();
+        this.slowQueryMillis = slowQueryMillis;
+        this.jmx = jmx;
+    }
+
+    private static long[] createBounds() {
+        long limit = TimeUnit.HOURS.toMicros(1);
+        long[] bounds = new long[128];
+        int count = 0;
+        for (long bound = 1; bound < limit; bound = Math.max(bound + 1, bound * 5 / 4)) {
+            bounds[count] = bound;
+            count++;
+        }
+        bounds[count] = Long.MAX_VALUE;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!jmx) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("{} is already registered by another context.", OBJECT_NAME);
+                }
+                return;
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            LOG.warn("Failed to register the SQL metrics to JMX.", e);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOG.warn("Failed to unregister the SQL metrics from JMX.", e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Records an execution of the statement.
+     *
+     * @param sql           the statement as executed
+     * @param startTimeNano {@link System#nanoTime()} before the execution
+     * @param rows          rows returned or updated
+     */
+    public void record(String sql, long startTimeNano, long rows) {
+        long nanos = System.nanoTime() - startTimeNano;
+        String shape = shapes.get(sql);
+        if (shape == null) {
+            shape = toShape(sql);
+            if (shapes.size() < MAX_CACHED_SQL) {
+                shapes.put(sql, shape);
+            }
+        }
+        Stats stat = stats.get(shape);
+        if (stat == null) {
+            stat = stats.size() < MAX_SHAPES ? stats.computeIfAbsent(shape, s -> new Stats())
+                    : stats.computeIfAbsent(OTHERS, s -> new Stats());
+        }
+        stat.add(TimeUnit.NANOSECONDS.toMicros(nanos), rows);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (slowQueryMillis >= 0 && millis > slowQueryMillis && LOG.isInfoEnabled()) {
+            LOG.info("Slow query ({} ms, {} rows): {}", millis, rows, shape);
+        }
+    }
+
+    static String toShape(String sql) {
+        String shape = WHITESPACES.matcher(sql).replaceAll(" ").strip();
+        shape = STRING_LITERALS.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERALS.matcher(shape).replaceAll("?");
+        return PARAMETER_LISTS.matcher(shape).replaceAll("(?)");
+    }
+
+    @Override
+    public List<Statement> getStatements() {
+        return stats
+            .entrySet()
+            .stream()
+            .map(entry -> entry.getValue().toStatement(entry.getKey()))
+            .filter(statement -> statement.getCount() > 0)
+            .sorted(Comparator.comparingDouble(Statement::getTotalMillis).reversed())
+            .toList();
+    }
+
+    /**
+     * Returns the most time consuming statements.
+     */
+    public List<Statement> getStatements(int limit) {
+        return getStatements().stream().limit(limit).toList();
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+    }
+
+    private static class Stats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+        private final AtomicLongArray histogram = new AtomicLongArray(BOUNDS.length);
+
+        void add(long micros, long rowCount) {
+            count.increment();
+            totalMicros.add(micros);
+            rows.add(rowCount);
+            maxMicros.accumulate(micros);
+            int index = Arrays.binarySearch(BOUNDS, micros);
+            histogram.incrementAndGet(index < 0 ? -index - 1 : index);
+        }
+
+        private long percentile(long[] counts, long total, double ratio, long max) {
+            long rank = (long) Math.ceil(total * ratio);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(BOUNDS[i], max);
+                }
+            }
+            return max;
+        }
+
+        Statement toStatement(String shape) {
+            long[] counts = new long[histogram.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            long max = maxMicros.get();
+            return new Statement(shape, count.sum(), totalMicros.sum(), rows.sum(), max,
+                    percentile(counts, total, 0.50, max), percentile(counts, total, 0.95, max),
+                    percentile(counts, total, 0.99, max));
+        }
+    }
+
+    /**
+     * Statistics of a statement shape. Latencies are in milliseconds.
+     */
+    public static final class Statement {
+
+        private final String shape;
+        private final long count;
+        private final long totalMicros;
+        private final long rows;
+        private final long maxMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+
+        Statement(String shape, long count, long totalMicros, long rows, long maxMicros,
+                long p50Micros, long p95Micros, long p99Micros) {
+            this.shape = shape;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.rows = rows;
+            this.maxMicros = maxMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        private static double toMillis(long micros) {
+            return micros / 1_000.0;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getTotalMillis() {
+            return toMillis(totalMicros);
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : toMillis(totalMicros) / count;
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxMicros);
+        }
+
+        public double getP50Millis() {
+            return toMillis(p50Micros);
+        }
+
+        public double getP95Millis() {
+            return toMillis(p95Micros);
+        }
+
+        public double getP99Millis() {
+            return toMillis(p99Micros);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import java.util.List;
+
+/**
+ * The management interface of {@link SqlMetrics}.
+ */
+public interface SqlMetricsMXBean {
+
+    /**
+     * Returns the statistics of each statement, most time consuming first.
+     */
+    List<SqlMetrics.Statement> getStatements();
+
+    /**
+     * Discards the statistics collected so far.
+     */
+    void reset();
+}
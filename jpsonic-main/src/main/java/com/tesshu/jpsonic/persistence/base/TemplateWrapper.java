@@ -27,8 +27,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import com.tesshu.jpsonic.SuppressFBWarnings;
@@ -47,10 +47,12 @@ public class TemplateWrapper {
     private static final Logger LOG = LoggerFactory.getLogger(TemplateWrapper.class);
 
     private final DaoHelper daoHelper;
+    private final SqlMetrics sqlMetrics;
 
-    public TemplateWrapper(DaoHelper daoHelper) {
+    public TemplateWrapper(DaoHelper daoHelper, SqlMetrics sqlMetrics) {
         super();
         this.daoHelper = daoHelper;
+        this.sqlMetrics = sqlMetrics;
     }
 
     /**
@@ -75,45 +77,62 @@ public class TemplateWrapper {
         LOG.trace("Executing query: [{}]", sql);
         int result = getJdbcTemplate().update(sql, castArgs(args));
         LOG.trace("Updated {} rows", result);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result);
         return result;
     }
 
-    private void writeLog(String sql, long startTimeNano) {
-        long millis = (System.nanoTime() - startTimeNano) / 1_000_000L;
+    public int namedUpdate(String sql, Map<String, Object> args) {
+        long t = System.nanoTime();
+        LOG.trace("Executing query: [{}]", sql);
+        int result = getNamedParameterJdbcTemplate().update(sql, castArgs(args));
+        LOG.trace("Updated {} rows", result);
+        sqlMetrics.record(sql, t, result);
+        return result;
+    }
 
-        // Log queries that take more than 2 seconds.
-        if (LOG.isDebugEnabled() && millis > TimeUnit.SECONDS.toMillis(2L)) {
-            LOG.debug(millis + " ms:  " + sql);
+    /**
+     * Executes the statement once for each set of arguments in a single JDBC
+     * batch. Nothing is executed if there are no arguments.
+     */
+    @SuppressFBWarnings(value = "SQL_INJECTION_SPRING_JDBC", justification = "False positive. find-sec-bugs#385")
+    public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return new int[0];
         }
+        long t = System.nanoTime();
+        LOG.trace("Executing batch: [{}] x {}", sql, batchArgs.size());
+        int[] result = getJdbcTemplate()
+            .batchUpdate(sql, batchArgs.stream().map(TemplateWrapper::castArgs).toList());
+        sqlMetrics.record(sql, t, IntStream.of(result).filter(rows -> rows > 0).sum());
+        return result;
     }
 
     @SuppressFBWarnings(value = "SQL_INJECTION_SPRING_JDBC", justification = "False positive. find-sec-bugs#385")
     public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
         long t = System.nanoTime();
         List<T> result = getJdbcTemplate().query(sql, rowMapper, castArgs(args));
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result.size());
         return result;
     }
 
     public <T> List<T> namedQuery(String sql, RowMapper<T> rowMapper, Map<String, Object> args) {
         long t = System.nanoTime();
         List<T> result = getNamedParameterJdbcTemplate().query(sql, castArgs(args), rowMapper);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result.size());
         return result;
     }
 
     public List<String> queryForStrings(String sql, Object... args) {
         long t = System.nanoTime();
         List<String> result = getJdbcTemplate().queryForList(sql, String.class, castArgs(args));
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result.size());
         return result;
     }
 
     public List<Integer> queryForInts(String sql, Object... args) {
         long t = System.nanoTime();
         List<Integer> result = getJdbcTemplate().queryForList(sql, Integer.class, castArgs(args));
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result.size());
         return result;
     }
 
@@ -121,7 +140,7 @@ public class TemplateWrapper {
         long t = System.nanoTime();
         List<String> result = getNamedParameterJdbcTemplate()
             .queryForList(sql, castArgs(args), String.class);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, result.size());
         return result;
     }
 
@@ -130,7 +149,7 @@ public class TemplateWrapper {
         List<Integer> list = getJdbcTemplate().queryForList(sql, Integer.class, castArgs(args));
         Integer result = list.isEmpty() ? defaultValue
                 : list.get(0) == null ? defaultValue : list.get(0);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, list.size());
         return result;
     }
 
@@ -140,20 +159,21 @@ public class TemplateWrapper {
             .queryForList(sql, castArgs(args), Integer.class);
         Integer result = list.isEmpty() ? defaultValue
                 : list.get(0) == null ? defaultValue : list.get(0);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, list.size());
         return result;
     }
 
     public Instant queryForInstant(String sql, Instant defaultValue, Object... args) {
-        long startTimeNano = System.nanoTime();
-        Instant result = getJdbcTemplate()
-            .queryForList(sql, Timestamp.class, castArgs(args))
+        long t = System.nanoTime();
+        List<Timestamp> list = getJdbcTemplate()
+            .queryForList(sql, Timestamp.class, castArgs(args));
+        Instant result = list
             .stream()
             .filter(Objects::nonNull)
             .findFirst()
             .map(Timestamp::toInstant)
             .orElse(defaultValue);
-        writeLog(sql, startTimeNano);
+        sqlMetrics.record(sql, t, list.size());
         return result;
     }
 
@@ -163,7 +183,7 @@ public class TemplateWrapper {
         List<Long> list = getJdbcTemplate().queryForList(sql, Long.class, castArgs(args));
         Long result = list.isEmpty() ? defaultValue
                 : list.get(0) == null ? defaultValue : list.get(0);
-        writeLog(sql, t);
+        sqlMetrics.record(sql, t, list.size());
         return result;
     }
 
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.core.entity;
+
+import java.time.Instant;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A unit of progress recorded during a full scan. If the scan is interrupted,
+ * the next scan resumes from the recorded checkpoints.
+ */
+public class ScanCheckpoint {
+
+    private Instant startDate;
+    private ScanCheckpointType type;
+    private String target;
+    private Instant executed;
+
+    public ScanCheckpoint(@NonNull Instant startDate, @NonNull ScanCheckpointType type,
+            @NonNull String target, @NonNull Instant executed) {
+        super();
+        this.startDate = startDate;
+        this.type = type;
+        this.target = target;
+        this.executed = executed;
+    }
+
+    public Instant getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Instant startDate) {
+        this.startDate = startDate;
+    }
+
+    public ScanCheckpointType getType() {
+        return type;
+    }
+
+    public void setType(ScanCheckpointType type) {
+        this.type = type;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public Instant getExecuted() {
+        return executed;
+    }
+
+    public void setExecuted(Instant executed) {
+        this.executed = executed;
+    }
+
+    public enum ScanCheckpointType {
+
+        /**
+         * The target is the name of a completed scan phase (ScanEventType).
+         */
+        PHASE,
+
+        /**
+         * The target is the path of a directory whose subtree has been scanned.
+         */
+        DIRECTORY
+    }
+}
@@ -33,12 +33,15 @@ import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.core.entity.MediaLibraryStatistics;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint.ScanCheckpointType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanLog;
 import com.tesshu.jpsonic.persistence.core.entity.ScanLog.ScanLogType;
 import com.tesshu.jpsonic.util.LegacyMap;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -62,6 +65,10 @@ public class StaticsDao {
             int rowNum) -> new MediaLibraryStatistics(nullableInstantOf(rs.getTimestamp(1)),
                     rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6),
                     rs.getLong(7), rs.getLong(8));
+    private final RowMapper<ScanCheckpoint> checkpointMapper = (ResultSet rs,
+            int rowNum) -> new ScanCheckpoint(nullableInstantOf(rs.getTimestamp(1)),
+                    ScanCheckpointType.valueOf(rs.getString(2)), rs.getString(3),
+                    nullableInstantOf(rs.getTimestamp(4)));
 
     public StaticsDao(TemplateWrapper templateWrapper) {
         template = templateWrapper;
@@ -301,4 +308,55 @@ public class StaticsDao {
                 """;
         return template.namedQuery(sql, scanEventMapper, args);
     }
+
+    public void createScanCheckpoint(@NonNull Instant scanDate, @NonNull ScanCheckpointType type,
+            @NonNull String target) {
+        template.update("""
+                insert into scan_checkpoint (start_date, type, target, executed)
+                values (?, ?, ?, ?)
+                """, scanDate, type.name(), target, now());
+    }
+
+    public List<ScanCheckpoint> getScanCheckpoints(@NonNull Instant scanDate) {
+        return template.query("""
+                select start_date, type, target, executed
+                from scan_checkpoint
+                where start_date = ?
+                order by executed
+                """, checkpointMapper, scanDate);
+    }
+
+    public void deleteScanCheckpoints(@NonNull Instant scanDate) {
+        template.update("""
+                delete from scan_checkpoint
+                where start_date = ?
+                """, scanDate);
+    }
+
+    /**
+     * Returns the start date of the latest full scan if it did not complete and
+     * left checkpoints behind.
+     */
+    public @Nullable Instant getResumableScanDate() {
+        Map<String, Object> args = Map
+            .of("scanAll", ScanLogType.SCAN_ALL.name(), "success", ScanEventType.SUCCESS.name());
+        List<Instant> result = template.namedQuery("""
+                select last_log.start_date
+                from
+                        (select start_date
+                        from scan_log
+                        where type = :scanAll
+                        order by start_date desc
+                        limit 1) last_log
+                where exists
+                        (select 1
+                        from scan_checkpoint cp
+                        where cp.start_date = last_log.start_date)
+                        and not exists
+                        (select 1
+                        from scan_event event
+                        where event.start_date = last_log.start_date and event.type = :success)
+                """, (ResultSet rs, int rowNum) -> nullableInstantOf(rs.getTimestamp(1)), args);
+        return result.isEmpty() ? null : result.get(0);
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static com.tesshu.jpsonic.infrastructure.filesystem.PathInspector.toIdentityName;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import com.tesshu.jpsonic.infrastructure.filesystem.FileOperations;
+import com.tesshu.jpsonic.infrastructure.filesystem.MediaTypeDetector;
+import com.tesshu.jpsonic.infrastructure.filesystem.PathInspector;
+import com.tesshu.jpsonic.service.metadata.ParserUtils;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.jaudiotagger.tag.images.Artwork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores the original artwork by the hash of its content.
+ *
+ * <p>
+ * Embedded artwork is extracted once and written to the store, so that it is
+ * not read from the tags again for every size. Image files are referenced where
+ * they are. In both cases the digest identifies the image, so that the scaled
+ * variants can be shared by all the media files, albums and artists that have
+ * the same image.
+ */
+@Service
+public class ArtworkStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtworkStore.class);
+
+    private static final String DIRECTORY_NAME = "artworks";
+    private static final int DIRECTORY_SIBLING_SIZE = 160;
+
+    private final Ehcache digestCache;
+
+    public ArtworkStore(@Qualifier("artworkDigestCache") Ehcache digestCache) {
+        super();
+        this.digestCache = digestCache;
+    }
+
+    /**
+     * Returns the original of the given cover art, or empty if it is an audio file
+     * without embedded artwork.
+     *
+     * @param coverArt     an image file, or an audio file with embedded artwork
+     * @param lastModified the modification time of the cover art. The digest is
+     *                     reused until it changes.
+     */
+    public Optional<Original> getOriginal(@NonNull Path coverArt, long lastModified)
+            throws IOException {
+        String key = coverArt + ":" + lastModified;
+        Element element = digestCache.get(key);
+        if (element != null && element.getObjectValue() instanceof Original original
+                && Files.exists(original.path())) {
+            return Optional.of(original);
+        }
+        Optional<Original> original = ParserUtils.isEmbeddedArtworkApplicable(coverArt)
+                ? extract(coverArt)
+                : Optional.of(reference(coverArt));
+        original.ifPresent(o -> digestCache.put(new Element(key, o)));
+        return original;
+    }
+
+    private Original reference(Path image) throws IOException {
+        Path fileName = image.getFileName();
+        if (fileName == null) {
+            throw new IllegalArgumentException(
+                    "Image cannot be read: The root path was specified");
+        }
+        try (InputStream in = Files.newInputStream(image)) {
+            return new Original(DigestUtils.sha256Hex(in), image,
+                    MediaTypeDetector.getMimeType(PathInspector.getExtension(fileName)));
+        }
+    }
+
+    private Optional<Original> extract(Path audio) throws IOException {
+        Optional<Artwork> artwork = ParserUtils.getEmbeddedArtwork(audio);
+        if (artwork.isEmpty()) {
+            return Optional.empty();
+        }
+        byte[] data = artwork.get().getBinaryData();
+        String digest = DigestUtils.sha256Hex(data);
+        Path stored = getDirectory().resolve(digest);
+        if (!Files.exists(stored)) {
+            write(stored, data);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Stored artwork of {}: {}", toIdentityName(audio), digest);
+            }
+        }
+        return Optional.of(new Original(digest, stored, artwork.get().getMimeType()));
+    }
+
+    private static void write(Path stored, byte[] data) throws IOException {
+        // Another thread may be storing the same artwork. Both write the same bytes.
+        Path tmp = Files.createTempFile(stored.getParent(), "tmp-", null);
+        try {
+            Files.write(tmp, data);
+            Files
+                .move(tmp, stored, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileOperations.deleteIfExists(tmp);
+        }
+    }
+
+    @NonNull
+    Path getDirectory() {
+        Path dir = EnvironmentProvider
+            .getInstance()
+            .getImageCacheDirectory(DIRECTORY_SIBLING_SIZE)
+            .resolveSibling(DIRECTORY_NAME);
+        FileOperations.createDirectories(dir);
+        return dir;
+    }
+
+    /**
+     * Original of an artwork.
+     *
+     * @param digest   SHA-256 of the image data
+     * @param path     the image file, or the stored copy of the embedded artwork
+     * @param mimeType mime type of the image
+     */
+    public record Original(@NonNull String digest, @NonNull Path path, String mimeType) {
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tesshu.jpsonic.infrastructure.settings.SKeys;
+import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Shapes the bandwidth of transfers with token buckets.
+ *
+ * <p>
+ * Each copy loop passes the number of bytes it has written to
+ * {@link Transfer#acquire(long)}, which takes tokens from the buckets the
+ * transfer belongs to and sleeps while any of them is in debt. Because the
+ * buckets are shared, a limit is an aggregate budget: one large download
+ * cannot use the bandwidth left for streams, however many connections it
+ * opens.
+ *
+ * <h3>Buckets</h3>
+ * <ul>
+ * <li>Total : All outbound transfers of the server.</li>
+ * <li>User : Outbound transfers of each user. The same limit applies to every
+ * user.</li>
+ * <li>Type : Transfers of each {@link TransferType}.</li>
+ * </ul>
+ * Inbound transfers (podcast downloads and uploads) do not use the uplink, and
+ * are only shaped by the bucket of their type.
+ *
+ * <h3>Settings</h3>
+ * All limits are in Kbps, and 0 means unlimited.
+ * <ul>
+ * <li>{@code BandwidthLimit} : Total</li>
+ * <li>{@code UserBandwidthLimit} : Each user</li>
+ * <li>{@code StreamBandwidthLimit}, {@code UPnPBandwidthLimit},
+ * {@code PodcastBandwidthLimit} : Each type</li>
+ * <li>The download and upload bitrate limits of the advanced settings, which
+ * are applied to the download and upload types</li>
+ * </ul>
+ */
+@Service
+public class BandwidthShaper {
+
+    /**
+     * Interval at which the limits in the advanced settings are reloaded.
+     */
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SettingsFacade settingsFacade;
+    private final long userLimit;
+    private final Bucket total;
+    private final Map<TransferType, Bucket> types = new EnumMap<>(TransferType.class);
+    private final Map<String, Bucket> users = new ConcurrentHashMap<>();
+    private final AtomicLong refreshed = new AtomicLong(System.nanoTime() - REFRESH_INTERVAL_NANOS);
+
+    public BandwidthShaper(SettingsFacade settingsFacade,
+            @Value("${BandwidthLimit:0}") long totalLimit,
+            @Value("${UserBandwidthLimit:0}") long userLimit,
+            @Value("${StreamBandwidthLimit:0}") long streamLimit,
+            @Value("${UPnPBandwidthLimit:0}") long upnpLimit,
+            @Value("${PodcastBandwidthLimit:0}") long podcastLimit) {
+        super();
+        this.settingsFacade = settingsFacade;
+        this.userLimit = userLimit;
+        total = new Bucket(totalLimit);
+        for (TransferType type : TransferType.values()) {
+            types.put(type, new Bucket(0));
+        }
+        types.get(TransferType.STREAM).setLimit(streamLimit);
+        types.get(TransferType.UPNP).setLimit(upnpLimit);
+        types.get(TransferType.PODCAST).setLimit(podcastLimit);
+    }
+
+    private void refresh(long now) {
+        long last = refreshed.get();
+        if (now - last < REFRESH_INTERVAL_NANOS || !refreshed.compareAndSet(last, now)) {
+            return;
+        }
+        types
+            .get(TransferType.DOWNLOAD)
+            .setLimit(settingsFacade.get(SKeys.advanced.bandwidth.downloadBitrateLimit));
+        types
+            .get(TransferType.UPLOAD)
+            .setLimit(settingsFacade.get(SKeys.advanced.bandwidth.uploadBitrateLimit));
+    }
+
+    /**
+     * Opens a transfer. The returned object is used for the lifetime of a single
+     * transfer, and need not be closed.
+     *
+     * @param type     type of the transfer
+     * @param username user of the transfer, may be {@code null} if unknown
+     */
+    public @NonNull Transfer open(@NonNull TransferType type, @Nullable String username) {
+        refresh(System.nanoTime());
+        List<Bucket> buckets = new ArrayList<>();
+        buckets.add(types.get(type));
+        if (type.isOutbound()) {
+            buckets.add(total);
+            if (username != null) {
+                buckets.add(users.computeIfAbsent(username, name -> new Bucket(userLimit)));
+            }
+        }
+        return new Transfer(buckets.toArray(new Bucket[0]));
+    }
+
+    /**
+     * Returns the current rates of all buckets: the total, each type, and each
+     * user who has transferred something.
+     */
+    public @NonNull List<Rate> getRates() {
+        long now = System.nanoTime();
+        List<Rate> rates = new ArrayList<>();
+        rates.add(total.toRate(Rate.Scope.TOTAL, null, now));
+        types
+            .forEach((type, bucket) -> rates
+                .add(bucket.toRate(Rate.Scope.TYPE, type.name(), now)));
+        users
+            .entrySet()
+            .stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(e -> rates.add(e.getValue().toRate(Rate.Scope.USER, e.getKey(), now)));
+        return rates;
+    }
+
+    /**
+     * Type of a transfer.
+     */
+    public enum TransferType {
+
+        /**
+         * Streaming to players, including HLS and the REST API.
+         */
+        STREAM(true),
+
+        /**
+         * Downloading files and zip-files.
+         */
+        DOWNLOAD(true),
+
+        /**
+         * Streaming to UPnP renderers.
+         */
+        UPNP(true),
+
+        /**
+         * Downloading podcast episodes from the internet.
+         */
+        PODCAST(false),
+
+        /**
+         * Uploading files to the server.
+         */
+        UPLOAD(false);
+
+        private final boolean outbound;
+
+        TransferType(boolean outbound) {
+            this.outbound = outbound;
+        }
+
+        /**
+         * Returns whether the transfer uses the uplink of the server.
+         */
+        public boolean isOutbound() {
+            return outbound;
+        }
+    }
+
+    /**
+     * A single transfer, which takes tokens from its buckets.
+     */
+    public static final class Transfer {
+
+        private final Bucket[] buckets;
+
+        Transfer(Bucket... buckets) {
+            this.buckets = buckets;
+        }
+
+        /**
+         * Returns whether any of the buckets of this transfer has a limit. If not,
+         * {@link #acquire(long)} never sleeps.
+         */
+        public boolean isLimited() {
+            for (Bucket bucket : buckets) {
+                if (bucket.isLimited()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Takes the given number of bytes from the buckets, and sleeps until all of
+         * them are out of debt. Called after each write.
+         */
+        public void acquire(long bytes) {
+            long now = System.nanoTime();
+            long wait = 0;
+            for (Bucket bucket : buckets) {
+                wait = Math.max(wait, bucket.reserve(bytes, now));
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Token bucket, which also measures the rate passing through it.
+     *
+     * <p>
+     * Tokens are bytes and are refilled at the rate of the limit, up to the amount
+     * of {@link #BURST_NANOS}. A reservation larger than the available tokens
+     * puts the bucket in debt, and the caller waits until the debt would be
+     * repaid. Later callers queue behind the debt, so the bandwidth is shared
+     * fairly between the transfers in the bucket.
+     */
+    static final class Bucket {
+
+        private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+        private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private long bytesPerSecond;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private long windowStart = System.nanoTime();
+        private long windowBytes;
+        private long rate;
+
+        Bucket(long limitKbps) {
+            setLimit(limitKbps);
+            tokens = getCapacity();
+        }
+
+        private double getCapacity() {
+            return (double) bytesPerSecond * BURST_NANOS / TimeUnit.SECONDS.toNanos(1);
+        }
+
+        synchronized void setLimit(long limitKbps) {
+            bytesPerSecond = Math.max(0, limitKbps) * 1024 / 8;
+            tokens = Math.min(tokens, getCapacity());
+        }
+
+        synchronized boolean isLimited() {
+            return bytesPerSecond > 0;
+        }
+
+        /**
+         * Reserves the given number of bytes, and returns the nanoseconds to wait
+         * until the reservation is covered.
+         */
+        synchronized long reserve(long bytes, long now) {
+            measure(bytes, now);
+            if (bytesPerSecond <= 0) {
+                return 0;
+            }
+            tokens = Math
+                .min(getCapacity(), tokens + (double) (now - refilledAt) * bytesPerSecond
+                        / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+            tokens -= bytes;
+            return tokens >= 0 ? 0
+                    : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+        }
+
+        private void measure(long bytes, long now) {
+            long elapsed = now - windowStart;
+            if (elapsed >= RATE_WINDOW_NANOS) {
+                rate = windowBytes * TimeUnit.SECONDS.toNanos(1) / elapsed;
+                windowStart = now;
+                windowBytes = 0;
+            }
+            windowBytes += bytes;
+        }
+
+        /**
+         * Returns the rate in bytes per second measured over the last window, or 0
+         * if nothing has passed recently.
+         */
+        synchronized long getRate(long now) {
+            return now - windowStart > RATE_WINDOW_NANOS * 2 ? 0 : rate;
+        }
+
+        synchronized Rate toRate(Rate.Scope scope, String name, long now) {
+            return new Rate(scope, name, getRate(now), bytesPerSecond);
+        }
+    }
+
+    /**
+     * Current rate and limit of a bucket.
+     */
+    public static final class Rate {
+
+        /**
+         * What the bucket covers.
+         */
+        public enum Scope {
+            TOTAL, TYPE, USER
+        }
+
+        private final Scope scope;
+        private final String name;
+        private final long bytesPerSecond;
+        private final long limitBytesPerSecond;
+
+        public Rate(Scope scope, String name, long bytesPerSecond, long limitBytesPerSecond) {
+            this.scope = scope;
+            this.name = name;
+            this.bytesPerSecond = bytesPerSecond;
+            this.limitBytesPerSecond = limitBytesPerSecond;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        /**
+         * The type or the username, {@code null} for the total.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public long getKbps() {
+            return bytesPerSecond * 8 / 1024;
+        }
+
+        /**
+         * The limit in Kbps, 0 if unlimited.
+         */
+        public long getLimitKbps() {
+            return limitBytesPerSecond * 8 / 1024;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the image cache within a quota.
+ *
+ * <p>
+ * The image cache holds the scaled cover art of each size, the stored originals
+ * of embedded artwork and the storyboards. Everything in it can be created
+ * again, so any file may be removed.
+ *
+ * <p>
+ * Accesses are only recorded in memory, so that a cache hit does not cost any
+ * IO. They are written to the last access time of the files when the cache is
+ * maintained, which is the order used for eviction across restarts. When the
+ * usage exceeds the quota ({@code ImageCacheQuotaMB}), the least recently used
+ * files are removed until it is below {@value #LOW_WATER_MARK} of the quota.
+ *
+ * <p>
+ * The cached files are named after one-way digests, so that the source of a
+ * file cannot be looked up. Instead, after a scan, files that have not been
+ * accessed for the retention period ({@code ImageCacheRetentionDays}) are
+ * removed, as are the directories of sizes left empty. The images of deleted
+ * albums and of sizes no longer requested are never accessed again, and so are
+ * removed by this.
+ */
+@Service
+public class ImageCacheService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImageCacheService.class);
+
+    static final double LOW_WATER_MARK = 0.9;
+
+    // Files modified more recently than this may still be being written.
+    static final long WRITING_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int ROOT_SIBLING_SIZE = 160;
+
+    private final AsyncTaskExecutor shortExecutor;
+    private final long quota;
+    private final long retentionMillis;
+
+    private final Map<Path, Long> accessed = new ConcurrentHashMap<>();
+    // Usage since the last maintenance, or -1 if not yet measured
+    private final AtomicLong estimated = new AtomicLong(-1);
+    private final AtomicBoolean maintaining = new AtomicBoolean();
+    private final AtomicReference<Usage> usage = new AtomicReference<>();
+
+    public ImageCacheService(@Qualifier("shortExecutor") AsyncTaskExecutor shortExecutor,
+            @Value("${ImageCacheQuotaMB:2048}") long quotaMB,
+            @Value("${ImageCacheRetentionDays:90}") int retentionDays) {
+        super();
+        this.shortExecutor = shortExecutor;
+        this.quota = Math.max(0, quotaMB) * 1024 * 1024;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(Math.max(0, retentionDays));
+    }
+
+    /**
+     * Returns the quota in bytes, or 0 if the cache is not bounded.
+     */
+    public long getQuota() {
+        return quota;
+    }
+
+    /**
+     * Records an access to the cached file. Does not access the file.
+     */
+    public void touch(@NonNull Path cache) {
+        accessed.put(cache, System.currentTimeMillis());
+    }
+
+    /**
+     * Records the cached file that has just been written, and starts the
+     * maintenance in the background if the quota may have been exceeded.
+     */
+    public void written(@NonNull Path cache) {
+        touch(cache);
+        if (quota == 0) {
+            return;
+        }
+        long size;
+        try {
+            size = Files.size(cache);
+        } catch (IOException e) {
+            return;
+        }
+        long total = estimated
+            .accumulateAndGet(size, (current, added) -> current < 0 ? current : current + added);
+        if (total < 0 || quota < total) {
+            maintainInBackground(false);
+        }
+    }
+
+    /**
+     * Returns the usage measured by the last maintenance.
+     */
+    public Optional<Usage> getUsage() {
+        return Optional.ofNullable(usage.get());
+    }
+
+    /**
+     * Removes the files not accessed for the retention period in the background,
+     * and evicts the least recently used files if the quota is exceeded. Called
+     * after the scan.
+     */
+    public void cleanUp() {
+        maintainInBackground(true);
+    }
+
+    private void maintainInBackground(boolean cleanUp) {
+        if (!maintaining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            shortExecutor.execute(() -> {
+                try {
+                    doMaintain(cleanUp);
+                } finally {
+                    maintaining.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            maintaining.set(false);
+        }
+    }
+
+    Usage doMaintain(boolean cleanUp) {
+        Path root = getRoot();
+        flushAccesses();
+        List<Entry> entries;
+        try {
+            entries = list(root);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to list the image cache: {}", e.getMessage());
+            }
+            return usage.get();
+        }
+
+        long now = System.currentTimeMillis();
+        long total = entries.stream().mapToLong(Entry::size).sum();
+        boolean overQuota = quota > 0 && quota < total;
+        long target = (long) (quota * LOW_WATER_MARK);
+        long staleBefore = cleanUp && retentionMillis > 0 ? now - retentionMillis : Long.MIN_VALUE;
+        int evicted = 0;
+        Set<Path> evictedFrom = new HashSet<>();
+
+        entries.sort(Comparator.comparingLong(Entry::accessed));
+        for (Entry entry : entries) {
+            boolean stale = entry.accessed() < staleBefore;
+            if (!stale && !(overQuota && target < total)) {
+                break;
+            }
+            if (now - WRITING_GRACE_MILLIS < entry.modified()) {
+                continue;
+            }
+            if (delete(entry.path())) {
+                total -= entry.size();
+                evicted++;
+                evictedFrom.add(entry.path().getParent());
+            }
+        }
+        if (cleanUp) {
+            removeEmptyDirectories(root, evictedFrom, now);
+        }
+
+        estimated.set(total);
+        Usage result = new Usage(entries.size() - evicted, total, quota, evicted,
+                Instant.ofEpochMilli(now));
+        usage.set(result);
+        if (0 < evicted && LOG.isInfoEnabled()) {
+            LOG.info("Evicted {} files from the image cache: {}", evicted, result);
+        }
+        return result;
+    }
+
+    /*
+     * The access time is written only if it is newer, as the file system may also
+     * record accesses (unless mounted with noatime).
+     */
+    private void flushAccesses() {
+        Iterator<Map.Entry<Path, Long>> iterator = accessed.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> access = iterator.next();
+            iterator.remove();
+            BasicFileAttributeView view = Files
+                .getFileAttributeView(access.getKey(), BasicFileAttributeView.class);
+            try {
+                if (view.readAttributes().lastAccessTime().toMillis() < access.getValue()) {
+                    view.setTimes(null, FileTime.fromMillis(access.getValue()), null);
+                }
+            } catch (IOException e) {
+                // The file has been removed since. Nothing to record.
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("The accessed cache has been removed.", e);
+                }
+            }
+        }
+    }
+
+    private static List<Entry> list(Path root) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return entries;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    long modified = attrs.lastModifiedTime().toMillis();
+                    entries
+                        .add(new Entry(file, attrs.size(),
+                                Math.max(modified, attrs.lastAccessTime().toMillis()),
+                                modified));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return entries;
+    }
+
+    private static boolean delete(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // A directory that is no longer empty, or a file being read on Windows
+            return false;
+        }
+    }
+
+    /*
+     * A directory modified recently may have just been created for a file about to
+     * be written, unless it has been modified by the eviction.
+     */
+    private static void removeEmptyDirectories(Path root, Set<Path> evictedFrom, long now) {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                if (!evictedFrom.contains(dir)
+                        && now - WRITING_GRACE_MILLIS < Files.getLastModifiedTime(dir).toMillis()) {
+                    continue;
+                }
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                    if (children.iterator().hasNext()) {
+                        continue;
+                    }
+                }
+                delete(dir);
+            }
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to remove the empty directories: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the directory that contains the image cache of each size.
+     */
+    @NonNull
+    Path getRoot() {
+        Path root = EnvironmentProvider
+            .getInstance()
+            .getImageCacheDirectory(ROOT_SIBLING_SIZE)
+            .getParent();
+        if (root == null) {
+            throw new IllegalStateException("The image cache directory has no parent.");
+        }
+        return root;
+    }
+
+    private record Entry(Path path, long size, long accessed, long modified) {
+    }
+
+    /**
+     * Usage of the image cache.
+     *
+     * @param files   number of files
+     * @param bytes   total size of the files
+     * @param quota   quota in bytes, or 0 if not bounded
+     * @param evicted number of files removed by the last maintenance
+     * @param checked when the usage was measured
+     */
+    public record Usage(long files, long bytes, long quota, int evicted, Instant checked) {
+    }
+}
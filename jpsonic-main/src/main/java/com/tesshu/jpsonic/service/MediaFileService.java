@@ -23,6 +23,7 @@ package com.tesshu.jpsonic.service;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -34,7 +35,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.tesshu.jpsonic.SuppressFBWarnings;
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
@@ -43,10 +43,12 @@ import com.tesshu.jpsonic.infrastructure.filesystem.RootPathEntryGuard;
 import com.tesshu.jpsonic.infrastructure.filesystem.ScanningExclusionPolicy;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.entity.MusicIndex;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao.ChildOrder;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao.IndexWithCount;
@@ -73,11 +75,13 @@ public class MediaFileService {
     private final MediaFileCache mediaFileCache;
     private final MediaFileDao mediaFileDao;
     private final JpsonicComparators comparators;
+    private final CoverArtIndexDao coverArtIndexDao;
 
     public MediaFileService(SettingsFacade settingsFacade,
             ScanningExclusionPolicy scanningExclusionPolicy, MusicFolderService musicFolderService,
             LibraryAccessPolicy libraryAccessPolicy, MediaFileCache mediaFileCache,
-            MediaFileDao mediaFileDao, JpsonicComparators comparators) {
+            MediaFileDao mediaFileDao, JpsonicComparators comparators,
+            CoverArtIndexDao coverArtIndexDao) {
         super();
         this.settingsFacade = settingsFacade;
         this.scanningExclusionPolicy = scanningExclusionPolicy;
@@ -86,6 +90,7 @@ public class MediaFileService {
         this.mediaFileCache = mediaFileCache;
         this.mediaFileDao = mediaFileDao;
         this.comparators = comparators;
+        this.coverArtIndexDao = coverArtIndexDao;
     }
 
     public @Nullable MediaFile getMediaFile(Path path) {
@@ -270,20 +275,44 @@ public class MediaFileService {
                     .anyMatch(type -> StringUtil.endsWithIgnoreCase(fileName, type));
     }
 
+    /**
+     * Returns the cover art of the directory. The one resolved at scan time is
+     * used without touching the disk, since the scan keeps it up to date. The
+     * directory is searched only if it has not been indexed yet.
+     */
     public Optional<Path> findCoverArt(Path parent) {
-        try (Stream<Path> results = Files.find(parent, 1, this::isAvailableCoverArtPath)) {
-            Optional<Path> coverArt = results.findFirst();
-            if (coverArt.isPresent()) {
-                return coverArt;
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        CoverArtIndex index = coverArtIndexDao.getCoverArtIndex(parent.toString());
+        if (index != null) {
+            return Optional.ofNullable(index.getCoverArtPath()).map(Path::of);
         }
-
-        // Look for embedded images in audiofiles. (Only check first audio file
-        // encountered).
-        try (Stream<Path> children = Files.list(parent)) {
-            return children.filter(ParserUtils::isEmbeddedArtworkApplicable).findFirst();
+        return searchCoverArt(parent);
+    }
+
+    /**
+     * Searches the directory for the cover art in a single listing. An image file
+     * takes precedence. Otherwise, the first file that can contain embedded
+     * artwork is used.
+     */
+    public Optional<Path> searchCoverArt(Path parent) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(parent, BasicFileAttributes.class);
+            if (!attrs.isDirectory()) {
+                return isAvailableCoverArtPath(parent, attrs) ? Optional.of(parent)
+                        : Optional.empty();
+            }
+            Path firstEmbeddable = null;
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(parent)) {
+                for (Path child : ds) {
+                    if (isAvailableCoverArtPath(child,
+                            Files.readAttributes(child, BasicFileAttributes.class))) {
+                        return Optional.of(child);
+                    }
+                    if (firstEmbeddable == null && ParserUtils.isEmbeddedArtworkApplicable(child)) {
+                        firstEmbeddable = child;
+                    }
+                }
+            }
+            return Optional.ofNullable(firstEmbeddable);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -70,6 +70,13 @@ public interface MediaScannerService extends ScannerStateService {
      */
     Optional<ScanPhaseInfo> getScanPhaseInfo();
 
-    public record ScanPhaseInfo(int phase, int phaseMax, String phaseName, int thread) {
+    /**
+     * Scan phase information.
+     *
+     * @param pace The pace at which the scan runs, adapted to the server load
+     *             (FULL_SPEED, NORMAL or YIELDING)
+     */
+    public record ScanPhaseInfo(int phase, int phaseMax, String phaseName, int thread,
+            String pace) {
     }
 }
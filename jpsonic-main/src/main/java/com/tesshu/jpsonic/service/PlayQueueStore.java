@@ -0,0 +1,179 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
+import com.tesshu.jpsonic.persistence.result.SavedPlayQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds the saved play queue of each user in memory and writes it to the
+ * database behind the callers.
+ *
+ * <p>
+ * Clients save the queue every few seconds while playing. Saves of the same
+ * user between two flushes are merged into the last one, and the queues of all
+ * users are written together at a fixed delay ({@code PlayQueueFlushSeconds})
+ * and at shutdown. Reads are answered from memory once a queue is known.
+ */
+@Service
+public class PlayQueueStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlayQueueStore.class);
+
+    private final PlayQueueDao playQueueDao;
+    private final TaskScheduler taskScheduler;
+    private final Duration flushDelay;
+
+    private final Map<String, SavedPlayQueue> playQueues = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private ScheduledFuture<?> flushTask;
+
+    public PlayQueueStore(PlayQueueDao playQueueDao, TaskScheduler taskScheduler,
+            @Value("${PlayQueueFlushSeconds:10}") long flushSeconds) {
+        super();
+        this.playQueueDao = playQueueDao;
+        this.taskScheduler = taskScheduler;
+        this.flushDelay = Duration.ofSeconds(Math.max(1, flushSeconds));
+    }
+
+    @PostConstruct
+    public void init() {
+        flushTask = taskScheduler.scheduleWithFixedDelay(this::flush, flushDelay);
+    }
+
+    /**
+     * Returns the last saved play queue of the user, or null if there is none.
+     */
+    public @Nullable SavedPlayQueue getPlayQueue(String username) {
+        SavedPlayQueue playQueue = playQueues.get(username);
+        if (playQueue == null) {
+            playQueue = playQueueDao.getPlayQueue(username);
+            if (playQueue == null) {
+                return null;
+            }
+            SavedPlayQueue saved = playQueues.putIfAbsent(username, playQueue);
+            if (saved != null) {
+                playQueue = saved;
+            }
+        }
+        return copyOf(playQueue);
+    }
+
+    /**
+     * Keeps the play queue as the last one of its user. It is written to the
+     * database by the next flush.
+     */
+    public void savePlayQueue(SavedPlayQueue playQueue) {
+        playQueues.put(playQueue.getUsername(), copyOf(playQueue));
+        dirty.add(playQueue.getUsername());
+    }
+
+    /**
+     * Writes the play queues saved since the last flush. Queues that could not be
+     * written because of a transient error are retried by the next flush. Those
+     * that can never be written are dropped.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<SavedPlayQueue> pending = new ArrayList<>();
+            for (String username : dirty) {
+                dirty.remove(username);
+                pending.add(copyOf(playQueues.get(username)));
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                playQueueDao.savePlayQueues(pending);
+                pending.forEach(this::updateId);
+            } catch (DataAccessException e) {
+                // One bad queue should not hold back the others
+                pending.forEach(this::flush);
+            }
+        }
+    }
+
+    private void flush(SavedPlayQueue playQueue) {
+        try {
+            playQueueDao.savePlayQueue(playQueue);
+            updateId(playQueue);
+        } catch (NonTransientDataAccessException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to write the play queue of {}. It is dropped.",
+                        playQueue.getUsername(), e);
+            }
+        } catch (DataAccessException e) {
+            dirty.add(playQueue.getUsername());
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Failed to write the play queue of {}. It will be retried.",
+                        playQueue.getUsername(), e);
+            }
+        }
+    }
+
+    /*
+     * The id is generated by the write, which works on a copy. The queue in memory
+     * may have been replaced since, but it belongs to the same row.
+     */
+    private void updateId(SavedPlayQueue written) {
+        playQueues.computeIfPresent(written.getUsername(), (username, playQueue) -> {
+            playQueue.setId(written.getId());
+            return playQueue;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush();
+    }
+
+    int getPendingCount() {
+        return dirty.size();
+    }
+
+    private static SavedPlayQueue copyOf(SavedPlayQueue playQueue) {
+        return new SavedPlayQueue(playQueue.getId(), playQueue.getUsername(),
+                new ArrayList<>(playQueue.getMediaFileIds()), playQueue.getCurrentMediaFileId(),
+                playQueue.getPositionMillis(), playQueue.getChanged(), playQueue.getChangedBy());
+    }
+}
@@ -503,6 +503,13 @@ public class PlayerService implements ReadWriteLockSupport {
         return player;
     }
 
+    /**
+     * Returns whether the given player is the one used by UPnP renderers.
+     */
+    public boolean isUPnPPlayer(Player player) {
+        return UPNP_PLAYER_ID.equals(player.getClientId());
+    }
+
     public Player getUPnPPlayer() {
         User user = userService.getGuestUser();
         Player player = getPlayersForUserAndClientId(user.getUsername(), UPNP_PLAYER_ID)
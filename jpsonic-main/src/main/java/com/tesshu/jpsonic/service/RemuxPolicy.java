@@ -0,0 +1,154 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import java.util.Locale;
+import java.util.Set;
+
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.Transcoding;
+import com.tesshu.jpsonic.service.metadata.FFprobe;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a conversion only needs a different container.
+ *
+ * <p>
+ * Transcodings are selected by the file suffix, so an AAC stream in an M4A
+ * file is decoded and encoded again even when the client only asked for ADTS.
+ * If the codec of the file is already accepted by the container of the target
+ * format, the stream can be copied into the new container instead, which costs
+ * almost no CPU and keeps the audio bit-identical.
+ *
+ * <p>
+ * The codec is probed with ffprobe on first use and cached per file and
+ * modification time.
+ */
+@Component
+public class RemuxPolicy {
+
+    static final String NAME = "remux";
+
+    private static final String UNKNOWN = "";
+
+    private final FFprobe ffprobe;
+    private final Ehcache audioCodecCache;
+
+    public RemuxPolicy(FFprobe ffprobe, @Qualifier("audioCodecCache") Ehcache audioCodecCache) {
+        super();
+        this.ffprobe = ffprobe;
+        this.audioCodecCache = audioCodecCache;
+    }
+
+    /**
+     * Returns a transcoding that remuxes the file into the target format of the
+     * given transcoding, or {@code null} if the codec of the file has to be
+     * converted. Video is never remuxed.
+     */
+    @Nullable
+    Transcoding getRemux(@NonNull MediaFile mediaFile, @NonNull Transcoding transcoding) {
+        if (mediaFile.isVideo()) {
+            return null;
+        }
+        Container container = Container.of(transcoding.getTargetFormat());
+        if (container == null) {
+            return null;
+        }
+        String codec = getAudioCodec(mediaFile);
+        if (codec == null || !container.accepts(codec)) {
+            return null;
+        }
+        return new Transcoding(null, NAME, mediaFile.getFormat(), transcoding.getTargetFormat(),
+                container.createCommand(), null, null, true);
+    }
+
+    @Nullable
+    String getAudioCodec(@NonNull MediaFile mediaFile) {
+        String key = mediaFile.getPathString() + ":" + mediaFile.getChanged().toEpochMilli();
+        Element element = audioCodecCache.get(key);
+        if (element != null) {
+            String codec = (String) element.getObjectValue();
+            return UNKNOWN.equals(codec) ? null : codec;
+        }
+        String codec = ffprobe.getAudioCodec(mediaFile.toPath());
+        audioCodecCache.put(new Element(key, codec == null ? UNKNOWN : codec));
+        return codec;
+    }
+
+    /**
+     * Containers that can be written by stream copy, with the codecs they accept.
+     */
+    enum Container {
+
+        MP3("mp3", "mp3", Set.of("mp3")),
+
+        AAC("aac", "adts", Set.of("aac")),
+
+        M4A("m4a", "ipod -movflags frag_keyframe+empty_moov", Set.of("aac", "alac")),
+
+        FLAC("flac", "flac", Set.of("flac")),
+
+        OGG("ogg", "ogg", Set.of("vorbis", "opus", "flac")),
+
+        OGA("oga", "ogg", Set.of("vorbis", "opus", "flac")),
+
+        OPUS("opus", "opus", Set.of("opus"));
+
+        private final String format;
+        private final String muxer;
+        private final Set<String> codecs;
+
+        Container(String format, String muxer, Set<String> codecs) {
+            this.format = format;
+            this.muxer = muxer;
+            this.codecs = codecs;
+        }
+
+        static @Nullable Container of(@Nullable String format) {
+            if (format == null) {
+                return null;
+            }
+            String lower = format.toLowerCase(Locale.ROOT);
+            for (Container container : values()) {
+                if (container.format.equals(lower)) {
+                    return container;
+                }
+            }
+            return null;
+        }
+
+        boolean accepts(@NonNull String codec) {
+            return codecs.contains(codec);
+        }
+
+        /**
+         * Copies the first audio stream without decoding it. Cover art and other
+         * streams are dropped, since not all containers can hold them.
+         */
+        String createCommand() {
+            return "ffmpeg -i %s -map 0:a:0 -c:a copy -v 0 -f " + muxer + " -";
+        }
+    }
+}
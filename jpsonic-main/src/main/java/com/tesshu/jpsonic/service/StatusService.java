@@ -29,11 +29,14 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -41,6 +44,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.Player;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
@@ -49,6 +53,10 @@ import org.springframework.stereotype.Service;
  * statuses.
  * <p/>
  * Note that for stream statuses, the last inactive status is also stored.
+ * <p/>
+ * Statuses are registered in concurrent maps keyed by {@link TransferStatus#getId()},
+ * so that registration, removal and the liveness check done by every stream
+ * take no lock. Lists are only built when a page asks for them.
  *
  * @author Sindre Mehus
  *
@@ -62,217 +70,217 @@ import org.springframework.stereotype.Service;
 @DependsOn("mediaFileService")
 public class StatusService {
 
+    private static final Comparator<TransferStatus> BY_ID = Comparator
+        .comparingLong(TransferStatus::getId);
+
     private final MediaFileService mediaFileService;
-    private final transient List<TransferStatus> streamStatuses;
-    private final transient List<TransferStatus> downloadStatuses;
-    private final transient List<TransferStatus> uploadStatuses;
-    private final transient List<PlayStatus> remotePlays;
+    private final BandwidthShaper bandwidthShaper;
+    private final Map<Long, TransferStatus> streamStatuses;
+    private final Map<Long, TransferStatus> downloadStatuses;
+    private final Map<Long, TransferStatus> uploadStatuses;
+    private final List<PlayStatus> remotePlays;
+
+    // Maps from player ID to active stream statuses.
+    private final Map<Integer, Set<TransferStatus>> streamStatusesByPlayer;
 
     // Maps from player ID to latest inactive stream status.
     private final Map<Integer, TransferStatus> inactiveStreamStatuses;
 
-    private final ReentrantLock streamLock = new ReentrantLock();
-    private final ReentrantLock downloadLock = new ReentrantLock();
-    private final ReentrantLock uploadLock = new ReentrantLock();
-    private final ReentrantLock remotelock = new ReentrantLock();
-
-    public StatusService(MediaFileService mediaFileService) {
+    public StatusService(MediaFileService mediaFileService, BandwidthShaper bandwidthShaper) {
         this.mediaFileService = mediaFileService;
-        streamStatuses = new ArrayList<>();
-        downloadStatuses = new ArrayList<>();
-        uploadStatuses = new ArrayList<>();
-        remotePlays = new ArrayList<>();
-        inactiveStreamStatuses = new LinkedHashMap<>();
+        this.bandwidthShaper = bandwidthShaper;
+        streamStatuses = new ConcurrentHashMap<>();
+        downloadStatuses = new ConcurrentHashMap<>();
+        uploadStatuses = new ConcurrentHashMap<>();
+        remotePlays = new CopyOnWriteArrayList<>();
+        streamStatusesByPlayer = new ConcurrentHashMap<>();
+        inactiveStreamStatuses = new ConcurrentHashMap<>();
     }
 
     public TransferStatus createStreamStatus(Player player) {
-        streamLock.lock();
-        try {
-            // Reuse existing status, if possible.
-            TransferStatus status = inactiveStreamStatuses.get(player.getId());
-            if (status == null) {
-                status = createStatus(player, streamStatuses);
-            } else {
-                status.setActive(true);
-            }
-            return status;
-        } finally {
-            streamLock.unlock();
+        // Reuse existing status, if possible.
+        TransferStatus status = inactiveStreamStatuses.get(player.getId());
+        if (status == null) {
+            status = createStatus(player, streamStatuses);
+            TransferStatus created = status;
+            streamStatusesByPlayer.compute(player.getId(), (id, statuses) -> {
+                Set<TransferStatus> result = statuses == null ? ConcurrentHashMap.newKeySet()
+                        : statuses;
+                result.add(created);
+                return result;
+            });
+        } else {
+            status.setActive(true);
         }
+        return status;
     }
 
     public void removeStreamStatus(TransferStatus status) {
-        streamLock.lock();
-        try {
-            // Move it to the map of inactive statuses.
-            status.setActive(false);
-            inactiveStreamStatuses.put(status.getPlayer().getId(), status);
-            streamStatuses.remove(status);
-        } finally {
-            streamLock.unlock();
+        // Move it to the map of inactive statuses.
+        status.setActive(false);
+        Integer playerId = status.getPlayer().getId();
+        inactiveStreamStatuses.put(playerId, status);
+        if (streamStatuses.remove(status.getId()) != null) {
+            streamStatusesByPlayer.computeIfPresent(playerId, (id, statuses) -> {
+                statuses.remove(status);
+                return statuses.isEmpty() ? null : statuses;
+            });
         }
     }
 
     public List<TransferStatus> getAllStreamStatuses() {
-        streamLock.lock();
-        try {
-
-            List<TransferStatus> result = new ArrayList<>(streamStatuses);
-
-            // Add inactive status for those players that have no active status.
-            Set<Integer> activePlayers = new HashSet<>();
-            for (TransferStatus status : streamStatuses) {
-                activePlayers.add(status.getPlayer().getId());
-            }
-
-            for (Map.Entry<Integer, TransferStatus> entry : inactiveStreamStatuses.entrySet()) {
-                if (!activePlayers.contains(entry.getKey())) {
-                    result.add(entry.getValue());
-                }
-            }
-            return unmodifiableList(result);
-        } finally {
-            streamLock.unlock();
-        }
+        List<TransferStatus> result = sorted(streamStatuses.values());
+
+        // Add inactive status for those players that have no active status.
+        inactiveStreamStatuses
+            .entrySet()
+            .stream()
+            .filter(entry -> !streamStatusesByPlayer.containsKey(entry.getKey()))
+            .map(Map.Entry::getValue)
+            .sorted(BY_ID)
+            .forEach(result::add);
+        return unmodifiableList(result);
     }
 
     public List<TransferStatus> getStreamStatusesForPlayer(Player player) {
-        streamLock.lock();
-        try {
-            List<TransferStatus> result = new ArrayList<>();
-            for (TransferStatus status : streamStatuses) {
-                if (status.getPlayer().getId().equals(player.getId())) {
-                    result.add(status);
-                }
+        Set<TransferStatus> statuses = streamStatusesByPlayer.get(player.getId());
+        if (statuses != null) {
+            List<TransferStatus> result = sorted(statuses);
+            if (!result.isEmpty()) {
+                return unmodifiableList(result);
             }
+        }
 
-            // If no active statuses exists, add the inactive one.
-            if (result.isEmpty()) {
-                TransferStatus inactiveStatus = inactiveStreamStatuses.get(player.getId());
-                if (inactiveStatus != null) {
-                    result.add(inactiveStatus);
-                }
-            }
+        // If no active statuses exists, add the inactive one.
+        TransferStatus inactiveStatus = inactiveStreamStatuses.get(player.getId());
+        return inactiveStatus == null ? List.of() : List.of(inactiveStatus);
+    }
 
-            return unmodifiableList(result);
-        } finally {
-            streamLock.unlock();
+    /**
+     * Returns whether none of the active streams of the given player has been
+     * terminated. Same as checking {@link #getStreamStatusesForPlayer(Player)},
+     * but without building a list, since this is called by every stream as it
+     * writes.
+     */
+    public boolean isAliveStream(Player player) {
+        Set<TransferStatus> statuses = streamStatusesByPlayer.get(player.getId());
+        if (statuses == null || statuses.isEmpty()) {
+            TransferStatus inactiveStatus = inactiveStreamStatuses.get(player.getId());
+            return inactiveStatus == null || !inactiveStatus.isActive()
+                    || !inactiveStatus.isTerminated();
+        }
+        for (TransferStatus status : statuses) {
+            if (status.isActive() && status.isTerminated()) {
+                return false;
+            }
         }
+        return true;
     }
 
     public TransferStatus createDownloadStatus(Player player) {
-        downloadLock.lock();
-        try {
-            return createStatus(player, downloadStatuses);
-        } finally {
-            downloadLock.unlock();
-        }
+        return createStatus(player, downloadStatuses);
     }
 
     public void removeDownloadStatus(TransferStatus status) {
-        downloadLock.lock();
-        try {
-            downloadStatuses.remove(status);
-        } finally {
-            downloadLock.unlock();
-        }
+        downloadStatuses.remove(status.getId());
     }
 
     public List<TransferStatus> getAllDownloadStatuses() {
-        downloadLock.lock();
-        try {
-            return unmodifiableList(downloadStatuses);
-        } finally {
-            downloadLock.unlock();
-        }
+        return unmodifiableList(sorted(downloadStatuses.values()));
     }
 
     public TransferStatus createUploadStatus(Player player) {
-        uploadLock.lock();
-        try {
-            return createStatus(player, uploadStatuses);
-        } finally {
-            uploadLock.unlock();
-        }
+        return createStatus(player, uploadStatuses);
     }
 
     public void removeUploadStatus(TransferStatus status) {
-        uploadLock.lock();
-        try {
-            uploadStatuses.remove(status);
-        } finally {
-            uploadLock.unlock();
-        }
+        uploadStatuses.remove(status.getId());
     }
 
     public List<TransferStatus> getAllUploadStatuses() {
-        uploadLock.lock();
-        try {
-            return unmodifiableList(uploadStatuses);
-        } finally {
-            uploadLock.unlock();
+        return unmodifiableList(sorted(uploadStatuses.values()));
+    }
+
+    /**
+     * Returns the status of the transfer with the given ID, whether it is a
+     * stream, a download or an upload.
+     */
+    public @Nullable TransferStatus getTransferStatus(long id) {
+        TransferStatus status = streamStatuses.get(id);
+        if (status == null) {
+            status = downloadStatuses.get(id);
+        }
+        if (status == null) {
+            status = uploadStatuses.get(id);
+        }
+        if (status == null) {
+            status = inactiveStreamStatuses
+                .values()
+                .stream()
+                .filter(inactive -> inactive.getId() == id)
+                .findFirst()
+                .orElse(null);
         }
+        return status;
     }
 
     public void addRemotePlay(PlayStatus playStatus) {
-        remotelock.lock();
-        try {
-            remotePlays.removeIf(PlayStatus::isExpired);
-            remotePlays.add(playStatus);
-        } finally {
-            remotelock.lock();
-        }
+        remotePlays.removeIf(PlayStatus::isExpired);
+        remotePlays.add(playStatus);
     }
 
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops") // (Date, PlayStatus) Not reusable
     public List<PlayStatus> getPlayStatuses() {
-        streamLock.lock();
-        try {
-            remotelock.lock();
-            try {
+        Map<Integer, PlayStatus> result = new LinkedHashMap<>();
+        for (PlayStatus remotePlay : remotePlays) {
+            if (!remotePlay.isExpired()) {
+                result.put(remotePlay.getPlayer().getId(), remotePlay);
+            }
+        }
 
-                Map<Integer, PlayStatus> result = new LinkedHashMap<>();
-                for (PlayStatus remotePlay : remotePlays) {
-                    if (!remotePlay.isExpired()) {
-                        result.put(remotePlay.getPlayer().getId(), remotePlay);
-                    }
-                }
+        List<TransferStatus> statuses = new ArrayList<>();
+        statuses.addAll(sorted(inactiveStreamStatuses.values()));
+        statuses.addAll(sorted(streamStatuses.values()));
 
-                List<TransferStatus> statuses = new ArrayList<>();
-                statuses.addAll(inactiveStreamStatuses.values());
-                statuses.addAll(streamStatuses);
-
-                for (TransferStatus streamStatus : statuses) {
-                    Player player = streamStatus.getPlayer();
-                    Path path = streamStatus.toPath();
-                    if (path == null) {
-                        continue;
-                    }
-                    MediaFile mediaFile = mediaFileService.getMediaFile(path);
-                    if (player == null || mediaFile == null) {
-                        continue;
-                    }
-                    Instant time = Instant
-                        .ofEpochMilli(Instant.now().toEpochMilli()
-                                - streamStatus.getMillisSinceLastUpdate());
-                    result.put(player.getId(), new PlayStatus(mediaFile, player, time));
-                }
-                return unmodifiableList(new ArrayList<>(result.values()));
-            } finally {
-                remotelock.unlock();
+        for (TransferStatus streamStatus : statuses) {
+            Player player = streamStatus.getPlayer();
+            Path path = streamStatus.toPath();
+            if (path == null) {
+                continue;
+            }
+            MediaFile mediaFile = mediaFileService.getMediaFile(path);
+            if (player == null || mediaFile == null) {
+                continue;
             }
-        } finally {
-            streamLock.unlock();
+            Instant time = Instant
+                .ofEpochMilli(
+                        Instant.now().toEpochMilli() - streamStatus.getMillisSinceLastUpdate());
+            result.put(player.getId(), new PlayStatus(mediaFile, player, time));
         }
+        return unmodifiableList(new ArrayList<>(result.values()));
     }
 
-    private TransferStatus createStatus(Player player, List<TransferStatus> statusList) {
+    /**
+     * Returns the current rates of the bandwidth shaper: the total, each type of
+     * transfer, and each user.
+     */
+    public List<BandwidthShaper.Rate> getBandwidthRates() {
+        return bandwidthShaper.getRates();
+    }
+
+    private TransferStatus createStatus(Player player, Map<Long, TransferStatus> statuses) {
         TransferStatus status = new TransferStatus();
         status.setPlayer(player);
-        statusList.add(status);
+        statuses.put(status.getId(), status);
         return status;
     }
 
+    private static List<TransferStatus> sorted(Collection<TransferStatus> statuses) {
+        List<TransferStatus> result = new ArrayList<>(statuses);
+        result.sort(BY_ID);
+        return result;
+    }
+
     // VO
     /**
      * Represents the playback of a track, possibly remote (e.g., a cached song on a
@@ -316,6 +324,10 @@ public class StatusService {
     // VO
     /**
      * Status for a single transfer (stream, download or upload).
+     * <p/>
+     * The byte counters and the active flag are read and written without locking.
+     * Only the sample history has its own lock, which is taken at most once per
+     * sample interval by the writer.
      *
      * @author Sindre Mehus
      */
@@ -324,7 +336,9 @@ public class StatusService {
         private static final long serialVersionUID = 1L;
         private static final int HISTORY_LENGTH = 200;
         private static final long SAMPLE_INTERVAL_MILLIS = 5000;
+        private static final AtomicLong SEQUENCE = new AtomicLong();
 
+        private final long id;
         private transient Player player;
         private String pathString;
         private final AtomicLong bytesTransfered;
@@ -333,14 +347,23 @@ public class StatusService {
         private final SampleHistory history;
         private final ReentrantLock historyLock = new ReentrantLock();
         private final AtomicBoolean terminated = new AtomicBoolean();
-        private boolean active;
+        private final AtomicBoolean active;
+        private volatile long lastSampleMillis = -1;
 
         public TransferStatus() {
+            id = SEQUENCE.incrementAndGet();
             bytesTransfered = new AtomicLong();
             bytesSkipped = new AtomicLong();
             bytesTotal = new AtomicLong();
             history = new SampleHistory(HISTORY_LENGTH);
-            active = true;
+            active = new AtomicBoolean(true);
+        }
+
+        /**
+         * Returns the ID of this transfer, unique while the server is running.
+         */
+        public long getId() {
+            return id;
         }
 
         public long getBytesTransfered() {
@@ -352,40 +375,32 @@ public class StatusService {
         }
 
         public void setBytesTransfered(long bytesTransfered) {
-            historyLock.lock();
-            try {
-                this.bytesTransfered.set(bytesTransfered);
-                createSample(bytesTransfered, false);
-            } finally {
-                historyLock.unlock();
-            }
-        }
-
-        private void createSample(long bytesTransfered, boolean force) {
-            long now = Instant.now().toEpochMilli();
-
-            if (history.isEmpty()) {
-                history.add(new Sample(bytesTransfered, now));
-            } else {
-                Sample lastSample = history.getLast();
-                if (force || now - lastSample.getTimestamp() > SAMPLE_INTERVAL_MILLIS) {
-                    history.add(new Sample(bytesTransfered, now));
-                }
+            this.bytesTransfered.set(bytesTransfered);
+            long last = lastSampleMillis;
+            if (last < 0 || System.currentTimeMillis() - last > SAMPLE_INTERVAL_MILLIS) {
+                createSample(false);
             }
         }
 
-        public long getMillisSinceLastUpdate() {
+        private void createSample(boolean force) {
             historyLock.lock();
             try {
-                if (history.isEmpty()) {
-                    return 0L;
+                long now = System.currentTimeMillis();
+                long last = lastSampleMillis;
+                if (force || last < 0 || now - last > SAMPLE_INTERVAL_MILLIS) {
+                    history.add(new Sample(bytesTransfered.get(), now));
+                    lastSampleMillis = now;
                 }
-                return Instant.now().toEpochMilli() - history.getLast().getTimestamp();
             } finally {
                 historyLock.unlock();
             }
         }
 
+        public long getMillisSinceLastUpdate() {
+            long last = lastSampleMillis;
+            return last < 0 ? 0L : System.currentTimeMillis() - last;
+        }
+
         public long getBytesTotal() {
             return bytesTotal.get();
         }
@@ -448,27 +463,17 @@ public class StatusService {
         }
 
         public boolean isActive() {
-            historyLock.lock();
-            try {
-                return active;
-            } finally {
-                historyLock.unlock();
-            }
+            return active.get();
         }
 
         public void setActive(boolean active) {
-            historyLock.lock();
-            try {
-                this.active = active;
-                if (active) {
-                    bytesSkipped.set(0);
-                    bytesTotal.set(0);
-                    setBytesTransfered(0L);
-                } else {
-                    createSample(getBytesTransfered(), true);
-                }
-            } finally {
-                historyLock.unlock();
+            this.active.set(active);
+            if (active) {
+                bytesSkipped.set(0);
+                bytesTotal.set(0);
+                setBytesTransfered(0L);
+            } else {
+                createSample(true);
             }
         }
 
@@ -492,7 +497,7 @@ public class StatusService {
 
         @Override
         public String toString() {
-            return "TransferStatus-" + hashCode() + " [player: " + player.getId() + ", path: "
+            return "TransferStatus-" + id + " [player: " + player.getId() + ", path: "
                     + pathString + ", terminated: " + terminated + ", active: " + isActive() + "]";
         }
 
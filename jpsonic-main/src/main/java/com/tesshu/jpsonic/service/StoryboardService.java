@@ -0,0 +1,281 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static com.tesshu.jpsonic.infrastructure.filesystem.PathInspector.toIdentityName;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import com.tesshu.jpsonic.infrastructure.filesystem.FileOperations;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.service.metadata.FFmpeg;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Provides storyboards used to preview the frames of a video while seeking.
+ *
+ * <p>
+ * A storyboard is a sprite sheet of thumbnails taken at fixed intervals, and a
+ * WebVTT track whose cues point to the area of the sheet for each interval. Both
+ * are created by a single ffmpeg process on the first play of the video and
+ * then served as static files, so that scrubbing does not start a process per
+ * frame as {@link FFmpeg#createImage(Path, int, int, int)} does.
+ */
+@Service
+public class StoryboardService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StoryboardService.class);
+
+    static final int TILE_WIDTH = 160;
+    static final int DEFAULT_TILE_HEIGHT = 90;
+    static final int COLUMNS = 10;
+    static final int MIN_INTERVAL_SECONDS = 10;
+    static final int MAX_TILES = 100;
+
+    private static final String DIRECTORY_NAME = "storyboards";
+    private static final String SPRITE_SUFFIX = ".jpg";
+    private static final String TRACK_SUFFIX = ".vtt";
+
+    private final FFmpeg ffmpeg;
+    private final AsyncTaskExecutor shortExecutor;
+
+    // Storyboards are created one at a time, as each one decodes a whole video.
+    private final Semaphore semaphore = new Semaphore(1);
+    private final Set<Integer> preparing = ConcurrentHashMap.newKeySet();
+
+    public StoryboardService(FFmpeg ffmpeg,
+            @Qualifier("shortExecutor") AsyncTaskExecutor shortExecutor) {
+        super();
+        this.ffmpeg = ffmpeg;
+        this.shortExecutor = shortExecutor;
+    }
+
+    /**
+     * Returns the layout of the storyboard of the video, or null if the duration
+     * of the video is unknown.
+     */
+    static @Nullable Layout layoutOf(@NonNull MediaFile video) {
+        Integer duration = video.getDurationSeconds();
+        if (duration == null || duration < 1) {
+            return null;
+        }
+        int interval = Math
+            .max(MIN_INTERVAL_SECONDS, (duration + MAX_TILES - 1) / MAX_TILES);
+        int count = (duration + interval - 1) / interval;
+        int tileHeight = DEFAULT_TILE_HEIGHT;
+        if (video.getWidth() != null && video.getHeight() != null && video.getWidth() > 0
+                && video.getHeight() > 0) {
+            // Some encoders require multiples of two
+            tileHeight = Math.max(2, TILE_WIDTH * video.getHeight() / video.getWidth() / 2 * 2);
+        }
+        return new Layout(duration, interval, count, Math.min(COLUMNS, count), TILE_WIDTH,
+                tileHeight);
+    }
+
+    /**
+     * Returns the sprite sheet of the video, or null if it has not been created
+     * yet or the video has changed since.
+     */
+    public @Nullable Path getSprite(@NonNull MediaFile video) {
+        return getTrack(video) == null ? null : getPath(video, SPRITE_SUFFIX);
+    }
+
+    /**
+     * Returns the WebVTT track of the video, or null if it has not been created
+     * yet or the video has changed since.
+     */
+    public @Nullable Path getTrack(@NonNull MediaFile video) {
+        Path track = getPath(video, TRACK_SUFFIX);
+        try {
+            if (Files.exists(track) && Files.exists(getPath(video, SPRITE_SUFFIX))
+                    && video.getChanged().toEpochMilli() <= Files
+                        .getLastModifiedTime(track)
+                        .toMillis()) {
+                return track;
+            }
+        } catch (IOException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Failed to read storyboard({}).", toIdentityName(video.toPath()), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the storyboard of the video in the background, unless it already
+     * exists or is being created.
+     */
+    public void prepare(@NonNull MediaFile video) {
+        if (!video.isVideo() || layoutOf(video) == null || getTrack(video) != null
+                || !preparing.add(video.getId())) {
+            return;
+        }
+        shortExecutor.execute(() -> {
+            try {
+                semaphore.acquire();
+                try {
+                    create(video);
+                } finally {
+                    semaphore.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                preparing.remove(video.getId());
+            }
+        });
+    }
+
+    /**
+     * Creates the storyboard of the video.
+     *
+     * @return true if it was created
+     */
+    boolean create(@NonNull MediaFile video) {
+        Layout layout = layoutOf(video);
+        if (layout == null) {
+            return false;
+        }
+        Path sprite = getPath(video, SPRITE_SUFFIX);
+        Path track = getPath(video, TRACK_SUFFIX);
+        Path tmpSprite = sprite.resolveSibling("tmp-" + sprite.getFileName());
+        Path tmpTrack = track.resolveSibling("tmp-" + track.getFileName());
+        try {
+            if (!ffmpeg
+                .createStoryboard(video.toPath(), tmpSprite, layout.interval(),
+                        layout.tileWidth(), layout.tileHeight(), layout.columns(),
+                        layout.rows())) {
+                return false;
+            }
+            Files
+                .writeString(tmpTrack, createTrack(layout, getSpriteUrl(video)),
+                        StandardCharsets.UTF_8);
+            Files
+                .move(tmpSprite, sprite, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            // The track is moved last, as its presence marks a complete storyboard.
+            Files
+                .move(tmpTrack, track, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG
+                    .warn("Failed to write storyboard({}): {}", toIdentityName(video.toPath()),
+                            e.getMessage());
+            }
+            return false;
+        } finally {
+            FileOperations.deleteIfExists(tmpSprite);
+            FileOperations.deleteIfExists(tmpTrack);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Created storyboard({}): {}", toIdentityName(video.toPath()), layout);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the URL of the sprite sheet, relative to the URL of the track.
+     */
+    static String getSpriteUrl(@NonNull MediaFile video) {
+        return "storyboard.view?id=" + video.getId();
+    }
+
+    /**
+     * Creates a WebVTT track with a cue per tile of the sprite sheet.
+     */
+    static String createTrack(@NonNull Layout layout, @NonNull String spriteUrl) {
+        StringBuilder track = new StringBuilder("WEBVTT\n");
+        for (int i = 0; i < layout.count(); i++) {
+            long start = (long) i * layout.interval();
+            long end = Math.min(start + layout.interval(), layout.duration());
+            int x = i % layout.columns() * layout.tileWidth();
+            int y = i / layout.columns() * layout.tileHeight();
+            track
+                .append('\n')
+                .append(toTimestamp(start))
+                .append(" --> ")
+                .append(toTimestamp(end))
+                .append('\n')
+                .append(spriteUrl)
+                .append("#xywh=")
+                .append(x)
+                .append(',')
+                .append(y)
+                .append(',')
+                .append(layout.tileWidth())
+                .append(',')
+                .append(layout.tileHeight())
+                .append('\n');
+        }
+        return track.toString();
+    }
+
+    private static String toTimestamp(long seconds) {
+        return "%02d:%02d:%02d.000".formatted(seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private Path getPath(MediaFile video, String suffix) {
+        return getDirectory().resolve(DigestUtils.md5Hex(video.getPathString()) + suffix);
+    }
+
+    @NonNull
+    Path getDirectory() {
+        Path dir = EnvironmentProvider
+            .getInstance()
+            .getImageCacheDirectory(TILE_WIDTH)
+            .resolveSibling(DIRECTORY_NAME);
+        FileOperations.createDirectories(dir);
+        return dir;
+    }
+
+    /**
+     * Layout of a storyboard.
+     *
+     * @param duration   duration of the video in seconds
+     * @param interval   seconds between tiles
+     * @param count      number of tiles
+     * @param columns    number of tiles per row
+     * @param tileWidth  width of a tile
+     * @param tileHeight height of a tile
+     */
+    record Layout(int duration, int interval, int count, int columns, int tileWidth,
+            int tileHeight) {
+
+        int rows() {
+            return (count + columns - 1) / columns;
+        }
+    }
+}
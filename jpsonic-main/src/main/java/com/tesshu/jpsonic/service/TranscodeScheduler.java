@@ -0,0 +1,321 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admission control for transcoder processes.
+ *
+ * <p>
+ * Each transcoded stream spawns up to three external processes. Without a
+ * limit, a burst of requests (many clients, prefetching, HLS segments) can
+ * start more encoders than the CPU can serve in real time, and then every
+ * stream stutters at once. {@code TranscodeScheduler} caps the number of
+ * transcoders that start up at the same time and queues the rest.
+ *
+ * <p>
+ * The start-up is where the CPU is contended: the processes are spawned, the
+ * input is probed and the encoder runs far ahead of real time to fill the
+ * client's buffer. Once a transcoder has produced the first seconds of its
+ * output, it only has to keep up with playback, which takes a small part of a
+ * core, and its slot is given back while the stream goes on. A stream that
+ * keeps playing therefore never keeps later listeners waiting.
+ *
+ * <p>
+ * Queued jobs are started in the order of their {@link Priority}, then in the
+ * order of arrival. A job that cannot be started within the queue timeout is
+ * rejected with an {@link IOException}, which the caller handles like any other
+ * transcoder failure.
+ *
+ * <h3>Settings</h3>
+ * <ul>
+ * <li>{@code TranscodeMaxConcurrency} : Maximum number of jobs starting up at
+ * the same time. 0 (the default) means the number of available processors.</li>
+ * <li>{@code TranscodeQueueTimeout} : Seconds a job may wait in the queue.</li>
+ * </ul>
+ */
+@Service
+public class TranscodeScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TranscodeScheduler.class);
+
+    /*
+     * Seconds of output after which a transcoder is considered started.
+     */
+    private static final int STARTUP_SECONDS = 2;
+
+    private final int maxConcurrency;
+    private final long queueTimeoutSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Job> queue = new PriorityQueue<>(
+            Comparator.comparing(Job::getPriority).thenComparingLong(Job::getId));
+    private final Set<Job> running = new LinkedHashSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TranscodeScheduler(@Value("${TranscodeMaxConcurrency:0}") int maxConcurrency,
+            @Value("${TranscodeQueueTimeout:60}") long queueTimeoutSeconds) {
+        super();
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency
+                : Runtime.getRuntime().availableProcessors();
+        this.queueTimeoutSeconds = queueTimeoutSeconds;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Waits until a job of the given priority may start, and marks it as running.
+     * The returned job must be closed if the transcoder processes fail to start.
+     * Otherwise it ends through the stream returned by
+     * {@link Job#bind(InputStream, Integer)}.
+     *
+     * @param priority priority of the job
+     * @param path     path of the media file to be transcoded, used for display
+     *
+     * @return the running job
+     *
+     * @throws IOException if the job could not be started within the queue
+     *                     timeout, or the thread was interrupted while waiting
+     */
+    public @NonNull Job acquire(@NonNull Priority priority, @Nullable Path path)
+            throws IOException {
+        Job job = new Job(sequence.incrementAndGet(), priority, path);
+        lock.lock();
+        try {
+            queue.add(job);
+            long nanos = TimeUnit.SECONDS.toNanos(queueTimeoutSeconds);
+            while (queue.peek() != job || running.size() >= maxConcurrency) {
+                if (nanos <= 0L) {
+                    dequeue(job);
+                    throw new IOException("Transcoder queue timed out: " + path);
+                }
+                nanos = changed.awaitNanos(nanos);
+            }
+            queue.poll();
+            job.startedAt = Instant.now();
+            running.add(job);
+            // The next job in the queue may also be able to start
+            changed.signalAll();
+        } catch (InterruptedException e) {
+            dequeue(job);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a transcoder: " + path);
+        } finally {
+            lock.unlock();
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Transcode job {} started ({}, waited {}ms): {}", job.getId(), priority,
+                    job.getWaitMillis(), path);
+        }
+        return job;
+    }
+
+    private void dequeue(Job job) {
+        queue.remove(job);
+        changed.signalAll();
+    }
+
+    void release(@NonNull Job job) {
+        lock.lock();
+        try {
+            if (running.remove(job)) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the running jobs followed by the queued jobs in the
+     * order in which they will be started.
+     */
+    public @NonNull List<Job> getJobs() {
+        lock.lock();
+        try {
+            List<Job> jobs = new ArrayList<>(running);
+            queue.stream().sorted(queue.comparator()).forEach(jobs::add);
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Priority of a transcoding job. Declared in descending order of priority.
+     */
+    public enum Priority {
+
+        /**
+         * A stream that a user is listening to or watching right now.
+         */
+        PLAYBACK,
+
+        /**
+         * Look-ahead segments of HLS.
+         */
+        HLS,
+
+        /**
+         * The next item of the play queue, prepared in advance.
+         */
+        PREFETCH,
+
+        /**
+         * Transcoded downloads, which are not played in real time.
+         */
+        DOWNLOAD
+    }
+
+    /**
+     * A transcoding job admitted by the scheduler.
+     */
+    public final class Job implements Closeable {
+
+        private final long id;
+        private final Priority priority;
+        private final @Nullable Path path;
+        private final Instant queuedAt = Instant.now();
+        private volatile @Nullable Instant startedAt;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Job(long id, Priority priority, @Nullable Path path) {
+            this.id = id;
+            this.priority = priority;
+            this.path = path;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public @Nullable Path getPath() {
+            return path;
+        }
+
+        public boolean isRunning() {
+            return startedAt != null && !closed.get();
+        }
+
+        /**
+         * Returns the time spent in the queue, up to now if the job has not started
+         * yet.
+         */
+        public long getWaitMillis() {
+            Instant started = startedAt;
+            return (started == null ? Instant.now() : started).toEpochMilli()
+                    - queuedAt.toEpochMilli();
+        }
+
+        /**
+         * Wraps the output of the transcoder. The job ends once the transcoder has
+         * produced the first seconds of its output, or when the stream is closed,
+         * whichever comes first.
+         *
+         * @param in         the output of the transcoder
+         * @param maxBitRate the bit rate of the output in kbps, or null if unknown.
+         *                   If unknown, the job ends with the first output.
+         */
+        public @NonNull InputStream bind(@NonNull InputStream in, @Nullable Integer maxBitRate) {
+            long startupBytes = maxBitRate == null ? 1
+                    : Math.max(1, maxBitRate * 1000L / Byte.SIZE * STARTUP_SECONDS);
+            return new FilterInputStream(in) {
+
+                private long produced;
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    produced(b == -1 ? -1 : 1);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    produced(n);
+                    return n;
+                }
+
+                private void produced(int n) {
+                    if (n == -1) {
+                        Job.this.close();
+                        return;
+                    }
+                    produced += n;
+                    if (produced >= startupBytes) {
+                        Job.this.close();
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Job.this.close();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Ends the job. Subsequent calls have no effect.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(this);
+            }
+        }
+    }
+}
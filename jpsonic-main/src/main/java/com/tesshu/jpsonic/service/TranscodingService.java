@@ -89,10 +89,13 @@ public class TranscodingService {
     private final TranscodingDao transcodingDao;
     private final PlayerService playerService;
     private final Executor shortExecutor;
+    private final TranscodeScheduler transcodeScheduler;
+    private final RemuxPolicy remuxPolicy;
 
     public TranscodingService(SettingsFacade settingsFacade, UserService userService,
             UPnPSubnet subnet, TranscodingDao transcodingDao, @Lazy PlayerService playerService,
-            @Qualifier("shortExecutor") Executor shortExecutor) {
+            @Qualifier("shortExecutor") Executor shortExecutor,
+            TranscodeScheduler transcodeScheduler, RemuxPolicy remuxPolicy) {
         super();
         this.settingsFacade = settingsFacade;
         this.userService = userService;
@@ -100,6 +103,8 @@ public class TranscodingService {
         this.transcodingDao = transcodingDao;
         this.playerService = playerService;
         this.shortExecutor = shortExecutor;
+        this.transcodeScheduler = transcodeScheduler;
+        this.remuxPolicy = remuxPolicy;
     }
 
     /**
@@ -317,16 +322,30 @@ public class TranscodingService {
 
     /**
      * Returns an input stream by applying the given transcoding to the given music
-     * file.
+     * file. The processes are not started until the {@link TranscodeScheduler}
+     * admits the job, and the job ends when the transcoder has started producing
+     * or the returned stream is closed.
      *
      * @param parameters Transcoding parameters.
      *
      * @return The transcoded input stream.
      *
-     * @throws IOException If an I/O error occurs.
+     * @throws IOException If an I/O error occurs, or the job was not admitted.
      */
-    @SuppressWarnings("PMD.ConfusingTernary") // false positive
     InputStream createTranscodedInputStream(@NonNull Parameters parameters) throws IOException {
+        TranscodeScheduler.Job job = transcodeScheduler
+            .acquire(parameters.getPriority(), parameters.getMediaFile().toPath());
+        try {
+            return job.bind(createTranscodeInputStreams(parameters), parameters.getMaxBitRate());
+        } catch (IOException | RuntimeException e) {
+            job.close();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("PMD.ConfusingTernary") // false positive
+    private InputStream createTranscodeInputStreams(@NonNull Parameters parameters)
+            throws IOException {
 
         Transcoding transcoding = parameters.getTranscoding();
         Integer maxBitRate = parameters.getMaxBitRate();
@@ -579,8 +598,11 @@ public class TranscodingService {
         final int mb = createMaxBitrate(transcodeScheme, mediaFile, bitRate);
 
         Parameters parameters = new Parameters(mediaFile, videoTranscodingSettings);
+        if (hls) {
+            parameters.setPriority(TranscodeScheduler.Priority.HLS);
+        }
         if (isNeedTranscoding(transcoding, mb, bitRate, preferredTargetFormat, mediaFile)) {
-            parameters.setTranscoding(transcoding);
+            parameters.setTranscoding(remuxIfPossible(transcoding, mb, bitRate, hls, mediaFile));
         }
 
         parameters.setMaxBitRate(mb == 0 ? null : mb);
@@ -645,6 +667,29 @@ public class TranscodingService {
         return isNeedTranscoding;
     }
 
+    /**
+     * Returns a remux in place of the given transcoding if only the container
+     * needs changing. If the bitrate has to be reduced, the file is transcoded as
+     * before.
+     */
+    @SuppressWarnings("OperatorPrecedence") // (sonatype-lift) Compete with PMD:UselessParentheses.
+    @NonNull
+    Transcoding remuxIfPossible(@NonNull Transcoding transcoding, int mb, int bitRate,
+            boolean hls, @NonNull MediaFile mediaFile) {
+        if (hls || mb != 0 && (bitRate == 0 || bitRate > mb)) {
+            return transcoding;
+        }
+        Transcoding remux = remuxPolicy.getRemux(mediaFile, transcoding);
+        if (remux == null || !isTranscoderInstalled(remux)) {
+            return transcoding;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Remuxing {} to {} instead of {}.", mediaFile.getPathString(),
+                    remux.getTargetFormat(), transcoding.getName());
+        }
+        return remux;
+    }
+
     boolean isRangeAllowed(@NonNull Parameters parameters) {
         Transcoding transcoding = parameters.getTranscoding();
         List<String> steps;
@@ -780,6 +825,7 @@ public class TranscodingService {
         private final VideoTranscodingSettings videoTranscodingSettings;
         private Integer maxBitRate;
         private Transcoding transcoding;
+        private TranscodeScheduler.Priority priority = TranscodeScheduler.Priority.PLAYBACK;
 
         public Parameters(MediaFile mediaFile, VideoTranscodingSettings videoTranscodingSettings) {
             this.mediaFile = mediaFile;
@@ -829,6 +875,14 @@ public class TranscodingService {
         public VideoTranscodingSettings getVideoTranscodingSettings() {
             return videoTranscodingSettings;
         }
+
+        public TranscodeScheduler.Priority getPriority() {
+            return priority;
+        }
+
+        public void setPriority(TranscodeScheduler.Priority priority) {
+            this.priority = priority;
+        }
     }
 
     // VO
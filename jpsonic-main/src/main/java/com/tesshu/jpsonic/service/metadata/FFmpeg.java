@@ -30,6 +30,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
@@ -54,6 +55,10 @@ public class FFmpeg {
     // Same as legacy. Frame at offset position.
     private static final String SEEKED_OPTIONS = "-v quiet -r 1 -ss %o -t 1 -s %wx%h -v 0 -f image2";
 
+    // Tiles of frames at fixed intervals. Only key frames are decoded.
+    private static final String STORYBOARD_INPUT_OPTIONS = "-v quiet -skip_frame nokey";
+    private static final String STORYBOARD_OPTIONS = "-vf fps=1/%i,scale=%w:%h,tile=%cx%r -frames:v 1 -q:v 5 -f image2 -y";
+
     private @Nullable String getCommandPathStr() {
         Path cmdPath = EnvironmentProvider.getInstance().getFfmpegPath();
         if (Files.exists(cmdPath)) {
@@ -140,4 +145,65 @@ public class FFmpeg {
         }
         return result;
     }
+
+    /**
+     * Writes a sprite sheet of the frames of the video at fixed intervals, in a
+     * single process.
+     *
+     * @param path     the video
+     * @param sprite   the JPEG to write
+     * @param interval seconds between frames
+     * @param width    width of a tile
+     * @param height   height of a tile
+     * @param columns  number of tiles per row
+     * @param rows     number of rows
+     *
+     * @return true if the sprite sheet was written
+     */
+    public boolean createStoryboard(@NonNull Path path, @NonNull Path sprite, int interval,
+            int width, int height, int columns, int rows) {
+
+        String cmdPath = getCommandPathStr();
+        if (isEmpty(cmdPath)) {
+            return false;
+        }
+
+        ProcessBuilder pb = new ProcessBuilder();
+        pb.command().add(cmdPath);
+        pb.command().addAll(Arrays.asList(STORYBOARD_INPUT_OPTIONS.split(" ")));
+        pb.command().add("-i");
+        pb.command().add(path.toString());
+        Stream
+            .of(STORYBOARD_OPTIONS.split(" "))
+            .forEach(c -> pb
+                .command()
+                .add(c //
+                    .replaceAll("%i", Integer.toString(interval)) //
+                    .replaceAll("%w", Integer.toString(width)) //
+                    .replaceAll("%h", Integer.toString(height)) //
+                    .replaceAll("%c", Integer.toString(columns)) //
+                    .replaceAll("%r", Integer.toString(rows))));
+        pb.command().add(sprite.toString());
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        try {
+            Process process = pb.start();
+            try {
+                process.getOutputStream().close();
+                return process.waitFor() == 0 && Files.exists(sprite);
+            } finally {
+                process.destroy();
+            }
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG
+                    .warn("Failed to create storyboard({}): {}", toIdentityName(path),
+                            e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
 }
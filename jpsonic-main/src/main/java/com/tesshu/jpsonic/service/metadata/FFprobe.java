@@ -50,6 +50,8 @@ public class FFprobe {
     private static final Logger LOG = LoggerFactory.getLogger(FFprobe.class);
     private static final String[] FFPROBE_OPTIONS = { "-v", "quiet", "-show_format",
             "-show_streams", "-print_format", "json" };
+    private static final String[] CODEC_OPTIONS = { "-v", "quiet", "-select_streams", "a:0",
+            "-show_entries", "stream=codec_name", "-print_format", "json" };
     private static final String CODEC_TYPE_VIDEO = "video";
 
     enum FFmpegFieldKey {
@@ -140,30 +142,25 @@ public class FFprobe {
         return result;
     }
 
-    @SafeVarargs
-    final MetaData parse(@NonNull Path path, Consumer<Long>... startTimeCallback) {
-
-        final MetaData result = new MetaData();
+    private @Nullable JsonNode execute(@NonNull Path path, String... options) {
 
         ProcessBuilder pb = new ProcessBuilder();
         pb
             .command()
             .add(EnvironmentProvider.getInstance().getFfprobePath().toAbsolutePath().toString());
-        Stream.of(FFPROBE_OPTIONS).forEach(op -> pb.command().add(op));
+        Stream.of(options).forEach(op -> pb.command().add(op));
         pb.command().add(path.toString());
 
-        long start;
-        JsonNode node;
         try {
-            start = Instant.now().toEpochMilli();
             Process process = pb.start();
             try (InputStream is = process.getInputStream();
                     OutputStream os = process.getOutputStream();
                     InputStream es = process.getErrorStream();
                     BufferedInputStream bis = new BufferedInputStream(is);) {
-                node = objectMapper.readTree(bis);
+                JsonNode node = objectMapper.readTree(bis);
                 os.close();
                 es.close();
+                return node;
             } finally {
                 process.destroy();
             }
@@ -173,6 +170,17 @@ public class FFprobe {
             if (LOG.isWarnEnabled()) {
                 LOG.warn("Failed to execute ffprobe({}): {}", toIdentityName(path), e.getMessage());
             }
+            return null;
+        }
+    }
+
+    @SafeVarargs
+    final MetaData parse(@NonNull Path path, Consumer<Long>... startTimeCallback) {
+
+        final MetaData result = new MetaData();
+        long start = Instant.now().toEpochMilli();
+        JsonNode node = execute(path, FFPROBE_OPTIONS);
+        if (node == null) {
             return result;
         }
 
@@ -181,6 +189,20 @@ public class FFprobe {
         return parse(node, result);
     }
 
+    /**
+     * Returns the codec name of the first audio stream as reported by ffprobe, such
+     * as "aac" or "flac", or {@code null} if there is no audio stream or ffprobe
+     * failed.
+     */
+    public @Nullable String getAudioCodec(@NonNull Path path) {
+        JsonNode node = execute(path, CODEC_OPTIONS);
+        if (node == null) {
+            return null;
+        }
+        JsonNode codec = node.at("/streams/0/codec_name");
+        return codec.isValueNode() ? trimToNull(codec.asString()) : null;
+    }
+
     MetaData parse(@NonNull MediaFile mediaFile,
             @Nullable Map<String, MP4ParseStatistics> statistics) {
         return parse(mediaFile.toPath(), (start) -> {
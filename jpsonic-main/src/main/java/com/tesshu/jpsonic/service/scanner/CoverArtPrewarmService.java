@@ -0,0 +1,250 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.service.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tesshu.jpsonic.controller.CoverArtController;
+import com.tesshu.jpsonic.persistence.api.entity.Album;
+import com.tesshu.jpsonic.persistence.api.entity.Artist;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
+import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
+import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
+import com.tesshu.jpsonic.service.CoverArtPresentation;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Renders the cover art caches of albums and artists after the scan, so that
+ * the first browse after a scan is answered from the cache.
+ *
+ * <p>
+ * The job is optional and disabled by default ({@code CoverArtPrewarm}). The
+ * sizes to render are given by {@code CoverArtPrewarmSizes}, which defaults to
+ * the sizes used by the album lists and by UPnP.
+ *
+ * <p>
+ * There is no bookkeeping of what the scan has changed. A cached image is
+ * rendered only if it is missing or older than its source, which is exactly the
+ * case for new or changed albums and artists. The others cost a lookup.
+ *
+ * <p>
+ * The job runs on a single thread of minimum priority and yields to users
+ * according to the {@link ScanGovernor}. It stops when cancelled, when the next
+ * scan starts, or at shutdown.
+ */
+@Service
+public class CoverArtPrewarmService implements CoverArtPresentation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoverArtPrewarmService.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    private final CoverArtController coverArtController;
+    private final MusicFolderServiceImpl musicFolderService;
+    private final AlbumDao albumDao;
+    private final ArtistDao artistDao;
+    private final MediaFileDao mediaFileDao;
+    private final ScannerStateServiceImpl scannerState;
+    private final ScanGovernor scanGovernor;
+    private final ThreadPoolTaskExecutor executor;
+    private final boolean enabled;
+    private final List<Integer> sizes;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean cancel = new AtomicBoolean();
+    private final AtomicReference<Progress> progress = new AtomicReference<>();
+
+    public CoverArtPrewarmService(CoverArtController coverArtController,
+            MusicFolderServiceImpl musicFolderService, AlbumDao albumDao, ArtistDao artistDao,
+            MediaFileDao mediaFileDao, ScannerStateServiceImpl scannerState,
+            ScanGovernor scanGovernor,
+            @Qualifier("coverArtPrewarmExecutor") ThreadPoolTaskExecutor executor,
+            @Value("${CoverArtPrewarm:false}") boolean enabled,
+            @Value("${CoverArtPrewarmSizes:160,300}") String sizes) {
+        super();
+        this.coverArtController = coverArtController;
+        this.musicFolderService = musicFolderService;
+        this.albumDao = albumDao;
+        this.artistDao = artistDao;
+        this.mediaFileDao = mediaFileDao;
+        this.scannerState = scannerState;
+        this.scanGovernor = scanGovernor;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.sizes = parseSizes(sizes);
+    }
+
+    static List<Integer> parseSizes(String sizes) {
+        List<Integer> result = new ArrayList<>();
+        for (String size : StringUtils.split(sizes, ',')) {
+            int value = NumberUtils.toInt(size.strip());
+            if (value > 0 && !result.contains(value)) {
+                result.add(value);
+            } else if (LOG.isWarnEnabled()) {
+                LOG.warn("Ignored the cover art pre-warm size '{}'.", size);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !sizes.isEmpty();
+    }
+
+    /**
+     * Starts the job in the background unless it is disabled or already running.
+     */
+    public void prewarm() {
+        if (!isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        cancel.set(false);
+        try {
+            executor.execute(this::doPrewarm);
+        } catch (TaskRejectedException e) {
+            running.set(false);
+            LOG.warn("The cover art pre-warm could not be started.", e);
+        }
+    }
+
+    /**
+     * Stops the running job after the image being rendered.
+     */
+    @PreDestroy
+    public void cancel() {
+        cancel.set(true);
+    }
+
+    /**
+     * Returns the progress of the running job, or empty if it is not running.
+     */
+    public Optional<Progress> getProgress() {
+        return running.get() ? Optional.ofNullable(progress.get()) : Optional.empty();
+    }
+
+    private boolean isStopped() {
+        return cancel.get() || scannerState.isScanning() || scannerState.isDestroy();
+    }
+
+    void doPrewarm() {
+        try {
+            List<String> ids = getCoverArtIds();
+            int total = ids.size() * sizes.size();
+            progress.set(new Progress(total, 0, 0));
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Starting to pre-warm {} cover art caches.", total);
+            }
+            int done = 0;
+            int rendered = 0;
+            while (done < total && !isStopped()) {
+                String id = ids.get(done / sizes.size());
+                int size = sizes.get(done % sizes.size());
+                if (render(id, size)) {
+                    rendered++;
+                    scanGovernor.waitBetweenBatches();
+                }
+                progress.set(new Progress(total, ++done, rendered));
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG
+                    .info("{} cover art pre-warm: {} of {} checked, {} rendered.",
+                            done < total ? "Stopped" : "Completed", done, total, rendered);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            progress.set(null);
+            running.set(false);
+        }
+    }
+
+    private boolean render(String id, int size) {
+        try {
+            return coverArtController.prewarm(id, size);
+        } catch (ExecutionException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Unable to pre-warm the cover art of " + id, e);
+            }
+            return false;
+        }
+    }
+
+    /*
+     * The ids of id3 albums, id3 artists and file structure albums, as requested by
+     * the album lists and UPnP.
+     */
+    @NonNull
+    List<String> getCoverArtIds() {
+        List<MusicFolder> folders = musicFolderService.getAllMusicFolders();
+        List<String> ids = new ArrayList<>();
+        List<Album> albums;
+        int offset = 0;
+        do {
+            albums = albumDao.getAlphabeticalAlbums(offset, PAGE_SIZE, false, true, folders);
+            albums.forEach(album -> ids.add(createCoverArtKey(album)));
+            offset += PAGE_SIZE;
+        } while (albums.size() == PAGE_SIZE && !isStopped());
+        List<Artist> artists;
+        offset = 0;
+        do {
+            artists = artistDao.getAlphabetialArtists(offset, PAGE_SIZE, folders);
+            artists.forEach(artist -> ids.add(createCoverArtKey(artist)));
+            offset += PAGE_SIZE;
+        } while (artists.size() == PAGE_SIZE && !isStopped());
+        List<MediaFile> files;
+        offset = 0;
+        do {
+            files = mediaFileDao.getAlphabeticalAlbums(offset, PAGE_SIZE, false, folders);
+            files.forEach(file -> ids.add(Integer.toString(file.getId())));
+            offset += PAGE_SIZE;
+        } while (files.size() == PAGE_SIZE && !isStopped());
+        return ids;
+    }
+
+    /**
+     * Progress of the job, in number of cached images.
+     *
+     * @param total    images to check
+     * @param done     images checked so far
+     * @param rendered images rendered so far, as they were missing or outdated
+     */
+    public record Progress(int total, int done, int rendered) {
+    }
+}
@@ -29,8 +29,10 @@ import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
+import com.tesshu.jpsonic.service.scanner.WritableMediaFileService.StoredSubtree;
 import com.tesshu.jpsonic.service.search.IndexManager;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -157,7 +159,10 @@ public class DirectoryScanProcedure {
      * <p>
      * Skips scanning if the process is interrupted. Increments scan count for
      * non-video files and logs progress at intervals. If the file is a directory,
-     * scans both directory and non-directory children recursively.
+     * scans both directory and non-directory children recursively, pausing
+     * beforehand if the server is busy. Directories near the top of the music
+     * folder are recorded as checkpoints once their subtree is done, and skipped
+     * when an interrupted scan is resumed.
      * </p>
      *
      * @param folder the music folder to which the file belongs
@@ -165,24 +170,60 @@ public class DirectoryScanProcedure {
      */
     void scanFile(@NonNull ScanContext context, @NonNull MusicFolder folder,
             @NonNull MediaFile file) {
+        scanFile(context, folder, file, null);
+    }
+
+    /*
+     * Stored rows are not queried per directory. Directories at PREFETCH_DEPTH load
+     * their whole subtree at once, and the directories below compare their listing
+     * against that snapshot. Directories above it only load their direct children.
+     */
+    private void scanFile(@NonNull ScanContext context, @NonNull MusicFolder folder,
+            @NonNull MediaFile file, @Nullable StoredSubtree subtree) {
         if (scanHelper.isInterrupted()) {
             return;
         }
 
+        // Already scanned by the interrupted scan being resumed
+        if (file.isDirectory() && scanHelper.isCompletedDirectory(file)) {
+            return;
+        }
+
         if (file.getMediaType() != MediaType.VIDEO) {
             scannerState.incrementScanCount();
             writeParsedCount(context, file);
         }
 
         if (file.isDirectory()) {
+            scanHelper.directoryWait();
+
+            int depth = file.toPath().getNameCount() - folder.toPath().getNameCount();
+
+            StoredSubtree descendants = subtree == null && depth >= ScanConstants.PREFETCH_DEPTH
+                    ? wmfs.prefetchSubtree(file)
+                    : subtree;
+            // Only the directory listing is timed, as the measure of how busy the disk is
+            List<MediaFile> children = wmfs
+                .getChildrenOf(context.scanDate(), file,
+                        descendants == null ? wmfs.prefetchChildren(file) : descendants,
+                        scanHelper::recordLatency);
+
             // First scan child directories
-            for (MediaFile childDir : wmfs.getChildrenOf(context.scanDate(), file, true)) {
-                scanFile(context, folder, childDir);
+            for (MediaFile childDir : children) {
+                if (childDir.isDirectory()) {
+                    scanFile(context, folder, childDir, descendants);
+                }
             }
 
             // Then scan child files
-            for (MediaFile childFile : wmfs.getChildrenOf(context.scanDate(), file, false)) {
-                scanFile(context, folder, childFile);
+            for (MediaFile childFile : children) {
+                if (childFile.isFile()) {
+                    scanFile(context, folder, childFile, descendants);
+                }
+            }
+
+            if (depth <= ScanConstants.CHECKPOINT_DEPTH) {
+                scanHelper.completeDirectory(context, file);
             }
         }
     }
@@ -25,7 +25,6 @@ import java.util.concurrent.atomic.LongAdder;
 
 import com.tesshu.jpsonic.persistence.api.entity.Album;
 import com.tesshu.jpsonic.persistence.api.entity.Artist;
-import com.tesshu.jpsonic.persistence.api.entity.Genre;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
@@ -53,9 +52,10 @@ import org.springframework.transaction.annotation.Transactional;
  * It also performs reclassification and correction of artist and album
  * ordering.
  *
- * <h3>Genre Handling</h3> In this phase, a genre master is created and
- * preserved according to the Subsonic specification. The generated genre master
- * is currently used in both the Subsonic API and the Web UI.
+ * <h3>Genre Handling</h3> In this phase, the genre master is brought up to date
+ * according to the Subsonic specification. The genre master is currently used
+ * in both the Subsonic API and the Web UI. Its song and album counts are not
+ * persisted; they are counted from the facet field of the search index.
  *
  * <p>
  * In contrast, the genre information used in the UPnP feature is generated
@@ -633,25 +633,23 @@ public class Id3MetadataScanProcedure {
     }
 
     /**
-     * Updates the genre master table based on current media file genre usage.
+     * Updates the genre master based on current media file genre usage.
      * <p>
      * If not interrupted, this method:
      * <ul>
-     * <li>Retrieves current genre usage counts from media files</li>
-     * <li>Updates the genre master records in the DB</li>
+     * <li>Retrieves the genres currently used by media files and albums</li>
      * <li>Removes any obsolete genres from the index</li>
      * <li>Creates a {@link ScanEvent} to log the update</li>
      * </ul>
-     *
+     * The number of songs and albums per genre is not aggregated here. It is
+     * counted from the genre facet of the search index when requested.
      */
     void updateGenreMaster(@NonNull ScanContext context) {
         if (scanHelper.isInterrupted()) {
             return;
         }
 
-        List<Genre> genres = mediaFileDao.getGenreCounts();
-        mediaFileDao.updateGenres(genres);
-        indexManager.expungeGenreOtherThan(genres);
+        indexManager.expungeGenreOtherThan(mediaFileDao.getGenreNames(), albumDao.getGenreNames());
 
         scanHelper.createScanEvent(context, ScanEventType.UPDATE_GENRE_MASTER, null);
     }
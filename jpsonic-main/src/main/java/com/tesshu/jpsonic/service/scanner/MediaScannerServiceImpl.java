@@ -21,9 +21,11 @@
 
 package com.tesshu.jpsonic.service.scanner;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
@@ -31,8 +33,10 @@ import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanLog.ScanLogType;
 import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.MediaScannerService;
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.checkerframework.checker.nullness.qual.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -64,6 +68,18 @@ import org.springframework.stereotype.Service;
  * It also handles basic error propagation, logging, and state management via
  * {@code ScannerStateServiceImpl}.
  *
+ * <p>
+ * Completed phases (and directories, see {@code DirectoryScanProcedure}) are
+ * recorded as checkpoints. If a scan is cancelled, stopped by shutdown or
+ * killed, the next scan takes over its scan date and skips what has already
+ * been completed. Changes made in the meantime to completed directories are
+ * picked up by the following scan.
+ *
+ * <p>
+ * After a successful scan, the image cache is cleaned up (see
+ * {@code ImageCacheService}) and the cover art caches are pre-warmed in the
+ * background if enabled (see {@code CoverArtPrewarmService}).
+ *
  * @see ScanProcedure
  * @see ScanContext
  * @see ScannerStateServiceImpl
@@ -85,6 +101,8 @@ public class MediaScannerServiceImpl implements MediaScannerService {
     private final ScanHelper scanHelper;
 
     private final StaticsDao staticsDao;
+    private final CoverArtPrewarmService coverArtPrewarm;
+    private final ImageCacheService imageCacheService;
     private final ThreadPoolTaskExecutor scanExecutor;
 
     private final ReentrantLock cancelLock = new ReentrantLock();
@@ -93,7 +111,8 @@ public class MediaScannerServiceImpl implements MediaScannerService {
             ScannerStateServiceImpl scannerState, PreScanProcedure preScanProc,
             DirectoryScanProcedure directoryScanProc, FileMetadataScanProcedure fileMetaProc,
             Id3MetadataScanProcedure id3MetaProc, PostScanProcedure postScanProc,
-            ScanHelper scanHelper, StaticsDao staticsDao,
+            ScanHelper scanHelper, StaticsDao staticsDao, CoverArtPrewarmService coverArtPrewarm,
+            ImageCacheService imageCacheService,
             @Qualifier("scanExecutor") ThreadPoolTaskExecutor scanExecutor) {
         super();
         this.settingsFacade = settingsFacade;
@@ -107,6 +126,8 @@ public class MediaScannerServiceImpl implements MediaScannerService {
 
         this.scanHelper = scanHelper;
         this.staticsDao = staticsDao;
+        this.coverArtPrewarm = coverArtPrewarm;
+        this.imageCacheService = imageCacheService;
         this.scanExecutor = scanExecutor;
     }
 
@@ -135,6 +156,7 @@ public class MediaScannerServiceImpl implements MediaScannerService {
         } finally {
             cancelLock.unlock();
         }
+        coverArtPrewarm.cancel();
     }
 
     @Override
@@ -188,7 +210,13 @@ public class MediaScannerServiceImpl implements MediaScannerService {
             return;
         }
 
-        LOG.info("Starting to scan media library.");
+        Optional<Instant> resumableScanDate = scanHelper.getResumableScanDate();
+        resumableScanDate.ifPresentOrElse(scanDate -> {
+            scannerState.resume(scanDate);
+            if (LOG.isInfoEnabled()) {
+                LOG.info("Resuming the media library scan started at {}.", scanDate);
+            }
+        }, () -> LOG.info("Starting to scan media library."));
 
         ScanContext context = new ScanContext(scannerState.getScanDate(),
                 settingsFacade.get(SKeys.musicFolder.scan.ignoreFileTimestamps),
@@ -200,35 +228,52 @@ public class MediaScannerServiceImpl implements MediaScannerService {
                 settingsFacade.get(SKeys.advanced.scanLog.useScanEvents),
                 settingsFacade.get(SKeys.advanced.scanLog.measureMemory));
 
-        scanHelper.createScanLog(context, ScanLogType.SCAN_ALL);
+        if (resumableScanDate.isEmpty()) {
+            scanHelper.createScanLog(context, ScanLogType.SCAN_ALL);
+        }
+        scanHelper.loadCheckpoints(context);
 
         preScanProc.beforeScan(context);
+        scanHelper.completePhase(context, ScanEventType.BEFORE_SCAN);
         preScanProc.checkMusicFolders(context);
 
-        directoryScanProc.parseFileStructure(context);
-        directoryScanProc.parseVideo(context);
-        directoryScanProc.parsePodcast(context);
-        directoryScanProc.iterateFileStructure(context);
-
-        boolean parsedAlbum = fileMetaProc.parseAlbum(context);
-        boolean updatedSortOfAlbum = fileMetaProc.updateSortOfAlbum(context);
+        runPhase(context, ScanEventType.PARSE_FILE_STRUCTURE,
+                () -> directoryScanProc.parseFileStructure(context));
+        runPhase(context, ScanEventType.PARSE_VIDEO, () -> directoryScanProc.parseVideo(context));
+        runPhase(context, ScanEventType.PARSE_PODCAST,
+                () -> directoryScanProc.parsePodcast(context));
+        runPhase(context, ScanEventType.CLEAN_UP_FILE_STRUCTURE,
+                () -> directoryScanProc.iterateFileStructure(context));
+
+        boolean parsedAlbum = runPhaseAndGet(context, ScanEventType.PARSE_ALBUM,
+                () -> fileMetaProc.parseAlbum(context));
+        boolean updatedSortOfAlbum = runPhaseAndGet(context, ScanEventType.UPDATE_SORT_OF_ALBUM,
+                () -> fileMetaProc.updateSortOfAlbum(context));
         boolean skippable = isOptionalProcessSkippable();
-        fileMetaProc.updateOrderOfAlbum(context, skippable && !parsedAlbum && !updatedSortOfAlbum);
-        boolean updatedSortOfArtist = fileMetaProc.updateSortOfArtist(context);
-        fileMetaProc
-            .updateOrderOfArtist(context, skippable && !parsedAlbum && !updatedSortOfArtist);
-        fileMetaProc.updateOrderOfSongsDirectlyUnderMusicfolder(context);
+        runPhase(context, ScanEventType.UPDATE_ORDER_OF_ALBUM, () -> fileMetaProc
+            .updateOrderOfAlbum(context, skippable && !parsedAlbum && !updatedSortOfAlbum));
+        boolean updatedSortOfArtist = runPhaseAndGet(context, ScanEventType.UPDATE_SORT_OF_ARTIST,
+                () -> fileMetaProc.updateSortOfArtist(context));
+        runPhase(context, ScanEventType.UPDATE_ORDER_OF_ARTIST, () -> fileMetaProc
+            .updateOrderOfArtist(context, skippable && !parsedAlbum && !updatedSortOfArtist));
+        runPhase(context, ScanEventType.UPDATE_ORDER_OF_SONG,
+                () -> fileMetaProc.updateOrderOfSongsDirectlyUnderMusicfolder(context));
         if (LOG.isInfoEnabled()) {
             LOG.info("Scanned media library with " + scannerState.getScanCount() + " entries.");
         }
 
-        boolean refleshedAlbumId3 = id3MetaProc.refleshAlbumId3(context);
-        id3MetaProc.updateOrderOfAlbumId3(context, skippable && !refleshedAlbumId3);
-        boolean refleshedArtistId3 = id3MetaProc.refleshArtistId3(context);
-        id3MetaProc.updateOrderOfArtistId3(context, skippable && !refleshedArtistId3);
-        id3MetaProc
-            .updateAlbumCounts(context, skippable && !refleshedAlbumId3 && !refleshedArtistId3);
-        id3MetaProc.updateGenreMaster(context);
+        boolean refleshedAlbumId3 = runPhaseAndGet(context, ScanEventType.REFRESH_ALBUM_ID3,
+                () -> id3MetaProc.refleshAlbumId3(context));
+        runPhase(context, ScanEventType.UPDATE_ORDER_OF_ALBUM_ID3,
+                () -> id3MetaProc.updateOrderOfAlbumId3(context, skippable && !refleshedAlbumId3));
+        boolean refleshedArtistId3 = runPhaseAndGet(context, ScanEventType.REFRESH_ARTIST_ID3,
+                () -> id3MetaProc.refleshArtistId3(context));
+        runPhase(context, ScanEventType.UPDATE_ORDER_OF_ARTIST_ID3, () -> id3MetaProc
+            .updateOrderOfArtistId3(context, skippable && !refleshedArtistId3));
+        runPhase(context, ScanEventType.UPDATE_ALBUM_COUNTS, () -> id3MetaProc
+            .updateAlbumCounts(context, skippable && !refleshedAlbumId3 && !refleshedArtistId3));
+        runPhase(context, ScanEventType.UPDATE_GENRE_MASTER,
+                () -> id3MetaProc.updateGenreMaster(context));
 
         postScanProc.runStats(context);
         postScanProc.afterScan(context);
@@ -244,10 +289,12 @@ public class MediaScannerServiceImpl implements MediaScannerService {
             postScanProc.importPlaylists(context);
             postScanProc.checkpoint(context);
             postScanProc.success(context);
+            scanHelper.clearCheckpoints(context);
         }
 
         postScanProc.rotateScanLog(context);
 
+        boolean succeeded = !isCancel();
         cancelLock.lock();
         try {
             scannerState.unlockScanning();
@@ -255,6 +302,39 @@ public class MediaScannerServiceImpl implements MediaScannerService {
         } finally {
             cancelLock.unlock();
         }
+
+        if (succeeded) {
+            imageCacheService.cleanUp();
+            coverArtPrewarm.prewarm();
+        }
+    }
+
+    /**
+     * Runs the phase unless the scan being resumed has already completed it, and
+     * records a checkpoint if it runs to the end without interruption.
+     */
+    private void runPhase(@NonNull ScanContext context, @NonNull ScanEventType phase,
+            @NonNull Runnable procedure) {
+        if (scanHelper.isCompletedPhase(phase)) {
+            return;
+        }
+        procedure.run();
+        scanHelper.completePhase(context, phase);
+    }
+
+    /**
+     * Same as {@link #runPhase(ScanContext, ScanEventType, Runnable)} for phases
+     * that report whether they changed anything. A phase skipped on resume is
+     * reported as changed, so that subsequent phases are not skipped on that basis.
+     */
+    private boolean runPhaseAndGet(@NonNull ScanContext context, @NonNull ScanEventType phase,
+            @NonNull BooleanSupplier procedure) {
+        if (scanHelper.isCompletedPhase(phase)) {
+            return true;
+        }
+        boolean result = procedure.getAsBoolean();
+        scanHelper.completePhase(context, phase);
+        return result;
     }
 
     @Override
@@ -277,7 +357,9 @@ public class MediaScannerServiceImpl implements MediaScannerService {
 
         // Unknown phase (non-standard scan sequence)
         if (lastPhaseIndex == -1) {
-            return Optional.of(new ScanPhaseInfo(-1, -1, "Semi Scan Proc", -1));
+            return Optional
+                .of(new ScanPhaseInfo(-1, -1, "Semi Scan Proc", -1,
+                        scanHelper.getScanPace().name()));
         }
 
         // Calculate the current phase index (advance if not at the end)
@@ -289,6 +371,6 @@ public class MediaScannerServiceImpl implements MediaScannerService {
         return Optional
             .of(new ScanPhaseInfo(currentPhaseIndex, ScanConstants.SCAN_PHASE_ALL.size(),
                     ScanConstants.SCAN_PHASE_ALL.get(currentPhaseIndex).name(),
-                    scanExecutor.getActiveCount()));
+                    scanExecutor.getActiveCount(), scanHelper.getScanPace().name()));
     }
 }
@@ -56,15 +56,17 @@ import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastChannel;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastEpisode;
 import com.tesshu.jpsonic.persistence.api.repository.PodcastDao;
+import com.tesshu.jpsonic.service.BandwidthShaper;
+import com.tesshu.jpsonic.service.BandwidthShaper.TransferType;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PodcastService;
 import com.tesshu.jpsonic.service.metadata.MetaData;
 import com.tesshu.jpsonic.service.metadata.MetaDataParser;
 import com.tesshu.jpsonic.service.metadata.MetaDataParserFactory;
 import com.tesshu.jpsonic.service.search.IndexManager;
+import com.tesshu.jpsonic.util.BufferPool;
 import com.tesshu.jpsonic.util.StringUtil;
 import jakarta.annotation.PostConstruct;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.UncheckedException;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
@@ -126,6 +128,7 @@ public class PodcastServiceImpl implements PodcastService {
     private final ThreadPoolTaskExecutor podcastRefreshExecutor;
     private final ScannerStateServiceImpl scannerState;
     private final IndexManager indexManager;
+    private final BandwidthShaper bandwidthShaper;
 
     private final AtomicBoolean destroy = new AtomicBoolean();
     private final ReentrantLock episodesLock = new ReentrantLock();
@@ -137,7 +140,8 @@ public class PodcastServiceImpl implements PodcastService {
             MetaDataParserFactory metaDataParserFactory,
             @Qualifier("podcastDownloadExecutor") ThreadPoolTaskExecutor podcastDownloadExecutor,
             @Qualifier("podcastRefreshExecutor") ThreadPoolTaskExecutor podcastRefreshExecutor,
-            ScannerStateServiceImpl scannerState, IndexManager indexManager) {
+            ScannerStateServiceImpl scannerState, IndexManager indexManager,
+            BandwidthShaper bandwidthShaper) {
         this.podcastDao = podcastDao;
         this.settingsFacade = settingsFacade;
         this.libraryAccessPolicy = libraryAccessPolicy;
@@ -148,6 +152,7 @@ public class PodcastServiceImpl implements PodcastService {
         this.podcastRefreshExecutor = podcastRefreshExecutor;
         this.scannerState = scannerState;
         this.indexManager = indexManager;
+        this.bandwidthShaper = bandwidthShaper;
     }
 
     @PostConstruct
@@ -452,7 +457,7 @@ public class PodcastServiceImpl implements PodcastService {
                 Path coverPath = Path.of(dir.toString(), "cover." + getCoverArtSuffix(response));
                 try (InputStream in = response.getEntity().getContent();
                         OutputStream out = Files.newOutputStream(coverPath)) {
-                    IOUtils.copy(in, out);
+                    BufferPool.copy(in, out, BufferPool.Type.NETWORK);
                 }
                 return coverPath;
             });
@@ -767,12 +772,15 @@ public class PodcastServiceImpl implements PodcastService {
     private long updateEpisode(PodcastEpisode episode, Path path, InputStream in)
             throws IOException {
         long bytesDownloaded = 0;
-        byte[] buffer = new byte[4096];
         long nextLogCount = 30_000L;
-        try (OutputStream out = Files.newOutputStream(path)) {
+        BandwidthShaper.Transfer transfer = bandwidthShaper.open(TransferType.PODCAST, null);
+        try (OutputStream out = Files.newOutputStream(path);
+                BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.NETWORK)) {
+            byte[] buffer = lease.get();
             for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
                 out.write(buffer, 0, n);
                 bytesDownloaded += n;
+                transfer.acquire(n);
 
                 if (bytesDownloaded > nextLogCount) {
                     episode.setBytesDownloaded(bytesDownloaded);
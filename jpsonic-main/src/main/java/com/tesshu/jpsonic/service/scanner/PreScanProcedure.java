@@ -105,11 +105,18 @@ public class PreScanProcedure {
      *
      */
     void beforeScan(@NonNull ScanContext context) {
+        // An index written by an older version is rebuilt in the same way
+        boolean rebuild = context.ignoreFileTimestamps() || indexManager.isGenreFacetMissing();
+        if (rebuild && !context.ignoreFileTimestamps() && LOG.isInfoEnabled()) {
+            LOG.info("The search index is outdated and will be rebuilt by this scan.");
+        }
+
         // Start indexing process
         indexManager.startIndexing();
 
-        // If file timestamps should be ignored, clear scan history and index
-        if (context.ignoreFileTimestamps()) {
+        // If file timestamps should be ignored, clear scan history and index.
+        // (Not when resuming, as that would discard the progress being resumed.)
+        if (rebuild && !scanHelper.isCompletedPhase(ScanEventType.BEFORE_SCAN)) {
             mediaFileDao.resetLastScanned(null);
             artistDao.deleteAll();
             indexManager.deleteAll();
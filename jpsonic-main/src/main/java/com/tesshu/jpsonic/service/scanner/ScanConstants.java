@@ -47,7 +47,9 @@ import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
  * <li>{@link #ACQUISITION_MAX} Sets the maximum number of items to acquire
  * (e.g., during metadata fetch)</li>
  * <li>{@link #REPEAT_WAIT_MILLISECONDS} Wait time used during repeat-wait loops
- * within scan logic</li>
+ * within scan logic under normal load</li>
+ * <li>{@link #PACE_EVALUATION_INTERVAL}, {@link #SLOW_IO_LATENCY_MILLISECONDS}
+ * Thresholds used by {@link ScanGovernor} to adapt the pace to the load</li>
  * </ul>
  *
  * <p>
@@ -122,6 +124,45 @@ public final class ScanConstants {
                 ScanEventType.RUN_STATS, ScanEventType.IMPORT_PLAYLISTS, ScanEventType.CHECKPOINT,
                 ScanEventType.AFTER_SCAN);
 
+    // ------------------------------------------------------------------------------------
+    // Resumable Scan
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * Maximum depth, counted from the music folder, of directories whose completion
+     * is recorded as a checkpoint.
+     * <p>
+     * With the typical artist/album layout, this records music folders, artists
+     * and albums, so an interrupted scan skips them when resumed.
+     * </p>
+     */
+    public static final int CHECKPOINT_DEPTH = 2;
+
+    /**
+     * Minimum interval in milliseconds between commits of the search index made to
+     * record directory checkpoints.
+     * <p>
+     * A checkpoint is only written after the documents of its directory have been
+     * committed, and a commit syncs the index to disk, so checkpoints are batched
+     * rather than committed per album.
+     * </p>
+     */
+    public static final long CHECKPOINT_INTERVAL_MILLIS = 10_000;
+
+    // ------------------------------------------------------------------------------------
+    // Subtree Prefetch
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * Depth, counted from the music folder, of directories that load the stored
+     * rows of their whole subtree in one query.
+     * <p>
+     * With the typical artist/album layout, this loads each artist at once, which
+     * keeps the snapshot small while avoiding queries per album.
+     * </p>
+     */
+    public static final int PREFETCH_DEPTH = 1;
+
     // ------------------------------------------------------------------------------------
     // Acquisition and Wait Timing
     // ------------------------------------------------------------------------------------
@@ -137,6 +178,34 @@ public final class ScanConstants {
      */
     public static final int REPEAT_WAIT_MILLISECONDS = 50;
 
+    // ------------------------------------------------------------------------------------
+    // Load-aware Pacing
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * Interval in milliseconds at which {@link ScanGovernor} re-evaluates the
+     * load of the server.
+     */
+    public static final int PACE_EVALUATION_INTERVAL = 1_000;
+
+    /**
+     * Average I/O latency per entry in milliseconds above which the disk is
+     * considered busy.
+     */
+    public static final int SLOW_IO_LATENCY_MILLISECONDS = 20;
+
+    /**
+     * Time in milliseconds to pause after each batch while users are
+     * transferring from a busy disk.
+     */
+    public static final int YIELDING_WAIT_MILLISECONDS = 500;
+
+    /**
+     * Time in milliseconds to pause after each directory while users are
+     * transferring from a busy disk.
+     */
+    public static final int YIELDING_DIRECTORY_WAIT_MILLISECONDS = 20;
+
     private ScanConstants() {
         throw new AssertionError("ScanConstants should not be instantiated.");
     }
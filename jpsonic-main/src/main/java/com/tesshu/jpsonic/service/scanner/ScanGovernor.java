@@ -0,0 +1,215 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service.scanner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.tesshu.jpsonic.service.StatusService;
+import com.tesshu.jpsonic.service.StatusService.TransferStatus;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides how fast the scan may proceed, based on the load of the server.
+ *
+ * <p>
+ * Scanning is I/O intensive. When it runs while users are listening to music,
+ * reading tags and walking directories competes with streaming for the same
+ * disk. Conversely, when nobody is using the server, there is no reason to
+ * slow the scan down. {@code ScanGovernor} therefore replaces a fixed wait with
+ * a {@link ScanPace} that is re-evaluated periodically during the scan.
+ *
+ * <h3>Signals</h3>
+ * <ul>
+ * <li>Active streams and downloads, as reported by {@link StatusService}</li>
+ * <li>Observed I/O latency, reported by the scan procedures through
+ * {@link #recordLatency(long, int)} and smoothed with an exponential moving
+ * average</li>
+ * </ul>
+ *
+ * <h3>Decision</h3>
+ * <ul>
+ * <li>No transfers and fast I/O : {@link ScanPace#FULL_SPEED}</li>
+ * <li>Either transfers or slow I/O : {@link ScanPace#NORMAL}</li>
+ * <li>Transfers on slow I/O : {@link ScanPace#YIELDING}</li>
+ * </ul>
+ *
+ * <p>
+ * The evaluation is cached for {@link ScanConstants#PACE_EVALUATION_INTERVAL}
+ * milliseconds so that it can be consulted per directory without contending
+ * for the locks of {@code StatusService}.
+ *
+ * @see ScanHelper#repeatWait()
+ */
+@Service
+public class ScanGovernor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScanGovernor.class);
+
+    /**
+     * Weight of the latest sample in the moving average of the I/O latency, in
+     * 1/8.
+     */
+    private static final int EWMA_WEIGHT = 2;
+
+    private final StatusService statusService;
+
+    private final AtomicReference<ScanPace> pace = new AtomicReference<>(ScanPace.NORMAL);
+    private final AtomicLong lastEvaluated = new AtomicLong();
+    private final AtomicLong latencyMicros = new AtomicLong(-1);
+
+    public ScanGovernor(StatusService statusService) {
+        super();
+        this.statusService = statusService;
+    }
+
+    /**
+     * Records the time taken to read a number of entries from the disk.
+     *
+     * @param nanos   elapsed time in nanoseconds
+     * @param entries number of entries read in that time
+     */
+    void recordLatency(long nanos, int entries) {
+        long sample = TimeUnit.NANOSECONDS.toMicros(nanos) / Math.max(1, entries);
+        latencyMicros
+            .updateAndGet(current -> current < 0 ? sample
+                    : (sample * EWMA_WEIGHT + current * (8 - EWMA_WEIGHT)) / 8);
+    }
+
+    /**
+     * Returns the smoothed I/O latency per entry in microseconds, or -1 if nothing
+     * has been observed yet.
+     */
+    long getLatencyMicros() {
+        return latencyMicros.get();
+    }
+
+    /**
+     * Returns the current pace, re-evaluating it if the last evaluation is
+     * outdated.
+     */
+    public @NonNull ScanPace getPace() {
+        long now = System.currentTimeMillis();
+        long last = lastEvaluated.get();
+        if (now - last >= ScanConstants.PACE_EVALUATION_INTERVAL
+                && lastEvaluated.compareAndSet(last, now)) {
+            evaluate();
+        }
+        return pace.get();
+    }
+
+    /**
+     * Evaluates the pace from the current load.
+     */
+    @NonNull
+    ScanPace evaluate() {
+        boolean transferring = statusService
+            .getAllStreamStatuses()
+            .stream()
+            .anyMatch(TransferStatus::isActive)
+                || !statusService.getAllDownloadStatuses().isEmpty();
+        long latency = latencyMicros.get();
+        boolean slowIo = latency > TimeUnit.MILLISECONDS
+            .toMicros(ScanConstants.SLOW_IO_LATENCY_MILLISECONDS);
+
+        ScanPace next;
+        if (transferring && slowIo) {
+            next = ScanPace.YIELDING;
+        } else if (transferring || slowIo) {
+            next = ScanPace.NORMAL;
+        } else {
+            next = ScanPace.FULL_SPEED;
+        }
+
+        ScanPace previous = pace.getAndSet(next);
+        if (previous != next && LOG.isInfoEnabled()) {
+            LOG.info("Scan pace changed from {} to {} (transferring={}, latency={}us).", previous,
+                    next, transferring, latency);
+        }
+        return next;
+    }
+
+    /**
+     * Sleeps according to the current pace between batches of the scan.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void waitBetweenBatches() throws InterruptedException {
+        long millis = getPace().getBatchWaitMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * Sleeps according to the current pace between directories of the scan.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void waitBetweenDirectories() throws InterruptedException {
+        long millis = getPace().getDirectoryWaitMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    /**
+     * How fast the scan proceeds.
+     */
+    public enum ScanPace {
+
+        /**
+         * Nobody is using the server. The scan runs without waiting.
+         */
+        FULL_SPEED(0, 0),
+
+        /**
+         * Moderate load. The scan waits between batches as it always did.
+         */
+        NORMAL(ScanConstants.REPEAT_WAIT_MILLISECONDS, 0),
+
+        /**
+         * Users are transferring from a busy disk. The scan backs off between
+         * batches and also between directories.
+         */
+        YIELDING(ScanConstants.YIELDING_WAIT_MILLISECONDS,
+                ScanConstants.YIELDING_DIRECTORY_WAIT_MILLISECONDS);
+
+        private final long batchWaitMillis;
+        private final long directoryWaitMillis;
+
+        ScanPace(long batchWaitMillis, long directoryWaitMillis) {
+            this.batchWaitMillis = batchWaitMillis;
+            this.directoryWaitMillis = directoryWaitMillis;
+        }
+
+        public long getBatchWaitMillis() {
+            return batchWaitMillis;
+        }
+
+        public long getDirectoryWaitMillis() {
+            return directoryWaitMillis;
+        }
+    }
+}
@@ -7,7 +7,12 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
@@ -15,11 +20,15 @@ import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
+import com.tesshu.jpsonic.persistence.api.repository.SeekIndexDao;
 import com.tesshu.jpsonic.persistence.contract.Orderable;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint.ScanCheckpointType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanLog.ScanLogType;
 import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
+import com.tesshu.jpsonic.service.scanner.ScanGovernor.ScanPace;
 import com.tesshu.jpsonic.service.search.IndexManager;
 import org.apache.commons.lang3.exception.UncheckedException;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -51,8 +60,12 @@ import org.springframework.stereotype.Service;
  * has been cancelled or the thread has been interrupted</li>
  * <li>{@link #invokeUpdateOrder(Collection)} Applies batch update operations to
  * entities that require ordering (e.g., albums or songs)</li>
- * <li>{@link #repeatWait(long)} Pauses execution for a fixed interval during
- * scan processing (e.g., throttling)</li>
+ * <li>{@link #repeatWait()} / {@link #directoryWait()} Pauses execution during
+ * scan processing, for an interval decided by {@link ScanGovernor} from the
+ * load of the server</li>
+ * <li>{@link #completePhase(ScanContext, ScanEventType)} /
+ * {@link #completeDirectory(ScanContext, MediaFile)} Records checkpoints so
+ * that an interrupted scan can be resumed</li>
  * </ul>
  *
  * <p>
@@ -72,18 +85,27 @@ public class ScanHelper {
     private final MediaFileDao mediaFileDao;
     private final IndexManager indexManager;
     private final WritableMediaFileService wmfs;
+    private final ScanGovernor scanGovernor;
+    private final SeekIndexDao seekIndexDao;
 
     private final AtomicBoolean cancel = new AtomicBoolean();
+    private final Set<ScanEventType> completedPhases = ConcurrentHashMap.newKeySet();
+    private final Set<String> completedDirectories = ConcurrentHashMap.newKeySet();
+    private final Queue<String> pendingDirectories = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastCommit = new AtomicLong();
 
     public ScanHelper(ScannerStateServiceImpl scannerState, SettingsFacade settingsFacade,
             StaticsDao staticsDao, MediaFileDao mediaFileDao, IndexManager indexManager,
-            WritableMediaFileService wmfs) {
+            WritableMediaFileService wmfs, ScanGovernor scanGovernor,
+            SeekIndexDao seekIndexDao) {
         this.scannerState = scannerState;
         this.settingsFacade = settingsFacade;
         this.staticsDao = staticsDao;
         this.mediaFileDao = mediaFileDao;
         this.indexManager = indexManager;
         this.wmfs = wmfs;
+        this.scanGovernor = scanGovernor;
+        this.seekIndexDao = seekIndexDao;
     }
 
     /**
@@ -116,18 +138,143 @@ public class ScanHelper {
     }
 
     /**
-     * Sleeps the thread for a configured interval to wait before retrying or
-     * looping. Throws an unchecked exception if interrupted.
+     * Sleeps the thread between batches for an interval that depends on the
+     * current load. Throws an unchecked exception if interrupted.
      */
     public void repeatWait() {
         try {
-            Thread.sleep(ScanConstants.REPEAT_WAIT_MILLISECONDS);
+            scanGovernor.waitBetweenBatches();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new UncheckedException(e);
         }
     }
 
+    /**
+     * Sleeps the thread between directories while the server is busy. Does
+     * nothing otherwise. Throws an unchecked exception if interrupted.
+     */
+    void directoryWait() {
+        try {
+            scanGovernor.waitBetweenDirectories();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedException(e);
+        }
+    }
+
+    /**
+     * Reports the time it took to read the entries of a directory, used to
+     * estimate how busy the disk is.
+     */
+    void recordLatency(long nanos, int entries) {
+        scanGovernor.recordLatency(nanos, entries);
+    }
+
+    /**
+     * Returns the pace at which the scan is currently running.
+     */
+    ScanPace getScanPace() {
+        return scanGovernor.getPace();
+    }
+
+    /**
+     * Returns the start date of the latest full scan if it was interrupted
+     * (cancelled, stopped by shutdown or killed) after recording checkpoints.
+     *
+     * @return the start date of the scan to resume, or empty if there is none
+     */
+    Optional<Instant> getResumableScanDate() {
+        return Optional.ofNullable(staticsDao.getResumableScanDate());
+    }
+
+    /**
+     * Replaces the in-memory checkpoints with those recorded for the scan date of
+     * the given context. For a new scan, this simply clears the previous state.
+     */
+    void loadCheckpoints(@NonNull ScanContext context) {
+        completedPhases.clear();
+        completedDirectories.clear();
+        pendingDirectories.clear();
+        lastCommit.set(System.currentTimeMillis());
+        for (ScanCheckpoint checkpoint : staticsDao.getScanCheckpoints(context.scanDate())) {
+            switch (checkpoint.getType()) {
+            case PHASE -> completedPhases.add(ScanEventType.of(checkpoint.getTarget()));
+            case DIRECTORY -> completedDirectories.add(checkpoint.getTarget());
+            default -> throw new AssertionError("Unexpected type: " + checkpoint.getType());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the phase has already been completed by the scan being
+     * resumed.
+     */
+    boolean isCompletedPhase(@NonNull ScanEventType phase) {
+        return completedPhases.contains(phase);
+    }
+
+    /**
+     * Records that the phase has been completed. Nothing is recorded if the scan
+     * has been interrupted, since the phase may have stopped halfway.
+     */
+    void completePhase(@NonNull ScanContext context, @NonNull ScanEventType phase) {
+        if (isInterrupted() || !completedPhases.add(phase)) {
+            return;
+        }
+        commitCheckpoints(context);
+        staticsDao.createScanCheckpoint(context.scanDate(), ScanCheckpointType.PHASE, phase.name());
+    }
+
+    /**
+     * Checks whether the subtree of the directory has already been scanned by the
+     * scan being resumed.
+     */
+    boolean isCompletedDirectory(@NonNull MediaFile directory) {
+        return completedDirectories.contains(directory.getPathString());
+    }
+
+    /**
+     * Records that the whole subtree of the directory has been scanned. Nothing is
+     * recorded if the scan has been interrupted. The checkpoint is written with the
+     * next commit of the search index.
+     */
+    void completeDirectory(@NonNull ScanContext context, @NonNull MediaFile directory) {
+        if (isInterrupted() || !completedDirectories.add(directory.getPathString())) {
+            return;
+        }
+        pendingDirectories.add(directory.getPathString());
+        long elapsed = System.currentTimeMillis() - lastCommit.get();
+        if (elapsed >= ScanConstants.CHECKPOINT_INTERVAL_MILLIS) {
+            commitCheckpoints(context);
+        }
+    }
+
+    /*
+     * The search index is committed before the checkpoints are written. Otherwise a
+     * scan resumed after a restart would skip directories whose documents were lost
+     * with the writers, and their unchanged rows would never be indexed again.
+     */
+    private void commitCheckpoints(@NonNull ScanContext context) {
+        indexManager.commit();
+        String path = pendingDirectories.poll();
+        while (path != null) {
+            staticsDao.createScanCheckpoint(context.scanDate(), ScanCheckpointType.DIRECTORY, path);
+            path = pendingDirectories.poll();
+        }
+        lastCommit.set(System.currentTimeMillis());
+    }
+
+    /**
+     * Discards the checkpoints of a scan that has run to completion.
+     */
+    void clearCheckpoints(@NonNull ScanContext context) {
+        completedPhases.clear();
+        completedDirectories.clear();
+        pendingDirectories.clear();
+        staticsDao.deleteScanCheckpoints(context.scanDate());
+    }
+
     /**
      * Creates a scan log entry if the type requires logging or logging is enabled.
      *
@@ -193,6 +340,7 @@ public class ScanHelper {
      * <li>Index-level expunging of artist, album, and song entries marked as
      * removable.</li>
      * <li>Database-level batch expunging in ID ranges.</li>
+     * <li>Removal of the cover art index of directories no longer present.</li>
      * </ul>
      * Periodic wait is introduced every
      * {@value ScanConstants#EXPUNGE_WAIT_INTERVAL} entries to avoid long blocking.
@@ -235,6 +383,12 @@ public class ScanHelper {
                 }
             }
         }
+
+        // Step 5: Remove the cover art index of directories no longer present
+        wmfs.expungeCoverArtIndex();
+
+        // Step 6: Remove the seek index of files no longer present
+        seekIndexDao.expunge();
     }
 
     /**
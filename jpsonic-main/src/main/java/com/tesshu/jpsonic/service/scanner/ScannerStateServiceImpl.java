@@ -162,6 +162,19 @@ public class ScannerStateServiceImpl implements ScannerStateService {
         return acquired;
     }
 
+    /**
+     * Replaces the scan date of the scan that has just acquired the lock with the
+     * start date of an interrupted scan. Media files already stamped with that
+     * date are treated as scanned, which allows the scan to resume where it
+     * stopped.
+     *
+     * @param interruptedScanDate the start date of the scan to resume
+     */
+    @ThreadSafe(enableChecks = false) // Use only within the thread that acquired the lock.
+    void resume(@NonNull Instant interruptedScanDate) {
+        scanDate = interruptedScanDate;
+    }
+
     /**
      * Returns the date and time of the most recent scan execution.
      *
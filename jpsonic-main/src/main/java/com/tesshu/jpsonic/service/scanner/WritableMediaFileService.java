@@ -32,6 +32,7 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -48,9 +49,11 @@ import com.tesshu.jpsonic.infrastructure.filesystem.ScanningExclusionPolicy;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.persistence.api.entity.Album;
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.service.MediaFileCache;
 import com.tesshu.jpsonic.service.MediaFileService;
@@ -130,6 +133,7 @@ public class WritableMediaFileService {
     private final JapaneseReadingUtils readingUtils;
     private final IndexManager indexManager;
     private final MusicIndexServiceImpl musicIndexService;
+    private final CoverArtIndexDao coverArtIndexDao;
 
     public WritableMediaFileService(MediaFileDao mediaFileDao,
             ScannerStateService scannerStateService, MediaFileService mediaFileService,
@@ -137,7 +141,8 @@ public class WritableMediaFileService {
             VideoParser videoParser, SettingsFacade settingsFacade,
             LibraryAccessPolicy libraryAccessPolicy,
             ScanningExclusionPolicy scanningExclusionPolicy, JapaneseReadingUtils readingUtils,
-            IndexManager indexManager, MusicIndexServiceImpl musicIndexService) {
+            IndexManager indexManager, MusicIndexServiceImpl musicIndexService,
+            CoverArtIndexDao coverArtIndexDao) {
         super();
         this.mediaFileDao = mediaFileDao;
         this.scannerState = scannerStateService;
@@ -152,6 +157,7 @@ public class WritableMediaFileService {
         this.readingUtils = readingUtils;
         this.indexManager = indexManager;
         this.musicIndexService = musicIndexService;
+        this.coverArtIndexDao = coverArtIndexDao;
     }
 
     /**
@@ -259,41 +265,87 @@ public class WritableMediaFileService {
             .stream()
             .collect(Collectors.toMap(MediaFile::getPathString, mf -> mf));
 
+        return updateChildren(scanDate, parent, stored, new ArrayList<>(),
+                coverArtIndexDao.getCoverArtIndex(parent.getPathString()), ListingObserver.NONE);
+    }
+
+    /**
+     * Compares the directory listing against the stored children and brings them
+     * up to date. The present children are added to {@code scanned}, and the
+     * entries left in {@code stored} are deleted as no longer existing.
+     *
+     * <p>
+     * The cover art is searched for only if the directory has been modified since
+     * it was last indexed. Otherwise the indexed one is returned and the attributes
+     * of the children are not read.
+     *
+     * <p>
+     * Only the listing itself is reported to {@code listingObserver}. The children
+     * are processed after it has been read.
+     */
+    private Optional<Path> updateChildren(@NonNull Instant scanDate, @NonNull MediaFile parent,
+            @NonNull Map<String, MediaFile> stored, @NonNull List<MediaFile> scanned,
+            @Nullable CoverArtIndex index, @NonNull ListingObserver listingObserver) {
+
+        Instant dirChanged = getLastModified(parent.toPath());
+        boolean indexed = index != null && dirChanged.equals(index.getDirChanged())
+                && !settingsFacade.get(SKeys.musicFolder.scan.ignoreFileTimestamps);
+
+        List<Integer> unchanged = new ArrayList<>();
         LongAdder updateCount = new LongAdder();
         CoverArtDetector coverArtDetector = new CoverArtDetector(scanningExclusionPolicy,
                 mediaFileService);
+        long begin = System.nanoTime();
+        List<Path> listing = new ArrayList<>();
         try (DirectoryStream<Path> ds = Files.newDirectoryStream(parent.toPath())) {
-            for (Path childPath : ds) {
+            ds.forEach(listing::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        listingObserver.onListed(System.nanoTime() - begin, listing.size());
+
+        for (Path childPath : listing) {
 
+            if (!indexed) {
                 coverArtDetector.setChildFilePath(childPath);
+            }
 
-                if (!mediaFileService.includeMediaFile(childPath)) {
-                    continue;
-                }
+            if (!mediaFileService.includeMediaFile(childPath)) {
+                continue;
+            }
 
+            if (!indexed) {
                 coverArtDetector.setMediaFilePath(childPath);
-
-                MediaFile child = stored.get(childPath.toString());
-                createOrUpdateChild(child, childPath, scanDate).ifPresentOrElse(updated -> {
-                    if (child != null) {
-                        /*
-                         * Updates the ChildrenLastUpdated which is used to detect changes when
-                         * updating ID3 Album records. Note that this process does not include
-                         * detecting changes to the Sort tag.
-                         */
-                        updateSongChildrenLastUpdated(updated, child);
-                    }
-                    updateCount.increment();
-                }, () -> {
-                    if (child != null && !scanDate.equals(child.getLastScanned())
-                            && !FAR_FUTURE.equals(child.getLastScanned())) {
-                        mediaFileDao.updateLastScanned(child.getId(), scanDate);
-                    }
-                });
-                stored.remove(childPath.toString());
             }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+
+            MediaFile child = stored.get(childPath.toString());
+            createOrUpdateChild(child, childPath, scanDate).ifPresentOrElse(updated -> {
+                if (child != null) {
+                    /*
+                     * Updates the ChildrenLastUpdated which is used to detect changes when
+                     * updating ID3 Album records. Note that this process does not include
+                     * detecting changes to the Sort tag.
+                     */
+                    updateSongChildrenLastUpdated(updated, child);
+                }
+                updateCount.increment();
+                scanned.add(updated);
+            }, () -> {
+                if (child == null) {
+                    return;
+                }
+                if (!scanDate.equals(child.getLastScanned())
+                        && !FAR_FUTURE.equals(child.getLastScanned())) {
+                    unchanged.add(child.getId());
+                    child.setLastScanned(scanDate);
+                }
+                scanned.add(child);
+            });
+            stored.remove(childPath.toString());
+        }
+
+        if (!unchanged.isEmpty()) {
+            mediaFileDao.updateLastScanned(unchanged, scanDate);
         }
 
         if (updateCount.intValue() > 0) {
@@ -313,7 +365,43 @@ public class WritableMediaFileService {
             updateSongChildrenLastUpdated(parent);
         }
 
-        return coverArtDetector.getCoverArtAvailable();
+        if (indexed) {
+            Optional<Path> coverArt = Optional.ofNullable(index.getCoverArtPath()).map(Path::of);
+            coverArt.ifPresent(path -> updateCoverArtChanged(path, index.getCoverArtChanged()));
+            return coverArt;
+        }
+        Optional<Path> coverArt = coverArtDetector.getCoverArtAvailable();
+        updateCoverArtIndex(parent.toPath(), dirChanged, coverArt);
+        return coverArt;
+    }
+
+    private void updateCoverArtIndex(@NonNull Path dir, @NonNull Instant dirChanged,
+            Optional<Path> coverArt) {
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex(dir.toString(),
+                    coverArt.map(Path::toString).orElse(null), dirChanged,
+                    coverArt.map(this::getLastModified).orElse(null)));
+    }
+
+    /*
+     * Overwriting the cover art in place, or re-tagging the file it is embedded in,
+     * does not change the directory. Its own time is therefore checked whenever it
+     * is scanned, so that the images cached for the old one are not served.
+     */
+    private void updateCoverArtChanged(@NonNull Path coverArt, @Nullable Instant indexed) {
+        Instant changed;
+        try {
+            changed = Files
+                .getLastModifiedTime(coverArt)
+                .toInstant()
+                .truncatedTo(ChronoUnit.MILLIS);
+        } catch (IOException e) {
+            // Removed along with a change of the directory, which is handled there
+            return;
+        }
+        if (!changed.equals(indexed)) {
+            coverArtIndexDao.updateCoverArtChanged(coverArt.toString(), changed);
+        }
     }
 
     private void deleteMediafileIndex(MediaFile mediaFile) {
@@ -347,15 +435,7 @@ public class WritableMediaFileService {
             return result;
         }
 
-        updateChildren(scanDate, parent).ifPresentOrElse(covrerArtPath -> {
-            if (!Objects.equals(parent.getCoverArtPathString(), covrerArtPath.toString())) {
-                mediaFileDao.updateCoverArtPath(parent.getPathString(), covrerArtPath.toString());
-            }
-        }, () -> {
-            if (parent.getPathString() != null) {
-                mediaFileDao.updateCoverArtPath(parent.getPathString(), null);
-            }
-        });
+        updateCoverArtPath(parent, updateChildren(scanDate, parent));
 
         for (MediaFile child : mediaFileDao.getChildrenOf(parent.getPathString())) {
             if (child.isDirectory() && !fileOnly
@@ -370,6 +450,79 @@ public class WritableMediaFileService {
         return result;
     }
 
+    /**
+     * Same as {@link #getChildrenOf(Instant, MediaFile, boolean)}, but compares the
+     * directory listing against rows prefetched in the {@link StoredSubtree}
+     * instead of querying them, and returns both files and directories. The
+     * returned children reflect the updates, so no further query is needed. The
+     * time taken to list the directory is reported to {@code listingObserver}.
+     */
+    List<MediaFile> getChildrenOf(@NonNull Instant scanDate, @NonNull MediaFile parent,
+            @NonNull StoredSubtree subtree, @NonNull ListingObserver listingObserver) {
+
+        List<MediaFile> scanned = new ArrayList<>();
+        if (!parent.isDirectory()) {
+            return scanned;
+        }
+
+        Map<String, MediaFile> stored = subtree.takeChildrenOf(parent);
+        updateCoverArtPath(parent, updateChildren(scanDate, parent, stored, scanned,
+                subtree.takeCoverArtIndexOf(parent), listingObserver));
+        return scanned;
+    }
+
+    /**
+     * Receives the time it took to read the entries of a directory.
+     */
+    @FunctionalInterface
+    interface ListingObserver {
+
+        ListingObserver NONE = (nanos, entries) -> {
+        };
+
+        void onListed(long nanos, int entries);
+    }
+
+    private void updateCoverArtPath(@NonNull MediaFile parent, Optional<Path> coverArtPath) {
+        coverArtPath.ifPresentOrElse(path -> {
+            if (!Objects.equals(parent.getCoverArtPathString(), path.toString())) {
+                mediaFileDao.updateCoverArtPath(parent.getPathString(), path.toString());
+                parent.setCoverArtPathString(path.toString());
+            }
+        }, () -> {
+            if (parent.getPathString() != null && parent.getCoverArtPathString() != null) {
+                mediaFileDao.updateCoverArtPath(parent.getPathString(), null);
+                parent.setCoverArtPathString(null);
+            }
+        });
+    }
+
+    /**
+     * Loads the stored rows of everything under the directory in a single query,
+     * together with the indexed cover art.
+     */
+    StoredSubtree prefetchSubtree(@NonNull MediaFile root) {
+        return new StoredSubtree(mediaFileDao.getDescendantsOf(root.toPath()),
+                coverArtIndexDao.getCoverArtIndexesUnder(root.toPath()));
+    }
+
+    /**
+     * Loads the stored rows of the direct children of the directory, together with
+     * the indexed cover art of the directory.
+     */
+    StoredSubtree prefetchChildren(@NonNull MediaFile parent) {
+        CoverArtIndex index = coverArtIndexDao.getCoverArtIndex(parent.getPathString());
+        return new StoredSubtree(mediaFileDao.getChildrenOf(parent.getPathString()),
+                index == null ? List.of() : List.of(index));
+    }
+
+    /**
+     * Deletes the indexed cover art of directories that are no longer present.
+     */
+    int expungeCoverArtIndex() {
+        return coverArtIndexDao.expunge();
+    }
+
     Optional<MediaFile> checkLastModified(@NonNull Instant scanDate,
             @NonNull final MediaFile mediaFile) {
         boolean ignoreFileTimestamps = settingsFacade
@@ -600,6 +753,9 @@ public class WritableMediaFileService {
             if (m.getMediaType() != MediaType.ALBUM) {
                 indexManager.index(m);
             }
+            if (m.getMediaType() != MediaType.DIRECTORY && m.getMediaType() != MediaType.ALBUM) {
+                updateCoverArtChanged(m.toPath(), null);
+            }
         });
         mediaFileCache.remove(parsed.toPath());
         return updated;
@@ -611,7 +767,9 @@ public class WritableMediaFileService {
             return;
         }
         Path dirPath = dir.toPath();
-        mediaFileService.findCoverArt(dirPath).ifPresent(coverArtPath -> {
+        Optional<Path> coverArt = mediaFileService.searchCoverArt(dirPath);
+        updateCoverArtIndex(dirPath, getLastModified(dirPath), coverArt);
+        coverArt.ifPresent(coverArtPath -> {
             mediaFileDao.updateCoverArtPath(dirPath.toString(), coverArtPath.toString());
             albumDao
                 .updateCoverArtPath(dir.getAlbumArtist(), dir.getAlbumName(),
@@ -663,6 +821,39 @@ public class WritableMediaFileService {
         }
     }
 
+    /**
+     * Stored rows of a directory tree, grouped by parent path. Each directory takes
+     * its children out when it is scanned, so the snapshot shrinks as the scan
+     * proceeds.
+     */
+    static final class StoredSubtree {
+
+        private final Map<String, Map<String, MediaFile>> childrenByParent;
+        private final Map<String, CoverArtIndex> coverArtIndexes;
+
+        StoredSubtree(@NonNull List<MediaFile> stored, @NonNull List<CoverArtIndex> indexes) {
+            childrenByParent = stored
+                .stream()
+                .collect(Collectors
+                    .groupingBy(MediaFile::getParentPathString,
+                            Collectors.toMap(MediaFile::getPathString, mf -> mf)));
+            coverArtIndexes = indexes
+                .stream()
+                .collect(Collectors.toMap(CoverArtIndex::getPath, index -> index));
+        }
+
+        @NonNull
+        Map<String, MediaFile> takeChildrenOf(@NonNull MediaFile parent) {
+            Map<String, MediaFile> children = childrenByParent.remove(parent.getPathString());
+            return children == null ? new HashMap<>() : children;
+        }
+
+        @Nullable
+        CoverArtIndex takeCoverArtIndexOf(@NonNull MediaFile parent) {
+            return coverArtIndexes.remove(parent.getPathString());
+        }
+    }
+
     private static class CoverArtDetector {
 
         private final ScanningExclusionPolicy scanningExclusionPolicy;
@@ -58,6 +58,9 @@
  * cover art selection, and serves as a bridge between procedures.</li>
  * <li>{@code ScanConstants} — Contains fixed values and string constants used
  * throughout the scan process.</li>
+ * <li>{@code ScanGovernor} — Adapts the pace of the scan to the load of the
+ * server, such as active streams and the observed disk latency, so that
+ * scanning does not interfere with playback.</li>
  * <li>{@code WritableMediaFileService} — A write-focused service for creating,
  * updating, and deleting media file records during the scan. It is designed to
  * prevent transactional conflicts between scan-time updates and other updates,
@@ -30,6 +30,7 @@ import static com.tesshu.jpsonic.service.search.FieldNamesConstants.COMPOSER;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.COMPOSER_READING;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.COMPOSER_READING_ROMANIZED;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.GENRE;
+import static com.tesshu.jpsonic.service.search.FieldNamesConstants.GENRE_FACET;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.GENRE_KEY;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.TITLE;
 import static com.tesshu.jpsonic.service.search.FieldNamesConstants.TITLE_READING;
@@ -37,6 +38,11 @@ import static com.tesshu.jpsonic.service.search.FieldNamesConstants.YEAR;
 import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 import com.tesshu.jpsonic.domain.system.IndexScheme;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
@@ -46,12 +52,15 @@ import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.service.language.JapaneseReadingUtils;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.Term;
@@ -71,7 +80,7 @@ import org.springframework.stereotype.Component;
  * </p>
  */
 @Component
-@DependsOn({ "settingsFacade", "japaneseReadingUtils" })
+@DependsOn({ "settingsFacade", "japaneseReadingUtils", "analyzerFactory" })
 @SuppressWarnings("PMD.TooManyStaticImports")
 public class DocumentFactory {
 
@@ -81,10 +90,13 @@ public class DocumentFactory {
 
     private final SettingsFacade settingsFacade;
     private final JapaneseReadingUtils readingUtils;
+    private final AnalyzerFactory analyzerFactory;
 
-    public DocumentFactory(SettingsFacade settingsFacade, JapaneseReadingUtils readingUtils) {
+    public DocumentFactory(SettingsFacade settingsFacade, JapaneseReadingUtils readingUtils,
+            AnalyzerFactory analyzerFactory) {
         this.settingsFacade = settingsFacade;
         this.readingUtils = readingUtils;
+        this.analyzerFactory = analyzerFactory;
     }
 
     // ========= ENUM for FieldTypes =========
@@ -138,6 +150,30 @@ public class DocumentFactory {
         applyTextAndSortedField(doc, GENRE, value);
     }
 
+    /*
+     * The genre is split by the same analyzer as the GENRE field, so the facet
+     * values are the same terms as those hit by the genre query.
+     */
+    private void applyGenreFacet(@NonNull Document doc, @Nullable String value) {
+        if (isEmpty(value)) {
+            return;
+        }
+        Set<String> genres = new LinkedHashSet<>();
+        try (TokenStream stream = analyzerFactory.getAnalyzer().tokenStream(GENRE, value)) {
+            stream.reset();
+            CharTermAttribute attr = stream.getAttribute(CharTermAttribute.class);
+            while (stream.incrementToken()) {
+                genres.add(attr.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        genres
+            .forEach(genre -> doc
+                .add(new SortedSetDocValuesField(GENRE_FACET, new BytesRef(genre))));
+    }
+
     private void applyFieldYear(@NonNull Document doc, @NonNull String fieldName,
             @Nullable Integer value) {
         if (value != null) {
@@ -218,6 +254,7 @@ public class DocumentFactory {
         applyArtistInfo(doc, mediaFile.getArtist(), mediaFile.getArtistSort(),
                 mediaFile.getArtistReading());
         applyGenre(doc, mediaFile.getGenre());
+        applyGenreFacet(doc, mediaFile.getGenre());
         applyTextAndSortedField(doc, ALBUM, mediaFile.getAlbumName());
         applyTextAndSortedField(doc, ALBUM_READING,
                 defaultIfEmpty(mediaFile.getAlbumSort(), mediaFile.getAlbumReading()));
@@ -239,6 +276,7 @@ public class DocumentFactory {
         applyFieldId(doc, album.getId());
         applyArtistInfo(doc, album.getArtist(), album.getArtistSort(), album.getArtistReading());
         applyGenre(doc, album.getGenre());
+        applyGenreFacet(doc, album.getGenre());
         applyTextAndSortedField(doc, ALBUM, album.getName());
         applyTextAndSortedField(doc, ALBUM_READING,
                 defaultIfEmpty(album.getNameSort(), album.getNameReading()));
@@ -267,6 +305,7 @@ public class DocumentFactory {
                 mediaFile.getComposerSort());
         if (mediaFile.getMediaType() != MediaType.PODCAST) {
             applyGenre(doc, mediaFile.getGenre());
+            applyGenreFacet(doc, mediaFile.getGenre());
         }
         applyFieldYear(doc, YEAR, mediaFile.getYear());
         applyFieldFolderPath(doc, mediaFile.getFolder());
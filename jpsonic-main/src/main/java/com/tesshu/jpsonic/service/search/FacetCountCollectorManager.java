@@ -0,0 +1,119 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.service.search;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+
+/**
+ * Counts the values of a
+ * {@link org.apache.lucene.document.SortedSetDocValuesField} among the
+ * documents matched by a query.
+ *
+ * <p>
+ * This is the minimum equivalent of the sorted set facets of lucene-facet.
+ * Counting is done per segment on ordinals, and the ordinals are resolved to
+ * terms only once per segment. Therefore, the cost is one pass over the hits
+ * regardless of the number of distinct values.
+ */
+class FacetCountCollectorManager implements
+        CollectorManager<FacetCountCollectorManager.FacetCountCollector, Map<String, Integer>> {
+
+    private final String field;
+
+    FacetCountCollectorManager(String field) {
+        this.field = field;
+    }
+
+    @Override
+    public FacetCountCollector newCollector() {
+        return new FacetCountCollector(field);
+    }
+
+    @Override
+    public Map<String, Integer> reduce(Collection<FacetCountCollector> collectors)
+            throws IOException {
+        Map<String, Integer> result = new HashMap<>();
+        for (FacetCountCollector collector : collectors) {
+            collector.flush();
+            collector.counts.forEach((value, count) -> result.merge(value, count, Integer::sum));
+        }
+        return result;
+    }
+
+    static class FacetCountCollector extends SimpleCollector {
+
+        private final String field;
+        private final Map<String, Integer> counts = new HashMap<>();
+        private SortedSetDocValues values;
+        private int[] ordCounts;
+
+        FacetCountCollector(String field) {
+            super();
+            this.field = field;
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            flush();
+            values = DocValues.getSortedSet(context.reader(), field);
+            ordCounts = new int[Math.toIntExact(values.getValueCount())];
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                for (int i = 0; i < values.docValueCount(); i++) {
+                    ordCounts[Math.toIntExact(values.nextOrd())]++;
+                }
+            }
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        void flush() throws IOException {
+            if (values == null) {
+                return;
+            }
+            for (int ord = 0; ord < ordCounts.length; ord++) {
+                if (ordCounts[ord] > 0) {
+                    counts
+                        .merge(values.lookupOrd(ord).utf8ToString(), ordCounts[ord],
+                                Integer::sum);
+                }
+            }
+            values = null;
+            ordCounts = null;
+        }
+    }
+}
@@ -96,6 +96,13 @@ public final class FieldNamesConstants {
      */
     public static final String GENRE_KEY = "gk";
 
+    /**
+     * Jpsonic specific facet field. Holds the analyzed genres as sorted set doc
+     * values, so that the number of songs and albums per genre can be counted in
+     * a single pass.
+     */
+    public static final String GENRE_FACET = "gf";
+
     /**
      * Jpsonic specific reading field. Parse rules are expected to correspond to
      * breaks according to id3 and also to customary multi artists.
@@ -31,7 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -40,8 +40,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.tesshu.jpsonic.ThreadSafe;
 import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
@@ -56,6 +54,7 @@ import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
 import com.tesshu.jpsonic.service.language.JpsonicComparators;
 import com.tesshu.jpsonic.service.scanner.ScannerStateServiceImpl;
+import com.tesshu.jpsonic.service.search.GenreMasterCriteria.Scope;
 import com.tesshu.jpsonic.service.search.SearchServiceUtilities.LegacyGenreCriteria;
 import com.tesshu.jpsonic.util.concurrent.ReadWriteLockSupport;
 import jakarta.annotation.PostConstruct;
@@ -66,11 +65,12 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
-import org.apache.lucene.misc.HighFreqTerms;
-import org.apache.lucene.misc.TermStats;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
@@ -320,27 +320,33 @@ public class IndexManager implements ReadWriteLockSupport {
         }
     }
 
-    public void expungeGenreOtherThan(List<Genre> existing) {
+    /**
+     * Deletes the genre documents that are no longer used by any media file or
+     * album. Genre documents are keyed by the genre as it is stored (before the
+     * multi-genre analysis), so the comparison is done on the stored values
+     * rather than on analyzed terms. The number of songs and albums per genre is
+     * not held here; it is counted from the facet field on demand.
+     *
+     * @param fileStructureGenres the genres of media files other than podcasts
+     * @param id3Genres           the genres of albums
+     */
+    public void expungeGenreOtherThan(@NonNull Collection<String> fileStructureGenres,
+            @NonNull Collection<String> id3Genres) {
         writeLock(genreLock);
         // This method runs during scanning.
         try {
-            removeUnnecessaryGenres(existing, IndexType.GENRE);
-            removeUnnecessaryGenres(existing, IndexType.ALBUM_ID3_GENRE);
-            // Must not be called asynchronously.
-            // Genre data is required for subsequent scan processing.
-            refreshMultiGenreMaster();
+            removeUnnecessaryGenres(Set.copyOf(fileStructureGenres), IndexType.GENRE);
+            removeUnnecessaryGenres(Set.copyOf(id3Genres), IndexType.ALBUM_ID3_GENRE);
         } finally {
             writeUnlock(genreLock);
         }
     }
 
-    @SuppressWarnings({ "PMD.AvoidCatchingGenericException" }) // lucene/HighFreqTerms#getHighFreqTerms
-    private void removeUnnecessaryGenres(List<Genre> existing, IndexType genreType) {
+    private void removeUnnecessaryGenres(Set<String> existing, IndexType genreType) {
         try {
             if (existing.isEmpty()) {
                 writers.get(genreType).deleteAll();
                 writers.get(genreType).flush();
-                util.removeCacheAll();
                 return;
             }
         } catch (IOException e) {
@@ -350,51 +356,65 @@ public class IndexManager implements ReadWriteLockSupport {
         // Stop indexing to safely obtain a Searcher
         stopIndexing(genreType);
         IndexSearcher genreSearcher = getSearcher(genreType);
-        if (genreSearcher == null) {
-            return;
-        }
 
         try {
-            Collection<String> fields = FieldInfos.getIndexedFields(genreSearcher.getIndexReader());
-            if (fields.isEmpty()) {
-                return;
-            }
-
-            // Get the most frequent genre terms currently indexed
-            TermStats[] highFreqTerms = HighFreqTerms
-                .getHighFreqTerms(genreSearcher.getIndexReader(), HighFreqTerms.DEFAULT_NUMTERMS,
-                        FieldNamesConstants.GENRE, new HighFreqTerms.DocFreqComparator());
-
-            List<String> indexedNames = Stream
-                .of(highFreqTerms)
-                .map(t -> t.termtext.utf8ToString())
-                .toList();
-
-            List<String> existingNames = existing
-                .stream()
-                .map(Genre::getName)
-                .collect(Collectors.toList());
-
-            Term[] obsoleteTerms = indexedNames
-                .stream()
-                .filter(name -> !existingNames.contains(name))
-                .map(String::hashCode)
-                .map(DocumentFactory::createPrimarykey)
-                .toArray(Term[]::new);
+            Term[] obsoleteTerms = genreSearcher == null ? new Term[0]
+                    : getIndexedGenres(genreSearcher)
+                        .stream()
+                        .filter(name -> !existing.contains(name))
+                        .map(String::hashCode)
+                        .map(DocumentFactory::createPrimarykey)
+                        .toArray(Term[]::new);
 
             // Reopen writer for editing and delete obsolete genres
             writers.put(genreType, createIndexWriter(genreType));
-            writers.get(genreType).deleteDocuments(obsoleteTerms);
-
+            if (obsoleteTerms.length > 0) {
+                writers.get(genreType).deleteDocuments(obsoleteTerms);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
-        } catch (Exception e) {
-            LOG.info("The genre field may not exist.");
         } finally {
             release(genreType, genreSearcher);
         }
     }
 
+    private Set<String> getIndexedGenres(IndexSearcher genreSearcher) throws IOException {
+        Set<String> genres = new HashSet<>();
+        TopDocs topDocs = genreSearcher.search(new MatchAllDocsQuery(), Integer.MAX_VALUE);
+        StoredFields storedFields = genreSearcher.storedFields();
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            String genre = storedFields.document(scoreDoc.doc).get(FieldNamesConstants.GENRE_KEY);
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    /**
+     * Returns whether the index was written before genres were given a facet
+     * field. The genres of such an index cannot be counted until every document
+     * has been indexed again, so it has to be rebuilt with a full scan.
+     */
+    public boolean isGenreFacetMissing() {
+        for (IndexType indexType : List.of(IndexType.SONG, IndexType.ALBUM, IndexType.ALBUM_ID3)) {
+            IndexSearcher searcher = getSearcher(indexType);
+            if (searcher == null) {
+                continue;
+            }
+            try {
+                FieldInfos fieldInfos = FieldInfos.getMergedFieldInfos(searcher.getIndexReader());
+                if (fieldInfos.fieldInfo(FieldNamesConstants.GENRE) != null
+                        && fieldInfos.fieldInfo(FieldNamesConstants.GENRE_FACET) == null) {
+                    return true;
+                }
+            } finally {
+                release(indexType, searcher);
+            }
+        }
+        return false;
+    }
+
     @ThreadSafe(enableChecks = false) // False positive. Absolutely not concurrent.
     @SuppressWarnings("PMD.CloseResource") // False positive. Do not close.
     public void deleteAll() {
@@ -407,6 +427,24 @@ public class IndexManager implements ReadWriteLockSupport {
         }
     }
 
+    /**
+     * Commits the documents written so far without closing the writers. Documents
+     * that are not committed are lost if the JVM stops before the end of the scan.
+     */
+    @ThreadSafe(enableChecks = false) // False positive. Absolutely not concurrent.
+    @SuppressWarnings("PMD.CloseResource") // False positive. Do not close.
+    public void commit() {
+        for (IndexWriter writer : writers.values()) {
+            try {
+                if (writer.hasUncommittedChanges()) {
+                    writer.commit();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     /**
      * Close Writer of all indexes and update SearcherManager. Called at the end of
      * the Scan flow.
@@ -619,242 +657,100 @@ public class IndexManager implements ReadWriteLockSupport {
         return new ArrayList<>(resultSet);
     }
 
+    /**
+     * Returns the genres of the file structure with the number of songs and
+     * albums. The counts are read from the facet field of the song and album
+     * indexes and cached until the next scan is completed.
+     */
     public List<Genre> getGenres(boolean sortByAlbum) {
-        readLock(genreLock);
-        try {
-            // Refresh genre master cache if song count cache is empty
-            if (util.getCache(LegacyGenreCriteria.SONG_COUNT).isEmpty()) {
-                refreshMultiGenreMaster();
-            }
-            if (settingsFacade.get(SKeys.general.sort.genresByAlphabet)) {
-                return getSortedGenres(sortByAlbum);
-            }
-
-            // If sorting alphabetically is not enabled, return cached list
-            List<Genre> genres = sortByAlbum ? util.getCache(LegacyGenreCriteria.ALBUM_COUNT)
-                    : util.getCache(LegacyGenreCriteria.SONG_COUNT);
-
-            return isEmpty(genres) ? Collections.emptyList() : genres;
-
-        } finally {
-            readUnlock(genreLock);
-        }
-    }
-
-    /** Get sorted genres, either by album or song, with caching */
-    private List<Genre> getSortedGenres(boolean sortByAlbum) {
-        LegacyGenreCriteria alphaCriteria = sortByAlbum ? LegacyGenreCriteria.ALBUM_ALPHABETICAL
-                : LegacyGenreCriteria.SONG_ALPHABETICAL;
-
-        if (util.containsCache(alphaCriteria)) {
-            return util.getCache(alphaCriteria);
-        }
-
-        LegacyGenreCriteria countCriteria = sortByAlbum ? LegacyGenreCriteria.ALBUM_COUNT
-                : LegacyGenreCriteria.SONG_COUNT;
-
-        List<Genre> genres = new ArrayList<>();
-        if (!isEmpty(util.getCache(countCriteria))) {
-            genres.addAll(util.getCache(countCriteria));
-            genres.sort(comparators.genreOrderByAlpha());
+        boolean alphabetical = settingsFacade.get(SKeys.general.sort.genresByAlphabet);
+        LegacyGenreCriteria criteria;
+        if (sortByAlbum) {
+            criteria = alphabetical ? LegacyGenreCriteria.ALBUM_ALPHABETICAL
+                    : LegacyGenreCriteria.ALBUM_COUNT;
+        } else {
+            criteria = alphabetical ? LegacyGenreCriteria.SONG_ALPHABETICAL
+                    : LegacyGenreCriteria.SONG_COUNT;
         }
 
-        util.putCache(alphaCriteria, genres);
-        return genres;
-    }
-
-    private void refreshMultiGenreMaster() {
-        IndexSearcher genreSearcher = getSearcher(IndexType.GENRE);
-        IndexSearcher songSearcher = getSearcher(IndexType.SONG);
-        IndexSearcher albumSearcher = getSearcher(IndexType.ALBUM);
-
+        readLock(genreLock);
         try {
-            if (isEmpty(genreSearcher) || isEmpty(songSearcher) || isEmpty(albumSearcher)) {
-                return;
+            if (util.containsCache(criteria)) {
+                return util.getCache(criteria);
             }
 
-            utilClearCaches();
-
-            Collection<String> fields = FieldInfos.getIndexedFields(genreSearcher.getIndexReader());
-            if (fields.isEmpty()) {
-                LOG.info("The multi-genre master has been updated(no record).");
-                return;
-            }
-
-            List<String> genreNames = getHighFrequencyGenreNames(genreSearcher);
-            if (genreNames.isEmpty()) {
-                LOG.info("The genre field may not exist.");
-                return;
-            }
-
-            List<Genre> genres = collectGenres(genreNames, songSearcher, albumSearcher);
-            cacheGenres(genres);
-
-            LOG.info("The multi-genre master has been updated.");
-
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        } finally {
-            release(IndexType.GENRE, genreSearcher);
-            release(IndexType.SONG, songSearcher);
-            release(IndexType.ALBUM, albumSearcher);
-        }
-    }
-
-    private void utilClearCaches() {
-        Stream.of(LegacyGenreCriteria.values()).forEach(util::removeCache);
-    }
-
-    @SuppressWarnings("PMD.AvoidCatchingGenericException") // lucene/HighFreqTerms#getHighFreqTerms
-    private List<String> getHighFrequencyGenreNames(IndexSearcher genreSearcher)
-            throws IOException {
-        int numTerms = HighFreqTerms.DEFAULT_NUMTERMS;
-        Comparator<TermStats> comparator = new HighFreqTerms.DocFreqComparator();
-        TermStats[] stats;
-
-        try {
-            stats = HighFreqTerms
-                .getHighFreqTerms(genreSearcher.getIndexReader(), numTerms,
-                        FieldNamesConstants.GENRE, comparator);
-        } catch (Exception e) {
-            return Collections.emptyList();
-        }
-
-        return Arrays
-            .stream(stats)
-            .map(t -> t.termtext.utf8ToString())
-            .collect(Collectors.toList());
-    }
-
-    private List<Genre> collectGenres(List<String> genreNames, IndexSearcher songSearcher,
-            IndexSearcher albumSearcher) throws IOException {
-
-        List<Genre> genres = new ArrayList<>();
-        for (String genreName : genreNames) {
-            Query query = queryFactory.getGenre(genreName);
-            TopDocs songDocs = songSearcher.search(query, Integer.MAX_VALUE);
-            int songCount = util.round(luceneUtils.getTotalHits(songDocs));
-            TopDocs albumDocs = albumSearcher.search(query, Integer.MAX_VALUE);
-            int albumCount = util.round(luceneUtils.getTotalHits(albumDocs));
-            genres.add(new Genre(genreName, songCount, albumCount));
-        }
-        return genres;
-    }
-
-    private void cacheGenres(List<Genre> genres) {
-        genres.sort(comparators.genreOrder(false));
-        util.putCache(LegacyGenreCriteria.SONG_COUNT, genres);
-
-        List<Genre> genresByAlbum = genres
-            .stream()
-            .filter(g -> g.getAlbumCount() != 0)
-            .sorted(comparators.genreOrder(true))
-            .collect(Collectors.toList());
-
-        util.putCache(LegacyGenreCriteria.ALBUM_COUNT, genresByAlbum);
-    }
-
-    @SuppressWarnings("PMD.AvoidCatchingGenericException") // lucene/HighFreqTerms#getHighFreqTerms
-    private List<GenreFreq> getGenreFreqs() {
-        IndexSearcher genreSearcher = getSearcher(IndexType.GENRE);
-        if (isEmpty(genreSearcher)) {
-            return Collections.emptyList();
-        }
-
-        try {
-            Collection<String> fields = FieldInfos.getIndexedFields(genreSearcher.getIndexReader());
-            if (fields.isEmpty()) {
-                LOG.info("The multi-genre master has been updated(no record).");
-                return Collections.emptyList();
+            Query all = new MatchAllDocsQuery();
+            Map<String, Integer> songCounts = countGenres(IndexType.SONG, all);
+            Map<String, Integer> albumCounts = countGenres(IndexType.ALBUM, all);
+            Set<String> names = new HashSet<>(songCounts.keySet());
+            names.addAll(albumCounts.keySet());
+
+            List<Genre> genres = new ArrayList<>();
+            for (String name : names) {
+                int albumCount = albumCounts.getOrDefault(name, 0);
+                if (!sortByAlbum || albumCount > 0) {
+                    genres.add(new Genre(name, songCounts.getOrDefault(name, 0), albumCount));
+                }
             }
-
-            TermStats[] stats;
-            try {
-                stats = HighFreqTerms
-                    .getHighFreqTerms(genreSearcher.getIndexReader(),
-                            HighFreqTerms.DEFAULT_NUMTERMS, FieldNamesConstants.GENRE,
-                            new HighFreqTerms.DocFreqComparator());
-            } catch (Exception e) {
-                LOG.info("The genre field may not exist.");
-                return Collections.emptyList();
+            genres.sort(comparators.genreOrderByAlpha());
+            if (!alphabetical) {
+                genres.sort(comparators.genreOrder(sortByAlbum));
             }
 
-            return Arrays
-                .stream(stats)
-                .map(stat -> new GenreFreq(stat.termtext.utf8ToString(), stat.docFreq))
-                .toList();
-
+            util.putCache(criteria, genres);
+            return genres;
         } finally {
-            release(IndexType.GENRE, genreSearcher);
+            readUnlock(genreLock);
         }
     }
 
-    private int getAlbumGenreCount(IndexSearcher searcher, String genreName,
-            GenreMasterCriteria criteria) {
-        try {
-            Query query = queryFactory.getAlbumId3GenreCount(genreName, criteria.folders());
-            return luceneUtils.getCount(searcher, query);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    /**
+     * Counts the number of documents per analyzed genre among the documents that
+     * match the query. Returns an empty map if the index has not been created yet.
+     */
+    private Map<String, Integer> countGenres(IndexType indexType, Query query) {
+        IndexSearcher searcher = getSearcher(indexType);
+        if (searcher == null) {
+            return Collections.emptyMap();
         }
-    }
-
-    private int getSongGenreCount(IndexSearcher searcher, String genreName,
-            GenreMasterCriteria criteria) {
         try {
-            MediaType[] types = criteria.types().length == 0 ? MUSIC_AND_AUDIOBOOK
-                    : criteria.types();
-            Query query = queryFactory.getSongGenreCount(genreName, criteria.folders(), types);
-            return luceneUtils.getCount(searcher, query);
+            return luceneUtils.getFacetCounts(searcher, query, FieldNamesConstants.GENRE_FACET);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            release(indexType, searcher);
         }
     }
 
     public List<Genre> createGenreMaster(GenreMasterCriteria criteria) {
-        IndexSearcher songSearcher = getSearcher(IndexType.SONG);
-        IndexSearcher albumSearcher = getSearcher(IndexType.ALBUM_ID3);
-        if (isEmpty(songSearcher) || isEmpty(albumSearcher)) {
-            return Collections.emptyList();
-        }
-
-        try {
-            List<Genre> result = new ArrayList<>();
-            for (GenreFreq genreFreq : getGenreFreqs()) {
-                String name = genreFreq.genre;
-                int albumCount = getAlbumGenreCount(albumSearcher, name, criteria);
-                int songCount = getSongGenreCount(songSearcher, name, criteria);
-
-                boolean addGenre = switch (criteria.scope()) {
-                case ALBUM -> albumCount > 0 && songCount > 0;
-                case SONG -> songCount > 0;
-                };
-
-                if (addGenre) {
-                    result.add(new Genre(name, songCount, albumCount));
-                }
-            }
-
-            switch (criteria.sort()) {
-            case NAME -> result.sort(comparators.genreOrderByAlpha());
-            case ALBUM_COUNT -> {
-                result.sort(comparators.genreOrderByAlpha());
-                result.sort(comparators.genreOrder(true));
-            }
-            case SONG_COUNT -> {
-                result.sort(comparators.genreOrderByAlpha());
-                result.sort(comparators.genreOrder(false));
-            }
-            case FREQUENCY -> {
-                // no sorting needed
-            }
+        MediaType[] types = criteria.types().length == 0 ? MUSIC_AND_AUDIOBOOK : criteria.types();
+        Map<String, Integer> songCounts = countGenres(IndexType.SONG,
+                queryFactory.getSongGenreCounts(criteria.folders(), types));
+        Map<String, Integer> albumCounts = countGenres(IndexType.ALBUM_ID3,
+                queryFactory.getAlbumId3GenreCounts(criteria.folders()));
+
+        List<Genre> result = new ArrayList<>();
+        songCounts.forEach((name, songCount) -> {
+            int albumCount = albumCounts.getOrDefault(name, 0);
+            boolean addGenre = switch (criteria.scope()) {
+            case ALBUM -> albumCount > 0;
+            case SONG -> true;
+            };
+            if (addGenre) {
+                result.add(new Genre(name, songCount, albumCount));
             }
-            return result;
+        });
 
-        } finally {
-            release(IndexType.SONG, songSearcher);
-            release(IndexType.ALBUM, albumSearcher);
+        result.sort(comparators.genreOrderByAlpha());
+        switch (criteria.sort()) {
+        case NAME -> {
+            // already sorted
+        }
+        case ALBUM_COUNT -> result.sort(comparators.genreOrder(true));
+        case SONG_COUNT -> result.sort(comparators.genreOrder(false));
+        case FREQUENCY -> result.sort(comparators.genreOrder(criteria.scope() == Scope.ALBUM));
         }
+        return result;
     }
 
     /**
@@ -878,9 +774,6 @@ public class IndexManager implements ReadWriteLockSupport {
         LOG.info("All SearcherManager resources released.");
     }
 
-    private record GenreFreq(String genre, int songCount) {
-    }
-
     private static class CustomSearcherFactory extends SearcherFactory {
 
         private final Executor executor;
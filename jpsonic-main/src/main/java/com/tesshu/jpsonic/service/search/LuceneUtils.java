@@ -20,6 +20,7 @@
 package com.tesshu.jpsonic.service.search;
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -42,4 +43,12 @@ public class LuceneUtils {
     int getCount(IndexSearcher searcher, Query query) throws IOException {
         return searcher.count(query);
     }
+
+    /*
+     * Depends on Lucene10
+     */
+    Map<String, Integer> getFacetCounts(IndexSearcher searcher, Query query, String field)
+            throws IOException {
+        return searcher.search(query, new FacetCountCollectorManager(field));
+    }
 }
@@ -150,19 +150,27 @@ public class QueryFactory {
         return luceneQueryBuilder.buildGenreQuery(List.of(genre));
     }
 
-    public Query getAlbumId3GenreCount(@Nonnull String genre, List<MusicFolder> folders)
-            throws IOException {
-        return new BooleanQuery.Builder()
-            .add(createFolderQuery(true, folders), BooleanClause.Occur.MUST)
-            .add(luceneQueryBuilder.buildGenreQuery(List.of(genre)), BooleanClause.Occur.MUST)
-            .build();
+    /**
+     * Returns a query for the albums whose genres are counted in the genre
+     * master.
+     *
+     * @param folders the music folders
+     * @return Lucene query
+     */
+    public Query getAlbumId3GenreCounts(List<MusicFolder> folders) {
+        return createFolderQuery(true, folders);
     }
 
-    public Query getSongGenreCount(@Nonnull String genre, List<MusicFolder> folders,
-            MediaType... types) throws IOException {
+    /**
+     * Returns a query for the songs whose genres are counted in the genre master.
+     *
+     * @param folders the music folders
+     * @param types   the media types of the songs
+     * @return Lucene query
+     */
+    public Query getSongGenreCounts(List<MusicFolder> folders, MediaType... types) {
         return new BooleanQuery.Builder()
             .add(createFolderQuery(false, folders), BooleanClause.Occur.MUST)
-            .add(luceneQueryBuilder.buildGenreQuery(List.of(genre)), BooleanClause.Occur.MUST)
             .add(getTypesQuery(types), BooleanClause.Occur.MUST)
             .build();
     }
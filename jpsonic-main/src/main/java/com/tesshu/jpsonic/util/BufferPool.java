@@ -0,0 +1,169 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the byte buffers used by copy loops.
+ *
+ * <p>
+ * Streams, downloads and podcast downloads used to allocate their own buffer
+ * per transfer. With many concurrent transfers this is constant garbage for the
+ * young generation. Buffers are instead leased from a pool per {@link Type},
+ * and returned when the lease is closed. The most recently returned buffer is
+ * leased first, as it is the most likely to be in the CPU cache. The pool is
+ * bounded. Buffers returned beyond the bound are left to the garbage
+ * collector.
+ *
+ * <pre>
+ * try (BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.LOCAL_DISK)) {
+ *     byte[] buf = lease.get();
+ *     ...
+ * }
+ * </pre>
+ */
+public final class BufferPool {
+
+    /**
+     * Maximum number of idle buffers kept per type.
+     */
+    static final int MAX_IDLE = 64;
+
+    private BufferPool() {
+    }
+
+    /**
+     * Leases a buffer of the given type.
+     */
+    public static Lease lease(Type type) {
+        byte[] buffer = type.idle.pollFirst();
+        if (buffer == null) {
+            type.allocated.incrementAndGet();
+            buffer = new byte[type.size];
+        }
+        return new Lease(type, buffer);
+    }
+
+    /**
+     * Copies the whole input to the output with a pooled buffer.
+     *
+     * @return the number of bytes copied
+     */
+    public static long copy(InputStream in, OutputStream out, Type type) throws IOException {
+        try (Lease lease = lease(type)) {
+            byte[] buf = lease.get();
+            long count = 0;
+            for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+                out.write(buf, 0, n);
+                count += n;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * The transfer path that a buffer is sized for.
+     */
+    public enum Type {
+
+        /**
+         * Reading files on a local disk. Large reads keep the number of system
+         * calls low, and readahead of the OS fills them.
+         */
+        LOCAL_DISK(64 * 1024),
+
+        /**
+         * Reading the standard output of a transcoder. A read returns what the
+         * transcoder has written so far, which is rarely more than a few packets,
+         * so a larger buffer is mostly left empty.
+         */
+        TRANSCODER_PIPE(16 * 1024),
+
+        /**
+         * Reading from or writing to a socket. Sized to a few TCP segments per
+         * call, a little more than the default socket buffers of the servlet
+         * container.
+         */
+        NETWORK(32 * 1024);
+
+        private final int size;
+        private final BlockingDeque<byte[]> idle = new LinkedBlockingDeque<>(MAX_IDLE);
+        private final AtomicLong allocated = new AtomicLong();
+
+        Type(int size) {
+            this.size = size;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the number of buffers allocated for this type so far.
+         */
+        public long getAllocated() {
+            return allocated.get();
+        }
+
+        /**
+         * Returns the number of buffers currently idle in the pool.
+         */
+        public int getIdle() {
+            return idle.size();
+        }
+    }
+
+    /**
+     * A buffer leased from the pool. The buffer must not be used after the lease
+     * is closed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final Type type;
+        private byte[] buffer;
+
+        private Lease(Type type, byte[] buffer) {
+            this.type = type;
+            this.buffer = buffer;
+        }
+
+        public byte[] get() {
+            if (buffer == null) {
+                throw new IllegalStateException("The lease has been closed.");
+            }
+            return buffer;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.NullAssignment") // Not to return the buffer twice
+        public void close() {
+            if (buffer != null) {
+                type.idle.offerFirst(buffer);
+                buffer = null;
+            }
+        }
+    }
+}
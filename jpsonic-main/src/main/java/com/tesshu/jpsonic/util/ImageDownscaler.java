@@ -0,0 +1,260 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.util;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decodes and shrinks images for thumbnails.
+ *
+ * <p>
+ * Cover art is often embedded at 1000px to 3000px and shown at 80px to 300px.
+ * Decoding it at full size and halving it repeatedly allocates an image per
+ * step and still leaves the last, fractional step to bilinear interpolation.
+ * Instead:
+ *
+ * <ul>
+ * <li>{@link #read(InputStream, int, int)} lets the image reader skip rows and
+ * columns while decoding, keeping at least {@link #DECODE_MARGIN} times the
+ * requested size.</li>
+ * <li>{@link #scale(BufferedImage, int, int)} resamples in a single pass with
+ * an area average, in which each destination pixel is the mean of the source
+ * area it covers, including the fractional pixels at its edges.</li>
+ * </ul>
+ *
+ * <p>
+ * Enlarging is left to bicubic interpolation, as the area average degenerates
+ * to the nearest neighbor there. Transparent pixels are composited over black,
+ * as drawing onto an RGB image did.
+ */
+public final class ImageDownscaler {
+
+    /**
+     * Ratio of the decoded size to the requested size. The area average smooths
+     * out the aliasing of the skipped pixels.
+     */
+    static final int DECODE_MARGIN = 4;
+
+    private ImageDownscaler() {
+    }
+
+    /**
+     * Decodes an image large enough to be scaled to the given size.
+     *
+     * @return the image, or null if no reader can decode it, as
+     *         {@link ImageIO#read(InputStream)}
+     */
+    public static @Nullable BufferedImage read(InputStream in, int width, int height)
+            throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            if (stream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), width,
+                        height);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static int getSubsampling(int sourceWidth, int sourceHeight, int width, int height) {
+        int horizontal = sourceWidth / Math.max(1, width * DECODE_MARGIN);
+        int vertical = sourceHeight / Math.max(1, height * DECODE_MARGIN);
+        return Math.max(1, Math.min(horizontal, vertical));
+    }
+
+    /**
+     * Scales the image to the given size. The aspect ratio is not preserved.
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        if (width > sourceWidth || height > sourceHeight) {
+            return enlarge(image, width, height);
+        }
+
+        BufferedImage source = toPacked(image);
+        int[] data = ((DataBufferInt) source.getRaster().getDataBuffer()).getData();
+        boolean alpha = source.getColorModel().hasAlpha();
+        Kernel horizontal = new Kernel(sourceWidth, width);
+        Kernel vertical = new Kernel(sourceHeight, height);
+        float[] resampled = new float[width * 3];
+        float[] accumulated = new float[width * height * 3];
+
+        for (int y = 0; y < sourceHeight; y++) {
+            horizontal.resample(data, y * sourceWidth, alpha, resampled);
+            vertical.accumulate(y, resampled, accumulated);
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = toChannel(accumulated[i * 3]) << 16
+                    | toChannel(accumulated[i * 3 + 1]) << 8 | toChannel(accumulated[i * 3 + 2]);
+        }
+        return result;
+    }
+
+    /*
+     * Reading pixels one by one through the color model costs more than the
+     * resampling itself. Images other than packed RGB, such as the 3 byte BGR
+     * decoded from JPEG, are converted at once by Java2D instead.
+     */
+    private static BufferedImage toPacked(BufferedImage image) {
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && image.getRaster().getParent() == null) {
+            return image;
+        }
+        BufferedImage packed = new BufferedImage(image.getWidth(), image.getHeight(),
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+                        : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = packed.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return packed;
+    }
+
+    private static int toChannel(float value) {
+        return Math.min(255, Math.max(0, Math.round(value)));
+    }
+
+    private static BufferedImage enlarge(BufferedImage image, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        graphics
+            .setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return result;
+    }
+
+    /**
+     * Weights of the source pixels covered by each destination pixel, along one
+     * axis.
+     */
+    private static final class Kernel {
+
+        private final int[] first;
+        private final float[][] weights;
+
+        Kernel(int source, int destination) {
+            first = new int[destination];
+            weights = new float[destination][];
+            double ratio = (double) source / destination;
+            for (int d = 0; d < destination; d++) {
+                double start = d * ratio;
+                double end = Math.min(source, (d + 1) * ratio);
+                int from = (int) start;
+                int to = Math.min(source, (int) Math.ceil(end));
+                first[d] = from;
+                weights[d] = new float[to - from];
+                for (int s = from; s < to; s++) {
+                    weights[d][s - from] = (float) ((Math.min(s + 1, end) - Math.max(s, start))
+                            / ratio);
+                }
+            }
+        }
+
+        /**
+         * Resamples a row of packed pixels into RGB channels.
+         */
+        void resample(int[] data, int offset, boolean alpha, float[] resampled) {
+            for (int d = 0; d < first.length; d++) {
+                float r = 0;
+                float g = 0;
+                float b = 0;
+                float[] weight = weights[d];
+                int start = offset + first[d];
+                for (int i = 0; i < weight.length; i++) {
+                    int argb = data[start + i];
+                    float w = alpha ? weight[i] * (argb >>> 24) / 255f : weight[i];
+                    r += w * (argb >> 16 & 0xFF);
+                    g += w * (argb >> 8 & 0xFF);
+                    b += w * (argb & 0xFF);
+                }
+                resampled[d * 3] = r;
+                resampled[d * 3 + 1] = g;
+                resampled[d * 3 + 2] = b;
+            }
+        }
+
+        /**
+         * Adds a resampled source row to the destination rows that cover it.
+         */
+        void accumulate(int source, float[] resampled, float[] accumulated) {
+            // Downscaling, a source row is covered by one or two destination rows
+            for (int d = Math.max(0, findFirst(source)); d < first.length
+                    && first[d] <= source; d++) {
+                int i = source - first[d];
+                if (i < weights[d].length) {
+                    float w = weights[d][i];
+                    int offset = d * resampled.length;
+                    for (int c = 0; c < resampled.length; c++) {
+                        accumulated[offset + c] += w * resampled[c];
+                    }
+                }
+            }
+        }
+
+        private int findFirst(int source) {
+            int low = 0;
+            int high = first.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (first[mid] <= source) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            // The previous destination row may also end within this source row
+            return low - 1;
+        }
+    }
+}
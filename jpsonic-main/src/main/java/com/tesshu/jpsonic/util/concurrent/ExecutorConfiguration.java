@@ -26,6 +26,7 @@ import java.util.concurrent.ThreadFactory;
 
 import javax.naming.NamingException;
 
+import com.tesshu.jpsonic.infrastructure.db.ConnectionRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -96,8 +97,8 @@ public class ExecutorConfiguration {
         executor.setMaxPoolSize(3);
         suppressIfLargePool(executor);
         executor
-            .setThreadFactory(
-                    createThreadFactory(true, "podcast-download-task", Thread.MIN_PRIORITY));
+            .setThreadFactory(background(
+                    createThreadFactory(true, "podcast-download-task", Thread.MIN_PRIORITY)));
         executor.initialize();
         return executor;
     }
@@ -116,8 +117,8 @@ public class ExecutorConfiguration {
         executor.setMaxPoolSize(5);
         suppressIfLargePool(executor);
         executor
-            .setThreadFactory(
-                    createThreadFactory(true, "podcast-refresh-task", Thread.MIN_PRIORITY));
+            .setThreadFactory(background(
+                    createThreadFactory(true, "podcast-refresh-task", Thread.MIN_PRIORITY)));
         executor.initialize();
         return executor;
     }
@@ -134,7 +135,26 @@ public class ExecutorConfiguration {
         // In v110.0.0, run in single thread
         executor.setCorePoolSize(1);
         executor.setMaxPoolSize(1);
-        executor.setThreadFactory(createThreadFactory(true, "scan-task", Thread.MIN_PRIORITY));
+        executor
+            .setThreadFactory(
+                    background(createThreadFactory(true, "scan-task", Thread.MIN_PRIORITY)));
+        executor.initialize();
+        return executor;
+    }
+
+    /*
+     * Executor to render cover art caches after the scan. It only fills caches, so
+     * the tasks are abandoned at shutdown.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor coverArtPrewarmExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor
+            .setThreadFactory(background(
+                    createThreadFactory(true, "coverart-prewarm-task", Thread.MIN_PRIORITY)));
         executor.initialize();
         return executor;
     }
@@ -143,9 +163,10 @@ public class ExecutorConfiguration {
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
         scheduler.setWaitForTasksToCompleteOnShutdown(false);
-        scheduler.setPoolSize(2); // scan and podcast. See *ScheduleConfiguration.
+        scheduler.setPoolSize(3); // scan, podcast and play queue. See *ScheduleConfiguration.
         scheduler
-            .setThreadFactory(createThreadFactory(true, "task-scheduler", Thread.MIN_PRIORITY));
+            .setThreadFactory(
+                    background(createThreadFactory(true, "task-scheduler", Thread.MIN_PRIORITY)));
         return scheduler;
     }
 
@@ -219,6 +240,14 @@ public class ExecutorConfiguration {
         return th;
     }
 
+    /*
+     * Threads of the scanner and of the other background jobs use the connection
+     * pool of their own. See DatabaseConfiguration.
+     */
+    private static ThreadFactory background(ThreadFactory threadFactory) {
+        return runnable -> threadFactory.newThread(ConnectionRoute.background(runnable));
+    }
+
     /*
      * ThreadFactory for overriding UncaughtExceptionHandler. Output to the standard
      * log. However, keep in mind that if the caller is CallerRunsPolicy, the
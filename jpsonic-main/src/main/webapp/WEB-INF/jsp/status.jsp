@@ -71,16 +71,7 @@
                 </c:choose>
 
                 <sub:url value="/statusChart.view" var="chartUrl">
-                    <c:if test="${status.stream}">
-                        <sub:param name="type" value="stream" />
-                    </c:if>
-                    <c:if test="${status.download}">
-                        <sub:param name="type" value="download" />
-                    </c:if>
-                    <c:if test="${status.upload}">
-                        <sub:param name="type" value="upload" />
-                    </c:if>
-                    <sub:param name="index" value="${status.index}" />
+                    <sub:param name="id" value="${status.id}" />
                 </sub:url>
 
                 <tr>
@@ -107,6 +98,187 @@
     </table>
 </c:if>
 
+<c:if test="${model.admin and not empty model.transcodeJobs}">
+    <table class="tabular transcoder">
+        <caption><fmt:message key="status.transcoder" /> (${fn:length(model.transcodeJobs)} / ${model.transcodeMaxConcurrency})</caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.state" /></th>
+                <th><fmt:message key="status.priority" /></th>
+                <th><fmt:message key="status.waited" /></th>
+                <th><fmt:message key="status.current" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <c:forEach items="${model.transcodeJobs}" var="job">
+                <tr>
+                    <td>
+                        <c:choose>
+                            <c:when test="${job.running}"><fmt:message key="status.running" /></c:when>
+                            <c:otherwise><fmt:message key="status.queued" /></c:otherwise>
+                        </c:choose>
+                    </td>
+                    <td>${job.priority}</td>
+                    <td>${job.waitMillis}</td>
+                    <td title="${fn:escapeXml(job.path)}">${fn:escapeXml(job.path)}</td>
+                </tr>
+            </c:forEach>
+        </tbody>
+    </table>
+</c:if>
+
+<c:if test="${model.admin and not empty model.coverArtPrewarm}">
+    <table class="tabular prewarm">
+        <caption><fmt:message key="status.prewarm" /></caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.checked" /></th>
+                <th><fmt:message key="status.rendered" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <tr>
+                <td>${model.coverArtPrewarm.done} / ${model.coverArtPrewarm.total}</td>
+                <td>${model.coverArtPrewarm.rendered}</td>
+            </tr>
+        </tbody>
+    </table>
+</c:if>
+
+<c:if test="${model.admin and not empty model.imageCache}">
+    <table class="tabular imagecache">
+        <caption><fmt:message key="status.imagecache" /></caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.files" /></th>
+                <th><fmt:message key="status.usage" /></th>
+                <th><fmt:message key="status.quota" /></th>
+                <th><fmt:message key="status.evicted" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <tr>
+                <td>${model.imageCache.files}</td>
+                <td><sub:formatBytes bytes="${model.imageCache.bytes}"/></td>
+                <td>
+                    <c:choose>
+                        <c:when test="${model.imageCache.quota eq 0}">
+                            <fmt:message key="status.unlimited" />
+                        </c:when>
+                        <c:otherwise>
+                            <sub:formatBytes bytes="${model.imageCache.quota}"/>
+                        </c:otherwise>
+                    </c:choose>
+                </td>
+                <td>${model.imageCache.evicted}</td>
+            </tr>
+        </tbody>
+    </table>
+</c:if>
+
+<c:if test="${model.admin and not empty model.sqlStatements}">
+    <table class="tabular sql">
+        <caption><fmt:message key="status.sql" /></caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.statement" /></th>
+                <th><fmt:message key="status.executions" /></th>
+                <th><fmt:message key="status.rows" /></th>
+                <th><fmt:message key="status.totaltime" /></th>
+                <th><fmt:message key="status.meantime" /></th>
+                <th>p50</th>
+                <th>p95</th>
+                <th>p99</th>
+                <th><fmt:message key="status.maxtime" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <c:forEach items="${model.sqlStatements}" var="statement">
+                <tr>
+                    <td title="${fn:escapeXml(statement.shape)}">${fn:escapeXml(statement.shape)}</td>
+                    <td>${statement.count}</td>
+                    <td>${statement.rows}</td>
+                    <td><fmt:formatNumber value="${statement.totalMillis}" maxFractionDigits="0" /></td>
+                    <td><fmt:formatNumber value="${statement.meanMillis}" maxFractionDigits="2" /></td>
+                    <td><fmt:formatNumber value="${statement.p50Millis}" maxFractionDigits="2" /></td>
+                    <td><fmt:formatNumber value="${statement.p95Millis}" maxFractionDigits="2" /></td>
+                    <td><fmt:formatNumber value="${statement.p99Millis}" maxFractionDigits="2" /></td>
+                    <td><fmt:formatNumber value="${statement.maxMillis}" maxFractionDigits="2" /></td>
+                </tr>
+            </c:forEach>
+        </tbody>
+    </table>
+</c:if>
+
+<c:if test="${model.admin and not empty model.connectionPools}">
+    <table class="tabular pools">
+        <caption><fmt:message key="status.pools" /></caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.pool" /></th>
+                <th><fmt:message key="status.active" /></th>
+                <th><fmt:message key="status.idle" /></th>
+                <th><fmt:message key="status.poolsize" /></th>
+                <th><fmt:message key="status.queued" /></th>
+                <th><fmt:message key="status.acquired" /></th>
+                <th><fmt:message key="status.meanwait" /></th>
+                <th><fmt:message key="status.maxwait" /></th>
+                <th><fmt:message key="status.timeouts" /></th>
+                <th><fmt:message key="status.meanhold" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <c:forEach items="${model.connectionPools}" var="pool">
+                <tr>
+                    <td>${fn:escapeXml(pool.name)}</td>
+                    <td>${pool.active}</td>
+                    <td>${pool.idle}</td>
+                    <td>${pool.max}</td>
+                    <td>${pool.waiting}</td>
+                    <td>${pool.acquisitions}</td>
+                    <td><fmt:formatNumber value="${pool.meanWaitMillis}" maxFractionDigits="2" /></td>
+                    <td><fmt:formatNumber value="${pool.maxWaitMillis}" maxFractionDigits="2" /></td>
+                    <td>${pool.timeouts}</td>
+                    <td><fmt:formatNumber value="${pool.meanUsageMillis}" maxFractionDigits="2" /></td>
+                </tr>
+            </c:forEach>
+        </tbody>
+    </table>
+</c:if>
+
+<c:if test="${model.admin}">
+    <table class="tabular bandwidth">
+        <caption><fmt:message key="status.bandwidth" /></caption>
+        <thead>
+            <tr>
+                <th><fmt:message key="status.details" /></th>
+                <th><fmt:message key="status.bitrate" /></th>
+                <th><fmt:message key="status.limit" /></th>
+            </tr>
+        </thead>
+        <tbody>
+            <c:forEach items="${model.bandwidthRates}" var="rate">
+                <tr>
+                    <td>
+                        <c:choose>
+                            <c:when test="${rate.scope eq 'TOTAL'}"><fmt:message key="status.total" /></c:when>
+                            <c:when test="${rate.scope eq 'USER'}"><fmt:message key="status.user" /> : ${fn:escapeXml(rate.name)}</c:when>
+                            <c:otherwise><fmt:message key="status.type" /> : ${rate.name}</c:otherwise>
+                        </c:choose>
+                    </td>
+                    <td>${rate.kbps}</td>
+                    <td>
+                        <c:choose>
+                            <c:when test="${rate.limitKbps eq 0}"><fmt:message key="status.unlimited" /></c:when>
+                            <c:otherwise>${rate.limitKbps}</c:otherwise>
+                        </c:choose>
+                    </td>
+                </tr>
+            </c:forEach>
+        </tbody>
+    </table>
+</c:if>
+
 <table class="tabular statics">
     <thead>
         <tr>
@@ -122,6 +122,7 @@ function getScanningStatusCallback(scanInfo) {
         $("#scanningStatus .phaseName").text(scanInfo.phaseName);
     }
     $("#scanningStatus .thread").text(scanInfo.thread > 0 ? 'x' + scanInfo.thread : '');
+    $("#scanningStatus .thread").attr('title', scanInfo.pace == null ? '' : scanInfo.pace);
     const delay = ${model.user.settingsRole ? 4000 : 10000};
     if (scanInfo.scanning) {
        setTimeout("callScanningStatus()", delay);
@@ -30,6 +30,7 @@ var model = {
   remoteCoverArtUrl: "${model.remoteCoverArtUrl}",
   streamUrl: "<sub:escapeJavaScript string='${model.streamUrl}'/>",
   video_id: "${model.video.id}",
+  storyboardUrl: "${model.storyboardUrl}",
   hide_share: ${model.user.shareRole && model.isShowShare ? 0 : 1},
   hide_download: ${model.user.downloadRole && model.isShowDownload ? 0: 1}
 }
@@ -62,6 +63,59 @@ $(document).ready(function(){
     }
 });
 
+/*
+ * Seek previews. The storyboard track is a WebVTT file whose cues point to
+ * areas of a sprite sheet (url#xywh=x,y,w,h). Until it has been created on the
+ * server, there is simply no preview.
+ */
+function loadStoryboard() {
+    fetch(model.storyboardUrl).then(function(response) {
+        return response.ok ? response.text() : "";
+    }).then(function(vtt) {
+        const toSeconds = function(s) {
+            const t = s.trim().split(":");
+            return parseInt(t[0]) * 3600 + parseInt(t[1]) * 60 + parseFloat(t[2]);
+        };
+        const cues = vtt.split(/\n\n+/).map(function(block) {
+            const lines = block.trim().split("\n");
+            if (lines.length < 2 || lines[0].indexOf("-->") < 0) {
+                return null;
+            }
+            const times = lines[0].split("-->");
+            const ref = lines[1].split("#xywh=");
+            const xywh = ref[1].split(",").map(Number);
+            return {start: toSeconds(times[0]), end: toSeconds(times[1]), url: ref[0],
+                x: xywh[0], y: xywh[1], w: xywh[2], h: xywh[3]};
+        }).filter(function(cue) {
+            return cue != null;
+        });
+        if (cues.length == 0) {
+            return;
+        }
+        const slider = $("#progress_slider");
+        const preview = $("#storyboard");
+        slider.on("mousemove", function(e) {
+            const ratio = (e.pageX - slider.offset().left) / slider.width();
+            const time = Math.max(0, Math.min(1, ratio)) * model.duration;
+            const cue = cues.find(function(c) {
+                return c.start <= time && time < c.end;
+            }) || cues[cues.length - 1];
+            preview.css({
+                "background-image": "url('" + cue.url + "')",
+                "background-position": -cue.x + "px " + -cue.y + "px",
+                "width": cue.w + "px",
+                "height": cue.h + "px",
+                "left": (e.pageX - slider.parent().offset().left - cue.w / 2) + "px",
+                "top": -(cue.h + 8) + "px"
+            }).show();
+        });
+        slider.on("mouseleave", function() {
+            preview.hide();
+        });
+    });
+}
+$(document).ready(loadStoryboard);
+
 function hideControls(t) {
     t.controls=false;
 }
@@ -95,6 +149,7 @@ function showControls(t){
         <div class="progressBar">
             <div id="progress">0:00</div>
             <div id="progress_slider"></div>
+            <div id="storyboard"></div>
             <div id="duration">0:00</div>
         </div>
 
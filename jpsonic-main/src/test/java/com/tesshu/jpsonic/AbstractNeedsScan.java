@@ -33,9 +33,11 @@ import com.tesshu.jpsonic.persistence.NeedsDB;
 import com.tesshu.jpsonic.persistence.api.repository.MusicFolderDao;
 import com.tesshu.jpsonic.persistence.base.DaoHelper;
 import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.MediaScannerService;
 import com.tesshu.jpsonic.service.ServiceMockUtils;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.service.scanner.CoverArtPrewarmService;
 import com.tesshu.jpsonic.service.scanner.DirectoryScanProcedure;
 import com.tesshu.jpsonic.service.scanner.FileMetadataScanProcedure;
 import com.tesshu.jpsonic.service.scanner.Id3MetadataScanProcedure;
@@ -101,6 +103,10 @@ public abstract class AbstractNeedsScan implements NeedsScan {
 
     @Autowired
     private StaticsDao staticsDao;
+    @Autowired
+    private CoverArtPrewarmService coverArtPrewarm;
+    @Autowired
+    private ImageCacheService imageCacheService;
 
     private final ThreadPoolTaskExecutor scanExecutor = ServiceMockUtils.mockNoAsyncTaskExecutor();
 
@@ -110,7 +116,7 @@ public abstract class AbstractNeedsScan implements NeedsScan {
     public void init() {
         mediaScannerService = new MediaScannerServiceImpl(settingsFacade, scannerStateService,
                 preScanProc, directoryScanProc, fileMetaProc, id3MetaProc, postScanProc, scanHelper,
-                staticsDao, scanExecutor);
+                staticsDao, coverArtPrewarm, imageCacheService, scanExecutor);
     }
 
     @FunctionalInterface
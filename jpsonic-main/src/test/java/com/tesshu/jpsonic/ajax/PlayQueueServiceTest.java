@@ -54,7 +54,6 @@ import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastEpisode;
 import com.tesshu.jpsonic.persistence.api.repository.InternetRadioDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
-import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
 import com.tesshu.jpsonic.persistence.core.entity.UserSettings;
 import com.tesshu.jpsonic.persistence.param.ShuffleSelectionParam;
 import com.tesshu.jpsonic.persistence.result.SavedPlayQueue;
@@ -64,6 +63,7 @@ import com.tesshu.jpsonic.service.JWTSecurityService;
 import com.tesshu.jpsonic.service.LastFmService;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.MusicFolderService;
+import com.tesshu.jpsonic.service.PlayQueueStore;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
@@ -90,7 +90,7 @@ class PlayQueueServiceTest {
     private MediaFileService mediaFileService;
     private PlayQueueService playQueueService;
     private UserService userService;
-    private PlayQueueDao playQueueDao;
+    private PlayQueueStore playQueueStore;
     private InternetRadioDao internetRadioDao;
     private InternetRadioService internetRadioService;
     private PlaylistService playlistService;
@@ -122,7 +122,7 @@ class PlayQueueServiceTest {
         userService = mock(UserService.class);
         when(userService.getCurrentUsername(any(HttpServletRequest.class)))
             .thenReturn(ServiceMockUtils.ADMIN_NAME);
-        playQueueDao = mock(PlayQueueDao.class);
+        playQueueStore = mock(PlayQueueStore.class);
         internetRadioDao = mock(InternetRadioDao.class);
         internetRadioService = mock(InternetRadioService.class);
         playlistService = mock(PlaylistService.class);
@@ -134,7 +134,7 @@ class PlayQueueServiceTest {
         comparators = mock(JpsonicComparators.class);
         playQueueService = new PlayQueueService(mock(MusicFolderService.class), userService,
                 playerService, comparators, mediaFileService, lastFmService, searchService,
-                ratingService, podcastService, playlistService, mediaFileDao, playQueueDao,
+                ratingService, podcastService, playlistService, mediaFileDao, playQueueStore,
                 internetRadioDao, mock(JWTSecurityService.class), internetRadioService, ajaxHelper);
     }
 
@@ -225,11 +225,11 @@ class PlayQueueServiceTest {
         when(player.getPlayQueue().getFile(0)).thenReturn(files.get(0));
 
         playQueueService.savePlayQueue(0, 0);
-        verify(playQueueDao, times(1)).savePlayQueue(any(SavedPlayQueue.class));
+        verify(playQueueStore, times(1)).savePlayQueue(any(SavedPlayQueue.class));
 
-        clearInvocations(playQueueDao);
+        clearInvocations(playQueueStore);
         playQueueService.savePlayQueue(-1, 0);
-        verify(playQueueDao, times(1)).savePlayQueue(any(SavedPlayQueue.class));
+        verify(playQueueStore, times(1)).savePlayQueue(any(SavedPlayQueue.class));
     }
 
     @Test
@@ -243,7 +243,7 @@ class PlayQueueServiceTest {
             .thenReturn(ServiceMockUtils.ADMIN_NAME);
         SavedPlayQueue savedPlayQueue = new SavedPlayQueue(0, ServiceMockUtils.ADMIN_NAME,
                 List.of(file.getId()), null, null, PlayerUtils.now(), "");
-        when(playQueueDao.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
+        when(playQueueStore.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
         playQueueService.loadPlayQueue();
 
         when(mediaFileService.getMediaFile(file.getId())).thenReturn(file);
@@ -251,13 +251,13 @@ class PlayQueueServiceTest {
 
         savedPlayQueue = new SavedPlayQueue(0, ServiceMockUtils.ADMIN_NAME, List.of(file.getId()),
                 null, 0L, PlayerUtils.now(), "");
-        when(playQueueDao.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
+        when(playQueueStore.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
         playQueueService.loadPlayQueue();
 
         int currentId = file.getId();
         savedPlayQueue = new SavedPlayQueue(0, ServiceMockUtils.ADMIN_NAME, List.of(file.getId()),
                 currentId, 0L, PlayerUtils.now(), "");
-        when(playQueueDao.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
+        when(playQueueStore.getPlayQueue(ServiceMockUtils.ADMIN_NAME)).thenReturn(savedPlayQueue);
 
         when(player.getPlayQueue().getFiles()).thenReturn(Collections.emptyList());
         playQueueService.loadPlayQueue();
@@ -62,8 +62,9 @@ class ScanInfoServiceTest {
     void testgetScanningStatus() {
         assertEquals(-1, scanInfoService.getScanningStatus().getPhase());
 
-        ScanPhaseInfo info = new ScanPhaseInfo(0, 10, "phaseName", 1);
+        ScanPhaseInfo info = new ScanPhaseInfo(0, 10, "phaseName", 1, "YIELDING");
         Mockito.when(mediaScannerService.getScanPhaseInfo()).thenReturn(Optional.of(info));
         assertEquals(0, scanInfoService.getScanningStatus().getPhase());
+        assertEquals("YIELDING", scanInfoService.getScanningStatus().getPace());
     }
 }
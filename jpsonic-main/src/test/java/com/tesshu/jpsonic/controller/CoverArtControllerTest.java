@@ -26,6 +26,7 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.awt.image.BufferedImage;
@@ -65,11 +66,15 @@ import com.tesshu.jpsonic.persistence.api.entity.Playlist;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastChannel;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
+import com.tesshu.jpsonic.service.ArtworkStore;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
 import com.tesshu.jpsonic.service.metadata.FFmpeg;
 import jakarta.servlet.http.HttpServletResponse;
+import net.sf.ehcache.Ehcache;
 import org.apache.commons.lang3.exception.UncheckedException;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
@@ -94,6 +99,7 @@ class CoverArtControllerTest {
     private MediaFileService mediaFileService;
     private PlaylistService playlistService;
     private FontLoader fontLoader;
+    private CoverArtIndexDao coverArtIndexDao;
     private CoverArtController controller;
     private MockMvc mockMvc;
 
@@ -107,9 +113,11 @@ class CoverArtControllerTest {
         playlistService = mock(PlaylistService.class);
         FFmpeg ffmpeg = new FFmpeg();
         fontLoader = mock(FontLoader.class);
+        coverArtIndexDao = mock(CoverArtIndexDao.class);
         controller = new CoverArtController(mediaFileService, ffmpeg, playlistService,
                 mock(PodcastService.class), mock(ArtistDao.class), mock(AlbumDao.class),
-                fontLoader);
+                fontLoader, coverArtIndexDao, new ArtworkStore(mock(Ehcache.class)),
+                mock(ImageCacheService.class), mock(Ehcache.class));
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
@@ -463,12 +471,22 @@ class CoverArtControllerTest {
             album.setCoverArtPath(path.toString());
             request = new AlbumCoverArtRequest(controller, fontLoader, album);
             assertEquals(Files.getLastModifiedTime(path).toMillis(), request.lastModified());
+
+            // The time indexed at scan time is preferred to the file system
+            Instant indexed = Instant.ofEpochMilli(1_000);
+            Mockito.when(coverArtIndexDao.getCoverArtChanged(path.toString())).thenReturn(indexed);
+            assertEquals(indexed.toEpochMilli(), request.lastModified());
         }
     }
 
     @Nested
     class PlaylistCoverArtRequestTest {
 
+        private static final String CHROME_HOOF = "/MEDIAS/Music2/_DIR_ chrome hoof - 2004"
+                + "/Folder.jpg";
+        private static final String RAVEL = "/MEDIAS/Music/_DIR_ Ravel"
+                + "/_DIR_ Ravel - Chamber Music With Voice/Folder.jpg";
+
         @Test
         void testLastModified() throws URISyntaxException, IOException {
 
@@ -480,6 +498,81 @@ class CoverArtControllerTest {
                     mediaFileService, playlistService, playlist);
             assertEquals(changed.toEpochMilli(), request.lastModified());
         }
+
+        private MediaFile createSong(int albumId, String coverArt) throws URISyntaxException {
+            MediaFile album = new MediaFile();
+            album.setId(albumId);
+            album.setPathString("/PlaylistCoverArtRequestTest/album" + albumId);
+            album.setMediaType(MediaType.ALBUM);
+            album.setChanged(Instant.ofEpochMilli(albumId));
+            Mockito
+                .when(mediaFileService.getCoverArt(album))
+                .thenReturn(coverArt == null ? null : createPath(coverArt));
+            MediaFile song = new MediaFile();
+            song.setId(albumId * 100);
+            song.setPathString(album.getPathString() + "/song.mp3");
+            Mockito.when(mediaFileService.getParentOf(song)).thenReturn(album);
+            return song;
+        }
+
+        private String getDigest(Playlist playlist, MediaFile... songs) {
+            Mockito
+                .when(playlistService.getFilesInPlaylist(playlist.getId()))
+                .thenReturn(List.of(songs));
+            return new PlaylistCoverArtRequest(controller, fontLoader, mediaFileService,
+                    playlistService, playlist)
+                .getDigest();
+        }
+
+        @Test
+        void testDigest() throws URISyntaxException {
+            Playlist playlist = new Playlist();
+            playlist.setId(1);
+            playlist.setChanged(Instant.ofEpochMilli(1));
+            MediaFile song1 = createSong(1, "/MEDIAS/Metadata/coverart/album.jpeg");
+            MediaFile song2 = createSong(2, CHROME_HOOF);
+            MediaFile song3 = createSong(3, RAVEL);
+            MediaFile song4 = createSong(4, null);
+            MediaFile song5 = createSong(5, "/MEDIAS/Metadata/tagger3/tagged/test.flac");
+
+            assertNull(getDigest(playlist));
+            String mosaic = getDigest(playlist, song1, song2, song3, song4);
+            assertNotNull(mosaic);
+
+            // Versioned by the tiles, not by the change of the playlist
+            playlist.setChanged(Instant.ofEpochMilli(2));
+            assertEquals(mosaic, getDigest(playlist, song1, song1, song2, song3, song4, song5));
+            playlist.setChanged(Instant.ofEpochMilli(3));
+            assertNotEquals(mosaic, getDigest(playlist, song2, song1, song3, song4));
+            playlist.setChanged(Instant.ofEpochMilli(4));
+            assertNotEquals(mosaic, getDigest(playlist, song1, song2, song3, song5));
+
+            // The cover art of the first album if fewer than four
+            playlist.setChanged(Instant.ofEpochMilli(5));
+            String single = getDigest(playlist, song1, song2, song3);
+            assertEquals(single, getDigest(playlist, song1));
+            assertNotEquals(mosaic, single);
+        }
+
+        @Test
+        void testCreateImage() throws URISyntaxException {
+            Playlist playlist = new Playlist();
+            playlist.setId(2);
+            playlist.setChanged(Instant.ofEpochMilli(1));
+            Mockito
+                .when(playlistService.getFilesInPlaylist(playlist.getId()))
+                .thenReturn(List
+                    .of(createSong(11, "/MEDIAS/Metadata/coverart/album.jpeg"),
+                            createSong(12, CHROME_HOOF),
+                            createSong(13, RAVEL),
+                            createSong(14, "/MEDIAS/Metadata/tagger3/tagged/test.flac")));
+            PlaylistCoverArtRequest request = new PlaylistCoverArtRequest(controller, fontLoader,
+                    mediaFileService, playlistService, playlist);
+            request.prepareImage(100);
+            BufferedImage image = request.createImage(100);
+            assertEquals(100, image.getWidth());
+            assertEquals(100, image.getHeight());
+        }
     }
 
     @Nested
@@ -538,7 +631,7 @@ class CoverArtControllerTest {
     class GetImageCacheDirectoryTest {
 
         private final CoverArtController controller = new CoverArtController(mediaFileService, null,
-                null, null, null, null, null);
+                null, null, null, null, null, null, null, null, null);
 
         @Test
         void testGetImageCacheDirectory(@TempDir Path tmp) {
@@ -30,6 +30,7 @@ import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.service.MediaFileCache;
 import com.tesshu.jpsonic.service.MediaFileService;
@@ -79,7 +80,8 @@ class SetMusicFileInfoControllerTest {
                 mock(AlbumDao.class), mock(MediaFileCache.class), mock(MusicParser.class),
                 mock(VideoParser.class), settingsFacade, mock(LibraryAccessPolicy.class),
                 new ScanningExclusionPolicy(settingsFacade), mock(JapaneseReadingUtils.class),
-                mock(IndexManager.class), mock(MusicIndexServiceImpl.class));
+                mock(IndexManager.class), mock(MusicIndexServiceImpl.class),
+                mock(CoverArtIndexDao.class));
         controller = new SetMusicFileInfoController(mediaFileService, writableMediaFileService);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
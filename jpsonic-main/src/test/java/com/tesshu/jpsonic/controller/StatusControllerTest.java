@@ -28,11 +28,16 @@ import java.nio.file.Path;
 import java.util.concurrent.ExecutionException;
 
 import com.tesshu.jpsonic.controller.StatusController.TransferStatusHolder;
+import com.tesshu.jpsonic.infrastructure.db.ConnectionPoolMetrics;
 import com.tesshu.jpsonic.infrastructure.filesystem.PathInspector;
+import com.tesshu.jpsonic.persistence.base.SqlMetrics;
 import com.tesshu.jpsonic.service.ServiceMockUtils;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.StatusService;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
 import com.tesshu.jpsonic.service.UserService;
+import com.tesshu.jpsonic.service.scanner.CoverArtPrewarmService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -51,7 +56,10 @@ class StatusControllerTest {
     void setup() throws ExecutionException {
         mockMvc = MockMvcBuilders
             .standaloneSetup(
-                    new StatusController(mock(UserService.class), mock(StatusService.class)))
+                    new StatusController(mock(UserService.class), mock(StatusService.class),
+                            new TranscodeScheduler(0, 60), mock(CoverArtPrewarmService.class),
+                            mock(ImageCacheService.class), mock(SqlMetrics.class),
+                            mock(ConnectionPoolMetrics.class)))
             .build();
     }
 
@@ -77,8 +85,7 @@ class StatusControllerTest {
                         "/MEDIAS/Music/_DIR_ Céline Frisch- Café Zimmermann - Bach- Goldberg Variations, Canons [Disc 1]/01 - Bach- Goldberg Variations, BWV 988 - Aria.flac")
                 .toURI());
         status.setPathString(path.toString());
-        TransferStatusHolder holder = new TransferStatusHolder(status, false, false, false, 0,
-                null);
+        TransferStatusHolder holder = new TransferStatusHolder(status, false, false, false, null);
         assertEquals(PathInspector.toIdentityName(path), holder.getPath());
     }
 }
@@ -58,7 +58,6 @@ import com.tesshu.jpsonic.persistence.api.entity.Share;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
-import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
 import com.tesshu.jpsonic.persistence.core.entity.User;
 import com.tesshu.jpsonic.persistence.core.entity.UserSettings;
 import com.tesshu.jpsonic.persistence.param.ShuffleSelectionParam;
@@ -70,6 +69,7 @@ import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.MediaScannerService;
 import com.tesshu.jpsonic.service.MusicFolderService;
 import com.tesshu.jpsonic.service.MusicIndexService;
+import com.tesshu.jpsonic.service.PlayQueueStore;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.PlaylistService;
 import com.tesshu.jpsonic.service.PodcastService;
@@ -169,7 +169,7 @@ class SubsonicRESTControllerTest {
             final ArtistDao artistDao = mock(ArtistDao.class);
             final AlbumDao albumDao = mock(AlbumDao.class);
             final BookmarkService bookmarkService = mock(BookmarkService.class);
-            final PlayQueueDao playQueueDao = mock(PlayQueueDao.class);
+            final PlayQueueStore playQueueStore = mock(PlayQueueStore.class);
             mediaScannerService = mock(MediaScannerService.class);
             final AirsonicLocaleResolver airsonicLocaleResolver = mock(
                     AirsonicLocaleResolver.class);
@@ -182,7 +182,7 @@ class SubsonicRESTControllerTest {
                     hlsController, shareService, playlistService, lyricsService,
                     audioScrobblerService, podcastService, ratingService, searchService,
                     internetRadioService, mediaFileDao, artistDao, albumDao, bookmarkService,
-                    playQueueDao, mediaScannerService, airsonicLocaleResolver, director);
+                    playQueueStore, mediaScannerService, airsonicLocaleResolver, director);
         }
 
         @Test
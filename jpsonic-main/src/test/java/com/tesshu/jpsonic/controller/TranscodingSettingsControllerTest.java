@@ -37,7 +37,9 @@ import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
 import com.tesshu.jpsonic.persistence.api.entity.Transcoding;
 import com.tesshu.jpsonic.persistence.api.repository.TranscodingDao;
 import com.tesshu.jpsonic.service.PlayerService;
+import com.tesshu.jpsonic.service.RemuxPolicy;
 import com.tesshu.jpsonic.service.ShareService;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
 import com.tesshu.jpsonic.service.TranscodingService;
 import com.tesshu.jpsonic.service.UserService;
 import com.tesshu.jpsonic.service.upnp.UPnPSubnet;
@@ -83,7 +85,8 @@ class TranscodingSettingsControllerTest {
         UserService userService = mock(UserService.class);
         transcodingDao = mock(TranscodingDao.class);
         transcodingService = new TranscodingService(settingsFacade, userService,
-                mock(UPnPSubnet.class), transcodingDao, mock(PlayerService.class), null);
+                mock(UPnPSubnet.class), transcodingDao, mock(PlayerService.class), null,
+                new TranscodeScheduler(0, 60), mock(RemuxPolicy.class));
         controller = new TranscodingSettingsController(settingsFacade, userService,
                 transcodingService, mock(ShareService.class), mock(OutlineHelpSelector.class));
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
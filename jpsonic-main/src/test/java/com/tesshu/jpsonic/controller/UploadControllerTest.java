@@ -40,6 +40,7 @@ import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.MusicFolderDao;
+import com.tesshu.jpsonic.service.BandwidthShaper;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.UserService;
@@ -191,7 +192,7 @@ class UploadControllerTest {
             SettingsFacade settingsFacade = SettingsFacadeBuilder.create().build();
             uploadController = new UploadController(mock(LibraryAccessPolicy.class),
                     mock(UserService.class), mock(PlayerService.class), mock(StatusService.class),
-                    settingsFacade, scannerStateService);
+                    new BandwidthShaper(settingsFacade, 0, 0, 0, 0, 0), scannerStateService);
         }
 
         @Test
@@ -34,6 +34,7 @@ import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlayerService;
 import com.tesshu.jpsonic.service.ServiceMockUtils;
+import com.tesshu.jpsonic.service.StoryboardService;
 import com.tesshu.jpsonic.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -84,7 +85,8 @@ class VideoPlayerControllerTest {
         SettingsFacade settingsFacade = SettingsFacadeBuilder.create().build();
         mockMvc = MockMvcBuilders
             .standaloneSetup(new VideoPlayerController(settingsFacade, accessPolicy,
-                    mock(UserService.class), mediaFileService, playerService))
+                    mock(UserService.class), mediaFileService, playerService,
+                    mock(StoryboardService.class)))
             .build();
     }
 
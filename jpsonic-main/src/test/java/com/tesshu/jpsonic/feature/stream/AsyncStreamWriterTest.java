@@ -0,0 +1,321 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tesshu.jpsonic.util.BufferPool;
+import com.tesshu.jpsonic.util.HttpRange;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncStreamWriterTest {
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        new Random(0).nextBytes(data);
+        return data;
+    }
+
+    /*
+     * Socket that accepts a few writes at a time, as a slow client does.
+     */
+    private static class SlowSocket extends ServletOutputStream {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private int writable;
+
+        @Override
+        public boolean isReady() {
+            return writable > 0;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (writable <= 0) {
+                throw new IllegalStateException("Written while not ready");
+            }
+            writable--;
+            received.write(b, off, len);
+        }
+
+        /*
+         * Lets the client accept the given number of writes, and calls the
+         * listener back as the container would.
+         */
+        void drain(int writes) {
+            writable = writes;
+            listener.onWritePossible();
+        }
+
+        byte[] getReceived() {
+            return received.toByteArray();
+        }
+    }
+
+    @Nested
+    class WriteTest {
+
+        private AsyncContext context;
+        private SlowSocket socket;
+        private AtomicInteger done;
+
+        @BeforeEach
+        void setup() {
+            context = mock(AsyncContext.class);
+            socket = new SlowSocket();
+            done = new AtomicInteger();
+        }
+
+        private AsyncStreamWriter start(AsyncStreamWriter writer) {
+            writer.setOnDone(done::incrementAndGet).start(context);
+            return writer;
+        }
+
+        private void drainAll(AsyncStreamWriter writer) {
+            for (int i = 0; i < 1_000 && !writer.isDone(); i++) {
+                socket.drain(2);
+            }
+        }
+
+        @Test
+        void testWrite() {
+            byte[] data = createData(200_000);
+            AsyncStreamWriter writer = start(
+                    new AsyncStreamWriter(new ByteArrayInputStream(data), socket, socket));
+
+            socket.drain(1);
+            assertEquals(BufferPool.Type.NETWORK.getSize(), socket.getReceived().length);
+            assertEquals(0, done.get());
+
+            drainAll(writer);
+            assertArrayEquals(data, socket.getReceived());
+            assertEquals(1, done.get());
+            verify(context, times(1)).complete();
+        }
+
+        @Test
+        void testPadding() {
+            byte[] data = createData(10_000);
+            AsyncStreamWriter writer = start(
+                    new AsyncStreamWriter(new ByteArrayInputStream(data), socket, socket)
+                        .setExpectedLength(100_000L));
+            drainAll(writer);
+
+            byte[] received = socket.getReceived();
+            assertEquals(100_000, received.length);
+            assertArrayEquals(data, Arrays.copyOf(received, data.length));
+            assertEquals((byte) 0xFF, received[received.length - 1]);
+            assertEquals(1, done.get());
+        }
+
+        @Test
+        void testLimitAndRange() {
+            byte[] data = createData(100_000);
+            AsyncStreamWriter writer = start(
+                    new AsyncStreamWriter(new ByteArrayInputStream(data), socket, socket)
+                        .setLimit(50_000));
+            drainAll(writer);
+            assertArrayEquals(Arrays.copyOf(data, 50_000), socket.getReceived());
+
+            socket = new SlowSocket();
+            writer = start(new AsyncStreamWriter(new ByteArrayInputStream(data),
+                    RangeOutputStream.wrap(socket, new HttpRange(1_000, 1_999L)), socket));
+            drainAll(writer);
+            assertArrayEquals(Arrays.copyOfRange(data, 1_000, 2_000), socket.getReceived());
+            assertEquals(2, done.get());
+        }
+
+        @Test
+        void testNotAlive() {
+            byte[] data = createData((int) AsyncStreamWriter.CHECK_INTERVAL * 3);
+            AsyncStreamWriter writer = start(
+                    new AsyncStreamWriter(new ByteArrayInputStream(data), socket, socket)
+                        .setAlive(() -> false));
+            drainAll(writer);
+            assertTrue(writer.isDone());
+            assertEquals(AsyncStreamWriter.CHECK_INTERVAL, socket.getReceived().length);
+            assertEquals(1, done.get());
+        }
+
+        @Test
+        void testError() throws IOException {
+            InputStream in = mock(InputStream.class);
+            AsyncStreamWriter writer = start(new AsyncStreamWriter(in, socket, socket));
+            writer.onError(new IOException("Connection reset by peer"));
+            writer.onError(new IOException("Reported twice"));
+            assertTrue(writer.isDone());
+            assertEquals(1, done.get());
+            verify(in, times(1)).close();
+            verify(context, times(1)).complete();
+        }
+    }
+
+    /*
+     * Soak test. Many clients that read slowly are served by a container with a
+     * few threads. With blocking copy loops, only as many clients as threads
+     * could be served at a time.
+     */
+    @Nested
+    class SoakTest {
+
+        private static final int THREADS = 4;
+        private static final int CLIENTS = 200;
+        private static final int LENGTH = 512 * 1024;
+
+        private final byte[] data = createData(LENGTH);
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @SuppressWarnings("serial")
+        private class SlowListenerServlet extends HttpServlet {
+
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+                    throws IOException {
+                resp.setContentLengthLong(LENGTH);
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                ServletOutputStream socket = resp.getOutputStream();
+                new AsyncStreamWriter(new ByteArrayInputStream(data), socket, socket)
+                    .setOnDone(active::decrementAndGet)
+                    .start(req.startAsync());
+            }
+        }
+
+        /*
+         * Reads the body in small pieces with a pause between each, through a
+         * small receive buffer. Returns the length of the body.
+         */
+        private long listen(int port) throws IOException, InterruptedException {
+            try (Socket socket = new Socket()) {
+                socket.setReceiveBufferSize(8 * 1024);
+                socket.connect(new InetSocketAddress("localhost", port));
+                OutputStream out = socket.getOutputStream();
+                out
+                    .write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                InputStream in = socket.getInputStream();
+                int matched = 0;
+                byte[] endOfHeader = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+                while (matched < endOfHeader.length) {
+                    int b = in.read();
+                    if (b == -1) {
+                        return -1;
+                    }
+                    matched = b == endOfHeader[matched] ? matched + 1
+                            : b == endOfHeader[0] ? 1 : 0;
+                }
+
+                byte[] buf = new byte[4 * 1024];
+                long length = 0;
+                for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+                    length += n;
+                    Thread.sleep(5);
+                }
+                return length;
+            }
+        }
+
+        @Test
+        void testSlowListeners(@TempDir Path baseDir) throws Exception {
+            Tomcat tomcat = new Tomcat();
+            tomcat.setBaseDir(baseDir.toString());
+            tomcat.setPort(0);
+            Connector connector = tomcat.getConnector();
+            connector.setProperty("maxThreads", String.valueOf(THREADS));
+            connector.setProperty("minSpareThreads", String.valueOf(THREADS));
+            connector.setProperty("socket.txBufSize", String.valueOf(8 * 1024));
+            Context context = tomcat.addContext("", baseDir.toString());
+            Wrapper wrapper = Tomcat.addServlet(context, "slow", new SlowListenerServlet());
+            wrapper.setAsyncSupported(true);
+            context.addServletMappingDecoded("/", "slow");
+            tomcat.start();
+
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            try {
+                int port = connector.getLocalPort();
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    futures.add(clients.submit(() -> listen(port)));
+                }
+                for (Future<Long> future : futures) {
+                    assertEquals(LENGTH, future.get(2, TimeUnit.MINUTES));
+                }
+            } finally {
+                clients.shutdownNow();
+                tomcat.stop();
+                tomcat.destroy();
+            }
+
+            // Far more transfers were in progress at once than there are threads
+            assertTrue(peak.get() > THREADS * 10, "peak: " + peak.get());
+            assertEquals(0, active.get());
+        }
+    }
+}
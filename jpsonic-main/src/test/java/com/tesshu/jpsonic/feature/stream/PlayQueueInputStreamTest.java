@@ -0,0 +1,223 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.PlayQueue;
+import com.tesshu.jpsonic.persistence.api.entity.Player;
+import com.tesshu.jpsonic.service.AudioScrobblerService;
+import com.tesshu.jpsonic.service.SearchService;
+import com.tesshu.jpsonic.service.StatusService.TransferStatus;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
+import com.tesshu.jpsonic.service.TranscodingService;
+import com.tesshu.jpsonic.service.scanner.WritableMediaFileService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class PlayQueueInputStreamTest {
+
+    private static final int SONG_LENGTH = 1000;
+
+    private TranscodingService transcodingService;
+    private ThreadPoolTaskExecutor executor;
+    private Player player;
+    private Map<MediaFile, CloseableStream> opened;
+
+    @BeforeEach
+    void setup() {
+        transcodingService = mock(TranscodingService.class);
+        when(transcodingService.getParameters(any(MediaFile.class), any(Player.class), isNull(),
+                isNull(), isNull())).thenAnswer(invocation -> {
+                    TranscodingService.Parameters parameters = new TranscodingService.Parameters(
+                            invocation.getArgument(0), null);
+                    parameters.setExpectedLength((long) SONG_LENGTH);
+                    return parameters;
+                });
+        executor = new ThreadPoolTaskExecutor();
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        player = new Player();
+        player.setPlayQueue(new PlayQueue());
+        opened = new ConcurrentHashMap<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private MediaFile createSong(Path dir, String name, int content) throws IOException {
+        MediaFile song = new MediaFile();
+        song.setPathString(Files.createFile(dir.resolve(name)).toString());
+        song.setTitle(name);
+        when(transcodingService
+            .getTranscodedInputStream(argThat(
+                    parameters -> parameters != null && song.equals(parameters.getMediaFile()))))
+            .thenAnswer(invocation -> {
+                byte[] bytes = new byte[SONG_LENGTH];
+                Arrays.fill(bytes, (byte) content);
+                CloseableStream stream = new CloseableStream(bytes);
+                opened.put(song, stream);
+                return stream;
+            });
+        return song;
+    }
+
+    private PlayQueueInputStream createInputStream() {
+        return new PlayQueueInputStream(player, new TransferStatus(), null, null, null,
+                transcodingService, mock(AudioScrobblerService.class),
+                mock(WritableMediaFileService.class), mock(SearchService.class), executor);
+    }
+
+    private static void awaitPrefetched(PlayQueueInputStream in) throws InterruptedException {
+        for (int i = 0; i < 500 && in.getPrefetchedBytes() < SONG_LENGTH; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(SONG_LENGTH, in.getPrefetchedBytes());
+    }
+
+    private static byte[] expected(int... contents) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int content : contents) {
+            byte[] bytes = new byte[SONG_LENGTH];
+            Arrays.fill(bytes, (byte) content);
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void testHandoff(@TempDir Path dir) throws IOException, InterruptedException {
+        MediaFile song1 = createSong(dir, "song1", 1);
+        MediaFile song2 = createSong(dir, "song2", 2);
+        player.getPlayQueue().addFiles(false, song1, song2);
+
+        try (PlayQueueInputStream in = createInputStream()) {
+            byte[] head = in.readNBytes(SONG_LENGTH / 2);
+            assertEquals(-1, in.getPrefetchedBytes());
+            head = Arrays.copyOf(head, SONG_LENGTH - 1);
+            in.readNBytes(head, SONG_LENGTH / 2, SONG_LENGTH / 2 - 1);
+            awaitPrefetched(in);
+            byte[] tail = in.readNBytes(SONG_LENGTH * 2);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(head);
+            out.writeBytes(tail);
+            assertArrayEquals(expected(1, 2), out.toByteArray());
+            assertEquals(-1, in.read());
+        }
+
+        // The next song is opened only once, ahead of time
+        verify(transcodingService, times(1))
+            .getTranscodedInputStream(
+                    argThat(parameters -> song2.equals(parameters.getMediaFile())));
+        verify(transcodingService, times(1))
+            .getTranscodedInputStream(argThat(parameters -> parameters
+                .getPriority() == TranscodeScheduler.Priority.PREFETCH));
+        assertTrue(opened.get(song1).closed);
+        assertTrue(opened.get(song2).closed);
+    }
+
+    @Test
+    void testQueueChanged(@TempDir Path dir) throws IOException {
+        MediaFile song1 = createSong(dir, "song1", 1);
+        MediaFile song2 = createSong(dir, "song2", 2);
+        MediaFile song3 = createSong(dir, "song3", 3);
+        PlayQueue playQueue = player.getPlayQueue();
+        playQueue.addFiles(false, song1, song2);
+
+        try (PlayQueueInputStream in = createInputStream()) {
+            byte[] head = in.readNBytes(SONG_LENGTH - 1);
+            assertTrue(in.getPrefetchedBytes() >= 0);
+
+            // The prefetched song is no longer next
+            playQueue.removeFileAt(1);
+            playQueue.addFiles(true, song3);
+
+            byte[] tail = in.readNBytes(SONG_LENGTH * 2);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(head);
+            out.writeBytes(tail);
+            assertArrayEquals(expected(1, 3), out.toByteArray());
+        }
+
+        // The discarded prefetch is closed when its subthread finishes
+        executor.shutdown();
+        assertTrue(opened.get(song2).closed);
+        assertTrue(opened.get(song3).closed);
+    }
+
+    @Test
+    void testPrefetchFailed(@TempDir Path dir) throws IOException {
+        MediaFile song1 = createSong(dir, "song1", 1);
+        MediaFile song2 = createSong(dir, "song2", 2);
+        player.getPlayQueue().addFiles(false, song1, song2);
+        when(transcodingService.getTranscodedInputStream(argThat(parameters -> parameters != null
+                && parameters.getPriority() == TranscodeScheduler.Priority.PREFETCH)))
+            .thenThrow(new IOException("Not admitted"));
+
+        // Reopened without prefetch
+        try (PlayQueueInputStream in = createInputStream()) {
+            assertArrayEquals(expected(1, 2), in.readAllBytes());
+        }
+        verify(transcodingService, times(2))
+            .getTranscodedInputStream(
+                    argThat(parameters -> song2.equals(parameters.getMediaFile())));
+    }
+
+    private static class CloseableStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        CloseableStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
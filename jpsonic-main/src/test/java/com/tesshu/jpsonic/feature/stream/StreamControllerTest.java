@@ -53,6 +53,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.concurrent.ExecutionException;
 
 import ch.qos.logback.classic.Level;
@@ -61,6 +62,7 @@ import com.tesshu.jpsonic.controller.Attributes;
 import com.tesshu.jpsonic.domain.system.TranscodeScheme;
 import com.tesshu.jpsonic.feature.auth.jwt.JWTAuthenticationToken;
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
+import com.tesshu.jpsonic.feature.stream.seek.SeekIndexService;
 import com.tesshu.jpsonic.infrastructure.core.NeedsHome;
 import com.tesshu.jpsonic.infrastructure.core.NeedsTranscode;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
@@ -74,11 +76,14 @@ import com.tesshu.jpsonic.persistence.api.entity.Player;
 import com.tesshu.jpsonic.persistence.api.entity.Transcoding;
 import com.tesshu.jpsonic.persistence.api.repository.TranscodingDao;
 import com.tesshu.jpsonic.persistence.core.entity.User;
+import com.tesshu.jpsonic.service.BandwidthShaper;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlayerService;
+import com.tesshu.jpsonic.service.RemuxPolicy;
 import com.tesshu.jpsonic.service.ServiceMockUtils;
 import com.tesshu.jpsonic.service.StatusService;
 import com.tesshu.jpsonic.service.StatusService.TransferStatus;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
 import com.tesshu.jpsonic.service.TranscodingService;
 import com.tesshu.jpsonic.service.TranscodingService.Parameters;
 import com.tesshu.jpsonic.service.TranscodingService.VideoTranscodingSettings;
@@ -126,6 +131,7 @@ class StreamControllerTest {
     private StreamService streamService;
     private StatusService statusService;
     private TranscodingService transcodingService;
+    private SeekIndexService seekIndexService;
 
     /**
      * This instance does not launch writeStream method.
@@ -154,9 +160,12 @@ class StreamControllerTest {
         when(statusService.createStreamStatus(nullable(Player.class))).thenReturn(transferStatus);
         when(statusService.getStreamStatusesForPlayer(nullable(Player.class)))
             .thenReturn(Arrays.asList(transferStatus));
+        when(statusService.isAliveStream(nullable(Player.class))).thenReturn(false);
 
+        seekIndexService = mock(SeekIndexService.class);
         streamController = new StreamController(settingsFacade, accessPolicy, userService,
-                playerService, ts, statusService, ss);
+                playerService, ts, statusService, ss, seekIndexService,
+                new BandwidthShaper(settingsFacade, 0, 0, 0, 0, 0), false);
 
         JWTAuthenticationToken token = new JWTAuthenticationToken(Collections.emptyList(),
                 ServiceMockUtils.ADMIN_NAME, null);
@@ -451,6 +460,9 @@ class StreamControllerTest {
                 @interface MediaFile {
                     @interface WithoutDurationOrSize {
                     }
+
+                    @interface WithSeekTable {
+                    }
                 }
 
                 @interface Result {
@@ -764,6 +776,59 @@ class StreamControllerTest {
             verify(streamService, never())
                 .removeStreamStatus(nullable(User.class), nullable(TransferStatus.class));
         }
+
+        @ApplyRangeDecision.Conditions.MediaType.NotVideo
+        @ApplyRangeDecision.Conditions.IsRangeNotAllowed.True
+        @ApplyRangeDecision.Conditions.CreateRange.RequestHeader.Range.Null
+        @ApplyRangeDecision.Conditions.CreateRange.RequestParam.OffsetSeconds.NotNull
+        @ApplyRangeDecision.Conditions.CreateRange.MediaFile.WithSeekTable
+        @ApplyRangeDecision.Conditions.CreateRange.Result.NotNull
+        @ApplyRangeDecision.Result.Status.Partial206
+        @ApplyRangeDecision.Result.Header.AcceptRanges.Bytes
+        @Test
+        void cr05() throws Exception {
+            MediaFile song = new MediaFile();
+            song.setPathString(TEST_PATH);
+            song.setMediaType(MediaType.MUSIC);
+            song.setFormat("mp3");
+            song.setDurationSeconds(10);
+            song.setFileSize(3_300L);
+            when(streamService.getSingleFile(any(HttpServletRequest.class))).thenReturn(song);
+
+            Parameters parameters = new TranscodingService.Parameters(song, null);
+            parameters.setRangeAllowed(true);
+            parameters.setExpectedLength(song.getFileSize());
+            when(transcodingService
+                .getParameters(nullable(MediaFile.class), nullable(Player.class),
+                        nullable(Integer.class), nullable(String.class),
+                        nullable(VideoTranscodingSettings.class)))
+                .thenReturn(parameters);
+
+            // The frame at the offset is used instead of the linear estimate (330)
+            when(seekIndexService.getByteOffset(song, 1_000L)).thenReturn(OptionalLong.of(417L));
+            mockMvc
+                .perform(MockMvcRequestBuilders
+                    .get(TEST_URL)
+                    .param(Attributes.Request.OFFSET_SECONDS.value(), "1"))
+                .andExpect(MockMvcResultMatchers.status().isPartialContent())
+                .andExpect(MockMvcResultMatchers
+                    .header()
+                    .string(HttpHeaders.CONTENT_RANGE, "bytes 417-3299/3300"))
+                .andExpect(
+                        MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_LENGTH, "2883"));
+
+            // Not used if transcoded
+            parameters.setTranscoding(new Transcoding(null, null, "mp3", "mp3", "", null, null,
+                    false));
+            mockMvc
+                .perform(MockMvcRequestBuilders
+                    .get(TEST_URL)
+                    .param(Attributes.Request.OFFSET_SECONDS.value(), "1"))
+                .andExpect(MockMvcResultMatchers
+                    .header()
+                    .string(HttpHeaders.CONTENT_RANGE, "bytes 330-3299/3300"));
+            verify(seekIndexService, times(1)).getByteOffset(song, 1_000L);
+        }
     }
 
     @Documented
@@ -889,7 +954,8 @@ class StreamControllerTest {
             when(transcodingDao.getTranscodingsForPlayer(anyInt())).thenReturn(allTranscodings);
 
             TranscodingService ts = new TranscodingService(settingsFacade, userService, subnet,
-                    transcodingDao, playerService, null);
+                    transcodingDao, playerService, null, new TranscodeScheduler(0, 60),
+                    mock(RemuxPolicy.class));
             StreamService ss = new StreamService(statusService, null, userService, settingsFacade,
                     ts, null, mediaFileService, mock(WritableMediaFileService.class), null, null);
             initMocks(player, ts, ss);
@@ -1345,10 +1411,7 @@ class StreamControllerTest {
         void c01() throws Exception {
             Player player = new Player();
             player.setId(100);
-            TransferStatus transferStatus = new TransferStatus();
-            transferStatus.setActive(true);
-            when(statusService.getStreamStatusesForPlayer(player))
-                .thenReturn(Arrays.asList(transferStatus));
+            when(statusService.isAliveStream(player)).thenReturn(true);
 
             PlayQueue playQueue = new PlayQueue();
             playQueue.setStatus(Status.STOPPED);
@@ -1375,10 +1438,7 @@ class StreamControllerTest {
         void c02() throws Exception {
             Player player = new Player();
             player.setId(100);
-            TransferStatus transferStatus = new TransferStatus();
-            transferStatus.setActive(true);
-            when(statusService.getStreamStatusesForPlayer(player))
-                .thenReturn(Arrays.asList(transferStatus));
+            when(statusService.isAliveStream(player)).thenReturn(true);
 
             PlayQueue playQueue = new PlayQueue();
             playQueue.setStatus(Status.STOPPED);
@@ -1405,16 +1465,13 @@ class StreamControllerTest {
         void c03() throws Exception {
             Player player = new Player();
             player.setId(100);
-            TransferStatus transferStatus = new TransferStatus();
-            transferStatus.setActive(true);
             PlayQueue playQueue = new PlayQueue();
             playQueue.setStatus(Status.STOPPED);
             player.setPlayQueue(playQueue);
             player.setUsername(ServiceMockUtils.ADMIN_NAME);
             initMocks(player, transcodingService, streamService);
 
-            when(statusService.getStreamStatusesForPlayer(player))
-                .thenReturn(Arrays.asList(transferStatus));
+            when(statusService.isAliveStream(player)).thenReturn(true);
             doThrow(new UnsupportedOperationException("To skip verification of sendDummyDelayed"))
                 .when(streamService)
                 .sendDummyDelayed(any(byte[].class), any(OutputStream.class));
@@ -1439,16 +1496,13 @@ class StreamControllerTest {
         void c04() throws Exception {
             Player player = new Player();
             player.setId(100);
-            TransferStatus transferStatus = new TransferStatus();
-            transferStatus.setActive(true);
             PlayQueue playQueue = new PlayQueue();
             playQueue.setStatus(Status.PLAYING);
             player.setPlayQueue(playQueue);
             player.setUsername(ServiceMockUtils.ADMIN_NAME);
             initMocks(player, transcodingService, streamService);
 
-            when(statusService.getStreamStatusesForPlayer(player))
-                .thenReturn(Arrays.asList(transferStatus));
+            when(statusService.isAliveStream(player)).thenReturn(true);
             doThrow(new UnsupportedOperationException("To skip verification of sendDummyDelayed"))
                 .when(streamService)
                 .sendDummyDelayed(any(byte[].class), any(OutputStream.class));
@@ -1516,10 +1570,7 @@ class StreamControllerTest {
         void c01() throws Exception {
             Player player = new Player();
             player.setId(100);
-            TransferStatus transferStatus = new TransferStatus();
-            transferStatus.setActive(true);
-            when(statusService.getStreamStatusesForPlayer(player))
-                .thenReturn(Arrays.asList(transferStatus));
+            when(statusService.isAliveStream(player)).thenReturn(true);
             assertTrue(streamController.isAliveStream(player));
         }
 
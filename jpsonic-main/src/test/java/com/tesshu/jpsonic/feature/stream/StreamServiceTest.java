@@ -654,6 +654,11 @@ class StreamServiceTest {
         assertTrue(Arrays.equals(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF }, bytes));
         assertTrue(Arrays
             .equals(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF }, baos.toByteArray()));
+
+        // Pooled buffers may be much larger. The dummy stays small.
+        baos.reset();
+        streamService.sendDummyDelayed(new byte[256 * 1024], baos);
+        assertEquals(4096, baos.size());
     }
 
     @Order(10)
@@ -0,0 +1,196 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import com.tesshu.jpsonic.util.HttpRange;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZipArchiveTest {
+
+    private static final List<String> NAMES = List
+        .of("Album/", "Album/01 - Song.mp3", "Album/02 - Song.flac", "Album/Disc 2/",
+                "Album/Disc 2/01 - Song.mp3", "Album/cover.jpg");
+
+    private CacheManager manager;
+    private Ehcache crcCache;
+
+    @TempDir
+    private Path tempDir;
+    private Path album;
+
+    @BeforeEach
+    void setup() throws URISyntaxException, IOException {
+        Path path = Path.of(ZipArchiveTest.class.getResource("/ehcache.xml").toURI());
+        manager = CacheManager.newInstance(path.toString());
+        crcCache = manager.getCache("zipCrcCache");
+        crcCache.removeAll();
+
+        album = Files.createDirectories(tempDir.resolve("Album"));
+        Random random = new Random(0);
+        for (String name : List.of("01 - Song.mp3", "02 - Song.flac", "Disc 2/01 - Song.mp3",
+                "cover.jpg", ".hidden")) {
+            Path file = album.resolve(name);
+            Files.createDirectories(file.getParent());
+            byte[] data = new byte[100_000 + random.nextInt(200_000)];
+            random.nextBytes(data);
+            Files.write(file, data);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    private ZipArchive createArchive() throws IOException {
+        ZipArchive archive = new ZipArchive(crcCache);
+        archive.add(tempDir, album);
+        return archive;
+    }
+
+    private byte[] write(ZipArchive archive, HttpRange range) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long[] transferred = new long[1];
+        archive.write(out, range, path -> {
+        }, bytes -> transferred[0] += bytes);
+        assertEquals(out.size(), transferred[0]);
+        return out.toByteArray();
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    @Test
+    void testWrite() throws IOException {
+        ZipArchive archive = createArchive();
+        byte[] written = write(archive, null);
+        assertEquals(archive.getLength(), written.length);
+
+        Path zip = Files.write(tempDir.resolve("download.zip"), written);
+        List<String> names = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                names.add(entry.getName());
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                byte[] expected = Files.readAllBytes(tempDir.resolve(entry.getName()));
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals(expected.length, entry.getSize());
+                assertEquals(crc(expected), entry.getCrc());
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    assertArrayEquals(expected, in.readAllBytes());
+                }
+            }
+        }
+        assertEquals(NAMES, names);
+    }
+
+    @Test
+    void testAdd() throws IOException {
+        ZipArchive archive = new ZipArchive(crcCache);
+        assertTrue(archive.isEmpty());
+        assertFalse(archive.add(album, album.resolve(".hidden")));
+        assertTrue(archive.add(album, album.resolve("cover.jpg")));
+        assertFalse(archive.add(album, album.resolve("cover.jpg")));
+        assertFalse(archive.isEmpty());
+    }
+
+    @Test
+    void testRange() throws IOException {
+        byte[] whole = write(createArchive(), null);
+        crcCache.removeAll();
+
+        // Ranges starting in the headers, in the data and in the central directory
+        for (long first : List.of(0L, 10L, 50_000L, 400_000L, whole.length - 300L,
+                whole.length - 1L)) {
+            byte[] written = write(createArchive(), new HttpRange(first, null));
+            assertArrayEquals(Arrays.copyOfRange(whole, (int) first, whole.length), written);
+
+            long last = Math.min(first + 100_000, whole.length - 1);
+            written = write(createArchive(), new HttpRange(first, last));
+            assertArrayEquals(Arrays.copyOfRange(whole, (int) first, (int) last + 1), written);
+        }
+    }
+
+    @Test
+    void testResumeWithoutReading() throws IOException {
+        ZipArchive archive = createArchive();
+        byte[] whole = write(archive, null);
+        long centralDirectory = whole.length - 22
+                - NAMES.stream().mapToInt(name -> 46 + name.length()).sum();
+
+        // Once the CRCs are known, the files before the range are not read
+        archive = createArchive();
+        try (Stream<Path> files = Files.walk(album)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.write(file, new byte[Math.toIntExact(Files.size(file))]);
+            }
+        }
+        byte[] written = write(archive, new HttpRange(centralDirectory, null));
+        assertArrayEquals(Arrays.copyOfRange(whole, (int) centralDirectory, whole.length),
+                written);
+    }
+
+    @Test
+    void testChanged() throws IOException {
+        ZipArchive archive = createArchive();
+        String eTag = archive.getETag();
+        assertEquals(eTag, createArchive().getETag());
+
+        // Truncated after the archive was planned. Padded to the planned size.
+        Path song = album.resolve("01 - Song.mp3");
+        Files.write(song, new byte[10]);
+        byte[] written = write(archive, null);
+        assertEquals(archive.getLength(), written.length);
+
+        assertNotEquals(eTag, createArchive().getETag());
+    }
+}
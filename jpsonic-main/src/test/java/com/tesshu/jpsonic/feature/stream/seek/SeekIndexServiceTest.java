@@ -0,0 +1,218 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.OptionalLong;
+
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.SeekIndex;
+import com.tesshu.jpsonic.persistence.api.repository.SeekIndexDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+class SeekIndexServiceTest {
+
+    private static Path resolve(String path) throws URISyntaxException {
+        return Path.of(SeekIndexServiceTest.class.getResource(path).toURI());
+    }
+
+    private static ByteBuffer readAt(Path path, long offset, int length) throws IOException {
+        try (ChannelReader reader = new ChannelReader(path)) {
+            return reader.read(offset, length);
+        }
+    }
+
+    private static void assertAscending(SeekTable table) {
+        byte[] bytes = table.toBytes();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int millis = -1;
+        long offset = -1;
+        while (buffer.hasRemaining()) {
+            int nextMillis = buffer.getInt();
+            long nextOffset = buffer.getLong();
+            assertTrue(millis < nextMillis && offset < nextOffset);
+            millis = nextMillis;
+            offset = nextOffset;
+        }
+    }
+
+    /*
+     * A frame sync is a valid frame header that is followed by another one, or by
+     * the end of the file.
+     */
+    private static void assertFrameSyncs(Path path, SeekTable table) throws IOException {
+        ByteBuffer points = ByteBuffer.wrap(table.toBytes());
+        try (ChannelReader reader = new ChannelReader(path)) {
+            while (points.hasRemaining()) {
+                points.getInt();
+                long offset = points.getLong();
+                Mp3SeekTableParser.Frame frame = Mp3SeekTableParser.Frame
+                    .of(reader.read(offset, 4).getInt(0));
+                assertNotNull(frame, "No frame header at " + offset);
+                ByteBuffer next = reader.read(offset + frame.length(), 4);
+                assertTrue(next.limit() < 4 || Mp3SeekTableParser.Frame.of(next.getInt(0)) != null,
+                        "No frame header after " + offset);
+            }
+        }
+    }
+
+    @Nested
+    class BuildTest {
+
+        /*
+         * Without a Xing header, every frame header is walked.
+         */
+        @Test
+        void testMp3Frames() throws URISyntaxException, IOException {
+            Path path = resolve("/MEDIAS/piano.mp3");
+            SeekTable table = SeekIndexService.build(path, "mp3");
+            assertNotNull(table);
+            assertAscending(table);
+            for (long millis = 0; millis < 10_000; millis += 700) {
+                ByteBuffer header = readAt(path, table.getOffset(millis), 2);
+                assertEquals(0xFFE0, header.getShort(0) & 0xFFE0);
+            }
+        }
+
+        /*
+         * The table of contents of the Xing header is used.
+         */
+        @Test
+        void testMp3Xing() throws URISyntaxException, IOException {
+            Path path = resolve("/MEDIAS/Metadata/tagger3/tagged/01.mp3");
+            SeekTable table = SeekIndexService.build(path, "MP3");
+            assertNotNull(table);
+            assertAscending(table);
+            assertTrue(table.size() > 2 && table.size() <= 100);
+            // Points of the table of contents are moved to the next frame
+            assertFrameSyncs(path, table);
+        }
+
+        @Test
+        void testFlac() throws URISyntaxException, IOException {
+            Path path = resolve("/MEDIAS/Metadata/tagger3/tagged/test.flac");
+            SeekTable table = SeekIndexService.build(path, "flac");
+            assertNotNull(table);
+            assertAscending(table);
+            assertTrue(table.size() > 2);
+            for (long millis = 0; millis < 5_000; millis += 300) {
+                ByteBuffer header = readAt(path, table.getOffset(millis), 2);
+                assertEquals(0xFFF8, header.getShort(0) & 0xFFFE);
+            }
+        }
+
+        @Test
+        void testM4a() throws URISyntaxException {
+            Path path = resolve("/MEDIAS/Metadata/tagger3/tagged/test.m4a");
+            SeekTable table = SeekIndexService.build(path, "m4a");
+            assertNotNull(table);
+            assertAscending(table);
+            assertTrue(table.getOffset(0) < table.getOffset(30_000));
+        }
+
+        @Test
+        void testUnsupported() throws URISyntaxException {
+            assertNull(SeekIndexService.build(resolve("/MEDIAS/piano.mp3"), "flac"));
+            assertNull(SeekIndexService.build(resolve("/MEDIAS/piano.mp3"), "wav"));
+            assertNull(SeekIndexService.build(Path.of("/not/exist.mp3"), "mp3"));
+        }
+    }
+
+    @Nested
+    class GetByteOffsetTest {
+
+        private SeekIndexDao seekIndexDao;
+        private SeekIndexService seekIndexService;
+        private MediaFile song;
+
+        @BeforeEach
+        void setup() throws URISyntaxException {
+            seekIndexDao = Mockito.mock(SeekIndexDao.class);
+            seekIndexService = new SeekIndexService(seekIndexDao);
+            song = new MediaFile();
+            song.setPathString(resolve("/MEDIAS/piano.mp3").toString());
+            song.setFormat("mp3");
+            song.setChanged(now());
+        }
+
+        @Test
+        void testFirstUse() {
+            OptionalLong offset = seekIndexService.getByteOffset(song, 5_000);
+            assertTrue(offset.isPresent());
+            ArgumentCaptor<SeekIndex> captor = ArgumentCaptor.forClass(SeekIndex.class);
+            Mockito.verify(seekIndexDao).updateSeekIndex(captor.capture());
+            assertEquals(song.getPathString(), captor.getValue().getPath());
+            assertEquals(song.getChanged(), captor.getValue().getChanged());
+            assertEquals(offset.getAsLong(),
+                    SeekTable.fromBytes(captor.getValue().getPoints()).getOffset(5_000));
+        }
+
+        @Test
+        void testStored() {
+            SeekTable stored = new SeekTable.Builder().add(0, 10).add(5_000, 1234).build();
+            Mockito
+                .when(seekIndexDao.getSeekIndex(song.getPathString()))
+                .thenReturn(new SeekIndex(song.getPathString(), song.getChanged(),
+                        stored.toBytes()));
+            assertEquals(1234, seekIndexService.getByteOffset(song, 5_000).getAsLong());
+            Mockito.verify(seekIndexDao, Mockito.never()).updateSeekIndex(Mockito.any());
+
+            // Nothing to build a table from
+            Mockito
+                .when(seekIndexDao.getSeekIndex(song.getPathString()))
+                .thenReturn(new SeekIndex(song.getPathString(), song.getChanged(), null));
+            assertFalse(seekIndexService.getByteOffset(song, 5_000).isPresent());
+            Mockito.verify(seekIndexDao, Mockito.never()).updateSeekIndex(Mockito.any());
+        }
+
+        @Test
+        void testChanged() {
+            SeekTable stored = new SeekTable.Builder().add(0, 10).add(5_000, 1234).build();
+            Instant outdated = song.getChanged().minusSeconds(60);
+            Mockito
+                .when(seekIndexDao.getSeekIndex(song.getPathString()))
+                .thenReturn(new SeekIndex(song.getPathString(), outdated, stored.toBytes()));
+            assertTrue(seekIndexService.getByteOffset(song, 5_000).getAsLong() != 1234);
+            Mockito.verify(seekIndexDao).updateSeekIndex(Mockito.any(SeekIndex.class));
+        }
+
+        @Test
+        void testUnsupportedFormat() {
+            song.setFormat("wav");
+            assertFalse(seekIndexService.getByteOffset(song, 5_000).isPresent());
+            Mockito.verifyNoInteractions(seekIndexDao);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.feature.stream.seek;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SeekTableTest {
+
+    @Test
+    void testGetOffset() {
+        SeekTable table = new SeekTable.Builder()
+            .add(1000, 2000)
+            .add(0, 100)
+            .add(2000, 3900)
+            .build();
+        assertEquals(3, table.size());
+        assertEquals(100, table.getOffset(0));
+        assertEquals(100, table.getOffset(999));
+        assertEquals(2000, table.getOffset(1000));
+        assertEquals(2000, table.getOffset(1999));
+        assertEquals(3900, table.getOffset(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testBuild() {
+        // Too few points
+        assertNull(new SeekTable.Builder().build());
+        assertNull(new SeekTable.Builder().add(0, 100).build());
+
+        // Points that are not ascending in both time and offset are dropped
+        SeekTable table = new SeekTable.Builder()
+            .add(0, 100)
+            .add(500, 100)
+            .add(1000, 50)
+            .add(1000, 2000)
+            .add(-1, 0)
+            .build();
+        assertEquals(2, table.size());
+        assertEquals(100, table.getOffset(999));
+
+        // Thinned out evenly
+        SeekTable.Builder builder = new SeekTable.Builder();
+        for (int i = 0; i < SeekTable.MAX_POINTS * 10; i++) {
+            builder.add(i * 26L, i * 417L);
+        }
+        table = builder.build();
+        assertEquals(SeekTable.MAX_POINTS, table.size());
+        assertEquals(0, table.getOffset(0));
+        long interval = 26L * 10;
+        assertEquals(417L * 10 * 100, table.getOffset(interval * 100));
+    }
+
+    @Test
+    void testBytes() {
+        SeekTable table = new SeekTable.Builder().add(0, 100).add(1000, 5_000_000_000L).build();
+        SeekTable restored = SeekTable.fromBytes(table.toBytes());
+        assertEquals(2, restored.size());
+        assertEquals(100, restored.getOffset(999));
+        assertEquals(5_000_000_000L, restored.getOffset(1000));
+
+        assertNull(SeekTable.fromBytes(null));
+        assertNull(SeekTable.fromBytes(new byte[0]));
+        assertNull(SeekTable.fromBytes(new byte[5]));
+    }
+}
@@ -38,5 +38,9 @@ class CacheFactoryTest {
         assertNotNull(cacheFactory.getCache("genreCache"));
         assertNotNull(cacheFactory.getCache("randomCache"));
         assertNotNull(cacheFactory.getCache("fontCache"));
+        assertNotNull(cacheFactory.getCache("zipCrcCache"));
+        assertNotNull(cacheFactory.getCache("audioCodecCache"));
+        assertNotNull(cacheFactory.getCache("artworkDigestCache"));
+        assertNotNull(cacheFactory.getCache("playlistCoverCache"));
     }
 }
@@ -28,12 +28,15 @@ import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 
 import javax.sql.DataSource;
 
 import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
 import com.tesshu.jpsonic.infrastructure.core.LifecyclePhase;
+import com.tesshu.jpsonic.infrastructure.db.ConnectionPoolMetrics.Pool;
 import com.tesshu.jpsonic.infrastructure.db.DatabaseConfiguration.SmartLifecycleLegacyDaoHelper;
 import com.tesshu.jpsonic.persistence.NeedsDB;
 import com.tesshu.jpsonic.persistence.base.LegacyHsqlDaoHelper;
@@ -54,10 +57,11 @@ class DatabaseConfigurationTest {
     @Test
     void testLegacyDataSource() throws SQLException {
 
-        DataSource dataSource = configuration.legacyDataSource();
+        DataSource dataSource = configuration.legacyDataSource(new ConnectionPoolMetrics());
 
         // HikariDataSource compatible properties
-        try (HikariDataSource hikariDataSource = (HikariDataSource) dataSource) {
+        try (RoutingDataSource routingDataSource = (RoutingDataSource) dataSource) {
+            HikariDataSource hikariDataSource = routingDataSource.getRequestPool();
 
             // apps properties
             assertEquals("org.hsqldb.jdbc.JDBCDriver", hikariDataSource.getDriverClassName());
@@ -77,7 +81,7 @@ class DatabaseConfigurationTest {
             assertEquals(0, hikariDataSource.getMinimumIdle());
             assertEquals(8, hikariDataSource.getMaximumPoolSize());
             assertNull(hikariDataSource.getMetricRegistry());
-            assertEquals("HikariPool-1", hikariDataSource.getPoolName());
+            assertEquals("jpsonic-request", hikariDataSource.getPoolName());
             assertNotNull(hikariDataSource.getHikariPoolMXBean());
             assertNull(hikariDataSource.getSchema());
             assertNull(hikariDataSource.getConnectionTestQuery());
@@ -93,7 +97,50 @@ class DatabaseConfigurationTest {
             assertNull(hikariDataSource.getScheduledExecutor());
             assertNull(hikariDataSource.getThreadFactory());
             assertEquals(1, hikariDataSource.getInitializationFailTimeout());
+
+            // The pool of the background jobs differs only in its size and timeout
+            HikariDataSource background = routingDataSource.getBackgroundPool();
+            assertEquals("jpsonic-background", background.getPoolName());
+            assertEquals(hikariDataSource.getJdbcUrl(), background.getJdbcUrl());
+            assertEquals(300_000, background.getConnectionTimeout());
+            assertEquals(4, background.getMaximumPoolSize());
+            assertEquals(0, background.getMinimumIdle());
+            assertEquals(1_800_000, background.getMaxLifetime());
+        }
+    }
+
+    private static void connect(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testRoute() throws InterruptedException {
+        ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        try (RoutingDataSource dataSource = (RoutingDataSource) configuration
+            .legacyDataSource(metrics)) {
+            assertEquals(List.of("jpsonic-request", "jpsonic-background"),
+                    metrics.getPools().stream().map(Pool::getName).toList());
+            Pool request = metrics.getPools().get(0);
+            Pool background = metrics.getPools().get(1);
+            long requests = request.getAcquisitions();
+            long backgrounds = background.getAcquisitions();
+
+            connect(dataSource);
+            assertEquals(requests + 1, request.getAcquisitions());
+            assertEquals(backgrounds, background.getAcquisitions());
+
+            Thread thread = new Thread(ConnectionRoute.background(() -> connect(dataSource)));
+            thread.start();
+            thread.join();
+            assertEquals(requests + 1, request.getAcquisitions());
+            assertEquals(backgrounds + 1, background.getAcquisitions());
+            assertEquals(ConnectionRoute.REQUEST, ConnectionRoute.current());
         }
+        assertTrue(metrics.getPools().isEmpty());
     }
 
     @Nested
@@ -181,6 +181,28 @@ class PlayQueueTest {
         assertPlaylistEquals(playQueue, 0, "A", "B", "C");
     }
 
+    @Test
+    void testGetNextFile() {
+        PlayQueue playQueue = createPlaylist(0, "A", "B", "C");
+        assertEquals("B", playQueue.getNextFile().getName());
+        playQueue.next();
+        assertEquals("C", playQueue.getNextFile().getName());
+        playQueue.next();
+        assertNull(playQueue.getNextFile());
+        assertEquals(2, playQueue.getIndex());
+
+        playQueue.setRepeatEnabled(true);
+        assertEquals("A", playQueue.getNextFile().getName());
+        playQueue.next();
+        assertEquals(0, playQueue.getIndex());
+
+        playQueue = createPlaylist(2, "A", "B", "C");
+        playQueue.next();
+        assertEquals(-1, playQueue.getIndex());
+        assertNull(playQueue.getNextFile());
+        assertNull(new PlayQueue().getNextFile());
+    }
+
     @Test
     void testPlayAfterEndReached() {
         PlayQueue playQueue = createPlaylist(2, "A", "B", "C");
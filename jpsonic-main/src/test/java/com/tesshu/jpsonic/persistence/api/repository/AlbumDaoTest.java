@@ -138,7 +138,7 @@ class AlbumDaoTest {
         void c02() {
             ArgumentCaptor<String> query = getQuery(false, true);
             assertEquals("", getJoin(query));
-            assertEquals("album_order", getOrderBy(query));
+            assertEquals("album_order, id", getOrderBy(query));
         }
 
         @AlphabeticalOps.Conditions.ByArtist.False
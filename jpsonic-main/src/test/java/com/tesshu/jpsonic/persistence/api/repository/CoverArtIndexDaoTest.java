@@ -0,0 +1,144 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import com.tesshu.jpsonic.persistence.NeedsDB;
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
+import com.tesshu.jpsonic.persistence.base.GenericDaoHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@NeedsDB
+@SuppressWarnings("PMD.AvoidDuplicateLiterals") // In the testing class, it may be less readable.
+class CoverArtIndexDaoTest {
+
+    @Autowired
+    private GenericDaoHelper daoHelper;
+
+    @Autowired
+    private CoverArtIndexDao coverArtIndexDao;
+
+    @BeforeEach
+    void setUp() {
+        daoHelper.getJdbcTemplate().execute("delete from cover_art_index");
+    }
+
+    @Test
+    void testUpdateCoverArtIndex() {
+        assertNull(coverArtIndexDao.getCoverArtIndex("/music/album"));
+
+        Instant changed = now();
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/music/album", "/music/album/cover.jpg",
+                    changed, changed.minus(1, ChronoUnit.DAYS)));
+        CoverArtIndex index = coverArtIndexDao.getCoverArtIndex("/music/album");
+        assertEquals("/music/album/cover.jpg", index.getCoverArtPath());
+        assertEquals(changed, index.getDirChanged());
+        assertEquals(changed.minus(1, ChronoUnit.DAYS), index.getCoverArtChanged());
+
+        // Overwritten, not duplicated
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/music/album", null, changed, null));
+        index = coverArtIndexDao.getCoverArtIndex("/music/album");
+        assertNull(index.getCoverArtPath());
+        assertNull(index.getCoverArtChanged());
+        assertEquals(1, daoHelper
+            .getJdbcTemplate()
+            .queryForObject("select count(*) from cover_art_index", Integer.class));
+    }
+
+    @Test
+    void testGetCoverArtIndexesUnder() {
+        Instant changed = now();
+        List
+            .of("/music", "/music/artist", "/music/artist/album", "/music_2", "/musical")
+            .forEach(path -> coverArtIndexDao
+                .updateCoverArtIndex(new CoverArtIndex(path, null, changed, null)));
+
+        List<String> paths = coverArtIndexDao
+            .getCoverArtIndexesUnder(Path.of("/music/artist"))
+            .stream()
+            .map(CoverArtIndex::getPath)
+            .sorted()
+            .toList();
+        assertEquals(List.of("/music/artist", "/music/artist/album"), paths);
+
+        // Siblings sharing the prefix are not included
+        assertEquals(3, coverArtIndexDao.getCoverArtIndexesUnder(Path.of("/music")).size());
+        assertEquals(1, coverArtIndexDao.getCoverArtIndexesUnder(Path.of("/music_2")).size());
+    }
+
+    @Test
+    void testGetCoverArtChanged() {
+        Instant changed = now();
+        assertNull(coverArtIndexDao.getCoverArtChanged("/music/album/cover.jpg"));
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/music/album", "/music/album/cover.jpg",
+                    changed, changed));
+        assertEquals(changed, coverArtIndexDao.getCoverArtChanged("/music/album/cover.jpg"));
+    }
+
+    @Test
+    void testUpdateCoverArtChanged() {
+        Instant changed = now();
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/music/album", "/music/album/cover.jpg",
+                    changed, changed));
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/music/other", "/music/other/cover.jpg",
+                    changed, changed));
+
+        Instant overwritten = changed.plus(1, ChronoUnit.DAYS);
+        assertEquals(1,
+                coverArtIndexDao.updateCoverArtChanged("/music/album/cover.jpg", overwritten));
+        assertEquals(overwritten, coverArtIndexDao.getCoverArtChanged("/music/album/cover.jpg"));
+        assertEquals(changed, coverArtIndexDao.getCoverArtChanged("/music/other/cover.jpg"));
+
+        // Unchanged entries are not rewritten
+        assertEquals(0,
+                coverArtIndexDao.updateCoverArtChanged("/music/album/cover.jpg", overwritten));
+    }
+
+    @Test
+    void testExpunge() {
+        Instant changed = now();
+        coverArtIndexDao
+            .updateCoverArtIndex(new CoverArtIndex("/not/registered", null, changed, null));
+        coverArtIndexDao.expunge();
+        assertNull(coverArtIndexDao.getCoverArtIndex("/not/registered"));
+        assertTrue(coverArtIndexDao.getCoverArtIndexesUnder(Path.of("/not")).isEmpty());
+    }
+}
@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +43,7 @@ import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao.ChildOrder;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao.IndexWithCount;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao.RandomSongsQueryBuilder;
 import com.tesshu.jpsonic.persistence.base.DaoHelper;
+import com.tesshu.jpsonic.persistence.base.SqlMetrics;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.dialect.DialectMediaFileDao;
 import com.tesshu.jpsonic.persistence.param.ShuffleSelectionParam;
@@ -71,7 +73,8 @@ class MediaFileDaoTest {
             jdbcTemplate = mock(JdbcTemplate.class);
             DaoHelper daoHelper = mock(DaoHelper.class);
             Mockito.when(daoHelper.getJdbcTemplate()).thenReturn(jdbcTemplate);
-            TemplateWrapper templateWrapper = new TemplateWrapper(daoHelper);
+            TemplateWrapper templateWrapper = new TemplateWrapper(daoHelper,
+                    new SqlMetrics(-1, false));
             mediaFileDao = new MediaFileDao(templateWrapper, mock(DialectMediaFileDao.class));
         }
 
@@ -181,7 +184,7 @@ class MediaFileDaoTest {
             @Test
             void testByAlphabetical() {
                 ArgumentCaptor<String> query = getQuery(ChildOrder.BY_ALPHA);
-                assertEquals("type_order, media_file_order", getOrderBy(query));
+                assertEquals("type_order, media_file_order, id", getOrderBy(query));
             }
 
             @Test
@@ -820,6 +823,39 @@ class MediaFileDaoTest {
                                 MediaType.MUSIC));
         }
 
+        @Test
+        void testGetDescendantsOf() {
+            Path folderPath = MUSIC_FOLDER.toPath();
+            assertEquals(14, mediaFileDao.getDescendantsOf(folderPath).size());
+            assertEquals(0, mediaFileDao.getDescendantsOf(folderPath.resolve("Dir1")).size());
+            assertEquals(3, mediaFileDao.getDescendantsOf(folderPath.resolve("Dir4")).size());
+
+            List<MediaFile> descendants = mediaFileDao
+                .getDescendantsOf(folderPath.resolve("Album1"));
+            assertEquals(List.of("Album2", "Dir2", "Dir3", "song2.mp3", "song3.mp3", "song4.mp3"),
+                    descendants
+                        .stream()
+                        .map(m -> m.toPath().getFileName().toString())
+                        .sorted()
+                        .toList());
+        }
+
+        @Test
+        void testUpdateLastScanned() {
+            Path folderPath = MUSIC_FOLDER.toPath();
+            List<MediaFile> children = mediaFileDao.getChildrenOf(folderPath.toString());
+            Instant lastScanned = now().plusSeconds(60);
+            mediaFileDao
+                .updateLastScanned(children.stream().map(MediaFile::getId).toList(), lastScanned);
+            assertTrue(mediaFileDao
+                .getChildrenOf(folderPath.toString())
+                .stream()
+                .allMatch(m -> lastScanned.equals(m.getLastScanned())));
+
+            // Restore for other tests
+            children.forEach(m -> mediaFileDao.updateLastScanned(m.getId(), m.getLastScanned()));
+        }
+
         @Test
         void testGetMudicIndexCounts() {
             List<MusicFolder> folders = List.of(MUSIC_FOLDER);
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.tesshu.jpsonic.AbstractNeedsScan;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
+import com.tesshu.jpsonic.persistence.api.entity.Playlist;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class PlaylistDaoTest extends AbstractNeedsScan {
+
+    private static final List<MusicFolder> MUSIC_FOLDERS = List
+        .of(new MusicFolder(1, resolveBaseMediaPath("Sort/Pagination/Artists"), "Artists", true,
+                now(), 1, false));
+
+    @Autowired
+    private PlaylistDao playlistDao;
+
+    @Autowired
+    private MediaFileDao mediaFileDao;
+
+    @Autowired
+    private AlbumDao albumDao;
+
+    private List<MediaFile> songs;
+    private Playlist playlist;
+
+    @Override
+    public List<MusicFolder> getMusicFolders() {
+        return MUSIC_FOLDERS;
+    }
+
+    @BeforeEach
+    void setup() {
+        populateDatabaseOnlyOnce();
+        songs = albumDao
+            .getAlphabeticalAlbums(0, Integer.MAX_VALUE, false, false, MUSIC_FOLDERS)
+            .stream()
+            .map(album -> mediaFileDao
+                .getSongsForAlbum(0L, Integer.MAX_VALUE, album.getArtist(), album.getName())
+                .get(0))
+            .toList();
+        assertTrue(songs.size() > 10);
+
+        Instant now = now();
+        playlist = new Playlist();
+        playlist.setName("PlaylistDaoTest");
+        playlist.setUsername("admin");
+        playlist.setCreated(now);
+        playlist.setChanged(now);
+        playlistDao.createPlaylist(playlist);
+    }
+
+    private void assertFiles(List<MediaFile> expected) {
+        assertEquals(expected.stream().map(MediaFile::getId).toList(),
+                mediaFileDao
+                    .getFilesInPlaylist(playlist.getId(), 0, Integer.MAX_VALUE)
+                    .stream()
+                    .map(MediaFile::getId)
+                    .toList());
+        assertEquals(expected.size(), mediaFileDao.getCountInPlaylist(playlist.getId()));
+        Playlist stored = playlistDao.getPlaylist(playlist.getId());
+        assertEquals(expected.size(), stored.getFileCount());
+        assertEquals(expected
+            .stream()
+            .mapToInt(song -> song.getDurationSeconds() == null ? 0 : song.getDurationSeconds())
+            .sum(), stored.getDurationSeconds());
+    }
+
+    /*
+     * The stored order is the same as replacing all the rows, as it was done before
+     * only the differences were written.
+     */
+    @Test
+    void testSetFilesInPlaylist() {
+        List<MediaFile> files = new ArrayList<>(songs.subList(0, 5));
+        playlistDao.setFilesInPlaylist(playlist.getId(), files);
+        assertFiles(files);
+
+        files.add(songs.get(5));
+        files.add(0, songs.get(6));
+        files.add(3, songs.get(0));
+        playlistDao.setFilesInPlaylist(playlist.getId(), files);
+        assertFiles(files);
+
+        files.remove(1);
+        Collections.swap(files, 0, files.size() - 1);
+        playlistDao.setFilesInPlaylist(playlist.getId(), files);
+        assertFiles(files);
+
+        Random random = new Random(0);
+        for (int i = 0; i < 20; i++) {
+            if (random.nextBoolean() && !files.isEmpty()) {
+                files.remove(random.nextInt(files.size()));
+            }
+            files.add(random.nextInt(files.size() + 1), songs.get(random.nextInt(songs.size())));
+            Collections.swap(files, random.nextInt(files.size()), random.nextInt(files.size()));
+            playlistDao.setFilesInPlaylist(playlist.getId(), files);
+            assertFiles(files);
+        }
+
+        playlistDao.setFilesInPlaylist(playlist.getId(), List.of());
+        assertFiles(List.of());
+    }
+}
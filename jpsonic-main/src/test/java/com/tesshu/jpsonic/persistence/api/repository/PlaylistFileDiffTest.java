@@ -0,0 +1,204 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.tesshu.jpsonic.persistence.api.repository.PlaylistFileDiff.Insert;
+import com.tesshu.jpsonic.persistence.api.repository.PlaylistFileDiff.Move;
+import com.tesshu.jpsonic.persistence.api.repository.PlaylistFileDiff.Row;
+import org.junit.jupiter.api.Test;
+
+class PlaylistFileDiffTest {
+
+    private int sequence;
+
+    /*
+     * Applies the diff to the rows as the DAO does, and returns the rows in the
+     * order of file_order and id.
+     */
+    private List<Row> apply(List<Row> rows, PlaylistFileDiff diff) {
+        Map<Integer, Row> table = new HashMap<>();
+        rows.forEach(row -> table.put(row.id(), row));
+        rows.forEach(row -> sequence = Math.max(sequence, row.id()));
+        diff.getDeletes().forEach(table::remove);
+        for (Move move : diff.getMoves()) {
+            Row row = table.get(move.id());
+            table.put(move.id(), new Row(move.id(), row.mediaFileId(), move.order()));
+        }
+        for (Insert insert : diff.getInserts()) {
+            sequence++;
+            table.put(sequence, new Row(sequence, insert.mediaFileId(), insert.order()));
+        }
+        return table
+            .values()
+            .stream()
+            .sorted(Comparator.comparingLong(Row::order).thenComparingInt(Row::id))
+            .toList();
+    }
+
+    private List<Row> save(List<Row> rows, List<Integer> mediaFileIds) {
+        List<Row> result = apply(rows, PlaylistFileDiff.of(rows, mediaFileIds));
+        assertEquals(mediaFileIds, result.stream().map(Row::mediaFileId).toList());
+        return result;
+    }
+
+    @Test
+    void testCreate() {
+        PlaylistFileDiff diff = PlaylistFileDiff.of(List.of(), List.of(10, 20, 30));
+        assertTrue(diff.getDeletes().isEmpty());
+        assertTrue(diff.getMoves().isEmpty());
+        assertEquals(List.of(new Insert(10, 1024), new Insert(20, 2048), new Insert(30, 3072)),
+                diff.getInserts());
+        assertTrue(PlaylistFileDiff.of(List.of(), List.of()).getInserts().isEmpty());
+    }
+
+    @Test
+    void testUnchanged() {
+        List<Row> rows = save(List.of(), List.of(10, 20, 30));
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(10, 20, 30));
+        assertTrue(diff.getDeletes().isEmpty());
+        assertTrue(diff.getMoves().isEmpty());
+        assertTrue(diff.getInserts().isEmpty());
+    }
+
+    @Test
+    void testAppendAndRemove() {
+        List<Row> rows = save(List.of(), List.of(10, 20, 30));
+
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(10, 20, 30, 40));
+        assertTrue(diff.getDeletes().isEmpty());
+        assertTrue(diff.getMoves().isEmpty());
+        assertEquals(List.of(new Insert(40, 4096)), diff.getInserts());
+        rows = apply(rows, diff);
+
+        diff = PlaylistFileDiff.of(rows, List.of(10, 30, 40));
+        assertEquals(List.of(rows.get(1).id()), diff.getDeletes());
+        assertTrue(diff.getMoves().isEmpty());
+        assertTrue(diff.getInserts().isEmpty());
+    }
+
+    @Test
+    void testInsertBetween() {
+        List<Row> rows = save(List.of(), List.of(10, 20));
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(5, 10, 15, 20));
+        assertTrue(diff.getMoves().isEmpty());
+        assertEquals(List.of(new Insert(5, 0), new Insert(15, 1536)), diff.getInserts());
+    }
+
+    @Test
+    void testReorder() {
+        List<Row> rows = save(List.of(), List.of(10, 20, 30, 40, 50));
+
+        // Moving one file only rewrites that file
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(10, 30, 40, 50, 20));
+        assertTrue(diff.getDeletes().isEmpty());
+        assertEquals(List.of(new Move(rows.get(1).id(), 6144)), diff.getMoves());
+        assertTrue(diff.getInserts().isEmpty());
+
+        rows = save(rows, List.of(50, 40, 30, 20, 10));
+        assertEquals(List.of(50, 10, 20, 30, 40),
+                save(rows, List.of(50, 10, 20, 30, 40)).stream().map(Row::mediaFileId).toList());
+    }
+
+    @Test
+    void testDuplicates() {
+        List<Row> rows = save(List.of(), List.of(10, 20, 10, 20));
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(20, 10, 20));
+        assertEquals(List.of(rows.get(0).id()), diff.getDeletes());
+        assertTrue(diff.getMoves().isEmpty());
+        assertTrue(diff.getInserts().isEmpty());
+        save(rows, List.of(20, 10, 20));
+    }
+
+    @Test
+    void testRenumber() {
+        // Rows migrated from the id order have no room between them
+        List<Row> rows = List.of(new Row(1, 10, 1), new Row(2, 20, 2), new Row(3, 30, 3));
+        PlaylistFileDiff diff = PlaylistFileDiff.of(rows, List.of(10, 20, 30, 40));
+        assertFalse(diff.isRenumbered());
+        diff = PlaylistFileDiff.of(rows, List.of(10, 15, 20, 30));
+        assertTrue(diff.isRenumbered());
+        assertEquals(3, diff.getMoves().size());
+        rows = apply(rows, diff);
+        assertEquals(List.of(1024L, 2048L, 3072L, 4096L), rows.stream().map(Row::order).toList());
+
+        diff = PlaylistFileDiff.of(rows, List.of(10, 12, 15, 20, 30));
+        assertFalse(diff.isRenumbered());
+        assertTrue(diff.getMoves().isEmpty());
+    }
+
+    /*
+     * Makes one to five random edits to the files, and returns the number of
+     * them. Files are drawn from the given number of kinds.
+     */
+    private static int edit(Random random, List<Integer> files, int kinds) {
+        int edits = 1 + random.nextInt(5);
+        for (int i = 0; i < edits; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || files.isEmpty()) {
+                files.add(random.nextInt(files.size() + 1), random.nextInt(kinds));
+            } else if (op == 1) {
+                files.remove(random.nextInt(files.size()));
+            } else {
+                Integer moved = files.remove(random.nextInt(files.size()));
+                files.add(random.nextInt(files.size() + 1), moved);
+            }
+        }
+        return edits;
+    }
+
+    @Test
+    void testRandomEdits() {
+        Random random = new Random(0);
+        List<Row> rows = List.of();
+        List<Integer> files = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int edits = edit(random, files, Integer.MAX_VALUE);
+            PlaylistFileDiff diff = PlaylistFileDiff.of(rows, files);
+            int changes = diff.getDeletes().size() + diff.getMoves().size()
+                    + diff.getInserts().size();
+            assertTrue(diff.isRenumbered() || changes <= edits,
+                    () -> "Too many changes: " + changes);
+            rows = save(rows, files);
+        }
+    }
+
+    @Test
+    void testRandomEditsWithDuplicates() {
+        Random random = new Random(0);
+        List<Row> rows = List.of();
+        List<Integer> files = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            edit(random, files, 20);
+            rows = save(rows, files);
+        }
+    }
+}
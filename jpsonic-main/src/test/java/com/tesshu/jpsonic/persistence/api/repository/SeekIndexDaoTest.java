@@ -0,0 +1,137 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.persistence.api.repository;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.tesshu.jpsonic.persistence.NeedsDB;
+import com.tesshu.jpsonic.persistence.api.entity.SeekIndex;
+import com.tesshu.jpsonic.persistence.base.GenericDaoHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@NeedsDB
+@SuppressWarnings("PMD.AvoidDuplicateLiterals") // In the testing class, it may be less readable.
+class SeekIndexDaoTest {
+
+    @Autowired
+    private GenericDaoHelper daoHelper;
+
+    @Autowired
+    private SeekIndexDao seekIndexDao;
+
+    @BeforeEach
+    void setUp() {
+        daoHelper.getJdbcTemplate().execute("delete from seek_index");
+    }
+
+    @Test
+    void testUpdateSeekIndex() {
+        assertNull(seekIndexDao.getSeekIndex("/music/song.flac"));
+
+        Instant changed = now();
+        byte[] points = { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 0 };
+        seekIndexDao.updateSeekIndex(new SeekIndex("/music/song.flac", changed, points));
+        SeekIndex index = seekIndexDao.getSeekIndex("/music/song.flac");
+        assertEquals(changed, index.getChanged());
+        assertArrayEquals(points, index.getPoints());
+
+        // Overwritten, not duplicated
+        Instant later = changed.plus(1, ChronoUnit.DAYS);
+        seekIndexDao.updateSeekIndex(new SeekIndex("/music/song.flac", later, null));
+        index = seekIndexDao.getSeekIndex("/music/song.flac");
+        assertEquals(later, index.getChanged());
+        assertNull(index.getPoints());
+        assertEquals(1, daoHelper
+            .getJdbcTemplate()
+            .queryForObject("select count(*) from seek_index", Integer.class));
+    }
+
+    /*
+     * The first seeks of a file by several players build the same entry at once.
+     * The ones that lose the race for the insert must not fail.
+     */
+    @Test
+    void testConcurrentUpdateSeekIndex() throws InterruptedException, ExecutionException {
+        int threads = 8;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String path = "/music/race" + round + ".flac";
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        seekIndexDao.updateSeekIndex(new SeekIndex(path, now(), null));
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                assertEquals(1, daoHelper
+                    .getJdbcTemplate()
+                    .queryForObject("select count(*) from seek_index where path=?",
+                            Integer.class, path));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUpdateLargestSeekIndex() {
+        // 500 points of an int time and a long offset, the largest table kept
+        ByteBuffer buffer = ByteBuffer.allocate(500 * (Integer.BYTES + Long.BYTES));
+        for (int i = 0; i < 500; i++) {
+            buffer.putInt(i * 480).putLong(i * 7_919L);
+        }
+        byte[] points = buffer.array();
+        seekIndexDao.updateSeekIndex(new SeekIndex("/music/long.flac", now(), points));
+        assertArrayEquals(points, seekIndexDao.getSeekIndex("/music/long.flac").getPoints());
+    }
+
+    @Test
+    void testExpunge() {
+        seekIndexDao.updateSeekIndex(new SeekIndex("/not/registered.mp3", now(), null));
+        seekIndexDao.expunge();
+        assertNull(seekIndexDao.getSeekIndex("/not/registered.mp3"));
+    }
+}
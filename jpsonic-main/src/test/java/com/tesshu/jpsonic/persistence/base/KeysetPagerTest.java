@@ -0,0 +1,129 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.tesshu.jpsonic.AbstractNeedsScan;
+import com.tesshu.jpsonic.persistence.api.entity.Album;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
+import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class KeysetPagerTest extends AbstractNeedsScan {
+
+    private static final List<MusicFolder> MUSIC_FOLDERS = List
+        .of(new MusicFolder(1, resolveBaseMediaPath("Sort/Pagination/Albums"), "Albums", true,
+                now(), 1, false));
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private AlbumDao albumDao;
+
+    @Autowired
+    private MediaFileDao mediaFileDao;
+
+    @Autowired
+    private SqlMetrics sqlMetrics;
+
+    @Override
+    public List<MusicFolder> getMusicFolders() {
+        return MUSIC_FOLDERS;
+    }
+
+    @BeforeEach
+    void setup() {
+        populateDatabaseOnlyOnce();
+        sqlMetrics.reset();
+    }
+
+    private boolean isSeeked() {
+        return sqlMetrics
+            .getStatements()
+            .stream()
+            .anyMatch(statement -> statement.getShape().contains(":seek_key_0"));
+    }
+
+    /*
+     * Pages through the listing as a client does, and compares the pages with the
+     * listing read at once.
+     */
+    private <T> void assertPages(BiFunction<Integer, Integer, List<T>> listing,
+            Function<T, Integer> toId) {
+        List<Integer> expected = listing
+            .apply(0, Integer.MAX_VALUE)
+            .stream()
+            .map(toId)
+            .toList();
+        assertTrue(expected.size() > PAGE_SIZE * 2);
+
+        List<Integer> actual = new ArrayList<>();
+        List<T> page;
+        do {
+            page = listing.apply(actual.size(), PAGE_SIZE);
+            page.stream().map(toId).forEach(actual::add);
+        } while (page.size() == PAGE_SIZE);
+        assertEquals(expected, actual);
+        assertTrue(isSeeked());
+
+        // Pages out of sequence are read by offset and can be repeated
+        for (int offset : new int[] { PAGE_SIZE * 2, PAGE_SIZE, PAGE_SIZE * 2, 1, 1 + PAGE_SIZE }) {
+            assertEquals(expected.subList(offset, offset + PAGE_SIZE),
+                    listing.apply(offset, PAGE_SIZE).stream().map(toId).toList());
+        }
+    }
+
+    @Test
+    void testAlbums() {
+        assertPages((offset, count) -> albumDao
+            .getAlphabeticalAlbums(offset, count, false, true, MUSIC_FOLDERS), Album::getId);
+        assertPages((offset, count) -> albumDao.getNewestAlbums(offset, count, MUSIC_FOLDERS),
+                Album::getId);
+    }
+
+    @Test
+    void testMediaFiles() {
+        assertPages((offset, count) -> mediaFileDao
+            .getAlphabeticalAlbums(offset, count, false, MUSIC_FOLDERS), MediaFile::getId);
+        assertPages((offset, count) -> mediaFileDao.getNewestAlbums(offset, count, MUSIC_FOLDERS),
+                MediaFile::getId);
+    }
+
+    @Test
+    void testChildren() {
+        MediaFile artist = mediaFileDao.getChildrenOf(MUSIC_FOLDERS, 0, 1).get(0);
+        assertPages((offset, count) -> mediaFileDao
+            .getChildrenOf(artist.getPathString(), offset, count, MediaFileDao.ChildOrder.BY_ALPHA),
+                MediaFile::getId);
+    }
+}
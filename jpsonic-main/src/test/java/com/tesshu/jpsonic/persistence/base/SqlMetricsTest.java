@@ -0,0 +1,139 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.persistence.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import com.tesshu.jpsonic.persistence.base.SqlMetrics.Statement;
+import org.junit.jupiter.api.Test;
+
+class SqlMetricsTest {
+
+    private static long ago(long millis) {
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void testToShape() {
+        assertEquals("select id from media_file where path=?", SqlMetrics.toShape("""
+                select id
+                from media_file
+                where path=?
+                """));
+        assertEquals("select id from media_file where id in (?) and present",
+                SqlMetrics.toShape("select id from media_file where id in (?, ?,?) and present"));
+        assertEquals("select * from album where name=? and year>? limit ? offset ?", SqlMetrics
+            .toShape("select * from album where name='it''s' and year>1999 limit 10 offset 20"));
+        // Identifiers and quoted names are kept
+        assertEquals("select id3, \"CURRENT\" from t2 where x=?",
+                SqlMetrics.toShape("select id3, \"CURRENT\" from t2 where x=-1"));
+    }
+
+    @Test
+    void testRecord() {
+        SqlMetrics metrics = new SqlMetrics(-1, false);
+        assertTrue(metrics.getStatements().isEmpty());
+
+        for (int i = 0; i < 98; i++) {
+            metrics.record("select 1 from a where id=?", ago(1), 1);
+        }
+        metrics.record("select 1 from a where id=?", ago(100), 1);
+        metrics.record("select 1 from a   where id=?", ago(200), 0);
+        metrics.record("update b set x=? where id in (?, ?)", ago(300), 2);
+
+        List<Statement> statements = metrics.getStatements();
+        assertEquals(2, statements.size());
+        Statement select = statements.get(0);
+        assertEquals("select ? from a where id=?", select.getShape());
+        assertEquals(100, select.getCount());
+        assertEquals(99, select.getRows());
+        assertTrue(select.getTotalMillis() >= 398);
+        assertTrue(select.getMeanMillis() >= 3.98);
+        assertTrue(select.getP50Millis() >= 1 && select.getP50Millis() < 2);
+        assertTrue(select.getP95Millis() < 2);
+        assertTrue(select.getP99Millis() >= 100 && select.getP99Millis() <= select.getMaxMillis());
+        assertTrue(select.getMaxMillis() >= 200);
+
+        Statement update = statements.get(1);
+        assertEquals("update b set x=? where id in (?)", update.getShape());
+        assertEquals(1, update.getCount());
+        assertEquals(2, update.getRows());
+        assertEquals(update.getMaxMillis(), update.getP50Millis());
+
+        assertEquals(1, metrics.getStatements(1).size());
+        metrics.reset();
+        assertTrue(metrics.getStatements().isEmpty());
+    }
+
+    @Test
+    void testMaxShapes() {
+        SqlMetrics metrics = new SqlMetrics(-1, false);
+        for (int i = 0; i < SqlMetrics.MAX_SHAPES + 10; i++) {
+            metrics.record("select c" + i + " from t", System.nanoTime(), 0);
+        }
+        List<Statement> statements = metrics.getStatements();
+        assertEquals(SqlMetrics.MAX_SHAPES + 1, statements.size());
+        assertEquals(10, statements
+            .stream()
+            .filter(s -> SqlMetrics.OTHERS.equals(s.getShape()))
+            .findFirst()
+            .get()
+            .getCount());
+    }
+
+    @Test
+    void testJmx() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SqlMetrics.OBJECT_NAME);
+
+        SqlMetrics disabled = new SqlMetrics(-1, false);
+        disabled.register();
+        assertFalse(server.isRegistered(name));
+
+        SqlMetrics metrics = new SqlMetrics(-1, true);
+        metrics.register();
+        try {
+            assertTrue(server.isRegistered(name));
+            metrics.record("select 1 from a", ago(1), 1);
+            CompositeData[] statements = (CompositeData[]) server.getAttribute(name, "Statements");
+            assertEquals(1, statements.length);
+            assertEquals("select ? from a", statements[0].get("shape"));
+            assertEquals(1L, statements[0].get("count"));
+
+            server.invoke(name, "reset", null, null);
+            assertTrue(metrics.getStatements().isEmpty());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
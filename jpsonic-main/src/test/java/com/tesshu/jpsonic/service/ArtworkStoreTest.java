@@ -0,0 +1,115 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.tesshu.jpsonic.infrastructure.core.NeedsHome;
+import com.tesshu.jpsonic.service.ArtworkStore.Original;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@NeedsHome
+class ArtworkStoreTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private CacheManager manager;
+    private ArtworkStore artworkStore;
+
+    @BeforeEach
+    void setup() throws URISyntaxException {
+        manager = CacheManager.newInstance(createPath("/ehcache.xml").toString());
+        Ehcache digestCache = manager.getCache("artworkDigestCache");
+        digestCache.removeAll();
+        artworkStore = new ArtworkStore(digestCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    private static Path createPath(String resourcePath) throws URISyntaxException {
+        return Path.of(ArtworkStoreTest.class.getResource(resourcePath).toURI());
+    }
+
+    private Path copy(String resourcePath, String fileName)
+            throws URISyntaxException, IOException {
+        return Files.copy(createPath(resourcePath), tempDir.resolve(fileName));
+    }
+
+    @Test
+    void testEmbedded() throws Exception {
+        Path song1 = copy("/MEDIAS/Metadata/tagger3/tagged/test.flac", "song1.flac");
+        Path song2 = copy("/MEDIAS/Metadata/tagger3/tagged/test.flac", "song2.flac");
+
+        Original original1 = artworkStore.getOriginal(song1, 1L).get();
+        assertEquals("image/png", original1.mimeType());
+        assertEquals(artworkStore.getDirectory().resolve(original1.digest()), original1.path());
+        assertEquals(original1.digest(),
+                DigestUtils.sha256Hex(Files.readAllBytes(original1.path())));
+
+        // The same content is stored once
+        Original original2 = artworkStore.getOriginal(song2, 1L).get();
+        assertEquals(original1, original2);
+
+        // Extracted again if the stored one has been removed
+        Files.delete(original1.path());
+        assertEquals(original1, artworkStore.getOriginal(song1, 1L).get());
+        assertTrue(Files.exists(original1.path()));
+    }
+
+    @Test
+    void testImage() throws Exception {
+        Path image = copy("/MEDIAS/Metadata/coverart/album.gif", "album.gif");
+        Path same = copy("/MEDIAS/Metadata/coverart/album.gif", "folder.gif");
+
+        Original original = artworkStore.getOriginal(image, 1L).get();
+        assertEquals(image, original.path());
+        assertEquals("image/gif", original.mimeType());
+        assertEquals(original.digest(), artworkStore.getOriginal(same, 1L).get().digest());
+
+        // The digest is reused until the modification time changes
+        Files.write(image, new byte[] { 1 });
+        assertEquals(original, artworkStore.getOriginal(image, 1L).get());
+        assertNotEquals(original.digest(), artworkStore.getOriginal(image, 2L).get().digest());
+    }
+
+    @Test
+    void testWithoutArtwork() throws Exception {
+        Path song = createPath("/MEDIAS/Metadata/tagger3/testdata/01.mp3");
+        assertEquals(Optional.empty(), artworkStore.getOriginal(song, 1L));
+    }
+}
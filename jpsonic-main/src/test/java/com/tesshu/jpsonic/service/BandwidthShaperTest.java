@@ -0,0 +1,150 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
+import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
+import com.tesshu.jpsonic.service.BandwidthShaper.Bucket;
+import com.tesshu.jpsonic.service.BandwidthShaper.Rate;
+import com.tesshu.jpsonic.service.BandwidthShaper.Transfer;
+import com.tesshu.jpsonic.service.BandwidthShaper.TransferType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BandwidthShaperTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private SettingsFacade settingsFacade;
+
+    @BeforeEach
+    void setup() {
+        settingsFacade = SettingsFacadeBuilder.create().build();
+    }
+
+    @Test
+    void testUnlimited() {
+        BandwidthShaper shaper = new BandwidthShaper(settingsFacade, 0, 0, 0, 0, 0);
+        Transfer transfer = shaper.open(TransferType.STREAM, "user");
+        assertFalse(transfer.isLimited());
+        long start = System.nanoTime();
+        for (int i = 0; i < 1024; i++) {
+            transfer.acquire(64 * 1024);
+        }
+        assertTrue(System.nanoTime() - start < SECOND);
+    }
+
+    @Test
+    void testOpen() {
+        BandwidthShaper shaper = new BandwidthShaper(settingsFacade, 0, 1024, 0, 0, 0);
+        assertTrue(shaper.open(TransferType.STREAM, "user").isLimited());
+        assertTrue(shaper.open(TransferType.UPNP, "user").isLimited());
+        assertFalse(shaper.open(TransferType.STREAM, null).isLimited());
+
+        // Inbound transfers are not charged to the user or the total
+        assertFalse(shaper.open(TransferType.PODCAST, "user").isLimited());
+        shaper = new BandwidthShaper(settingsFacade, 1024, 0, 0, 0, 0);
+        assertFalse(shaper.open(TransferType.UPLOAD, "user").isLimited());
+        assertTrue(shaper.open(TransferType.DOWNLOAD, null).isLimited());
+    }
+
+    @Test
+    void testBucket() {
+        // 1024 Kbps is 128 KiB per second, with a burst of half a second
+        Bucket bucket = new Bucket(1024);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(64 * 1024, now));
+        assertEquals(SECOND, bucket.reserve(128 * 1024, now));
+
+        // Later reservations queue behind the debt
+        assertEquals(SECOND, bucket.reserve(64 * 1024, now + SECOND / 2));
+
+        // The debt is repaid over time, but tokens do not exceed the burst
+        assertEquals(0, bucket.reserve(64 * 1024, now + SECOND * 10));
+        assertEquals(SECOND / 2, bucket.reserve(64 * 1024, now + SECOND * 10));
+
+        bucket.setLimit(0);
+        assertFalse(bucket.isLimited());
+        assertEquals(0, bucket.reserve(Long.MAX_VALUE / 1024, now));
+    }
+
+    @Test
+    void testPacing() {
+        BandwidthShaper shaper = new BandwidthShaper(settingsFacade, 0, 0, 1024, 0, 0);
+        Transfer first = shaper.open(TransferType.STREAM, "user1");
+        Transfer second = shaper.open(TransferType.STREAM, "user2");
+        long start = System.nanoTime();
+        for (int i = 0; i < 8; i++) {
+            first.acquire(16 * 1024);
+            second.acquire(16 * 1024);
+        }
+        // 256 KiB in total, of which the first 64 KiB are the burst
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= SECOND * 3 / 2 - TimeUnit.MILLISECONDS.toNanos(50), "" + elapsed);
+        assertTrue(elapsed < SECOND * 3, "" + elapsed);
+    }
+
+    @Test
+    void testRate() {
+        Bucket bucket = new Bucket(0);
+        long now = System.nanoTime();
+        bucket.reserve(2000, now);
+        assertEquals(0, bucket.getRate(now));
+        bucket.reserve(500, now + SECOND * 2);
+        long rate = bucket.getRate(now + SECOND * 2);
+        assertTrue(rate > 900 && rate <= 1000, "" + rate);
+
+        // Nothing has passed recently
+        assertEquals(0, bucket.getRate(now + SECOND * 10));
+    }
+
+    @Test
+    void testGetRates() {
+        BandwidthShaper shaper = new BandwidthShaper(settingsFacade, 2048, 512, 0, 0, 0);
+        shaper.open(TransferType.STREAM, "user2").acquire(1);
+        shaper.open(TransferType.DOWNLOAD, "user1").acquire(1);
+        List<Rate> rates = shaper.getRates();
+        assertEquals(1 + TransferType.values().length + 2, rates.size());
+
+        Rate total = rates.get(0);
+        assertEquals(Rate.Scope.TOTAL, total.getScope());
+        assertNull(total.getName());
+        assertEquals(2048, total.getLimitKbps());
+
+        Rate stream = rates.get(1);
+        assertEquals(Rate.Scope.TYPE, stream.getScope());
+        assertEquals(TransferType.STREAM.name(), stream.getName());
+        assertEquals(0, stream.getLimitKbps());
+
+        Rate user = rates.get(rates.size() - 2);
+        assertEquals(Rate.Scope.USER, user.getScope());
+        assertEquals("user1", user.getName());
+        assertEquals(512, user.getLimitKbps());
+        assertEquals("user2", rates.get(rates.size() - 1).getName());
+    }
+}
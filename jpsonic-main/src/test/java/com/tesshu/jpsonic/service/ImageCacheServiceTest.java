@@ -0,0 +1,131 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tesshu.jpsonic.service.ImageCacheService.Usage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+class ImageCacheServiceTest {
+
+    private static final int FILE_SIZE = 300 * 1024;
+
+    @TempDir
+    private Path tempDir;
+
+    private ImageCacheService createService(long quotaMB, int retentionDays) {
+        return new ImageCacheService(new TaskExecutorAdapter(Runnable::run), quotaMB,
+                retentionDays) {
+            @Override
+            Path getRoot() {
+                return tempDir;
+            }
+        };
+    }
+
+    private Path createFile(String dir, String name, long daysAgo) throws IOException {
+        Path file = Files.createDirectories(tempDir.resolve(dir)).resolve(name);
+        Files.write(file, new byte[FILE_SIZE]);
+        FileTime time = FileTime
+            .fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo));
+        Files.getFileAttributeView(file, BasicFileAttributeView.class).setTimes(time, time, null);
+        return file;
+    }
+
+    @Test
+    void testEvict() throws IOException {
+        ImageCacheService service = createService(1, 0);
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            files.add(createFile("160", i + ".jpeg", 10 - i));
+        }
+        // The oldest one has been accessed since
+        service.touch(files.get(0));
+
+        Usage usage = service.doMaintain(false);
+        assertEquals(2, usage.evicted());
+        assertEquals(3, usage.files());
+        assertEquals(3L * FILE_SIZE, usage.bytes());
+        assertEquals(1024L * 1024, usage.quota());
+        assertTrue(Files.exists(files.get(0)));
+        assertFalse(Files.exists(files.get(1)));
+        assertFalse(Files.exists(files.get(2)));
+        assertTrue(Files.exists(files.get(3)));
+        assertTrue(Files.exists(files.get(4)));
+        assertEquals(usage, service.getUsage().get());
+
+        // Within the quota
+        assertEquals(0, service.doMaintain(false).evicted());
+    }
+
+    @Test
+    void testCleanUp() throws IOException {
+        ImageCacheService service = createService(0, 30);
+        Path stale = createFile("160", "stale.jpeg", 60);
+        Path live = createFile("160", "live.jpeg", 1);
+        Path staleSize = createFile("999", "stale.jpeg", 60);
+        FileTime old = FileTime
+            .fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60));
+        Files.setLastModifiedTime(staleSize.getParent(), old);
+
+        // Not bounded, and stale files are only removed by the clean up
+        assertEquals(0, service.doMaintain(false).evicted());
+
+        service.cleanUp();
+        Usage usage = service.getUsage().get();
+        assertEquals(2, usage.evicted());
+        assertEquals(1, usage.files());
+        assertEquals(0, usage.quota());
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(live));
+        assertTrue(Files.exists(live.getParent()));
+        // The directory of a size no longer requested
+        assertFalse(Files.exists(staleSize.getParent()));
+    }
+
+    @Test
+    void testWritten() throws IOException {
+        ImageCacheService service = createService(1, 0);
+        assertTrue(service.getUsage().isEmpty());
+
+        // Just written files are not evicted
+        Path file = Files.createDirectories(tempDir.resolve("160")).resolve("new.jpeg");
+        Files.write(file, new byte[4 * FILE_SIZE]);
+        service.written(file);
+        Usage usage = service.getUsage().get();
+        assertEquals(0, usage.evicted());
+        assertEquals(4L * FILE_SIZE, usage.bytes());
+        assertTrue(Files.exists(file));
+    }
+}
@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -37,7 +38,9 @@ import com.tesshu.jpsonic.infrastructure.filesystem.ScanningExclusionPolicy;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.service.language.JpsonicComparators;
 import org.junit.jupiter.api.BeforeEach;
@@ -52,6 +55,7 @@ class MediaFileServiceTest {
 
     private LibraryAccessPolicy libraryAccessPolicy;
     private MediaFileDao mediaFileDao;
+    private CoverArtIndexDao coverArtIndexDao;
     private MediaFileService mediaFileService;
 
     @BeforeEach
@@ -64,10 +68,11 @@ class MediaFileServiceTest {
             .build();
         libraryAccessPolicy = mock(LibraryAccessPolicy.class);
         mediaFileDao = mock(MediaFileDao.class);
+        coverArtIndexDao = mock(CoverArtIndexDao.class);
         mediaFileService = new MediaFileService(settingsFacade,
                 new ScanningExclusionPolicy(settingsFacade), mock(MusicFolderService.class),
                 libraryAccessPolicy, mock(MediaFileCache.class), mediaFileDao,
-                mock(JpsonicComparators.class));
+                mock(JpsonicComparators.class), coverArtIndexDao);
         Mockito.when(libraryAccessPolicy.isReadAllowed(Mockito.any(Path.class))).thenReturn(true);
     }
 
@@ -139,6 +144,33 @@ class MediaFileServiceTest {
             Path containsDirOnly = createPath("/MEDIAS/Metadata/tagger3");
             assertTrue(mediaFileService.findCoverArt(containsDirOnly).isEmpty());
         }
+
+        @Test
+        void testIndexed() throws URISyntaxException {
+            Path dir = createPath("/MEDIAS/Metadata/coverart");
+            Path coverArt = createPath("/MEDIAS/Metadata/coverart/cover.jpg");
+
+            // Not indexed yet
+            assertTrue(mediaFileService.findCoverArt(dir).isPresent());
+
+            // The index is trusted as is, the scan keeps it up to date
+            Mockito
+                .when(coverArtIndexDao.getCoverArtIndex(dir.toString()))
+                .thenReturn(new CoverArtIndex(dir.toString(), coverArt.toString(),
+                        Instant.EPOCH, null));
+            assertEquals(coverArt, mediaFileService.findCoverArt(dir).get());
+            Mockito
+                .when(coverArtIndexDao.getCoverArtIndex(dir.toString()))
+                .thenReturn(new CoverArtIndex(dir.toString(), null, Instant.EPOCH, null));
+            assertTrue(mediaFileService.findCoverArt(dir).isEmpty());
+
+            // Not on the disk, nothing to stat
+            Path removed = dir.resolve("removed");
+            Mockito
+                .when(coverArtIndexDao.getCoverArtIndex(removed.toString()))
+                .thenReturn(new CoverArtIndex(removed.toString(), null, Instant.EPOCH, null));
+            assertTrue(mediaFileService.findCoverArt(removed).isEmpty());
+        }
     }
 
     @Test
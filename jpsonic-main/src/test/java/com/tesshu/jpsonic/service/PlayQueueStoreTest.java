@@ -0,0 +1,215 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.service;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import com.tesshu.jpsonic.persistence.api.repository.PlayQueueDao;
+import com.tesshu.jpsonic.persistence.result.SavedPlayQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.scheduling.TaskScheduler;
+
+@SuppressWarnings("unchecked")
+class PlayQueueStoreTest {
+
+    private PlayQueueDao playQueueDao;
+    private TaskScheduler taskScheduler;
+    private PlayQueueStore playQueueStore;
+
+    @BeforeEach
+    void setup() {
+        playQueueDao = mock(PlayQueueDao.class);
+        taskScheduler = mock(TaskScheduler.class);
+        playQueueStore = new PlayQueueStore(playQueueDao, taskScheduler, 10);
+    }
+
+    private static SavedPlayQueue createPlayQueue(String username, Integer current,
+            long position) {
+        return new SavedPlayQueue(null, username, new ArrayList<>(List.of(1, 2, 3)), current,
+                position, now(), "client");
+    }
+
+    @Test
+    void testSavePlayQueue() {
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+        SavedPlayQueue latest = createPlayQueue("user1", 2, 2_000L);
+        playQueueStore.savePlayQueue(latest);
+
+        // Answered from memory, before anything is written
+        SavedPlayQueue playQueue = playQueueStore.getPlayQueue("user1");
+        assertEquals(2, playQueue.getCurrentMediaFileId());
+        assertEquals(2_000L, playQueue.getPositionMillis());
+        assertEquals(List.of(1, 2, 3), playQueue.getMediaFileIds());
+        verify(playQueueDao, never()).getPlayQueue(any());
+        verify(playQueueDao, never()).savePlayQueues(any());
+
+        // Not affected by changes of the caller
+        latest.getMediaFileIds().clear();
+        playQueue.setCurrentMediaFileId(3);
+        assertEquals(List.of(1, 2, 3), playQueueStore.getPlayQueue("user1").getMediaFileIds());
+        assertEquals(2, playQueueStore.getPlayQueue("user1").getCurrentMediaFileId());
+    }
+
+    @Test
+    void testGetPlayQueue() {
+        assertNull(playQueueStore.getPlayQueue("user1"));
+        verify(playQueueDao, times(1)).getPlayQueue("user1");
+
+        when(playQueueDao.getPlayQueue("user2")).thenReturn(createPlayQueue("user2", 3, 0L));
+        assertEquals(3, playQueueStore.getPlayQueue("user2").getCurrentMediaFileId());
+        assertEquals(3, playQueueStore.getPlayQueue("user2").getCurrentMediaFileId());
+        verify(playQueueDao, times(1)).getPlayQueue("user2");
+    }
+
+    @Test
+    void testFlush() {
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 2, 2_000L));
+        playQueueStore.savePlayQueue(createPlayQueue("user2", 3, 3_000L));
+        assertEquals(2, playQueueStore.getPendingCount());
+
+        playQueueStore.flush();
+        ArgumentCaptor<List<SavedPlayQueue>> captor = ArgumentCaptor.forClass(List.class);
+        verify(playQueueDao, times(1)).savePlayQueues(captor.capture());
+        List<SavedPlayQueue> written = captor.getValue();
+        assertEquals(2, written.size());
+        SavedPlayQueue user1 = written
+            .stream()
+            .filter(q -> "user1".equals(q.getUsername()))
+            .findFirst()
+            .get();
+        assertEquals(2, user1.getCurrentMediaFileId());
+        assertEquals(2_000L, user1.getPositionMillis());
+        assertEquals(0, playQueueStore.getPendingCount());
+
+        // Nothing is written if nothing was saved
+        playQueueStore.flush();
+        verify(playQueueDao, times(1)).savePlayQueues(any());
+    }
+
+    @Test
+    void testRetry() {
+        doThrow(new DataIntegrityViolationException("batch"))
+            .when(playQueueDao)
+            .savePlayQueues(any());
+        doThrow(new QueryTimeoutException("user2"))
+            .when(playQueueDao)
+            .savePlayQueue(ArgumentMatchers.argThat(q -> "user2".equals(q.getUsername())));
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+        playQueueStore.savePlayQueue(createPlayQueue("user2", 2, 2_000L));
+
+        // The queue that failed alone with a transient error is kept for the next flush
+        playQueueStore.flush();
+        verify(playQueueDao, times(2)).savePlayQueue(any());
+        assertEquals(1, playQueueStore.getPendingCount());
+        assertEquals(2, playQueueStore.getPlayQueue("user2").getCurrentMediaFileId());
+
+        Mockito.reset(playQueueDao);
+        playQueueStore.flush();
+        verify(playQueueDao, times(1)).savePlayQueues(any());
+        assertEquals(0, playQueueStore.getPendingCount());
+    }
+
+    @Test
+    void testDrop() {
+        doThrow(new DataIntegrityViolationException("batch"))
+            .when(playQueueDao)
+            .savePlayQueues(any());
+        doThrow(new DataIntegrityViolationException("user1"))
+            .when(playQueueDao)
+            .savePlayQueue(any());
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+
+        // Retrying would fail forever
+        playQueueStore.flush();
+        assertEquals(0, playQueueStore.getPendingCount());
+        assertEquals(1, playQueueStore.getPlayQueue("user1").getCurrentMediaFileId());
+        playQueueStore.flush();
+        verify(playQueueDao, times(1)).savePlayQueue(any());
+    }
+
+    @Test
+    void testUpdateId() {
+        doAnswer(invocation -> {
+            List<SavedPlayQueue> written = invocation.getArgument(0);
+            written.forEach(q -> q.setId("user1".equals(q.getUsername()) ? 10 : 20));
+            return null;
+        }).when(playQueueDao).savePlayQueues(any());
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+        playQueueStore.savePlayQueue(createPlayQueue("user2", 2, 2_000L));
+        assertNull(playQueueStore.getPlayQueue("user1").getId());
+
+        // The generated id is kept in memory, not only in the written copy
+        playQueueStore.flush();
+        assertEquals(10, playQueueStore.getPlayQueue("user1").getId());
+        assertEquals(20, playQueueStore.getPlayQueue("user2").getId());
+
+        // Also when written one by one
+        Mockito.reset(playQueueDao);
+        doThrow(new QueryTimeoutException("batch")).when(playQueueDao).savePlayQueues(any());
+        doAnswer(invocation -> {
+            invocation.<SavedPlayQueue> getArgument(0).setId(30);
+            return null;
+        }).when(playQueueDao).savePlayQueue(any());
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 3, 3_000L));
+        playQueueStore.flush();
+        assertEquals(30, playQueueStore.getPlayQueue("user1").getId());
+    }
+
+    @Test
+    void testDestroy() {
+        ScheduledFuture<?> flushTask = mock(ScheduledFuture.class);
+        Mockito
+            .when(taskScheduler.scheduleWithFixedDelay(any(Runnable.class), any(Duration.class)))
+            .thenAnswer(invocation -> flushTask);
+        playQueueStore.init();
+        verify(taskScheduler, times(1))
+            .scheduleWithFixedDelay(any(Runnable.class),
+                    ArgumentMatchers.eq(Duration.ofSeconds(10)));
+
+        playQueueStore.savePlayQueue(createPlayQueue("user1", 1, 1_000L));
+        playQueueStore.destroy();
+        verify(flushTask, times(1)).cancel(false);
+        verify(playQueueDao, times(1)).savePlayQueues(any());
+        assertEquals(0, playQueueStore.getPendingCount());
+    }
+}
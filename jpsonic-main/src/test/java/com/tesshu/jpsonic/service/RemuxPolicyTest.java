@@ -0,0 +1,269 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import com.tesshu.jpsonic.infrastructure.core.NeedsHome;
+import com.tesshu.jpsonic.infrastructure.core.NeedsTranscode;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
+import com.tesshu.jpsonic.persistence.api.entity.Transcoding;
+import com.tesshu.jpsonic.service.RemuxPolicy.Container;
+import com.tesshu.jpsonic.service.metadata.FFprobe;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+@SuppressWarnings("PMD.TooManyStaticImports")
+class RemuxPolicyTest {
+
+    private static final Transcoding TO_AAC = new Transcoding(null, "aac", "m4a", "aac",
+            "ffmpeg -i %s -map 0:0 -b:a %bk -v 0 -f adts -", null, null, true);
+
+    private CacheManager manager;
+    private Ehcache audioCodecCache;
+    private FFprobe ffprobe;
+    private RemuxPolicy remuxPolicy;
+
+    @BeforeEach
+    void setup() throws URISyntaxException {
+        Path path = Path.of(RemuxPolicyTest.class.getResource("/ehcache.xml").toURI());
+        manager = CacheManager.newInstance(path.toString());
+        audioCodecCache = manager.getCache("audioCodecCache");
+        audioCodecCache.removeAll();
+        ffprobe = mock(FFprobe.class);
+        remuxPolicy = new RemuxPolicy(ffprobe, audioCodecCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    private MediaFile createMediaFile(String pathString, String format) {
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setPathString(pathString);
+        mediaFile.setFormat(format);
+        mediaFile.setMediaType(MediaType.MUSIC);
+        mediaFile.setChanged(Instant.ofEpochMilli(1_000));
+        return mediaFile;
+    }
+
+    @Test
+    void testContainer() {
+        assertEquals(Container.AAC, Container.of("aac"));
+        assertEquals(Container.M4A, Container.of("M4A"));
+        assertNull(Container.of("wav"));
+        assertNull(Container.of(null));
+
+        assertTrue(Container.M4A.accepts("alac"));
+        assertTrue(Container.OGG.accepts("flac"));
+        assertFalse(Container.MP3.accepts("aac"));
+        assertEquals("ffmpeg -i %s -map 0:a:0 -c:a copy -v 0 -f adts -",
+                Container.AAC.createCommand());
+    }
+
+    @Test
+    void testGetRemux() {
+        MediaFile mediaFile = createMediaFile("/music/song.m4a", "m4a");
+        Mockito.when(ffprobe.getAudioCodec(mediaFile.toPath())).thenReturn("aac");
+
+        Transcoding remux = remuxPolicy.getRemux(mediaFile, TO_AAC);
+        assertNotNull(remux);
+        assertEquals(RemuxPolicy.NAME, remux.getName());
+        assertEquals("m4a", remux.getSourceFormats());
+        assertEquals("aac", remux.getTargetFormat());
+        assertEquals(Container.AAC.createCommand(), remux.getStep1());
+
+        // The codec has to be converted
+        assertNull(remuxPolicy
+            .getRemux(mediaFile, new Transcoding(null, "mp3", "m4a", "mp3", "", null, null, true)));
+
+        // Unknown container
+        assertNull(remuxPolicy
+            .getRemux(mediaFile, new Transcoding(null, "wav", "m4a", "wav", "", null, null, true)));
+
+        // Video is always transcoded
+        mediaFile.setMediaType(MediaType.VIDEO);
+        assertNull(remuxPolicy.getRemux(mediaFile, TO_AAC));
+    }
+
+    @Test
+    void testGetAudioCodec() {
+        MediaFile mediaFile = createMediaFile("/music/song.m4a", "m4a");
+        Mockito.when(ffprobe.getAudioCodec(mediaFile.toPath())).thenReturn("alac");
+
+        assertEquals("alac", remuxPolicy.getAudioCodec(mediaFile));
+        assertEquals("alac", remuxPolicy.getAudioCodec(mediaFile));
+        Mockito.verify(ffprobe, Mockito.times(1)).getAudioCodec(mediaFile.toPath());
+
+        // Probed again when the file is changed
+        mediaFile.setChanged(Instant.ofEpochMilli(2_000));
+        assertEquals("alac", remuxPolicy.getAudioCodec(mediaFile));
+        Mockito.verify(ffprobe, Mockito.times(2)).getAudioCodec(mediaFile.toPath());
+
+        // Failures are also cached
+        MediaFile unknown = createMediaFile("/music/unknown.m4a", "m4a");
+        assertNull(remuxPolicy.getAudioCodec(unknown));
+        assertNull(remuxPolicy.getAudioCodec(unknown));
+        Mockito.verify(ffprobe, Mockito.times(1)).getAudioCodec(unknown.toPath());
+    }
+
+    /*
+     * Compares the CPU time needed per hour of audio between the remux and the
+     * default transcodings. The CPU time is reported by ffmpeg itself.
+     */
+    @Nested
+    @NeedsHome
+    @NeedsTranscode
+    @EnabledOnOs(OS.LINUX)
+    class BenchmarkTest {
+
+        private static final int DURATION_SECONDS = 300;
+        private static final String FLAC_COMMAND = "ffmpeg -i %s -map 0:0 -v 0 -sample_fmt s16 -vn -ar 44100 -ac 2 -acodec flac -f flac -";
+        private static final Pattern BENCH = Pattern
+            .compile("bench: utime=([0-9.]+)s stime=([0-9.]+)s");
+
+        @TempDir
+        private Path tempDir;
+
+        private String ffmpeg() {
+            return EnvironmentProvider
+                .getInstance()
+                .getTranscodeDirectory()
+                .resolve("ffmpeg")
+                .toString();
+        }
+
+        private Path createSource(String name, String... encoder) throws IOException {
+            Path source = tempDir.resolve(name);
+            List<String> command = new ArrayList<>(List
+                .of(ffmpeg(), "-v", "0", "-f", "lavfi", "-i",
+                        "sine=frequency=440:duration=" + DURATION_SECONDS));
+            command.addAll(Arrays.asList(encoder));
+            command.add(source.toString());
+            run(command);
+            return source;
+        }
+
+        /*
+         * Runs the command of a transcoding with -benchmark, and returns the CPU
+         * seconds consumed per hour of audio.
+         */
+        private double cpuPerHour(String step, Path source) throws IOException {
+            List<String> command = new ArrayList<>();
+            for (String arg : step.replace("%b", "128").split(" ")) {
+                command.add("%s".equals(arg) ? source.toString() : arg);
+            }
+            command.set(0, ffmpeg());
+            int verbose = command.indexOf("-v");
+            command.set(verbose + 1, "info");
+            command.addAll(1, List.of("-benchmark", "-nostats"));
+            String log = run(command);
+
+            Matcher matcher = BENCH.matcher(log);
+            assertTrue(matcher.find(), log);
+            double cpu = Double.parseDouble(matcher.group(1))
+                    + Double.parseDouble(matcher.group(2));
+            return cpu * 3600 / DURATION_SECONDS;
+        }
+
+        private String run(List<String> command) throws IOException {
+            Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            StringBuilder log = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    log.append(line).append('\n');
+                }
+            }
+            try {
+                assertEquals(0, process.waitFor(), log.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return log.toString();
+        }
+
+        @Test
+        void testBenchmark() throws IOException {
+            Path aac = createSource("aac.m4a", "-c:a", "aac", "-b:a", "192k");
+            double aacRemux = cpuPerHour(Container.AAC.createCommand(), aac);
+            double aacTranscode = cpuPerHour("ffmpeg -i %s -map 0:0 -b:a %bk -v 0 -f mp3 -", aac);
+
+            Path flac = createSource("flac.oga", "-c:a", "flac", "-f", "ogg");
+            double flacRemux = cpuPerHour(Container.FLAC.createCommand(), flac);
+            double flacTranscode = cpuPerHour(FLAC_COMMAND, flac);
+
+            // CPU milliseconds per hour of audio
+            MetricRegistry metrics = new MetricRegistry();
+            BiConsumer<String, Double> report = (name, cpu) -> metrics
+                .histogram(MetricRegistry.name(RemuxPolicyTest.class, name, "cpuMillisPerHour"))
+                .update(Math.round(cpu * 1000));
+            report.accept("m4aToAac.remux", aacRemux);
+            report.accept("m4aToMp3.transcode", aacTranscode);
+            report.accept("ogaToFlac.remux", flacRemux);
+            report.accept("ogaToFlac.transcode", flacTranscode);
+            try (ConsoleReporter reporter = ConsoleReporter
+                .forRegistry(metrics)
+                .convertRatesTo(TimeUnit.SECONDS)
+                .convertDurationsTo(TimeUnit.MILLISECONDS)
+                .build()) {
+                reporter.report();
+            }
+
+            assertTrue(aacRemux < aacTranscode);
+            assertTrue(flacRemux < flacTranscode);
+        }
+    }
+}
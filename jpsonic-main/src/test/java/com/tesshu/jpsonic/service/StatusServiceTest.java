@@ -25,10 +25,23 @@ import static com.tesshu.jpsonic.util.PlayerUtils.now;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 
 import com.tesshu.jpsonic.infrastructure.core.NeedsHome;
 import com.tesshu.jpsonic.persistence.api.entity.Player;
@@ -128,6 +141,127 @@ class StatusServiceTest {
                 "Wrong list of statuses.");
     }
 
+    @Test
+    void testIsAliveStream() {
+        StatusService service = new StatusService(null, null);
+        Player player = new Player();
+        player.setId(2);
+        assertTrue(service.isAliveStream(player));
+
+        TransferStatus status = service.createStreamStatus(player);
+        assertTrue(service.isAliveStream(player));
+        status.terminate();
+        assertFalse(service.isAliveStream(player));
+
+        // The termination is consumed by the stream that noticed it
+        assertTrue(service.isAliveStream(player));
+
+        service.removeStreamStatus(status);
+        status.terminate();
+        assertTrue(service.isAliveStream(player));
+    }
+
+    @Test
+    void testGetTransferStatus() {
+        StatusService service = new StatusService(null, null);
+        TransferStatus stream = service.createStreamStatus(player1);
+        TransferStatus download = service.createDownloadStatus(player1);
+        TransferStatus upload = service.createUploadStatus(player1);
+        assertEquals(stream, service.getTransferStatus(stream.getId()));
+        assertEquals(download, service.getTransferStatus(download.getId()));
+        assertEquals(upload, service.getTransferStatus(upload.getId()));
+
+        // Inactive streams remain visible until replaced
+        service.removeStreamStatus(stream);
+        assertEquals(stream, service.getTransferStatus(stream.getId()));
+
+        service.removeDownloadStatus(download);
+        service.removeUploadStatus(upload);
+        assertNull(service.getTransferStatus(download.getId()));
+        assertNull(service.getTransferStatus(upload.getId()));
+        assertNull(service.getTransferStatus(-1));
+    }
+
+    /*
+     * 200 streams write concurrently, each checking that it is alive after every
+     * chunk as the streaming loop does, while the status page lists the transfers
+     * and draws their charts.
+     */
+    @Test
+    void testBenchmark() throws InterruptedException, ExecutionException {
+        int transfers = 200;
+        int chunks = 5_000;
+        int chunkSize = 4096;
+        StatusService service = new StatusService(null, null);
+
+        MetricRegistry metrics = new MetricRegistry();
+        Timer writeTimer = metrics.timer(MetricRegistry.name(StatusServiceTest.class, "write"));
+        Timer pageTimer = metrics.timer(MetricRegistry.name(StatusServiceTest.class, "page"));
+
+        List<Player> players = new ArrayList<>();
+        List<TransferStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            Player player = new Player();
+            player.setId(1000 + i);
+            players.add(player);
+            statuses.add(service.createStreamStatus(player));
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(transfers + 1);
+        try {
+            Future<?> page = executor.submit(() -> {
+                while (writing.get()) {
+                    try (Timer.Context context = pageTimer.time()) {
+                        for (TransferStatus status : service.getAllStreamStatuses()) {
+                            service.getTransferStatus(status.getId()).getHistory();
+                        }
+                    }
+                }
+            });
+            List<Future<Boolean>> writers = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                Player player = players.get(i);
+                TransferStatus status = statuses.get(i);
+                writers.add(executor.submit(() -> {
+                    boolean alive = true;
+                    for (int j = 0; j < chunks && alive; j++) {
+                        try (Timer.Context context = writeTimer.time()) {
+                            status.addBytesTransfered(chunkSize);
+                            alive = service.isAliveStream(player);
+                        }
+                    }
+                    return alive;
+                }));
+            }
+            for (Future<Boolean> writer : writers) {
+                assertTrue(writer.get());
+            }
+            writing.set(false);
+            page.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        ConsoleReporter.Builder builder = ConsoleReporter
+            .forRegistry(metrics)
+            .convertRatesTo(TimeUnit.SECONDS)
+            .convertDurationsTo(TimeUnit.MICROSECONDS);
+        try (ConsoleReporter reporter = builder.build()) {
+            reporter.report();
+        }
+
+        assertEquals((long) transfers * chunks, writeTimer.getCount());
+        assertEquals(transfers, service.getAllStreamStatuses().size());
+        for (TransferStatus status : statuses) {
+            assertEquals((long) chunks * chunkSize, status.getBytesTransfered());
+            assertFalse(status.getHistory().isEmpty());
+            service.removeStreamStatus(status);
+        }
+        assertEquals(transfers, service.getAllStreamStatuses().size());
+        assertTrue(service.getAllStreamStatuses().stream().noneMatch(TransferStatus::isActive));
+    }
+
     @Nested
     class PlayStatusTest {
 
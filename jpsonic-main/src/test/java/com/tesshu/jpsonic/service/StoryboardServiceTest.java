@@ -0,0 +1,201 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import com.tesshu.jpsonic.infrastructure.core.NeedsHome;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
+import com.tesshu.jpsonic.service.StoryboardService.Layout;
+import com.tesshu.jpsonic.service.metadata.FFmpeg;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+@SuppressWarnings("PMD.TooManyStaticImports")
+class StoryboardServiceTest {
+
+    private FFmpeg ffmpeg;
+    private StoryboardService storyboardService;
+
+    @BeforeEach
+    void setup() {
+        ffmpeg = mock(FFmpeg.class);
+        storyboardService = new StoryboardService(ffmpeg, new TaskExecutorAdapter(Runnable::run));
+    }
+
+    private static MediaFile createVideo(String pathString, Integer duration) {
+        MediaFile video = new MediaFile();
+        video.setId(99);
+        video.setPathString(pathString);
+        video.setMediaType(MediaType.VIDEO);
+        video.setDurationSeconds(duration);
+        video.setWidth(1920);
+        video.setHeight(1080);
+        video.setChanged(Instant.ofEpochMilli(1_000));
+        return video;
+    }
+
+    @Test
+    void testLayoutOf() {
+        assertNull(StoryboardService.layoutOf(createVideo("/video.mp4", null)));
+        assertNull(StoryboardService.layoutOf(createVideo("/video.mp4", 0)));
+
+        // Short videos have a tile every 10 seconds
+        Layout layout = StoryboardService.layoutOf(createVideo("/video.mp4", 95));
+        assertEquals(new Layout(95, 10, 10, 10, 160, 90), layout);
+        assertEquals(1, layout.rows());
+
+        layout = StoryboardService.layoutOf(createVideo("/video.mp4", 5));
+        assertEquals(new Layout(5, 10, 1, 1, 160, 90), layout);
+
+        // The number of tiles is limited by widening the interval
+        layout = StoryboardService.layoutOf(createVideo("/video.mp4", 2 * 60 * 60 + 1));
+        assertEquals(73, layout.interval());
+        assertEquals(99, layout.count());
+        assertEquals(10, layout.rows());
+
+        // The height follows the aspect ratio
+        MediaFile video = createVideo("/video.mp4", 600);
+        video.setWidth(640);
+        video.setHeight(480);
+        assertEquals(120, StoryboardService.layoutOf(video).tileHeight());
+        video.setWidth(null);
+        assertEquals(StoryboardService.DEFAULT_TILE_HEIGHT,
+                StoryboardService.layoutOf(video).tileHeight());
+    }
+
+    @Test
+    void testCreateTrack() {
+        Layout layout = StoryboardService.layoutOf(createVideo("/video.mp4", 3_605));
+        String track = StoryboardService.createTrack(layout, "storyboard.view?id=99");
+        assertTrue(track.startsWith("""
+                WEBVTT
+
+                00:00:00.000 --> 00:00:37.000
+                storyboard.view?id=99#xywh=0,0,160,90
+
+                00:00:37.000 --> 00:01:14.000
+                storyboard.view?id=99#xywh=160,0,160,90
+                """));
+        assertTrue(track.contains("""
+                00:05:33.000 --> 00:06:10.000
+                storyboard.view?id=99#xywh=1440,0,160,90
+
+                00:06:10.000 --> 00:06:47.000
+                storyboard.view?id=99#xywh=0,90,160,90
+                """));
+        assertTrue(track.endsWith("""
+                00:59:49.000 --> 01:00:05.000
+                storyboard.view?id=99#xywh=1120,810,160,90
+                """));
+    }
+
+    @Nested
+    @NeedsHome
+    class CreateTest {
+
+        @TempDir
+        private Path tempDir;
+
+        private void answerSprite(boolean succeeded) {
+            Mockito
+                .when(ffmpeg
+                    .createStoryboard(ArgumentMatchers.any(Path.class),
+                            ArgumentMatchers.any(Path.class), ArgumentMatchers.anyInt(),
+                            ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+                            ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt()))
+                .thenAnswer(invocation -> {
+                    if (succeeded) {
+                        Files.write(invocation.getArgument(1, Path.class), new byte[] { 1 });
+                    }
+                    return succeeded;
+                });
+        }
+
+        @Test
+        void testCreate() throws IOException {
+            MediaFile video = createVideo(tempDir.resolve("video.mp4").toString(), 600);
+
+            answerSprite(false);
+            assertFalse(storyboardService.create(video));
+            assertNull(storyboardService.getTrack(video));
+            assertNull(storyboardService.getSprite(video));
+
+            answerSprite(true);
+            assertTrue(storyboardService.create(video));
+            Path track = storyboardService.getTrack(video);
+            assertNotNull(track);
+            assertNotNull(storyboardService.getSprite(video));
+            assertEquals(StoryboardService
+                .createTrack(StoryboardService.layoutOf(video), "storyboard.view?id=99"),
+                    Files.readString(track));
+            Mockito
+                .verify(ffmpeg)
+                .createStoryboard(ArgumentMatchers.eq(video.toPath()),
+                        ArgumentMatchers.any(Path.class), ArgumentMatchers.eq(10),
+                        ArgumentMatchers.eq(160), ArgumentMatchers.eq(90),
+                        ArgumentMatchers.eq(10), ArgumentMatchers.eq(6));
+
+            // Outdated once the video has changed
+            video.setChanged(Instant.now().plusSeconds(60));
+            assertNull(storyboardService.getTrack(video));
+            assertNull(storyboardService.getSprite(video));
+        }
+
+        @Test
+        void testPrepare() {
+            MediaFile video = createVideo(tempDir.resolve("prepare.mp4").toString(), 600);
+            answerSprite(true);
+            storyboardService.prepare(video);
+            assertNotNull(storyboardService.getTrack(video));
+
+            // Not created again
+            storyboardService.prepare(video);
+            Mockito
+                .verify(ffmpeg, Mockito.times(1))
+                .createStoryboard(ArgumentMatchers.any(Path.class),
+                        ArgumentMatchers.any(Path.class), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+
+            // Only for videos
+            MediaFile song = createVideo(tempDir.resolve("song.mp3").toString(), 600);
+            song.setMediaType(MediaType.MUSIC);
+            storyboardService.prepare(song);
+            assertNull(storyboardService.getTrack(song));
+        }
+    }
+}
@@ -42,7 +42,7 @@ class StreamDisposerTest {
 
     @BeforeEach
     void setup() {
-        statusService = spy(new StatusService(null));
+        statusService = spy(new StatusService(null, null));
         disposer = new StreamDisposer(statusService);
     }
 
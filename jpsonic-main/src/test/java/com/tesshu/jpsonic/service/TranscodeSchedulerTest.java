@@ -0,0 +1,212 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tesshu.jpsonic.feature.stream.TranscodeInputStream;
+import com.tesshu.jpsonic.service.TranscodeScheduler.Job;
+import com.tesshu.jpsonic.service.TranscodeScheduler.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class TranscodeSchedulerTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void waitForQueued(TranscodeScheduler scheduler, int count)
+            throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (scheduler.getJobs().stream().filter(job -> !job.isRunning()).count() == count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Jobs were not queued.");
+    }
+
+    @Test
+    void testMaxConcurrency() {
+        assertEquals(3, new TranscodeScheduler(3, 60).getMaxConcurrency());
+        assertEquals(Runtime.getRuntime().availableProcessors(),
+                new TranscodeScheduler(0, 60).getMaxConcurrency());
+    }
+
+    @Test
+    void testStartup() throws IOException {
+        TranscodeScheduler scheduler = new TranscodeScheduler(1, 0);
+        Job job = scheduler.acquire(Priority.PLAYBACK, null);
+
+        // 2 seconds at 64 kbps
+        int startupBytes = 64 * 1000 / 8 * 2;
+        try (InputStream in = job.bind(new ByteArrayInputStream(new byte[startupBytes * 10]), 64)) {
+            assertEquals(startupBytes - 1, in.readNBytes(startupBytes - 1).length);
+            assertTrue(job.isRunning());
+            assertThrows(IOException.class, () -> scheduler.acquire(Priority.PLAYBACK, null));
+
+            // Started. The next listener is admitted while this stream goes on.
+            assertEquals(0, in.read());
+            assertFalse(job.isRunning());
+            scheduler.acquire(Priority.PLAYBACK, null).close();
+            assertEquals(startupBytes * 9, in.readAllBytes().length);
+        }
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+
+    @Test
+    void testPriority() throws IOException, InterruptedException, ExecutionException {
+        TranscodeScheduler scheduler = new TranscodeScheduler(1, 60);
+        Job playing = scheduler.acquire(Priority.PLAYBACK, Path.of("playing"));
+        assertTrue(playing.isRunning());
+
+        List<Priority> started = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Priority priority : List.of(Priority.DOWNLOAD, Priority.PREFETCH, Priority.HLS,
+                Priority.PLAYBACK)) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try (Job job = scheduler.acquire(priority, Path.of(priority.name()))) {
+                    started.add(job.getPriority());
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor));
+            waitForQueued(scheduler, futures.size());
+        }
+
+        // Running jobs first, then queued jobs in the order to be started
+        List<Job> jobs = scheduler.getJobs();
+        assertEquals(5, jobs.size());
+        assertEquals(playing, jobs.get(0));
+        assertEquals(List.of(Priority.PLAYBACK, Priority.HLS, Priority.PREFETCH,
+                Priority.DOWNLOAD),
+                jobs.stream().skip(1).map(Job::getPriority).toList());
+
+        playing.close();
+        assertFalse(playing.isRunning());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        assertEquals(List.of(Priority.PLAYBACK, Priority.HLS, Priority.PREFETCH,
+                Priority.DOWNLOAD), started);
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+
+    @Test
+    void testTimeout() throws IOException {
+        TranscodeScheduler scheduler = new TranscodeScheduler(1, 0);
+        try (Job job = scheduler.acquire(Priority.DOWNLOAD, null)) {
+            assertThrows(IOException.class, () -> scheduler.acquire(Priority.PLAYBACK, null));
+            assertEquals(List.of(job), scheduler.getJobs());
+        }
+        // The released slot is available again
+        scheduler.acquire(Priority.PLAYBACK, null).close();
+    }
+
+    @Test
+    void testBind() throws IOException {
+        TranscodeScheduler scheduler = new TranscodeScheduler(1, 60);
+        Job job = scheduler.acquire(Priority.PLAYBACK, null);
+        try (InputStream in = job.bind(InputStream.nullInputStream(), null)) {
+            assertTrue(job.isRunning());
+        }
+        assertFalse(job.isRunning());
+        assertTrue(scheduler.getJobs().isEmpty());
+        job.close();
+    }
+
+    /*
+     * Load test with a fake transcoder. Many streams are requested at once, but no
+     * more transcoders than the cap start up at the same time, and all streams
+     * complete.
+     */
+    @EnabledOnOs(OS.LINUX)
+    @Test
+    void testLoad()
+            throws URISyntaxException, InterruptedException, ExecutionException, TimeoutException {
+        final int maxConcurrency = 2;
+        final int streams = 8;
+        final int kbytes = 2;
+        TranscodeScheduler scheduler = new TranscodeScheduler(maxConcurrency, 60);
+        Path script = Path
+            .of(TranscodeSchedulerTest.class.getResource("/transcode/fake-transcoder.sh").toURI());
+
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < streams; i++) {
+            Priority priority = i % 2 == 0 ? Priority.PLAYBACK : Priority.PREFETCH;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    Job job = scheduler.acquire(priority, script);
+                    peak
+                        .accumulateAndGet((int) scheduler
+                            .getJobs()
+                            .stream()
+                            .filter(Job::isRunning)
+                            .count(), Math::max);
+                    ProcessBuilder pb = new ProcessBuilder("sh", script.toString(),
+                            Integer.toString(kbytes), "1");
+                    try (InputStream in = job
+                        .bind(new TranscodeInputStream(pb, null, null, executor), null)) {
+                        return in.transferTo(OutputStream.nullOutputStream());
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor));
+        }
+
+        for (CompletableFuture<Long> future : futures) {
+            assertEquals(kbytes * 1024L, future.get(60, TimeUnit.SECONDS));
+        }
+        assertTrue(peak.get() <= maxConcurrency);
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+}
@@ -113,6 +113,7 @@ class TranscodingServiceTest {
     private TranscodingDao transcodingDao;
     private static ExecutorService executor;
     private UserService userService;
+    private RemuxPolicy remuxPolicy;
 
     @BeforeAll
     static void beforeAll() {
@@ -138,13 +139,16 @@ class TranscodingServiceTest {
             .when(userService.getUserSettings(Mockito.nullable(String.class)))
             .thenReturn(new UserSettings());
         SettingsFacade settingsFacade = mock(SettingsFacade.class);
+        remuxPolicy = mock(RemuxPolicy.class);
         transcodingService = new TranscodingService(settingsFacade, userService,
-                mock(UPnPSubnet.class), transcodingDao, playerService, executor);
+                mock(UPnPSubnet.class), transcodingDao, playerService, executor,
+                new TranscodeScheduler(0, 60), remuxPolicy);
         playerDao = mock(PlayerDao.class);
         playerService = new PlayerService(playerDao, null, userService, transcodingService);
         // for lazy
         transcodingService = new TranscodingService(settingsFacade, userService,
-                mock(UPnPSubnet.class), transcodingDao, playerService, executor);
+                mock(UPnPSubnet.class), transcodingDao, playerService, executor,
+                new TranscodeScheduler(0, 60), remuxPolicy);
     }
 
     @AfterAll
@@ -1589,6 +1593,43 @@ class TranscodingServiceTest {
             assertEquals(3_904_000, transcodingService.getExpectedLength(parameters));
         }
 
+        @Order(61)
+        @Test
+        void testRIP1() throws ExecutionException {
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setFormat("m4a");
+            Transcoding remux = new Transcoding(null, RemuxPolicy.NAME, "m4a", "aac",
+                    "ffmpeg -i %s -map 0:a:0 -c:a copy -v 0 -f adts -", null, null, true);
+            Mockito.when(remuxPolicy.getRemux(mediaFile, fakeTranscoding)).thenReturn(remux);
+
+            // Only the container changes
+            assertEquals(remux,
+                    transcodingService.remuxIfPossible(fakeTranscoding, 0, 256, false, mediaFile));
+            assertEquals(remux, transcodingService
+                .remuxIfPossible(fakeTranscoding, 320, 256, false, mediaFile));
+
+            // The bitrate has to be reduced
+            assertEquals(fakeTranscoding, transcodingService
+                .remuxIfPossible(fakeTranscoding, 128, 256, false, mediaFile));
+            assertEquals(fakeTranscoding,
+                    transcodingService.remuxIfPossible(fakeTranscoding, 128, 0, false, mediaFile));
+
+            // HLS always transcodes
+            assertEquals(fakeTranscoding,
+                    transcodingService.remuxIfPossible(fakeTranscoding, 0, 256, true, mediaFile));
+        }
+
+        @Order(62)
+        @Test
+        void testRIP2() throws ExecutionException {
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setFormat("m4a");
+            Mockito.when(remuxPolicy.getRemux(mediaFile, fakeTranscoding)).thenReturn(null);
+
+            // The codec is not accepted by the target container
+            assertEquals(fakeTranscoding,
+                    transcodingService.remuxIfPossible(fakeTranscoding, 0, 256, false, mediaFile));
+        }
     }
 
     @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
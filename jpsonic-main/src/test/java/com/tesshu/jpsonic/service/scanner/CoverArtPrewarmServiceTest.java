@@ -0,0 +1,141 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.service.scanner;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.tesshu.jpsonic.controller.CoverArtController;
+import com.tesshu.jpsonic.persistence.api.entity.Album;
+import com.tesshu.jpsonic.persistence.api.entity.Artist;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
+import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
+import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
+import com.tesshu.jpsonic.service.ServiceMockUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class CoverArtPrewarmServiceTest {
+
+    private CoverArtController coverArtController;
+    private ScannerStateServiceImpl scannerState;
+    private ThreadPoolTaskExecutor executor;
+    private CoverArtPrewarmService service;
+
+    @BeforeEach
+    void setup() throws ExecutionException {
+        coverArtController = mock(CoverArtController.class);
+        scannerState = mock(ScannerStateServiceImpl.class);
+        executor = ServiceMockUtils.mockNoAsyncTaskExecutor();
+
+        MusicFolderServiceImpl musicFolderService = mock(MusicFolderServiceImpl.class);
+        List<MusicFolder> folders = List
+            .of(new MusicFolder(0, "/music", "Music", true, null, 0, false));
+        Mockito.when(musicFolderService.getAllMusicFolders()).thenReturn(folders);
+
+        Album album = new Album();
+        album.setId(1);
+        AlbumDao albumDao = mock(AlbumDao.class);
+        Mockito
+            .when(albumDao
+                .getAlphabeticalAlbums(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyBoolean(),
+                        Mockito.anyBoolean(), Mockito.eq(folders)))
+            .thenReturn(List.of(album));
+        Artist artist = new Artist();
+        artist.setId(2);
+        ArtistDao artistDao = mock(ArtistDao.class);
+        Mockito
+            .when(artistDao
+                .getAlphabetialArtists(Mockito.anyInt(), Mockito.anyInt(), Mockito.eq(folders)))
+            .thenReturn(List.of(artist));
+        MediaFile file = new MediaFile();
+        file.setId(3);
+        MediaFileDao mediaFileDao = mock(MediaFileDao.class);
+        Mockito
+            .when(mediaFileDao
+                .getAlphabeticalAlbums(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyBoolean(),
+                        Mockito.eq(folders)))
+            .thenReturn(List.of(file));
+
+        service = new CoverArtPrewarmService(coverArtController, musicFolderService, albumDao,
+                artistDao, mediaFileDao, scannerState, mock(ScanGovernor.class), executor, true,
+                "160,300");
+    }
+
+    @Test
+    void testParseSizes() {
+        assertEquals(List.of(160, 300), CoverArtPrewarmService.parseSizes("160, 300"));
+        assertEquals(List.of(110), CoverArtPrewarmService.parseSizes("110,110,0,-1,large"));
+        assertTrue(CoverArtPrewarmService.parseSizes("").isEmpty());
+    }
+
+    @Test
+    void testGetCoverArtIds() {
+        assertEquals(List.of("al-1", "ar-2", "3"), service.getCoverArtIds());
+    }
+
+    @Test
+    void testPrewarm() throws ExecutionException {
+        Mockito.when(coverArtController.prewarm("al-1", 160)).thenReturn(true);
+        service.prewarm();
+        Mockito.verify(coverArtController, Mockito.times(6)).prewarm(Mockito.anyString(),
+                Mockito.anyInt());
+        Mockito.verify(coverArtController).prewarm("3", 300);
+        assertTrue(service.getProgress().isEmpty());
+    }
+
+    @Test
+    void testDisabled() {
+        CoverArtPrewarmService disabled = new CoverArtPrewarmService(coverArtController,
+                mock(MusicFolderServiceImpl.class), mock(AlbumDao.class), mock(ArtistDao.class),
+                mock(MediaFileDao.class), scannerState, mock(ScanGovernor.class), executor, false,
+                "160,300");
+        assertFalse(disabled.isEnabled());
+        disabled.prewarm();
+        Mockito.verify(executor, Mockito.never()).execute(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    void testStopped() throws ExecutionException {
+        // A new scan has started. The job will be run again after it.
+        Mockito.when(scannerState.isScanning()).thenReturn(true);
+        service.prewarm();
+        Mockito.verify(coverArtController, Mockito.never()).prewarm(Mockito.anyString(),
+                Mockito.anyInt());
+
+        Mockito.when(scannerState.isScanning()).thenReturn(false);
+        Mockito.when(coverArtController.prewarm("al-1", 160)).thenAnswer(invocation -> {
+            service.cancel();
+            return true;
+        });
+        service.prewarm();
+        Mockito.verify(coverArtController).prewarm(Mockito.anyString(), Mockito.anyInt());
+    }
+}
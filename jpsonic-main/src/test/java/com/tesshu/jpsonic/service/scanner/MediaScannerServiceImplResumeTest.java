@@ -0,0 +1,223 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service.scanner;
+
+import static com.tesshu.jpsonic.util.PlayerUtils.now;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.tesshu.jpsonic.AbstractNeedsScan;
+import com.tesshu.jpsonic.TestCaseUtils;
+import com.tesshu.jpsonic.infrastructure.core.EnvironmentProvider;
+import com.tesshu.jpsonic.infrastructure.settings.SKeys;
+import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint.ScanCheckpointType;
+import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
+import com.tesshu.jpsonic.persistence.core.entity.ScanLog.ScanLogType;
+import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
+import com.tesshu.jpsonic.service.ImageCacheService;
+import com.tesshu.jpsonic.service.MediaScannerService;
+import com.tesshu.jpsonic.service.ServiceMockUtils;
+import com.tesshu.jpsonic.service.search.FieldNamesConstants;
+import com.tesshu.jpsonic.service.search.IndexType;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/*
+ * Interrupts a scan halfway, resumes it, and confirms that the result is the
+ * same as that of a full scan without interruption.
+ */
+class MediaScannerServiceImplResumeTest extends AbstractNeedsScan {
+
+    private final List<MusicFolder> folders = List
+        .of(new MusicFolder(1, resolveBaseMediaPath("Music"), "Music", true, now(), 0, false));
+
+    @Autowired
+    private ScannerStateServiceImpl scannerStateService;
+    @Autowired
+    private PreScanProcedure preScanProc;
+    @Autowired
+    private DirectoryScanProcedure directoryScanProc;
+    @Autowired
+    private FileMetadataScanProcedure fileMetaProc;
+    @Autowired
+    private Id3MetadataScanProcedure id3MetaProc;
+    @Autowired
+    private PostScanProcedure postScanProc;
+    @Autowired
+    private ScanHelper scanHelper;
+    @Autowired
+    private StaticsDao staticsDao;
+    @Autowired
+    private CoverArtPrewarmService coverArtPrewarm;
+    @Autowired
+    private ImageCacheService imageCacheService;
+
+    // Songs in the index on disk when the scan was interrupted
+    private List<String> songsAtInterruption;
+
+    @Override
+    public List<MusicFolder> getMusicFolders() {
+        return folders;
+    }
+
+    /*
+     * Scanner that is cancelled just after the file structure based album parsing.
+     * The phase itself runs to the end, but must not be recorded as completed.
+     */
+    private MediaScannerService createInterruptedScanner() {
+        FileMetadataScanProcedure interrupted = Mockito.spy(fileMetaProc);
+        Mockito.doAnswer(invocation -> {
+            Object parsed = invocation.callRealMethod();
+            // What would survive if the JVM stopped here, before the writers are closed
+            songsAtInterruption = committed(IndexType.SONG);
+            scanHelper.setCancel(true);
+            return parsed;
+        }).when(interrupted).parseAlbum(Mockito.any(ScanContext.class));
+        return new MediaScannerServiceImpl(settingsFacade, scannerStateService, preScanProc,
+                directoryScanProc, interrupted, id3MetaProc, postScanProc, scanHelper, staticsDao,
+                coverArtPrewarm, imageCacheService, ServiceMockUtils.mockNoAsyncTaskExecutor());
+    }
+
+    @BeforeEach
+    void setup() {
+        MediaScannerService uninterrupted = mediaScannerService;
+        mediaScannerService = createInterruptedScanner();
+        populateDatabase();
+        mediaScannerService = uninterrupted;
+    }
+
+    @AfterEach
+    void tearDown() {
+        settingsFacade.commit(SKeys.musicFolder.scan.ignoreFileTimestamps, false);
+    }
+
+    private List<Map<String, Object>> snapshot(String sql) {
+        return daoHelper.getJdbcTemplate().queryForList(sql);
+    }
+
+    /*
+     * Returns the ids in the last commit of the index on disk, which is what a
+     * restarted server reads.
+     */
+    private static List<String> committed(IndexType indexType) {
+        Path path = EnvironmentProvider
+            .getInstance()
+            .getCurrentIndexRootDirectory()
+            .resolve(indexType.toString().toLowerCase(Locale.ENGLISH));
+        try (Directory directory = FSDirectory.open(path);
+                DirectoryReader reader = DirectoryReader.open(directory)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            StoredFields storedFields = searcher.storedFields();
+            List<String> ids = new ArrayList<>();
+            for (ScoreDoc scoreDoc : searcher
+                .search(new MatchAllDocsQuery(), Integer.MAX_VALUE).scoreDocs) {
+                ids.add(storedFields.document(scoreDoc.doc).get(FieldNamesConstants.ID));
+            }
+            Collections.sort(ids);
+            return ids;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Object> snapshot() {
+        return List.of(committed(IndexType.SONG), committed(IndexType.ALBUM),
+                committed(IndexType.ARTIST), snapshot("""
+                select path, type, present, title, album, album_artist,
+                        genre, cover_art_path, media_file_order
+                from media_file
+                order by path
+                """), snapshot("""
+                select path, name, artist, song_count, duration_seconds, genre, present
+                from album
+                order by artist, name
+                """), snapshot("""
+                select name, album_count, present
+                from artist
+                order by name
+                """));
+    }
+
+    @Test
+    void testResume() {
+
+        // The interrupted scan leaves its checkpoints behind
+        assertEquals(ScanEventType.CANCELED, mediaScannerService.getLastScanEventType().get());
+        Instant interrupted = staticsDao.getScanLog(ScanLogType.SCAN_ALL).get(0).getStartDate();
+        List<ScanCheckpoint> checkpoints = staticsDao.getScanCheckpoints(interrupted);
+        assertTrue(checkpoints
+            .stream()
+            .anyMatch(c -> c.getType() == ScanCheckpointType.PHASE
+                    && ScanEventType.CLEAN_UP_FILE_STRUCTURE.name().equals(c.getTarget())));
+        assertTrue(checkpoints
+            .stream()
+            .anyMatch(c -> c.getType() == ScanCheckpointType.DIRECTORY
+                    && folders.get(0).getPathString().equals(c.getTarget())));
+        assertFalse(checkpoints
+            .stream()
+            .anyMatch(c -> ScanEventType.PARSE_ALBUM.name().equals(c.getTarget())));
+
+        // The next scan takes over the interrupted one and completes it
+        TestCaseUtils.execScan(mediaScannerService);
+        assertEquals(ScanEventType.SUCCESS, mediaScannerService.getLastScanEventType().get());
+        assertEquals(interrupted,
+                staticsDao.getScanLog(ScanLogType.SCAN_ALL).get(0).getStartDate());
+        assertTrue(staticsDao.getScanCheckpoints(interrupted).isEmpty());
+        List<Object> resumed = snapshot();
+
+        // The directories recorded as completed had their documents committed
+        assertFalse(songsAtInterruption.isEmpty());
+        assertEquals(committed(IndexType.SONG), songsAtInterruption);
+
+        // Same result as a full scan without interruption
+        settingsFacade.commit(SKeys.musicFolder.scan.ignoreFileTimestamps, true);
+        TestCaseUtils.execScan(mediaScannerService);
+        assertEquals(ScanEventType.SUCCESS, mediaScannerService.getLastScanEventType().get());
+        assertEquals(resumed, snapshot());
+
+        // A completed scan is not resumed
+        Instant latest = staticsDao.getScanLog(ScanLogType.SCAN_ALL).get(0).getStartDate();
+        assertTrue(interrupted.isBefore(latest));
+        assertTrue(scanHelper.getResumableScanDate().isEmpty());
+    }
+}
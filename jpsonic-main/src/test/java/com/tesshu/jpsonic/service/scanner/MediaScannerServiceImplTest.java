@@ -61,13 +61,16 @@ import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
 import com.tesshu.jpsonic.persistence.api.repository.ArtistDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.persistence.api.repository.MusicFolderDao;
+import com.tesshu.jpsonic.persistence.api.repository.SeekIndexDao;
 import com.tesshu.jpsonic.persistence.base.DaoHelper;
 import com.tesshu.jpsonic.persistence.base.TemplateWrapper;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
 import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
+import com.tesshu.jpsonic.service.ImageCacheService;
 import com.tesshu.jpsonic.service.MediaFileCache;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.MediaScannerService;
@@ -78,6 +81,7 @@ import com.tesshu.jpsonic.service.language.JpsonicComparators;
 import com.tesshu.jpsonic.service.language.JpsonicComparators.OrderBy;
 import com.tesshu.jpsonic.service.metadata.MusicParser;
 import com.tesshu.jpsonic.service.metadata.VideoParser;
+import com.tesshu.jpsonic.service.scanner.ScanGovernor.ScanPace;
 import com.tesshu.jpsonic.service.search.IndexManager;
 import org.apache.commons.io.IOUtils;
 import org.junit.Ignore;
@@ -218,7 +222,8 @@ class MediaScannerServiceImplTest {
                     scannerStateService, mediaFileService, albumDao, mock(MediaFileCache.class),
                     mock(MusicParser.class), mock(VideoParser.class), settingsFacade,
                     mock(LibraryAccessPolicy.class), new ScanningExclusionPolicy(settingsFacade),
-                    null, mock(IndexManager.class), mock(MusicIndexServiceImpl.class));
+                    null, mock(IndexManager.class), mock(MusicIndexServiceImpl.class),
+                    mock(CoverArtIndexDao.class));
 
             final MusicFolderServiceImpl musicFolderService = mock(MusicFolderServiceImpl.class);
             final PlaylistService playlistService = mock(PlaylistService.class);
@@ -230,7 +235,8 @@ class MediaScannerServiceImplTest {
             final ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
 
             scanHelper = new ScanHelper(scannerStateService, settingsFacade, staticsDao,
-                    mediaFileDao, indexManager, writableMediaFileService);
+                    mediaFileDao, indexManager, writableMediaFileService,
+                    mock(ScanGovernor.class), mock(SeekIndexDao.class));
             preScanProc = new PreScanProcedure(musicFolderService, indexManager, mediaFileDao,
                     artistDao, mediaFileCache, scanHelper);
             directoryScanProc = new DirectoryScanProcedure(mediaFileDao, musicFolderService,
@@ -247,7 +253,8 @@ class MediaScannerServiceImplTest {
 
             mediaScannerService = new MediaScannerServiceImpl(settingsFacade, scannerStateService,
                     preScanProc, directoryScanProc, fileMetaProc, id3MetaProc, postScanProc,
-                    scanHelper, staticsDao, executor);
+                    scanHelper, staticsDao, mock(CoverArtPrewarmService.class),
+                    mock(ImageCacheService.class), executor);
         }
 
         @SuppressWarnings("PMD.UnitTestShouldIncludeAssert") // It doesn't seem to be able to
@@ -270,7 +277,8 @@ class MediaScannerServiceImplTest {
             ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
             mediaScannerService = new MediaScannerServiceImpl(settingsFacade, scannerStateService,
                     preScanProc, directoryScanProc, fileMetaProc, id3MetaProc, postScanProc,
-                    scanHelper, staticsDao, executor);
+                    scanHelper, staticsDao, mock(CoverArtPrewarmService.class),
+                    mock(ImageCacheService.class), executor);
             mediaScannerService.scanLibrary();
         }
 
@@ -504,7 +512,8 @@ class MediaScannerServiceImplTest {
             ThreadPoolTaskExecutor scanExecutor = ServiceMockUtils.mockNoAsyncTaskExecutor();
             mediaScannerService = new MediaScannerServiceImpl(settingsFacade, scannerStateService,
                     preScanProc, directoryScanProc, fileMetaProc, id3MetaProc, postScanProc,
-                    scanHelper, staticsDao, scanExecutor);
+                    scanHelper, staticsDao, mock(CoverArtPrewarmService.class),
+                    mock(ImageCacheService.class), scanExecutor);
         }
 
         /**
@@ -760,7 +769,7 @@ class MediaScannerServiceImplTest {
                     mock(MediaFileCache.class), mock(MusicParser.class), mock(VideoParser.class),
                     settingsFacade, mock(LibraryAccessPolicy.class),
                     new ScanningExclusionPolicy(settingsFacade), null, mock(IndexManager.class),
-                    mock(MusicIndexServiceImpl.class));
+                    mock(MusicIndexServiceImpl.class), mock(CoverArtIndexDao.class));
             musicFolderService = mock(MusicFolderServiceImpl.class);
             comparators = mock(JpsonicComparators.class);
             final StaticsDao staticsDao = mock(StaticsDao.class);
@@ -792,7 +801,8 @@ class MediaScannerServiceImplTest {
                     mediaFileCache, scanHelper);
             mediaScannerService = new MediaScannerServiceImpl(settingsFacade, scannerStateService,
                     preScanProc, directoryScanProc, fileMetaProc, id3MetaProc, postScanProc,
-                    scanHelper, staticsDao, executor);
+                    scanHelper, staticsDao, mock(CoverArtPrewarmService.class),
+                    mock(ImageCacheService.class), executor);
         }
 
         @Test
@@ -1004,7 +1014,7 @@ class MediaScannerServiceImplTest {
                     mock(MediaFileCache.class), mock(MusicParser.class), mock(VideoParser.class),
                     settingsFacade, mock(LibraryAccessPolicy.class),
                     new ScanningExclusionPolicy(settingsFacade), null, mock(IndexManager.class),
-                    mock(MusicIndexServiceImpl.class));
+                    mock(MusicIndexServiceImpl.class), mock(CoverArtIndexDao.class));
             final MusicFolderServiceImpl musicFolderService = mock(MusicFolderServiceImpl.class);
             final JpsonicComparators comparators = mock(JpsonicComparators.class);
             staticsDao = mock(StaticsDao.class);
@@ -1038,10 +1048,12 @@ class MediaScannerServiceImplTest {
             ScannerStateServiceImpl scannerStateService = mock(ScannerStateServiceImpl.class);
             MediaScannerServiceImpl mediaScannerService = new MediaScannerServiceImpl(
                     settingsFacade, scannerStateService, preScanProc, directoryScanProc,
-                    fileMetaProc, id3MetaProc, postScanProc, scanHelper, staticsDao, executor);
+                    fileMetaProc, id3MetaProc, postScanProc, scanHelper, staticsDao,
+                    mock(CoverArtPrewarmService.class), mock(ImageCacheService.class), executor);
 
             Mockito.when(scannerStateService.isScanning()).thenReturn(false);
             Mockito.when(scannerStateService.getLastEvent()).thenReturn(ScanEventType.UNKNOWN);
+            Mockito.when(scanHelper.getScanPace()).thenReturn(ScanPace.NORMAL);
             assertFalse(mediaScannerService.getScanPhaseInfo().isPresent());
 
             Mockito.when(scannerStateService.isScanning()).thenReturn(true);
@@ -1057,6 +1069,7 @@ class MediaScannerServiceImplTest {
                 assertEquals(22, scanPhaseInfo.phaseMax());
                 assertEquals("PARSE_FILE_STRUCTURE", scanPhaseInfo.phaseName());
                 assertEquals(0, scanPhaseInfo.thread());
+                assertEquals("NORMAL", scanPhaseInfo.pace());
             });
 
             Mockito.when(scannerStateService.isScanning()).thenReturn(true);
@@ -41,6 +41,7 @@ import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastChannel;
 import com.tesshu.jpsonic.persistence.api.entity.PodcastEpisode;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.service.MediaFileService;
 import org.junit.Ignore;
 import org.junit.jupiter.api.BeforeEach;
@@ -66,10 +67,10 @@ class PodcastServiceImplTest {
         libraryAccessPolicy = mock(LibraryAccessPolicy.class);
         MediaFileService mediaFlieService = new MediaFileService(settingsFacade,
                 new ScanningExclusionPolicy(settingsFacade), null, mock(LibraryAccessPolicy.class),
-                null, null, null);
+                null, null, null, mock(CoverArtIndexDao.class));
         podcastService = new PodcastServiceImpl(null, settingsFacade, libraryAccessPolicy,
                 mediaFlieService, mock(WritableMediaFileService.class), null, null, null, null,
-                null);
+                null, null);
     }
 
     private ZonedDateTime toJST(String date) {
@@ -171,4 +171,50 @@ class PreScanProcedureTest {
             assertEquals(3, folderCaptor.getAllValues().get(2).getFolderOrder());
         }
     }
+
+    @Nested
+    class BeforeScanTest {
+
+        private IndexManager indexManager;
+        private MediaFileDao mediaFileDao;
+        private ArtistDao artistDao;
+        private PreScanProcedure preScanProc;
+
+        @BeforeEach
+        void setup() {
+            indexManager = mock(IndexManager.class);
+            mediaFileDao = mock(MediaFileDao.class);
+            artistDao = mock(ArtistDao.class);
+            preScanProc = new PreScanProcedure(mock(MusicFolderServiceImpl.class), indexManager,
+                    mediaFileDao, artistDao, mock(MediaFileCache.class), mock(ScanHelper.class));
+        }
+
+        private ScanContext createContext(boolean ignoreFileTimestamps) {
+            SettingsFacade settingsFacade = SettingsFacadeBuilder.create().buildWithDefault();
+            return new ScanContext(now(), ignoreFileTimestamps,
+                    settingsFacade.get(SKeys.podcast.folder),
+                    settingsFacade.get(SKeys.advanced.sort.strict),
+                    settingsFacade.get(SKeys.advanced.scanLog.useScanLog),
+                    settingsFacade.get(SKeys.advanced.scanLog.scanLogRetention),
+                    SKeys.advanced.scanLog.scanLogRetention.defaultValue(),
+                    settingsFacade.get(SKeys.advanced.scanLog.useScanEvents),
+                    settingsFacade.get(SKeys.advanced.scanLog.measureMemory));
+        }
+
+        @Test
+        void testUpToDate() {
+            preScanProc.beforeScan(createContext(false));
+            Mockito.verify(mediaFileDao, Mockito.never()).resetLastScanned(null);
+            Mockito.verify(indexManager, Mockito.never()).deleteAll();
+        }
+
+        @Test
+        void testGenreFacetMissing() {
+            Mockito.when(indexManager.isGenreFacetMissing()).thenReturn(true);
+            preScanProc.beforeScan(createContext(false));
+            Mockito.verify(mediaFileDao).resetLastScanned(null);
+            Mockito.verify(artistDao).deleteAll();
+            Mockito.verify(indexManager).deleteAll();
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.service.scanner;
+
+import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tesshu.jpsonic.service.StatusService;
+import com.tesshu.jpsonic.service.StatusService.TransferStatus;
+import com.tesshu.jpsonic.service.scanner.ScanGovernor.ScanPace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class ScanGovernorTest {
+
+    private StatusService statusService;
+    private ScanGovernor scanGovernor;
+
+    @BeforeEach
+    void setup() {
+        statusService = mock(StatusService.class);
+        Mockito.when(statusService.getAllStreamStatuses()).thenReturn(Collections.emptyList());
+        Mockito.when(statusService.getAllDownloadStatuses()).thenReturn(Collections.emptyList());
+        scanGovernor = new ScanGovernor(statusService);
+    }
+
+    private void recordSlowIo() {
+        scanGovernor
+            .recordLatency(TimeUnit.MILLISECONDS
+                .toNanos(ScanConstants.SLOW_IO_LATENCY_MILLISECONDS * 10L), 1);
+    }
+
+    @Test
+    void testIdle() {
+        assertEquals(ScanPace.FULL_SPEED, scanGovernor.getPace());
+        assertEquals(0, scanGovernor.getPace().getBatchWaitMillis());
+    }
+
+    @Test
+    void testStreaming() {
+        TransferStatus active = new TransferStatus();
+        TransferStatus inactive = new TransferStatus();
+        inactive.setActive(false);
+
+        Mockito.when(statusService.getAllStreamStatuses()).thenReturn(List.of(inactive));
+        assertEquals(ScanPace.FULL_SPEED, scanGovernor.evaluate());
+
+        Mockito.when(statusService.getAllStreamStatuses()).thenReturn(List.of(active, inactive));
+        assertEquals(ScanPace.NORMAL, scanGovernor.evaluate());
+
+        recordSlowIo();
+        assertEquals(ScanPace.YIELDING, scanGovernor.evaluate());
+        assertTrue(scanGovernor.getPace().getDirectoryWaitMillis() > 0);
+    }
+
+    @Test
+    void testDownloading() {
+        Mockito
+            .when(statusService.getAllDownloadStatuses())
+            .thenReturn(List.of(new TransferStatus()));
+        assertEquals(ScanPace.NORMAL, scanGovernor.evaluate());
+    }
+
+    @Test
+    void testSlowIo() {
+        recordSlowIo();
+        assertEquals(ScanPace.NORMAL, scanGovernor.evaluate());
+
+        // The moving average recovers as fast samples are observed
+        for (int i = 0; i < 100; i++) {
+            scanGovernor.recordLatency(TimeUnit.MICROSECONDS.toNanos(100), 1);
+        }
+        assertEquals(ScanPace.FULL_SPEED, scanGovernor.evaluate());
+    }
+
+    @Test
+    void testRecordLatency() {
+        assertEquals(-1, scanGovernor.getLatencyMicros());
+        scanGovernor.recordLatency(TimeUnit.MILLISECONDS.toNanos(8), 4);
+        assertEquals(2_000, scanGovernor.getLatencyMicros());
+        scanGovernor.recordLatency(TimeUnit.MILLISECONDS.toNanos(10), 0);
+        assertEquals(4_000, scanGovernor.getLatencyMicros());
+    }
+}
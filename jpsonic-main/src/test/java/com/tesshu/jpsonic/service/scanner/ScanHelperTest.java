@@ -22,7 +22,9 @@ package com.tesshu.jpsonic.service.scanner;
 import static com.tesshu.jpsonic.service.ServiceMockUtils.mock;
 import static com.tesshu.jpsonic.util.PlayerUtils.now;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
 import java.util.Arrays;
@@ -34,6 +36,9 @@ import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
+import com.tesshu.jpsonic.persistence.api.repository.SeekIndexDao;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint;
+import com.tesshu.jpsonic.persistence.core.entity.ScanCheckpoint.ScanCheckpointType;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent;
 import com.tesshu.jpsonic.persistence.core.entity.ScanEvent.ScanEventType;
 import com.tesshu.jpsonic.persistence.core.repository.StaticsDao;
@@ -82,7 +87,7 @@ class ScanHelperTest {
         final IndexManager indexManager = mock(IndexManager.class);
         final WritableMediaFileService wmfs = mock(WritableMediaFileService.class);
         scanHelper = new ScanHelper(scannerStateService, settingsFacade, staticsDao, mediaFileDao,
-                indexManager, wmfs);
+                indexManager, wmfs, mock(ScanGovernor.class), mock(SeekIndexDao.class));
     }
 
     @Test
@@ -282,4 +287,50 @@ class ScanHelperTest {
         result = captor.getAllValues();
         assertEquals(0, result.size());
     }
+
+    @Test
+    void testCheckpoints() {
+        ScanContext context = new ScanContext(now(), false, null, false, false, -1, -1, false,
+                false);
+        MediaFile dir = new MediaFile();
+        dir.setPathString("dir");
+
+        // Nothing is recorded for an interrupted unit
+        scanHelper.setCancel(true);
+        scanHelper.completePhase(context, ScanEventType.PARSE_FILE_STRUCTURE);
+        scanHelper.completeDirectory(context, dir);
+        Mockito
+            .verify(staticsDao, Mockito.never())
+            .createScanCheckpoint(Mockito.any(), Mockito.any(), Mockito.any());
+        assertFalse(scanHelper.isCompletedPhase(ScanEventType.PARSE_FILE_STRUCTURE));
+        assertFalse(scanHelper.isCompletedDirectory(dir));
+
+        scanHelper.setCancel(false);
+        scanHelper.completePhase(context, ScanEventType.PARSE_FILE_STRUCTURE);
+        scanHelper.completeDirectory(context, dir);
+        Mockito
+            .verify(staticsDao, Mockito.times(1))
+            .createScanCheckpoint(context.scanDate(), ScanCheckpointType.PHASE,
+                    ScanEventType.PARSE_FILE_STRUCTURE.name());
+        Mockito
+            .verify(staticsDao, Mockito.times(1))
+            .createScanCheckpoint(context.scanDate(), ScanCheckpointType.DIRECTORY, "dir");
+        assertTrue(scanHelper.isCompletedPhase(ScanEventType.PARSE_FILE_STRUCTURE));
+        assertTrue(scanHelper.isCompletedDirectory(dir));
+
+        // Restored from the database when resuming
+        Mockito
+            .when(staticsDao.getScanCheckpoints(context.scanDate()))
+            .thenReturn(List
+                .of(new ScanCheckpoint(context.scanDate(), ScanCheckpointType.PHASE,
+                        ScanEventType.PARSE_VIDEO.name(), now())));
+        scanHelper.loadCheckpoints(context);
+        assertFalse(scanHelper.isCompletedPhase(ScanEventType.PARSE_FILE_STRUCTURE));
+        assertTrue(scanHelper.isCompletedPhase(ScanEventType.PARSE_VIDEO));
+        assertFalse(scanHelper.isCompletedDirectory(dir));
+
+        scanHelper.clearCheckpoints(context);
+        assertFalse(scanHelper.isCompletedPhase(ScanEventType.PARSE_VIDEO));
+        Mockito.verify(staticsDao, Mockito.times(1)).deleteScanCheckpoints(context.scanDate());
+    }
 }
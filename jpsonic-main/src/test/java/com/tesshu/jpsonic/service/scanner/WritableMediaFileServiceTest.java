@@ -40,16 +40,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import com.tesshu.jpsonic.feature.filesystem.LibraryAccessPolicy;
 import com.tesshu.jpsonic.infrastructure.filesystem.ScanningExclusionPolicy;
 import com.tesshu.jpsonic.infrastructure.settings.SKeys;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacade;
 import com.tesshu.jpsonic.infrastructure.settings.SettingsFacadeBuilder;
+import com.tesshu.jpsonic.persistence.api.entity.CoverArtIndex;
 import com.tesshu.jpsonic.persistence.api.entity.MediaFile;
+import com.tesshu.jpsonic.persistence.api.entity.MediaFile.MediaType;
 import com.tesshu.jpsonic.persistence.api.repository.AlbumDao;
+import com.tesshu.jpsonic.persistence.api.repository.CoverArtIndexDao;
 import com.tesshu.jpsonic.persistence.api.repository.MediaFileDao;
 import com.tesshu.jpsonic.service.MediaFileCache;
 import com.tesshu.jpsonic.service.MediaFileService;
@@ -60,6 +67,8 @@ import com.tesshu.jpsonic.service.language.JpsonicComparators;
 import com.tesshu.jpsonic.service.metadata.MetaData;
 import com.tesshu.jpsonic.service.metadata.MusicParser;
 import com.tesshu.jpsonic.service.metadata.VideoParser;
+import com.tesshu.jpsonic.service.scanner.WritableMediaFileService.ListingObserver;
+import com.tesshu.jpsonic.service.scanner.WritableMediaFileService.StoredSubtree;
 import com.tesshu.jpsonic.service.search.IndexManager;
 import org.junit.Ignore;
 import org.junit.jupiter.api.BeforeEach;
@@ -72,6 +81,7 @@ import org.mockito.Mockito;
 class WritableMediaFileServiceTest {
 
     private MediaFileDao mediaFileDao;
+    private CoverArtIndexDao coverArtIndexDao;
     private SettingsFacade settingsFacade;
     private LibraryAccessPolicy libraryAccessPolicy;
     private WritableMediaFileService writableMediaFileService;
@@ -92,18 +102,21 @@ class WritableMediaFileServiceTest {
 
         libraryAccessPolicy = mock(LibraryAccessPolicy.class);
         mediaFileDao = mock(MediaFileDao.class);
+        coverArtIndexDao = mock(CoverArtIndexDao.class);
         MusicParser musicParser = new MusicParser(mock(MusicFolderService.class));
         MediaFileCache mediaFileCache = mock(MediaFileCache.class);
         MediaFileService mediaFileService = new MediaFileService(settingsFacade,
                 new ScanningExclusionPolicy(settingsFacade), mock(MusicFolderService.class),
-                libraryAccessPolicy, mediaFileCache, mediaFileDao, mock(JpsonicComparators.class));
+                libraryAccessPolicy, mediaFileCache, mediaFileDao, mock(JpsonicComparators.class),
+                coverArtIndexDao);
         AlbumDao albumDao = mock(AlbumDao.class);
         JapaneseReadingUtils readingUtils = mock(JapaneseReadingUtils.class);
         writableMediaFileService = new WritableMediaFileService(mediaFileDao,
                 mock(ScannerStateService.class), mediaFileService, albumDao, mediaFileCache,
                 musicParser, mock(VideoParser.class), settingsFacade, libraryAccessPolicy,
                 new ScanningExclusionPolicy(settingsFacade), readingUtils, mock(IndexManager.class),
-                new MusicIndexServiceImpl(settingsFacade, null, null, readingUtils));
+                new MusicIndexServiceImpl(settingsFacade, null, null, readingUtils),
+                coverArtIndexDao);
 
         Mockito.when(libraryAccessPolicy.isReadAllowed(Mockito.any(Path.class))).thenReturn(true);
     }
@@ -871,4 +884,123 @@ class WritableMediaFileServiceTest {
             Mockito.verify(mediaFileDao, Mockito.never()).getMediaFile(pathsCaptor.capture());
         }
     }
+
+    @Nested
+    class StoredSubtreeTest {
+
+        private MediaFile createMediaFile(String parentPath, String name) {
+            MediaFile mediaFile = new MediaFile();
+            mediaFile.setParentPathString(parentPath);
+            mediaFile.setPathString(parentPath + "/" + name);
+            return mediaFile;
+        }
+
+        @Test
+        void testTakeChildrenOf() {
+            MediaFile artist = createMediaFile("/music", "artist");
+            MediaFile album = createMediaFile(artist.getPathString(), "album");
+            MediaFile song = createMediaFile(album.getPathString(), "song.mp3");
+            StoredSubtree subtree = new StoredSubtree(List.of(album, song), List.of());
+
+            Map<String, MediaFile> children = subtree.takeChildrenOf(artist);
+            assertEquals(1, children.size());
+            assertEquals(album, children.get(album.getPathString()));
+            assertEquals(song, subtree.takeChildrenOf(album).get(song.getPathString()));
+
+            // Children are handed over only once
+            assertTrue(subtree.takeChildrenOf(artist).isEmpty());
+            assertTrue(subtree.takeChildrenOf(song).isEmpty());
+        }
+
+        @Test
+        void testTakeCoverArtIndexOf() {
+            MediaFile album = createMediaFile("/music/artist", "album");
+            CoverArtIndex index = new CoverArtIndex(album.getPathString(), null, now(), null);
+            StoredSubtree subtree = new StoredSubtree(List.of(), List.of(index));
+
+            assertEquals(index, subtree.takeCoverArtIndexOf(album));
+            assertNull(subtree.takeCoverArtIndexOf(album));
+        }
+    }
+
+    @Nested
+    class CoverArtIndexTest {
+
+        private Path dirPath;
+        private MediaFile dir;
+
+        @BeforeEach
+        void setup() throws URISyntaxException {
+            Mockito
+                .when(libraryAccessPolicy.isReadAllowed(Mockito.any(Path.class)))
+                .thenReturn(true);
+            dirPath = createPath("/MEDIAS/Music2/_DIR_ chrome hoof - 2004");
+            dir = new MediaFile();
+            dir.setPathString(dirPath.toString());
+            dir.setMediaType(MediaType.ALBUM);
+        }
+
+        @Test
+        void testUnmodified() {
+            Instant dirChanged = writableMediaFileService.getLastModified(dirPath);
+            String indexed = "/indexed/cover.jpg";
+            StoredSubtree subtree = new StoredSubtree(List.of(), List
+                .of(new CoverArtIndex(dirPath.toString(), indexed, dirChanged, dirChanged)));
+
+            writableMediaFileService.getChildrenOf(now(), dir, subtree, ListingObserver.NONE);
+
+            // The directory is not searched again
+            assertEquals(indexed, dir.getCoverArtPathString());
+            Mockito
+                .verify(coverArtIndexDao, Mockito.never())
+                .updateCoverArtIndex(Mockito.any(CoverArtIndex.class));
+        }
+
+        @Test
+        void testCoverArtOverwritten() {
+            Instant dirChanged = writableMediaFileService.getLastModified(dirPath);
+            Path coverArt = dirPath.resolve("Folder.jpg");
+            StoredSubtree subtree = new StoredSubtree(List.of(), List
+                .of(new CoverArtIndex(dirPath.toString(), coverArt.toString(), dirChanged,
+                        FAR_PAST)));
+
+            writableMediaFileService.getChildrenOf(now(), dir, subtree, ListingObserver.NONE);
+
+            // Overwritten in place. Only the time of the cover art is updated
+            assertEquals(coverArt.toString(), dir.getCoverArtPathString());
+            Mockito
+                .verify(coverArtIndexDao)
+                .updateCoverArtChanged(coverArt.toString(),
+                        writableMediaFileService.getLastModified(coverArt));
+            Mockito
+                .verify(coverArtIndexDao, Mockito.never())
+                .updateCoverArtIndex(Mockito.any(CoverArtIndex.class));
+        }
+
+        @Test
+        void testModified() throws IOException {
+            StoredSubtree subtree = new StoredSubtree(List.of(), List
+                .of(new CoverArtIndex(dirPath.toString(), null, FAR_PAST, null)));
+
+            AtomicInteger listed = new AtomicInteger(-1);
+            writableMediaFileService
+                .getChildrenOf(now(), dir, subtree, (nanos, entries) -> listed.set(entries));
+
+            // The whole listing is reported, not only the media files
+            try (Stream<Path> entries = Files.list(dirPath)) {
+                assertEquals(entries.count(), listed.get());
+            }
+
+            Path coverArt = dirPath.resolve("Folder.jpg");
+            assertEquals(coverArt.toString(), dir.getCoverArtPathString());
+            ArgumentCaptor<CoverArtIndex> captor = ArgumentCaptor.forClass(CoverArtIndex.class);
+            Mockito.verify(coverArtIndexDao).updateCoverArtIndex(captor.capture());
+            CoverArtIndex index = captor.getValue();
+            assertEquals(dirPath.toString(), index.getPath());
+            assertEquals(coverArt.toString(), index.getCoverArtPath());
+            assertEquals(writableMediaFileService.getLastModified(dirPath), index.getDirChanged());
+            assertEquals(writableMediaFileService.getLastModified(coverArt),
+                    index.getCoverArtChanged());
+        }
+    }
 }
@@ -40,6 +40,7 @@ import com.tesshu.jpsonic.persistence.api.entity.MusicFolder;
 import com.tesshu.jpsonic.persistence.api.repository.MusicFolderTestDataUtils;
 import com.tesshu.jpsonic.service.language.JapaneseReadingUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexableField;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -55,7 +56,7 @@ class DocumentFactoryTest {
     void setup() {
         settingsFacade = SettingsFacadeBuilder.create().build();
         documentFactory = new DocumentFactory(settingsFacade,
-                new JapaneseReadingUtils(settingsFacade));
+                new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
     }
 
     @Test
@@ -69,7 +70,7 @@ class DocumentFactoryTest {
         album.setGenre("genre");
         album.setFolder("folder");
         Document document = documentFactory.createAlbumDocument(album);
-        assertEquals(12, document.getFields().size(), "fields.size");
+        assertEquals(13, document.getFields().size(), "fields.size");
         assertEquals("1", document.get(FieldNamesConstants.ID));
         assertEquals("albumName", document.get(FieldNamesConstants.ALBUM));
         assertEquals("albumSort", document.get(FieldNamesConstants.ALBUM_READING));
@@ -138,7 +139,7 @@ class DocumentFactoryTest {
         album.setGenre("genre");
         album.setFolderId(10);
         Document document = documentFactory.createAlbumId3Document(album);
-        assertEquals(12, document.getFields().size(), "fields.size");
+        assertEquals(13, document.getFields().size(), "fields.size");
         assertEquals("1", document.get(FieldNamesConstants.ID));
         assertEquals("name", document.get(FieldNamesConstants.ALBUM));
         assertEquals("nameSort", document.get(FieldNamesConstants.ALBUM_READING));
@@ -198,7 +199,7 @@ class DocumentFactoryTest {
         song.setComposerSortRaw("composerSort");
 
         Document document = documentFactory.createSongDocument(song);
-        assertEquals(18, document.getFields().size(), "fields.size");
+        assertEquals(19, document.getFields().size(), "fields.size");
         assertEquals("1", document.get(FieldNamesConstants.ID));
         assertEquals("artist", document.get(FieldNamesConstants.ARTIST));
         assertEquals("artistSort", document.get(FieldNamesConstants.ARTIST_READING));
@@ -257,6 +258,29 @@ class DocumentFactoryTest {
         assertEquals("genre", document.get(FieldNamesConstants.GENRE));
     }
 
+    @Test
+    void testGenreFacet() {
+        MediaFile song = new MediaFile();
+        song.setId(1);
+        song.setMediaType(MediaType.MUSIC);
+        song.setFolder("folder");
+        song.setGenre("GENRE_A;GENRE_B;GENRE_A");
+        Document document = documentFactory.createSongDocument(song);
+        IndexableField[] facets = document.getFields(FieldNamesConstants.GENRE_FACET);
+        assertEquals(2, facets.length);
+        assertEquals("GENRE_A", facets[0].binaryValue().utf8ToString());
+        assertEquals("GENRE_B", facets[1].binaryValue().utf8ToString());
+
+        // Not counted as a genre of the genre index itself
+        document = documentFactory.createGenreDocument(song);
+        assertEquals(0, document.getFields(FieldNamesConstants.GENRE_FACET).length);
+
+        // Podcasts have no genre
+        song.setMediaType(MediaType.PODCAST);
+        document = documentFactory.createSongDocument(song);
+        assertEquals(0, document.getFields(FieldNamesConstants.GENRE_FACET).length);
+    }
+
     @Documented
     private @interface ReadingDecisions {
         @interface Conditions {
@@ -408,7 +432,7 @@ class DocumentFactoryTest {
                         IndexScheme.ROMANIZED_JAPANESE.name())
                 .build();
             documentFactory = new DocumentFactory(settingsFacade,
-                    new JapaneseReadingUtils(settingsFacade));
+                    new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
 
             MediaFile song = createSong();
             Document document = documentFactory.createSongDocument(song);
@@ -435,7 +459,7 @@ class DocumentFactoryTest {
                         IndexScheme.ROMANIZED_JAPANESE.name())
                 .build();
             documentFactory = new DocumentFactory(settingsFacade,
-                    new JapaneseReadingUtils(settingsFacade));
+                    new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
 
             MediaFile song = createSong();
             song.setArtist("アーティスト");
@@ -471,7 +495,7 @@ class DocumentFactoryTest {
                 .withBoolean(SKeys.advanced.index.forceInternalValueInsteadOfTags, true)
                 .build();
             documentFactory = new DocumentFactory(settingsFacade,
-                    new JapaneseReadingUtils(settingsFacade));
+                    new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
 
             MediaFile song = createSong();
             song.setArtist("アーティスト");
@@ -508,7 +532,7 @@ class DocumentFactoryTest {
                 .withBoolean(SKeys.advanced.index.forceInternalValueInsteadOfTags, true)
                 .build();
             documentFactory = new DocumentFactory(settingsFacade,
-                    new JapaneseReadingUtils(settingsFacade));
+                    new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
 
             MediaFile song = createSong();
             Document document = documentFactory.createSongDocument(song);
@@ -535,7 +559,7 @@ class DocumentFactoryTest {
                 .withBoolean(SKeys.advanced.index.forceInternalValueInsteadOfTags, true)
                 .build();
             documentFactory = new DocumentFactory(settingsFacade,
-                    new JapaneseReadingUtils(settingsFacade));
+                    new JapaneseReadingUtils(settingsFacade), new AnalyzerFactory(settingsFacade));
 
             MediaFile song = createSong();
             song.setArtist("アーティスト");
@@ -38,6 +38,8 @@ import com.tesshu.jpsonic.persistence.api.repository.TranscodingDao;
 import com.tesshu.jpsonic.service.JWTSecurityService;
 import com.tesshu.jpsonic.service.MediaFileService;
 import com.tesshu.jpsonic.service.PlayerService;
+import com.tesshu.jpsonic.service.RemuxPolicy;
+import com.tesshu.jpsonic.service.TranscodeScheduler;
 import com.tesshu.jpsonic.service.TranscodingService;
 import com.tesshu.jpsonic.service.upnp.UPnPSKeys;
 import jakarta.servlet.http.HttpServletRequest;
@@ -70,7 +72,8 @@ class UpnpDIDLFactoryTest {
         playerService = mock(PlayerService.class);
         factory = new UpnpDIDLFactory(settingsFacade, new JWTSecurityService(settingsFacade),
                 mock(MediaFileService.class), playerService, new TranscodingService(settingsFacade,
-                        null, null, transcodingDao, playerService, null));
+                        null, null, transcodingDao, playerService, null,
+                        new TranscodeScheduler(0, 60), mock(RemuxPolicy.class)));
     }
 
     @Test
@@ -0,0 +1,236 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+package com.tesshu.jpsonic.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class BufferPoolTest {
+
+    @Test
+    void testLease() {
+        byte[] leased;
+        try (BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.LOCAL_DISK)) {
+            leased = lease.get();
+            assertEquals(BufferPool.Type.LOCAL_DISK.getSize(), leased.length);
+
+            // Not shared while leased
+            try (BufferPool.Lease other = BufferPool.lease(BufferPool.Type.LOCAL_DISK)) {
+                assertNotSame(leased, other.get());
+            }
+        }
+
+        // Reused after returned
+        BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.LOCAL_DISK);
+        assertSame(leased, lease.get());
+        int idle = BufferPool.Type.LOCAL_DISK.getIdle();
+        lease.close();
+        lease.close();
+        assertEquals(idle + 1, BufferPool.Type.LOCAL_DISK.getIdle());
+        assertThrows(IllegalStateException.class, lease::get);
+
+        // The sizes differ per path
+        try (BufferPool.Lease pipe = BufferPool.lease(BufferPool.Type.TRANSCODER_PIPE)) {
+            assertEquals(BufferPool.Type.TRANSCODER_PIPE.getSize(), pipe.get().length);
+        }
+    }
+
+    @Test
+    void testReuse() {
+        long allocated = BufferPool.Type.NETWORK.getAllocated();
+        for (int i = 0; i < 100; i++) {
+            try (BufferPool.Lease lease = BufferPool.lease(BufferPool.Type.NETWORK)) {
+                assertEquals(BufferPool.Type.NETWORK.getSize(), lease.get().length);
+            }
+        }
+        assertTrue(BufferPool.Type.NETWORK.getAllocated() - allocated <= 1);
+    }
+
+    @Test
+    void testBound() {
+        List<BufferPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < BufferPool.MAX_IDLE * 2; i++) {
+            leases.add(BufferPool.lease(BufferPool.Type.TRANSCODER_PIPE));
+        }
+        leases.forEach(BufferPool.Lease::close);
+        assertEquals(BufferPool.MAX_IDLE, BufferPool.Type.TRANSCODER_PIPE.getIdle());
+    }
+
+    @Test
+    void testCopy() throws IOException {
+        byte[] data = new byte[BufferPool.Type.LOCAL_DISK.getSize() * 3 + 123];
+        new Random(0).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length,
+                BufferPool.copy(new ByteArrayInputStream(data), out, BufferPool.Type.LOCAL_DISK));
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    /*
+     * A copy through the streaming loop used to allocate its own 4KB buffer. A
+     * pooled one allocates none once the pool holds an idle buffer.
+     */
+    @Test
+    void testAllocation() throws IOException {
+        byte[] song = new byte[1024 * 1024];
+        copyPooled(new ByteArrayInputStream(song), OutputStream.nullOutputStream());
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int songs = 20;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < songs; i++) {
+            copyLegacy(new ByteArrayInputStream(song), OutputStream.nullOutputStream());
+        }
+        long legacy = (threads.getCurrentThreadAllocatedBytes() - before) / songs;
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < songs; i++) {
+            copyPooled(new ByteArrayInputStream(song), OutputStream.nullOutputStream());
+        }
+        long pooled = (threads.getCurrentThreadAllocatedBytes() - before) / songs;
+
+        assertTrue(legacy >= 4096);
+        assertTrue(pooled < 4096);
+    }
+
+    /*
+     * Copies with 30 concurrent streams, as the streaming loop used to do with a
+     * buffer allocated per stream and as it does now with a pooled buffer, and
+     * reports the throughput and the bytes allocated. The timings depend on the
+     * machine, so it is run only on demand:
+     * mvn test -Djpsonic.benchmark=true -Dtest=BufferPoolTest*
+     */
+    @Nested
+    @EnabledIfSystemProperty(named = "jpsonic.benchmark", matches = "true")
+    class BenchmarkTest {
+
+        @Test
+        void testBenchmark() throws InterruptedException, ExecutionException {
+            int streams = 30;
+            int songs = 20;
+            byte[] song = new byte[1024 * 1024];
+            new Random(0).nextBytes(song);
+
+            MetricRegistry metrics = new MetricRegistry();
+            Timer legacyTimer = metrics.timer(MetricRegistry.name(BufferPoolTest.class, "legacy"));
+            Timer pooledTimer = metrics.timer(MetricRegistry.name(BufferPoolTest.class, "pooled"));
+
+            // Warm up
+            run(streams, songs, song, legacyTimer, BufferPoolTest.this::copyLegacy);
+            run(streams, songs, song, pooledTimer, BufferPoolTest.this::copyPooled);
+
+            long legacy = run(streams, songs, song, legacyTimer, BufferPoolTest.this::copyLegacy)
+                    / (streams * songs);
+            long pooled = run(streams, songs, song, pooledTimer, BufferPoolTest.this::copyPooled)
+                    / (streams * songs);
+            metrics
+                .histogram(MetricRegistry.name(BufferPoolTest.class, "legacy", "allocatedPerSong"))
+                .update(legacy);
+            metrics
+                .histogram(MetricRegistry.name(BufferPoolTest.class, "pooled", "allocatedPerSong"))
+                .update(pooled);
+
+            ConsoleReporter.Builder builder = ConsoleReporter
+                .forRegistry(metrics)
+                .convertRatesTo(TimeUnit.SECONDS)
+                .convertDurationsTo(TimeUnit.MILLISECONDS);
+            try (ConsoleReporter reporter = builder.build()) {
+                reporter.report();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Copy {
+        void copy(InputStream in, OutputStream out) throws IOException;
+    }
+
+    private void copyLegacy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[4096];
+        for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+            out.write(buf, 0, n);
+        }
+    }
+
+    private void copyPooled(InputStream in, OutputStream out) throws IOException {
+        BufferPool.copy(in, out, BufferPool.Type.NETWORK);
+    }
+
+    /*
+     * Returns the number of bytes allocated by the copying threads.
+     */
+    private static long run(int streams, int songs, byte[] song, Timer timer, Copy copy)
+            throws InterruptedException, ExecutionException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        AtomicLong allocated = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(streams);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < streams; i++) {
+                futures.add(executor.submit(() -> {
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    for (int j = 0; j < songs; j++) {
+                        InputStream in = new ByteArrayInputStream(song);
+                        try (Timer.Context context = timer.time()) {
+                            copy.copy(in, OutputStream.nullOutputStream());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    allocated.addAndGet(threads.getCurrentThreadAllocatedBytes() - before);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return allocated.get();
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * This file is part of Jpsonic.
+ *
+ * Jpsonic is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jpsonic is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * (C) 2026 tesshucom
+ */
+
+
+package com.tesshu.jpsonic.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class ImageDownscalerTest {
+
+    private static BufferedImage fill(int width, int height, int type, Color color) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testScale() {
+        Color color = new Color(10, 200, 77);
+        int[][] sizes = { { 1000, 1000, 300, 300 }, { 77, 53, 31, 17 }, { 301, 299, 150, 100 },
+                { 300, 300, 300, 300 }, { 1000, 10, 3, 1 }, { 10, 10, 40, 40 } };
+        for (int[] size : sizes) {
+            BufferedImage image = ImageDownscaler
+                .scale(fill(size[0], size[1], BufferedImage.TYPE_3BYTE_BGR, color), size[2],
+                        size[3]);
+            assertEquals(size[2], image.getWidth());
+            assertEquals(size[3], image.getHeight());
+            // The weights of each destination pixel add up to 1
+            for (int y = 0; y < size[3]; y++) {
+                for (int x = 0; x < size[2]; x++) {
+                    assertEquals(color.getRGB(), image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testAreaAverage() {
+        // Stripes of 1px are averaged, not aliased
+        BufferedImage stripes = new BufferedImage(90, 90, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 90; x += 2) {
+            for (int y = 0; y < 90; y++) {
+                stripes.setRGB(x, y, 0xFFFFFF);
+            }
+        }
+        BufferedImage image = ImageDownscaler.scale(stripes, 30, 30);
+        assertEquals(0x555555, image.getRGB(1, 1) & 0xFFFFFF);
+        assertEquals(0xAAAAAA, image.getRGB(2, 1) & 0xFFFFFF);
+
+        // Transparency is composited over black
+        BufferedImage translucent = fill(100, 100, BufferedImage.TYPE_INT_ARGB,
+                new Color(255, 255, 255, 128));
+        assertEquals(0x808080, ImageDownscaler.scale(translucent, 10, 10).getRGB(5, 5) & 0xFFFFFF);
+    }
+
+    @Test
+    void testGetSubsampling() {
+        assertEquals(2, ImageDownscaler.getSubsampling(3000, 3000, 300, 300));
+        assertEquals(9, ImageDownscaler.getSubsampling(3000, 3000, 80, 80));
+        assertEquals(1, ImageDownscaler.getSubsampling(600, 600, 300, 300));
+        assertEquals(1, ImageDownscaler.getSubsampling(100, 100, 300, 300));
+        assertEquals(2, ImageDownscaler.getSubsampling(4000, 1000, 100, 100));
+    }
+
+    @Test
+    void testRead() throws IOException {
+        byte[] jpeg = toJpeg(fill(3000, 2000, BufferedImage.TYPE_INT_RGB, Color.ORANGE));
+        BufferedImage image = ImageDownscaler.read(new ByteArrayInputStream(jpeg), 80, 80);
+        assertNotNull(image);
+        assertEquals(500, image.getWidth());
+        assertEquals(334, image.getHeight());
+
+        assertNull(ImageDownscaler.read(new ByteArrayInputStream(new byte[] { 1, 2, 3 }), 80, 80));
+    }
+
+    /*
+     * Album art like images: a gradient, overlapping discs and thin lines.
+     */
+    private static BufferedImage createArt(int size, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics
+            .setPaint(new GradientPaint(0, 0, new Color(random.nextInt()), size, size,
+                    new Color(random.nextInt())));
+        graphics.fillRect(0, 0, size, size);
+        graphics
+            .setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int i = 0; i < 20; i++) {
+            graphics.setColor(new Color(random.nextInt()));
+            int diameter = random.nextInt(size / 2);
+            graphics.fillOval(random.nextInt(size), random.nextInt(size), diameter, diameter);
+        }
+        graphics.setStroke(new BasicStroke(Math.max(1, size / 500f)));
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt()));
+            graphics
+                .drawLine(random.nextInt(size), random.nextInt(size), random.nextInt(size),
+                        random.nextInt(size));
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    /*
+     * The former implementation, halving with bilinear interpolation.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static BufferedImage scaleLegacy(BufferedImage image, int width, int height) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        BufferedImage thumb = image;
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage temp = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = temp.createGraphics();
+            g2
+                .setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(thumb, 0, 0, w, h, null);
+            g2.dispose();
+            thumb = temp;
+        } while (w != width);
+        return thumb;
+    }
+
+    /*
+     * The exact mean of each block, for sizes divisible by the target size.
+     */
+    private static BufferedImage blockMean(BufferedImage image, int size) {
+        int factor = image.getWidth() / size;
+        BufferedImage mean = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                long[] sum = new long[3];
+                for (int j = 0; j < factor; j++) {
+                    for (int i = 0; i < factor; i++) {
+                        int rgb = image.getRGB(x * factor + i, y * factor + j);
+                        sum[0] += rgb >> 16 & 0xFF;
+                        sum[1] += rgb >> 8 & 0xFF;
+                        sum[2] += rgb & 0xFF;
+                    }
+                }
+                int n = factor * factor;
+                mean
+                    .setRGB(x, y, (int) Math.round((double) sum[0] / n) << 16
+                            | (int) Math.round((double) sum[1] / n) << 8
+                            | (int) Math.round((double) sum[2] / n));
+            }
+        }
+        return mean;
+    }
+
+    private static double squaredError(BufferedImage image, BufferedImage reference) {
+        double sum = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int a = image.getRGB(x, y);
+                int b = reference.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    int d = (a >> shift & 0xFF) - (b >> shift & 0xFF);
+                    sum += d * d;
+                }
+            }
+        }
+        return sum / (image.getWidth() * image.getHeight() * 3);
+    }
+
+    private static double toPsnr(double meanSquaredError) {
+        return 10 * Math.log10(255.0 * 255.0 / meanSquaredError);
+    }
+
+    private static List<byte[]> createCorpus(int... sourceSizes) throws IOException {
+        List<byte[]> corpus = new ArrayList<>();
+        for (int sourceSize : sourceSizes) {
+            for (int i = 0; i < 2; i++) {
+                corpus.add(toJpeg(createArt(sourceSize, sourceSize + i)));
+            }
+        }
+        return corpus;
+    }
+
+    private record Comparison(long legacyAllocated, long downscalerAllocated, double legacyError,
+            double downscalerError) {
+    }
+
+    /*
+     * Creates thumbnails from the corpus, as the cover art cache used to do (full
+     * decoding and halving) and as it does now (subsampled decoding and area
+     * average). The time and the bytes allocated are recorded in the registry, and
+     * the squared error from the exact block mean is summed up.
+     */
+    private static Comparison compare(List<byte[]> corpus, int[] sizes, MetricRegistry metrics)
+            throws IOException {
+        Timer legacyTimer = metrics.timer(MetricRegistry.name(ImageDownscalerTest.class, "legacy"));
+        Timer downscalerTimer = metrics
+            .timer(MetricRegistry.name(ImageDownscalerTest.class, "downscaler"));
+        Histogram legacyAllocation = metrics
+            .histogram(MetricRegistry.name(ImageDownscalerTest.class, "legacy", "allocated"));
+        Histogram downscalerAllocation = metrics
+            .histogram(MetricRegistry.name(ImageDownscalerTest.class, "downscaler", "allocated"));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long legacyAllocated = 0;
+        long downscalerAllocated = 0;
+        double legacyError = 0;
+        double downscalerError = 0;
+
+        for (int round = 0; round < 2; round++) {
+            for (byte[] jpeg : corpus) {
+                for (int size : sizes) {
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    BufferedImage legacy;
+                    try (Timer.Context context = legacyTimer.time()) {
+                        legacy = scaleLegacy(ImageIO.read(new ByteArrayInputStream(jpeg)), size,
+                                size);
+                    }
+                    long middle = threads.getCurrentThreadAllocatedBytes();
+                    BufferedImage downscaled;
+                    try (Timer.Context context = downscalerTimer.time()) {
+                        downscaled = ImageDownscaler
+                            .scale(ImageDownscaler.read(new ByteArrayInputStream(jpeg), size, size),
+                                    size, size);
+                    }
+                    long after = threads.getCurrentThreadAllocatedBytes();
+
+                    // The first round is the warm up
+                    if (round > 0) {
+                        legacyAllocated += middle - before;
+                        downscalerAllocated += after - middle;
+                        legacyAllocation.update(middle - before);
+                        downscalerAllocation.update(after - middle);
+                        BufferedImage reference = blockMean(
+                                ImageIO.read(new ByteArrayInputStream(jpeg)), size);
+                        legacyError += squaredError(legacy, reference);
+                        downscalerError += squaredError(downscaled, reference);
+                    }
+                }
+            }
+        }
+        return new Comparison(legacyAllocated, downscalerAllocated, legacyError,
+                downscalerError);
+    }
+
+    /*
+     * Over the corpus, closer to the exact block mean than the former
+     * implementation, with less allocated. Neither depends on the speed of the
+     * machine.
+     */
+    @Test
+    void testCompareWithLegacy() throws IOException {
+        Comparison comparison = compare(createCorpus(1500), new int[] { 300, 150, 60 },
+                new MetricRegistry());
+        assertTrue(comparison.downscalerAllocated() < comparison.legacyAllocated());
+        assertTrue(comparison.downscalerError() <= comparison.legacyError());
+    }
+
+    /*
+     * Runs the comparison over a larger corpus and reports the time, the bytes
+     * allocated and the PSNR from the block mean. The timings depend on the
+     * machine, so it is run only on demand:
+     * mvn test -Djpsonic.benchmark=true -Dtest=ImageDownscalerTest*
+     */
+    @Nested
+    @EnabledIfSystemProperty(named = "jpsonic.benchmark", matches = "true")
+    class BenchmarkTest {
+
+        @Test
+        void testBenchmark() throws IOException {
+            List<byte[]> corpus = createCorpus(3000, 1500, 600);
+            int[] sizes = { 300, 150, 60 };
+            MetricRegistry metrics = new MetricRegistry();
+            Comparison comparison = compare(corpus, sizes, metrics);
+
+            // PSNR from the block mean in dB
+            int count = corpus.size() * sizes.length;
+            double legacyPsnr = toPsnr(comparison.legacyError() / count);
+            double downscalerPsnr = toPsnr(comparison.downscalerError() / count);
+            metrics
+                .register(MetricRegistry.name(ImageDownscalerTest.class, "legacy", "psnr"),
+                        (Gauge<Double>) () -> legacyPsnr);
+            metrics
+                .register(MetricRegistry.name(ImageDownscalerTest.class, "downscaler", "psnr"),
+                        (Gauge<Double>) () -> downscalerPsnr);
+
+            ConsoleReporter.Builder builder = ConsoleReporter
+                .forRegistry(metrics)
+                .convertRatesTo(TimeUnit.SECONDS)
+                .convertDurationsTo(TimeUnit.MILLISECONDS);
+            try (ConsoleReporter reporter = builder.build()) {
+                reporter.report();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+#!/bin/sh
+#
+# Stand-in for ffmpeg in transcoder load tests.
+# Writes <kbytes> KiB of zeros to stdout at <kbytes per second>.
+#
+# usage: fake-transcoder.sh <kbytes> <kbytes per second>
+#
+
+KBYTES=${1:-64}
+RATE=${2:-256}
+
+i=0
+while [ "$i" -lt "$KBYTES" ]; do
+    head -c "$((RATE < KBYTES - i ? RATE : KBYTES - i))k" /dev/zero
+    i=$((i + RATE))
+    [ "$i" -lt "$KBYTES" ] && sleep 1
+done
+exit 0